@@ -0,0 +1,278 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+
+import org.apache.commons.net.io.CopyStreamEvent;
+import org.apache.commons.net.io.CopyStreamException;
+import org.apache.commons.net.io.CopyStreamListener;
+import org.apache.commons.net.io.Util;
+
+/**
+ * Sizes the copy buffer and the data socket buffers of an {@link FTPClient} from the throughput of its transfers, see
+ * {@link FTPClient#setAdaptiveBufferSizing(AdaptiveBufferSizing)}.
+ * <p>
+ * While a stream is copied, reads are looked at in windows of a few reads. When most reads fill the whole buffer the buffer limits the transfer and is
+ * doubled, as long as doubling it raised the throughput by at least a tenth; when most reads return less than a quarter of it, it is halved. The size
+ * reached is kept for the next transfer. After each transfer the socket buffer size is set to twice the bandwidth-delay product, the throughput times the
+ * round trip time of the last {@code EPSV}, {@code PASV} or {@code PORT} command, and used for the {@code SO_RCVBUF} and {@code SO_SNDBUF} of the next data
+ * connections whose sizes are not set explicitly. Until a transfer has been measured, and if the socket buffer bounds are zero, the operating system
+ * defaults are kept; note that setting a socket buffer size disables the automatic tuning of some operating systems.
+ * </p>
+ * <p>
+ * An instance holds the state of one client and is not thread-safe.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class AdaptiveBufferSizing {
+
+    /** The default minimum copy buffer size, {@value}. */
+    public static final int DEFAULT_MIN_BUFFER_SIZE = Util.DEFAULT_COPY_BUFFER_SIZE;
+
+    /** The default maximum copy buffer size, {@value}. */
+    public static final int DEFAULT_MAX_BUFFER_SIZE = 1024 * 1024;
+
+    /** The default minimum socket buffer size, {@value}. */
+    public static final int DEFAULT_MIN_SOCKET_BUFFER_SIZE = 64 * 1024;
+
+    /** The default maximum socket buffer size, {@value}. */
+    public static final int DEFAULT_MAX_SOCKET_BUFFER_SIZE = 8 * 1024 * 1024;
+
+    /** The number of reads in a measurement window. */
+    private static final int WINDOW_READS = 16;
+
+    private final int minBufferSize;
+    private final int maxBufferSize;
+    private final int minSocketBufferSize;
+    private final int maxSocketBufferSize;
+    private int bufferSize;
+    private int socketBufferSize;
+    private long roundTripNanos;
+    private long throughput;
+    private long transferCount;
+
+    /**
+     * Creates an instance with the default bounds.
+     */
+    public AdaptiveBufferSizing() {
+        this(DEFAULT_MIN_BUFFER_SIZE, DEFAULT_MAX_BUFFER_SIZE, DEFAULT_MIN_SOCKET_BUFFER_SIZE, DEFAULT_MAX_SOCKET_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates an instance.
+     *
+     * @param minBufferSize the minimum copy buffer size, which is also the initial size.
+     * @param maxBufferSize the maximum copy buffer size.
+     * @param minSocketBufferSize the minimum socket buffer size, zero to never set the socket buffer sizes.
+     * @param maxSocketBufferSize the maximum socket buffer size.
+     */
+    public AdaptiveBufferSizing(final int minBufferSize, final int maxBufferSize, final int minSocketBufferSize, final int maxSocketBufferSize) {
+        if (minBufferSize < 1) {
+            throw new IllegalArgumentException("minBufferSize must be at least 1: " + minBufferSize);
+        }
+        if (maxBufferSize < minBufferSize) {
+            throw new IllegalArgumentException("maxBufferSize must be at least minBufferSize: " + maxBufferSize);
+        }
+        if (minSocketBufferSize < 0) {
+            throw new IllegalArgumentException("minSocketBufferSize must not be negative: " + minSocketBufferSize);
+        }
+        if (maxSocketBufferSize < minSocketBufferSize) {
+            throw new IllegalArgumentException("maxSocketBufferSize must be at least minSocketBufferSize: " + maxSocketBufferSize);
+        }
+        this.minBufferSize = minBufferSize;
+        this.maxBufferSize = maxBufferSize;
+        this.minSocketBufferSize = minSocketBufferSize;
+        this.maxSocketBufferSize = maxSocketBufferSize;
+        this.bufferSize = minBufferSize;
+    }
+
+    /**
+     * Copies a stream like {@link Util#copyStream(InputStream, OutputStream, int, long, CopyStreamListener, boolean)}, adapting the buffer size, and
+     * records the throughput.
+     */
+    long copy(final InputStream source, final OutputStream dest, final CopyStreamListener listener) throws CopyStreamException {
+        final long start = System.nanoTime();
+        long total = 0;
+        byte[] buffer = new byte[bufferSize];
+        // the throughput of the window before the last growth, zero if the buffer did not grow
+        long throughputBeforeGrowth = 0;
+        boolean grow = true;
+        int reads = 0;
+        int fullReads = 0;
+        long windowBytes = 0;
+        long windowStart = start;
+        try {
+            int numBytes;
+            while ((numBytes = source.read(buffer)) != -1) {
+                if (numBytes == 0) {
+                    final int singleByte = source.read();
+                    if (singleByte < 0) {
+                        break;
+                    }
+                    dest.write(singleByte);
+                    numBytes = 1;
+                } else {
+                    dest.write(buffer, 0, numBytes);
+                }
+                total += numBytes;
+                if (listener != null) {
+                    listener.bytesTransferred(total, numBytes, CopyStreamEvent.UNKNOWN_STREAM_SIZE);
+                }
+                reads++;
+                windowBytes += numBytes;
+                if (numBytes == buffer.length) {
+                    fullReads++;
+                }
+                if (reads < WINDOW_READS) {
+                    continue;
+                }
+                final long now = System.nanoTime();
+                final long windowThroughput = windowBytes * 1_000_000_000L / Math.max(1, now - windowStart);
+                if (throughputBeforeGrowth > 0 && windowThroughput < throughputBeforeGrowth + throughputBeforeGrowth / 10) {
+                    // the last growth did not help
+                    grow = false;
+                }
+                throughputBeforeGrowth = 0;
+                if (fullReads * 4 >= reads * 3 && grow && bufferSize < maxBufferSize) {
+                    throughputBeforeGrowth = windowThroughput;
+                    bufferSize = (int) Math.min(maxBufferSize, 2L * bufferSize);
+                    buffer = new byte[bufferSize];
+                } else if (fullReads * 4 <= reads && windowBytes * 4 < (long) reads * bufferSize && bufferSize > minBufferSize) {
+                    bufferSize = Math.max(minBufferSize, bufferSize / 2);
+                    buffer = new byte[bufferSize];
+                }
+                reads = 0;
+                fullReads = 0;
+                windowBytes = 0;
+                windowStart = now;
+            }
+        } catch (final IOException e) {
+            throw new CopyStreamException("IOException caught while copying.", total, e);
+        }
+        recordTransfer(total, System.nanoTime() - start);
+        return total;
+    }
+
+    /**
+     * Gets the copy buffer size for the next transfer.
+     *
+     * @return the copy buffer size.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the maximum copy buffer size.
+     *
+     * @return the maximum copy buffer size.
+     */
+    public int getMaxBufferSize() {
+        return maxBufferSize;
+    }
+
+    /**
+     * Gets the maximum socket buffer size.
+     *
+     * @return the maximum socket buffer size.
+     */
+    public int getMaxSocketBufferSize() {
+        return maxSocketBufferSize;
+    }
+
+    /**
+     * Gets the minimum copy buffer size.
+     *
+     * @return the minimum copy buffer size.
+     */
+    public int getMinBufferSize() {
+        return minBufferSize;
+    }
+
+    /**
+     * Gets the minimum socket buffer size.
+     *
+     * @return the minimum socket buffer size.
+     */
+    public int getMinSocketBufferSize() {
+        return minSocketBufferSize;
+    }
+
+    /**
+     * Gets the last measured round trip time of the control connection.
+     *
+     * @return the round trip time, zero if not measured yet.
+     */
+    public Duration getRoundTripTime() {
+        return Duration.ofNanos(roundTripNanos);
+    }
+
+    /**
+     * Gets the socket buffer size for the next data connections.
+     *
+     * @return the socket buffer size, zero to keep the operating system default.
+     */
+    public int getSocketBufferSize() {
+        return socketBufferSize;
+    }
+
+    /**
+     * Gets the throughput of the last transfer.
+     *
+     * @return the throughput in bytes per second, zero if no transfer has been measured.
+     */
+    public long getThroughput() {
+        return throughput;
+    }
+
+    /**
+     * Gets the number of transfers measured.
+     *
+     * @return the number of transfers.
+     */
+    public long getTransferCount() {
+        return transferCount;
+    }
+
+    /**
+     * Records the round trip time of a command on the control connection.
+     */
+    void recordRoundTrip(final long nanos) {
+        roundTripNanos = nanos;
+    }
+
+    /**
+     * Records a transfer and updates the socket buffer size from the bandwidth-delay product.
+     */
+    void recordTransfer(final long bytes, final long nanos) {
+        transferCount++;
+        if (bytes <= 0 || nanos <= 0) {
+            return;
+        }
+        // in double, bytes * 1_000_000_000 overflows a long above about 9.2 GB
+        throughput = (long) (bytes * 1e9 / nanos);
+        if (minSocketBufferSize > 0 && roundTripNanos > 0) {
+            final double bandwidthDelayProduct = (double) throughput * roundTripNanos / 1_000_000_000L;
+            socketBufferSize = (int) Math.max(minSocketBufferSize, Math.min(maxSocketBufferSize, 2 * bandwidthDelayProduct));
+        }
+    }
+}
@@ -0,0 +1,711 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.net.MalformedServerReplyException;
+import org.apache.commons.net.ProtocolCommandListener;
+import org.apache.commons.net.ProtocolCommandSupport;
+import org.apache.commons.net.ftp.parser.DefaultFTPFileEntryParserFactory;
+import org.apache.commons.net.io.ReplyDecoder;
+
+/**
+ * An FTP client whose operations do not block: each returns a {@link CompletableFuture} completed by the threads of an
+ * {@link AsynchronousChannelGroup}, so that thousands of sessions can share a few threads.
+ * <p>
+ * The operations of one client may be called at any time from any thread; they are queued and run one after the other, in call order. An operation
+ * which fails completes its future exceptionally, usually with an {@link IOException}, and the following operations still run. Data connections use
+ * local passive mode, with {@code EPSV} and {@code PASV} as a fallback, and always connect to the address of the control connection. Files are
+ * transferred in binary mode.
+ * </p>
+ * <pre>
+ * AsyncFTPClient client = new AsyncFTPClient(group);
+ * client.connect(host, FTP.DEFAULT_PORT)
+ *     .thenCompose(reply -&gt; client.login(user, password))
+ *     .thenCompose(loggedIn -&gt; client.listFiles("/pub"))
+ *     .whenComplete((files, e) -&gt; client.close());
+ * </pre>
+ *
+ * @since 3.12.0
+ */
+public class AsyncFTPClient implements Closeable {
+
+    /**
+     * A reply of the control connection.
+     */
+    public static final class Reply {
+
+        private final int replyCode;
+        private final String[] replyLines;
+
+        Reply(final int replyCode, final String[] replyLines) {
+            this.replyCode = replyCode;
+            this.replyLines = replyLines;
+        }
+
+        /**
+         * Gets the reply code.
+         *
+         * @return the reply code.
+         */
+        public int getReplyCode() {
+            return replyCode;
+        }
+
+        /**
+         * Gets the reply text, like {@link FTP#getReplyString()}.
+         *
+         * @return the reply lines, each terminated by CRLF.
+         */
+        public String getReplyString() {
+            final StringBuilder sb = new StringBuilder(256);
+            for (final String line : replyLines) {
+                sb.append(line).append(FTP.NETASCII_EOL);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Gets the reply lines, like {@link FTP#getReplyStrings()}.
+         *
+         * @return a copy of the reply lines.
+         */
+        public String[] getReplyStrings() {
+            return replyLines.clone();
+        }
+
+        /**
+         * Tests whether the reply is a positive completion.
+         *
+         * @return whether the reply code is a positive completion.
+         */
+        public boolean isPositiveCompletion() {
+            return FTPReply.isPositiveCompletion(replyCode);
+        }
+
+        @Override
+        public String toString() {
+            return replyLines[replyLines.length - 1];
+        }
+    }
+
+    /** The port in a PASV reply. Groups: (n),(n) */
+    private static final Pattern PASV_PORT = Pattern.compile("\\d{1,3},\\d{1,3},\\d{1,3},\\d{1,3},(\\d{1,3}),(\\d{1,3})");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static CompletionException failure(final String message, final Reply reply) {
+        return new CompletionException(new IOException(message + ": " + reply.getReplyString().trim()));
+    }
+
+    /**
+     * Reads from a channel.
+     */
+    private static CompletableFuture<Integer> read(final AsynchronousSocketChannel channel, final ByteBuffer buffer, final long timeoutMillis) {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        channel.read(buffer, timeoutMillis, TimeUnit.MILLISECONDS, null, handler(future));
+        return future;
+    }
+
+    private static <V> CompletionHandler<V, Object> handler(final CompletableFuture<V> future) {
+        return new CompletionHandler<V, Object>() {
+            @Override
+            public void completed(final V result, final Object attachment) {
+                future.complete(result);
+            }
+
+            @Override
+            public void failed(final Throwable exc, final Object attachment) {
+                future.completeExceptionally(exc);
+            }
+        };
+    }
+
+    private static void closeQuietly(final Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (final IOException e) {
+            // ignored, the operation has already completed or failed
+        }
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer to a socket channel.
+     */
+    private static CompletableFuture<Void> writeFully(final AsynchronousSocketChannel channel, final ByteBuffer buffer) {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        channel.write(buffer, null, handler(future));
+        return future.thenCompose(n -> buffer.hasRemaining() ? writeFully(channel, buffer) : CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Writes all the remaining bytes of a buffer to a file channel.
+     */
+    private static CompletableFuture<Void> writeFully(final AsynchronousFileChannel channel, final ByteBuffer buffer, final long position) {
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        channel.write(buffer, position, null, handler(future));
+        return future.thenCompose(n -> buffer.hasRemaining() ? writeFully(channel, buffer, position + n) : CompletableFuture.completedFuture(null));
+    }
+
+    private final AsynchronousChannelGroup group;
+    private final ProtocolCommandSupport commandSupport = new ProtocolCommandSupport(this);
+    private final ByteBuffer replyBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private Charset controlEncoding = Charset.forName(FTP.DEFAULT_CONTROL_ENCODING);
+    private ReplyDecoder replyDecoder = new ReplyDecoder(controlEncoding);
+    private Duration timeout = Duration.ZERO;
+    private FTPFileEntryParser entryParser;
+    private AsynchronousSocketChannel channel;
+    private InetAddress remoteAddress;
+    private boolean binaryType;
+    private CompletableFuture<?> last = CompletableFuture.completedFuture(null);
+
+    /**
+     * Creates a client which uses the default channel group of the JVM.
+     */
+    public AsyncFTPClient() {
+        this(null);
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param group the group whose threads run the operations, or null for the default group of the JVM.
+     */
+    public AsyncFTPClient(final AsynchronousChannelGroup group) {
+        this.group = group;
+        replyBuffer.flip();
+    }
+
+    /**
+     * Adds a listener which is notified of the commands sent and of the replies received.
+     *
+     * @param listener the listener.
+     */
+    public void addProtocolCommandListener(final ProtocolCommandListener listener) {
+        commandSupport.addProtocolCommandListener(listener);
+    }
+
+    /**
+     * Closes the control connection without logging out. Pending operations complete exceptionally.
+     */
+    @Override
+    public void close() {
+        final AsynchronousSocketChannel current = channel;
+        if (current != null) {
+            closeQuietly(current);
+        }
+    }
+
+    /**
+     * Connects to a server and reads its welcome reply. A connection still open is closed first.
+     *
+     * @param host the server host name.
+     * @param port the server port.
+     * @return the welcome reply, completed exceptionally if the connection fails or if the server refuses it.
+     */
+    public CompletableFuture<Reply> connect(final String host, final int port) {
+        return enqueue(() -> {
+            final CompletableFuture<Void> connected = new CompletableFuture<>();
+            if (channel != null) {
+                closeQuietly(channel);
+            }
+            try {
+                channel = AsynchronousSocketChannel.open(group);
+                replyBuffer.clear().flip();
+                replyDecoder = new ReplyDecoder(controlEncoding);
+                binaryType = false;
+                channel.connect(new InetSocketAddress(host, port), null, handler(connected));
+            } catch (final IOException e) {
+                connected.completeExceptionally(e);
+            }
+            return connected.thenCompose(v -> {
+                remoteAddress = ((InetSocketAddress) getRemoteSocketAddress()).getAddress();
+                return readWelcome();
+            }).thenApply(reply -> {
+                if (!reply.isPositiveCompletion()) {
+                    close();
+                    throw failure("Connection refused", reply);
+                }
+                return reply;
+            });
+        });
+    }
+
+    /**
+     * Runs operations one after the other.
+     */
+    private synchronized <T> CompletableFuture<T> enqueue(final Supplier<CompletableFuture<T>> operation) {
+        final CompletableFuture<T> next = last.handle((r, e) -> null).thenCompose(v -> operation.get());
+        last = next;
+        return next;
+    }
+
+    /**
+     * Sends a command and reads its reply, without queueing.
+     */
+    private CompletableFuture<Reply> execute(final String command, final String argument) {
+        if (channel == null) {
+            final CompletableFuture<Reply> future = new CompletableFuture<>();
+            future.completeExceptionally(new IOException("Not connected"));
+            return future;
+        }
+        final String message = argument == null ? command + FTP.NETASCII_EOL : command + " " + argument + FTP.NETASCII_EOL;
+        return writeFully(channel, ByteBuffer.wrap(message.getBytes(controlEncoding))).thenCompose(v -> {
+            commandSupport.fireCommandSent(command, message);
+            return readReply();
+        });
+    }
+
+    /**
+     * Gets the parser for LIST replies, creating it from the SYST reply if needed.
+     */
+    private CompletableFuture<FTPFileEntryParser> getEntryParser() {
+        if (entryParser != null) {
+            return CompletableFuture.completedFuture(entryParser);
+        }
+        return execute(FTPCmd.SYST.getCommand(), null).thenApply(reply -> {
+            final String[] lines = reply.getReplyStrings();
+            final String systemType = reply.isPositiveCompletion() && lines[lines.length - 1].length() > 4 ? lines[lines.length - 1].substring(4)
+                    : FTPClientConfig.SYST_UNIX;
+            entryParser = new DefaultFTPFileEntryParserFactory().createFileEntryParser(systemType);
+            return entryParser;
+        });
+    }
+
+    /**
+     * Gets the address of the server.
+     *
+     * @return the address, or null if not connected.
+     */
+    public SocketAddress getRemoteSocketAddress() {
+        try {
+            return channel == null ? null : channel.getRemoteAddress();
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Gets the timeout of reads on the control and data connections.
+     *
+     * @return the timeout, zero for none.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Tests whether the control connection is open.
+     *
+     * @return whether the client is connected.
+     */
+    public boolean isConnected() {
+        final AsynchronousSocketChannel current = channel;
+        return current != null && current.isOpen();
+    }
+
+    /**
+     * Lists a directory with {@code LIST}, parsed by the parser set with {@link #setEntryParser(FTPFileEntryParser)} or else by a parser chosen from
+     * the reply to {@code SYST}.
+     *
+     * @param pathname the directory, or null for the current directory.
+     * @return the entries, never null.
+     */
+    public CompletableFuture<FTPFile[]> listFiles(final String pathname) {
+        return enqueue(() -> getEntryParser().thenCompose(parser -> transfer(FTPCmd.LIST.getCommand(), pathname, this::readAll).thenApply(bytes -> {
+            final FTPListParseEngine engine = new FTPListParseEngine(parser);
+            try {
+                engine.readServerList(new ByteArrayInputStream(bytes), controlEncoding.name());
+                return engine.getFiles(FTPFileFilters.NON_NULL);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+        })));
+    }
+
+    /**
+     * Lists the names in a directory with {@code NLST}.
+     *
+     * @param pathname the directory, or null for the current directory.
+     * @return the names, never null.
+     */
+    public CompletableFuture<String[]> listNames(final String pathname) {
+        return enqueue(() -> transfer(FTPCmd.NLST.getCommand(), pathname, this::readAll).thenApply(bytes -> {
+            final List<String> names = new ArrayList<>();
+            for (final String line : new String(bytes, controlEncoding).split("\r?\n")) {
+                if (!line.isEmpty()) {
+                    names.add(line);
+                }
+            }
+            return names.toArray(new String[0]);
+        }));
+    }
+
+    /**
+     * Logs in.
+     *
+     * @param user the user name.
+     * @param password the password.
+     * @return whether the login succeeded.
+     */
+    public CompletableFuture<Boolean> login(final String user, final String password) {
+        return enqueue(() -> execute(FTPCmd.USER.getCommand(), user).thenCompose(reply -> {
+            if (reply.isPositiveCompletion()) {
+                return CompletableFuture.completedFuture(Boolean.TRUE);
+            }
+            if (!FTPReply.isPositiveIntermediate(reply.getReplyCode())) {
+                return CompletableFuture.completedFuture(Boolean.FALSE);
+            }
+            return execute(FTPCmd.PASS.getCommand(), password).thenApply(Reply::isPositiveCompletion);
+        }));
+    }
+
+    /**
+     * Logs out with {@code QUIT} and closes the control connection.
+     *
+     * @return whether the server acknowledged the logout.
+     */
+    public CompletableFuture<Boolean> logout() {
+        return enqueue(() -> execute(FTPCmd.QUIT.getCommand(), null).handle((reply, e) -> {
+            close();
+            return reply != null && reply.isPositiveCompletion();
+        }));
+    }
+
+    /**
+     * Opens a passive data connection.
+     */
+    private CompletableFuture<AsynchronousSocketChannel> openDataConnection() {
+        return execute(FTPCmd.EPSV.getCommand(), null).thenCompose(reply -> {
+            if (reply.getReplyCode() == FTPReply.ENTERING_EPSV_MODE) {
+                return CompletableFuture.completedFuture(reply);
+            }
+            return execute(FTPCmd.PASV.getCommand(), null);
+        }).thenCompose(reply -> {
+            final int port = parsePassivePort(reply);
+            final CompletableFuture<Void> connected = new CompletableFuture<>();
+            final AsynchronousSocketChannel data;
+            try {
+                data = AsynchronousSocketChannel.open(group);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+            data.connect(new InetSocketAddress(remoteAddress, port), null, handler(connected));
+            return connected.handle((v, e) -> {
+                if (e != null) {
+                    closeQuietly(data);
+                    throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                }
+                return data;
+            });
+        });
+    }
+
+    /**
+     * Gets the port of an EPSV or PASV reply.
+     */
+    private int parsePassivePort(final Reply reply) {
+        final String text = reply.getReplyStrings()[0];
+        try {
+            if (reply.getReplyCode() == FTPReply.ENTERING_EPSV_MODE) {
+                final String value = text.substring(text.indexOf('(') + 1, text.indexOf(')'));
+                return Integer.parseInt(value.substring(3, value.length() - 1));
+            }
+            if (reply.getReplyCode() == FTPReply.ENTERING_PASSIVE_MODE) {
+                final Matcher m = PASV_PORT.matcher(text);
+                if (m.find()) {
+                    return (Integer.parseInt(m.group(1)) << 8) + Integer.parseInt(m.group(2));
+                }
+            }
+        } catch (final IndexOutOfBoundsException | NumberFormatException e) {
+            // reported below
+        }
+        if (FTPReply.isPositiveCompletion(reply.getReplyCode())) {
+            throw new CompletionException(new MalformedServerReplyException("Could not parse passive host information.\nServer Reply: " + text));
+        }
+        throw failure("Could not enter passive mode", reply);
+    }
+
+    /**
+     * Reads all the bytes of a data connection.
+     */
+    private CompletableFuture<byte[]> readAll(final AsynchronousSocketChannel data) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        return readAll(data, buffer, bytes).thenApply(v -> bytes.toByteArray());
+    }
+
+    private CompletableFuture<Void> readAll(final AsynchronousSocketChannel data, final ByteBuffer buffer, final ByteArrayOutputStream bytes) {
+        return read(data, buffer, timeout.toMillis()).thenCompose(n -> {
+            if (n < 0) {
+                return CompletableFuture.completedFuture(null);
+            }
+            bytes.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+            return readAll(data, buffer, bytes);
+        });
+    }
+
+    /**
+     * Reads a line of the control connection into the reply decoder.
+     */
+    private CompletableFuture<Void> readLine() {
+        if (replyDecoder.readLine(replyBuffer)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        replyBuffer.clear();
+        return read(channel, replyBuffer, timeout.toMillis()).thenCompose(n -> {
+            replyBuffer.flip();
+            if (n < 0) {
+                throw new CompletionException(new EOFException("Connection closed without indication."));
+            }
+            return readLine();
+        });
+    }
+
+    /**
+     * Reads a reply of the control connection.
+     */
+    private CompletableFuture<Reply> readReply() {
+        replyDecoder.clear();
+        return readReplyLines().thenApply(code -> {
+            final Reply reply = new Reply(code, replyDecoder.getLines());
+            commandSupport.fireReplyReceived(code, replyDecoder.getText());
+            return reply;
+        });
+    }
+
+    private CompletableFuture<Integer> readReplyLines() {
+        return readLine().thenCompose(v -> {
+            final int code = replyDecoder.getReplyCode(0);
+            if (code < 0) {
+                throw new CompletionException(new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + replyDecoder.getLine(0)));
+            }
+            if (replyDecoder.byteAt(0, 3) == '-') {
+                final int last = replyDecoder.getLineCount() - 1;
+                if (last == 0 || replyDecoder.getReplyCode(last) != code || replyDecoder.byteAt(last, 3) != ' ' && replyDecoder.byteAt(last, 3) != -1) {
+                    return readReplyLines();
+                }
+            }
+            return CompletableFuture.completedFuture(code);
+        });
+    }
+
+    /**
+     * Reads the welcome reply, skipping a 120 reply.
+     */
+    private CompletableFuture<Reply> readWelcome() {
+        return readReply().thenCompose(reply -> reply.getReplyCode() == FTPReply.SERVICE_NOT_READY ? readWelcome()
+                : CompletableFuture.completedFuture(reply));
+    }
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener.
+     */
+    public void removeProtocolCommandListener(final ProtocolCommandListener listener) {
+        commandSupport.removeProtocolCommandListener(listener);
+    }
+
+    /**
+     * Downloads a file with {@code RETR}, replacing the local file.
+     *
+     * @param remote the remote file.
+     * @param local the local file.
+     * @return the number of bytes transferred.
+     */
+    public CompletableFuture<Long> retrieveFile(final String remote, final Path local) {
+        return enqueue(() -> transfer(FTPCmd.RETR.getCommand(), remote, data -> {
+            final AsynchronousFileChannel file;
+            try {
+                file = AsynchronousFileChannel.open(local, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            } catch (final IOException e) {
+                throw new CompletionException(e);
+            }
+            return retrieveFile(data, file, ByteBuffer.allocate(BUFFER_SIZE), 0).whenComplete((n, e) -> closeQuietly(file));
+        }));
+    }
+
+    private CompletableFuture<Long> retrieveFile(final AsynchronousSocketChannel data, final AsynchronousFileChannel file, final ByteBuffer buffer,
+            final long position) {
+        return read(data, buffer, timeout.toMillis()).thenCompose(n -> {
+            if (n < 0) {
+                return CompletableFuture.completedFuture(position);
+            }
+            buffer.flip();
+            return writeFully(file, buffer, position).thenCompose(v -> {
+                buffer.clear();
+                return retrieveFile(data, file, buffer, position + n);
+            });
+        });
+    }
+
+    /**
+     * Sends a command and reads its reply.
+     *
+     * @param command the command.
+     * @param argument the argument, or null for none.
+     * @return the reply.
+     */
+    public CompletableFuture<Reply> sendCommand(final String command, final String argument) {
+        return enqueue(() -> execute(command, argument));
+    }
+
+    /**
+     * Sets the character set of the control connection. Default {@link FTP#DEFAULT_CONTROL_ENCODING}.
+     *
+     * @param controlEncoding the character set, which must encode CR and LF as single bytes.
+     * @throws IllegalArgumentException if the character set does not encode CR and LF as single bytes.
+     */
+    public void setControlEncoding(final Charset controlEncoding) {
+        replyDecoder = new ReplyDecoder(controlEncoding);
+        this.controlEncoding = controlEncoding;
+    }
+
+    /**
+     * Sets the parser of {@code LIST} replies, instead of a parser chosen from the reply to {@code SYST}.
+     *
+     * @param entryParser the parser, or null to use {@code SYST}.
+     */
+    public void setEntryParser(final FTPFileEntryParser entryParser) {
+        this.entryParser = entryParser;
+    }
+
+    /**
+     * Sets the timeout of each read on the control and data connections. A read which times out fails its operation with an
+     * {@link java.nio.channels.InterruptedByTimeoutException}, after which the client should be closed. Default zero, for none.
+     *
+     * @param timeout the timeout, zero for none.
+     */
+    public void setTimeout(final Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Timeout must not be negative: " + timeout);
+        }
+        this.timeout = timeout;
+    }
+
+    /**
+     * Uploads a file with {@code STOR}.
+     *
+     * @param local the local file.
+     * @param remote the remote file.
+     * @return the number of bytes transferred.
+     */
+    public CompletableFuture<Long> storeFile(final Path local, final String remote) {
+        return enqueue(() -> {
+            final AsynchronousFileChannel file;
+            try {
+                file = AsynchronousFileChannel.open(local, StandardOpenOption.READ);
+            } catch (final IOException e) {
+                final CompletableFuture<Long> future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+                return future;
+            }
+            return transfer(FTPCmd.STOR.getCommand(), remote, data -> storeFile(file, data, ByteBuffer.allocate(BUFFER_SIZE), 0))
+                    .whenComplete((n, e) -> closeQuietly(file));
+        });
+    }
+
+    private CompletableFuture<Long> storeFile(final AsynchronousFileChannel file, final AsynchronousSocketChannel data, final ByteBuffer buffer,
+            final long position) {
+        final CompletableFuture<Integer> read = new CompletableFuture<>();
+        file.read(buffer, position, null, handler(read));
+        return read.thenCompose(n -> {
+            if (n < 0) {
+                return CompletableFuture.completedFuture(position);
+            }
+            buffer.flip();
+            return writeFully(data, buffer).thenCompose(v -> {
+                buffer.clear();
+                return storeFile(file, data, buffer, position + n);
+            });
+        });
+    }
+
+    /**
+     * Runs a command which transfers data: switches to binary type, opens a passive data connection, sends the command, runs the body on the data
+     * connection, closes it and reads the final reply.
+     */
+    private <T> CompletableFuture<T> transfer(final String command, final String argument,
+            final Function<AsynchronousSocketChannel, CompletableFuture<T>> body) {
+        final CompletableFuture<Reply> type = binaryType ? CompletableFuture.completedFuture(null)
+                : execute(FTPCmd.TYPE.getCommand(), "I").thenApply(reply -> {
+                    if (!reply.isPositiveCompletion()) {
+                        throw failure("Could not set binary type", reply);
+                    }
+                    binaryType = true;
+                    return reply;
+                });
+        return type.thenCompose(v -> openDataConnection()).thenCompose(data -> execute(command, argument).whenComplete((reply, e) -> {
+            if (e != null) {
+                closeQuietly(data);
+            }
+        }).thenCompose(reply -> {
+            if (!FTPReply.isPositivePreliminary(reply.getReplyCode())) {
+                closeQuietly(data);
+                throw failure(command + " failed", reply);
+            }
+            CompletableFuture<T> result;
+            try {
+                result = body.apply(data);
+            } catch (final CompletionException e) {
+                result = new CompletableFuture<>();
+                result.completeExceptionally(e.getCause());
+            }
+            // read the final reply even if the body failed, to keep the control connection in step
+            return result.handle((value, e) -> {
+                closeQuietly(data);
+                return readReply().thenApply(end -> {
+                    if (e != null) {
+                        throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+                    }
+                    if (!end.isPositiveCompletion()) {
+                        throw failure(command + " failed", end);
+                    }
+                    return value;
+                });
+            }).thenCompose(Function.identity());
+        }));
+    }
+}
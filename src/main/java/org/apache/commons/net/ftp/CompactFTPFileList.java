@@ -0,0 +1,653 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TimeZone;
+
+/**
+ * A directory listing stored column by column in primitive arrays.
+ * <p>
+ * An {@link FTPFile} costs a dozen objects: the permission matrix, a {@link Calendar}, the raw listing and the user and group strings. This class keeps one
+ * array per attribute instead: sizes and timestamps as {@code long}s, the type and permissions packed into a few bits, and user and group names as indexes
+ * into a table of distinct names. Listings of millions of entries therefore need a fraction of the heap of the equivalent {@code FTPFile[]}.
+ * </p>
+ * <p>
+ * Entries are read either through the indexed accessors, for example {@link #getName(int)}, or through {@link Entry} views, which hold nothing but an index
+ * into this list. {@link #toFTPFile(int)} recreates a full {@code FTPFile} when one is needed.
+ * </p>
+ * <p>
+ * Timestamps keep their instant and the precision reported by the parser. They are returned in the time zone of the first timestamp added to the list, which
+ * is the server time zone for all entries produced by one parser.
+ * </p>
+ * <p>
+ * This class is not thread-safe while entries are being added.
+ * </p>
+ *
+ * @see FTPListParseEngine#getCompactFileList(FTPFileFilter, boolean)
+ * @see FTPClient#listFilesCompact(String, FTPFileFilter, boolean)
+ * @since 3.12.0
+ */
+public final class CompactFTPFileList implements Iterable<CompactFTPFileList.Entry> {
+
+    /**
+     * A view of one entry of a {@link CompactFTPFileList}. The view does not copy any data, it reads the columns of the list.
+     */
+    public static final class Entry {
+
+        private final CompactFTPFileList list;
+        private final int index;
+
+        private Entry(final CompactFTPFileList list, final int index) {
+            this.list = list;
+            this.index = index;
+        }
+
+        /**
+         * Gets the group owning the file.
+         *
+         * @return the group name.
+         * @see FTPFile#getGroup()
+         */
+        public String getGroup() {
+            return list.getGroup(index);
+        }
+
+        /**
+         * Gets the number of hard links to the file.
+         *
+         * @return the number of hard links.
+         * @see FTPFile#getHardLinkCount()
+         */
+        public int getHardLinkCount() {
+            return list.getHardLinkCount(index);
+        }
+
+        /**
+         * Gets the index of this entry in its list.
+         *
+         * @return the index.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the target of a symbolic link.
+         *
+         * @return the link target, or null.
+         * @see FTPFile#getLink()
+         */
+        public String getLink() {
+            return list.getLink(index);
+        }
+
+        /**
+         * Gets the file name.
+         *
+         * @return the file name.
+         * @see FTPFile#getName()
+         */
+        public String getName() {
+            return list.getName(index);
+        }
+
+        /**
+         * Gets the original listing line.
+         *
+         * @return the listing line, or null if the list does not keep them.
+         * @see FTPFile#getRawListing()
+         */
+        public String getRawListing() {
+            return list.getRawListing(index);
+        }
+
+        /**
+         * Gets the file size in bytes.
+         *
+         * @return the file size, -1 if unknown.
+         * @see FTPFile#getSize()
+         */
+        public long getSize() {
+            return list.getSize(index);
+        }
+
+        /**
+         * Gets the file timestamp.
+         *
+         * @return the timestamp, or null.
+         * @see FTPFile#getTimestampInstant()
+         */
+        public Instant getTimestampInstant() {
+            return list.getTimestampInstant(index);
+        }
+
+        /**
+         * Gets the file type.
+         *
+         * @return one of the {@code _TYPE} constants of {@link FTPFile}.
+         * @see FTPFile#getType()
+         */
+        public int getType() {
+            return list.getType(index);
+        }
+
+        /**
+         * Gets the user owning the file.
+         *
+         * @return the user name.
+         * @see FTPFile#getUser()
+         */
+        public String getUser() {
+            return list.getUser(index);
+        }
+
+        /**
+         * Tests if the given access group has the given permission.
+         *
+         * @param access     one of the {@code _ACCESS} constants of {@link FTPFile}.
+         * @param permission one of the {@code _PERMISSION} constants of {@link FTPFile}.
+         * @return {@code true} if the entry is valid and the permission is set.
+         * @see FTPFile#hasPermission(int, int)
+         */
+        public boolean hasPermission(final int access, final int permission) {
+            return list.hasPermission(index, access, permission);
+        }
+
+        /**
+         * Tests if the entry is a directory.
+         *
+         * @return {@code true} if the entry is a directory.
+         */
+        public boolean isDirectory() {
+            return getType() == FTPFile.DIRECTORY_TYPE;
+        }
+
+        /**
+         * Tests if the entry is a file.
+         *
+         * @return {@code true} if the entry is a file.
+         */
+        public boolean isFile() {
+            return getType() == FTPFile.FILE_TYPE;
+        }
+
+        /**
+         * Tests if the entry is a symbolic link.
+         *
+         * @return {@code true} if the entry is a symbolic link.
+         */
+        public boolean isSymbolicLink() {
+            return getType() == FTPFile.SYMBOLIC_LINK_TYPE;
+        }
+
+        /**
+         * Tests if the entry was parsed successfully.
+         *
+         * @return {@code true} if the entry is valid.
+         * @see FTPFile#isValid()
+         */
+        public boolean isValid() {
+            return list.isValid(index);
+        }
+
+        /**
+         * Creates a full {@link FTPFile} for this entry.
+         *
+         * @return a new FTPFile.
+         */
+        public FTPFile toFTPFile() {
+            return list.toFTPFile(index);
+        }
+
+        @Override
+        public String toString() {
+            return getName();
+        }
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Layout of the flags column.
+    private static final int PERMISSION_BITS = 9;
+    private static final int VALID = 1 << 9;
+    private static final int HAS_TIMESTAMP = 1 << 10;
+    private static final int PRECISION_SHIFT = 11;
+
+    /** The calendar fields a parser may leave unset to record the precision of a timestamp, one flag bit each. */
+    private static final int[] PRECISION_FIELDS = { Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND, Calendar.MILLISECOND };
+
+    private final boolean keepRawListings;
+    private int size;
+
+    private String[] names;
+    private long[] sizes;
+    private long[] timestamps;
+    private int[] hardLinkCounts;
+    private int[] users;
+    private int[] groups;
+    private byte[] types;
+    private short[] flags;
+
+    /** Allocated on the first entry which needs it. */
+    private String[] links;
+    private String[] rawListings;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> nameTable = new ArrayList<>();
+    private TimeZone timeZone;
+
+    /**
+     * Creates an empty list which drops the raw listing lines.
+     */
+    public CompactFTPFileList() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty list.
+     *
+     * @param keepRawListings whether to keep the original listing lines, see {@link FTPFile#getRawListing()}. They are usually the largest part of an
+     *                        entry, and are dropped when false.
+     */
+    public CompactFTPFileList(final boolean keepRawListings) {
+        this.keepRawListings = keepRawListings;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Appends an entry. Null entries are ignored.
+     *
+     * @param file the entry to add.
+     * @return this list.
+     */
+    public CompactFTPFileList add(final FTPFile file) {
+        if (file == null) {
+            return this;
+        }
+        if (size == names.length) {
+            allocate(Math.max(INITIAL_CAPACITY, size + (size >> 1)));
+        }
+        final int index = size++;
+        if (keepRawListings && file.getRawListing() != null) {
+            if (rawListings == null) {
+                rawListings = new String[names.length];
+            }
+            rawListings[index] = file.getRawListing();
+        }
+        if (!file.isValid()) {
+            names[index] = null;
+            sizes[index] = -1;
+            types[index] = FTPFile.UNKNOWN_TYPE;
+            users[index] = -1;
+            groups[index] = -1;
+            hardLinkCounts[index] = 0;
+            timestamps[index] = 0;
+            flags[index] = 0;
+            return this;
+        }
+        names[index] = file.getName();
+        sizes[index] = file.getSize();
+        types[index] = (byte) file.getType();
+        hardLinkCounts[index] = file.getHardLinkCount();
+        users[index] = id(file.getUser());
+        groups[index] = id(file.getGroup());
+        if (file.getLink() != null) {
+            if (links == null) {
+                links = new String[names.length];
+            }
+            links[index] = file.getLink();
+        }
+        int bits = VALID;
+        for (int access = 0; access < 3; access++) {
+            for (int permission = 0; permission < 3; permission++) {
+                if (file.hasPermission(access, permission)) {
+                    bits |= 1 << access * 3 + permission;
+                }
+            }
+        }
+        final Calendar timestamp = file.getTimestamp();
+        if (timestamp != null) {
+            if (timeZone == null) {
+                timeZone = timestamp.getTimeZone();
+            }
+            bits |= HAS_TIMESTAMP;
+            for (int i = 0; i < PRECISION_FIELDS.length; i++) {
+                if (!timestamp.isSet(PRECISION_FIELDS[i])) {
+                    bits |= 1 << PRECISION_SHIFT + i;
+                }
+            }
+            timestamps[index] = timestamp.getTimeInMillis();
+        } else {
+            timestamps[index] = 0;
+        }
+        flags[index] = (short) bits;
+        return this;
+    }
+
+    private void allocate(final int capacity) {
+        if (names == null) {
+            names = new String[capacity];
+            sizes = new long[capacity];
+            timestamps = new long[capacity];
+            hardLinkCounts = new int[capacity];
+            users = new int[capacity];
+            groups = new int[capacity];
+            types = new byte[capacity];
+            flags = new short[capacity];
+            return;
+        }
+        names = Arrays.copyOf(names, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        hardLinkCounts = Arrays.copyOf(hardLinkCounts, capacity);
+        users = Arrays.copyOf(users, capacity);
+        groups = Arrays.copyOf(groups, capacity);
+        types = Arrays.copyOf(types, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        if (links != null) {
+            links = Arrays.copyOf(links, capacity);
+        }
+        if (rawListings != null) {
+            rawListings = Arrays.copyOf(rawListings, capacity);
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Gets a view of an entry.
+     *
+     * @param index the index of the entry.
+     * @return a view of the entry.
+     * @throws IndexOutOfBoundsException if the index is out of range.
+     */
+    public Entry get(final int index) {
+        checkIndex(index);
+        return new Entry(this, index);
+    }
+
+    /**
+     * Gets the group owning the file.
+     *
+     * @param index the index of the entry.
+     * @return the group name, null for an invalid entry.
+     */
+    public String getGroup(final int index) {
+        checkIndex(index);
+        return name(groups[index]);
+    }
+
+    /**
+     * Gets the number of hard links to the file.
+     *
+     * @param index the index of the entry.
+     * @return the number of hard links.
+     */
+    public int getHardLinkCount(final int index) {
+        checkIndex(index);
+        return hardLinkCounts[index];
+    }
+
+    /**
+     * Gets the target of a symbolic link.
+     *
+     * @param index the index of the entry.
+     * @return the link target, or null.
+     */
+    public String getLink(final int index) {
+        checkIndex(index);
+        return links == null ? null : links[index];
+    }
+
+    /**
+     * Gets the file name.
+     *
+     * @param index the index of the entry.
+     * @return the file name, null for an invalid entry.
+     */
+    public String getName(final int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * Gets the original listing line.
+     *
+     * @param index the index of the entry.
+     * @return the listing line, or null if this list does not keep them.
+     */
+    public String getRawListing(final int index) {
+        checkIndex(index);
+        return rawListings == null ? null : rawListings[index];
+    }
+
+    /**
+     * Gets the file size in bytes.
+     *
+     * @param index the index of the entry.
+     * @return the file size, -1 if unknown.
+     */
+    public long getSize(final int index) {
+        checkIndex(index);
+        return sizes[index];
+    }
+
+    /**
+     * Gets the file timestamp.
+     *
+     * @param index the index of the entry.
+     * @return the timestamp, or null if the entry has none.
+     */
+    public Instant getTimestampInstant(final int index) {
+        checkIndex(index);
+        return (flags[index] & HAS_TIMESTAMP) == 0 ? null : Instant.ofEpochMilli(timestamps[index]);
+    }
+
+    /**
+     * Gets the file timestamp in milliseconds since the epoch.
+     *
+     * @param index the index of the entry.
+     * @return the timestamp, or {@link Long#MIN_VALUE} if the entry has none.
+     */
+    public long getTimestampMillis(final int index) {
+        checkIndex(index);
+        return (flags[index] & HAS_TIMESTAMP) == 0 ? Long.MIN_VALUE : timestamps[index];
+    }
+
+    /**
+     * Gets the file type.
+     *
+     * @param index the index of the entry.
+     * @return one of the {@code _TYPE} constants of {@link FTPFile}.
+     */
+    public int getType(final int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    /**
+     * Gets the user owning the file.
+     *
+     * @param index the index of the entry.
+     * @return the user name, null for an invalid entry.
+     */
+    public String getUser(final int index) {
+        checkIndex(index);
+        return name(users[index]);
+    }
+
+    /**
+     * Tests if the given access group has the given permission.
+     *
+     * @param index      the index of the entry.
+     * @param access     one of the {@code _ACCESS} constants of {@link FTPFile}.
+     * @param permission one of the {@code _PERMISSION} constants of {@link FTPFile}.
+     * @return {@code true} if the entry is valid and the permission is set.
+     */
+    public boolean hasPermission(final int index, final int access, final int permission) {
+        checkIndex(index);
+        if (access < 0 || access > 2 || permission < 0 || permission > 2) {
+            throw new ArrayIndexOutOfBoundsException("access: " + access + ", permission: " + permission);
+        }
+        return (flags[index] & 1 << access * 3 + permission) != 0;
+    }
+
+    private int id(final String name) {
+        if (name == null) {
+            return -1;
+        }
+        final Integer id = nameIds.get(name);
+        if (id != null) {
+            return id.intValue();
+        }
+        final int newId = nameTable.size();
+        nameTable.add(name);
+        nameIds.put(name, Integer.valueOf(newId));
+        return newId;
+    }
+
+    /**
+     * Tests if this list is empty.
+     *
+     * @return {@code true} if this list has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Tests if the entry was parsed successfully.
+     *
+     * @param index the index of the entry.
+     * @return {@code true} if the entry is valid, {@code false} if only its raw listing is known.
+     */
+    public boolean isValid(final int index) {
+        checkIndex(index);
+        return (flags[index] & VALID) != 0;
+    }
+
+    /**
+     * Iterates over views of the entries.
+     */
+    @Override
+    public Iterator<Entry> iterator() {
+        return new Iterator<Entry>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Entry next() {
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return new Entry(CompactFTPFileList.this, next++);
+            }
+        };
+    }
+
+    private String name(final int id) {
+        return id < 0 ? null : nameTable.get(id);
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Creates a full {@link FTPFile} for all entries.
+     *
+     * @return a new array of FTPFiles.
+     */
+    public FTPFile[] toArray() {
+        final FTPFile[] files = new FTPFile[size];
+        for (int i = 0; i < size; i++) {
+            files[i] = toFTPFile(i);
+        }
+        return files;
+    }
+
+    /**
+     * Creates a full {@link FTPFile} for an entry.
+     *
+     * @param index the index of the entry.
+     * @return a new FTPFile.
+     */
+    public FTPFile toFTPFile(final int index) {
+        checkIndex(index);
+        final int bits = flags[index];
+        if ((bits & VALID) == 0) {
+            return new FTPFile(getRawListing(index));
+        }
+        final FTPFile file = new FTPFile();
+        file.setRawListing(getRawListing(index));
+        file.setName(names[index]);
+        file.setSize(sizes[index]);
+        file.setType(types[index]);
+        file.setHardLinkCount(hardLinkCounts[index]);
+        file.setUser(name(users[index]));
+        file.setGroup(name(groups[index]));
+        file.setLink(getLink(index));
+        for (int i = 0; i < PERMISSION_BITS; i++) {
+            file.setPermission(i / 3, i % 3, (bits & 1 << i) != 0);
+        }
+        if ((bits & HAS_TIMESTAMP) != 0) {
+            final Calendar timestamp = Calendar.getInstance(timeZone);
+            timestamp.setTimeInMillis(timestamps[index]);
+            for (int i = 0; i < PRECISION_FIELDS.length; i++) {
+                if ((bits & 1 << PRECISION_SHIFT + i) != 0) {
+                    timestamp.clear(PRECISION_FIELDS[i]);
+                }
+            }
+            file.setTimestamp(timestamp);
+        }
+        return file;
+    }
+
+    /**
+     * Trims the capacity of the columns to the number of entries.
+     *
+     * @return this list.
+     */
+    public CompactFTPFileList trimToSize() {
+        if (size < names.length) {
+            allocate(size);
+        }
+        return this;
+    }
+}
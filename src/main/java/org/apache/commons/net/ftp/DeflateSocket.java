@@ -17,30 +17,72 @@
 
 package org.apache.commons.net.ftp;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.InflaterInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.net.io.Util;
 
 /**
- * Wrapper class for FTP data channel sockets when compressing data in the "deflate" compression format. All methods except of {@link #getInputStream()} and
- * {@link #getOutputStream()} are calling the delegate methods directly.
+ * Wrapper class for FTP data channel sockets when compressing data in the "deflate" compression format, or in the encoding of another
+ * {@link FTPTransferCodec}. All methods except of {@link #getInputStream()}, {@link #getOutputStream()} and {@link #close()} are calling the delegate methods
+ * directly. Closing the socket also closes the streams obtained from it, so that the codec gets its resources back even if a caller only closes the socket.
  */
 final class DeflateSocket extends DelegateSocket {
 
+    private final FTPTransferCodec codec;
+    private final List<Closeable> streams = new ArrayList<>(1);
+    // a lock rather than the socket monitor, as closing the streams may block in I/O
+    private final ReentrantLock lock = new ReentrantLock();
+
     DeflateSocket(final Socket delegate) {
+        this(delegate, DeflateTransferCodec.getDefault());
+    }
+
+    DeflateSocket(final Socket delegate, final FTPTransferCodec codec) {
         super(delegate);
+        this.codec = codec;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            delegate.close();
+        } finally {
+            // the socket is closed first, so an encoder cannot block writing its trailer
+            streams.forEach(Util::closeQuietly);
+            streams.clear();
+            lock.unlock();
+        }
     }
 
     @Override
     public InputStream getInputStream() throws IOException {
-        return new InflaterInputStream(delegate.getInputStream());
+        final InputStream input = codec.decode(delegate.getInputStream());
+        lock.lock();
+        try {
+            streams.add(input);
+        } finally {
+            lock.unlock();
+        }
+        return input;
     }
 
     @Override
     public OutputStream getOutputStream() throws IOException {
-        return new DeflaterOutputStream(delegate.getOutputStream());
+        final OutputStream output = codec.encode(delegate.getOutputStream());
+        lock.lock();
+        try {
+            streams.add(output);
+        } finally {
+            lock.unlock();
+        }
+        return output;
     }
 }
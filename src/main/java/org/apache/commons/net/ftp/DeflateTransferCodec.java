@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The "deflate" transfer mode, MODE Z (draft-preston-ftpext-deflate), with a configurable compression level and buffer size.
+ * <p>
+ * Every {@link Deflater} and {@link Inflater} holds a native zlib context, which is costly to create and is only freed by {@code end()} or finalization.
+ * This codec keeps up to {@link #getPoolSize()} of each once a transfer is done and reuses them for the next transfers, so sending thousands of small files
+ * does not create thousands of zlib contexts.
+ * </p>
+ * <p>
+ * The level applies to the data this client compresses, that is to uploads; it is also sent to the server with {@code OPTS MODE Z LEVEL n} for downloads,
+ * which servers may ignore. This class is thread-safe and an instance can be shared by several clients.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public class DeflateTransferCodec implements FTPTransferCodec {
+
+    /**
+     * Returns its deflater to the pool when closed.
+     */
+    private final class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        // a lock rather than the stream monitor, so that blocking writes do not pin virtual threads
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean released;
+
+        PooledDeflaterOutputStream(final OutputStream out, final Deflater deflater) {
+            super(out, deflater, bufferSize);
+        }
+
+        private void checkOpen() throws IOException {
+            if (released) {
+                throw new IOException("Stream closed");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                try {
+                    super.close();
+                } finally {
+                    released = true;
+                    releaseDeflater(def);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            lock.lock();
+            try {
+                checkOpen();
+                super.finish();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            lock.lock();
+            try {
+                checkOpen();
+                super.flush();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            lock.lock();
+            try {
+                checkOpen();
+                super.write(b, off, len);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            lock.lock();
+            try {
+                checkOpen();
+                super.write(b);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns its inflater to the pool when closed; reads after that fail as the stream is closed.
+     */
+    private final class PooledInflaterInputStream extends InflaterInputStream {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean released;
+
+        PooledInflaterInputStream(final InputStream in, final Inflater inflater) {
+            super(in, inflater, bufferSize);
+        }
+
+        @Override
+        public void close() throws IOException {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                try {
+                    super.close();
+                } finally {
+                    released = true;
+                    releaseInflater(inf);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /** The default buffer size of the compressed streams ({@value}); the JDK default of 512 bytes costs a native call every 512 bytes. */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** The default number of idle deflaters and inflaters kept for reuse ({@value}). */
+    public static final int DEFAULT_POOL_SIZE = 8;
+
+    private static final DeflateTransferCodec DEFAULT = new DeflateTransferCodec();
+
+    /**
+     * Gets a shared instance with the default level, buffer size and pool size, as used by {@link FTPClient#setFileTransferMode(int)} with
+     * {@link FTP#DEFLATE_TRANSFER_MODE}.
+     *
+     * @return the shared instance.
+     */
+    public static DeflateTransferCodec getDefault() {
+        return DEFAULT;
+    }
+
+    private final int level;
+    private final int bufferSize;
+    private final int poolSize;
+    private final Deque<Deflater> deflaters = new ConcurrentLinkedDeque<>();
+    private final Deque<Inflater> inflaters = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger idleDeflaters = new AtomicInteger();
+    private final AtomicInteger idleInflaters = new AtomicInteger();
+
+    /**
+     * Creates a codec with the default compression level.
+     */
+    public DeflateTransferCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param level the compression level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public DeflateTransferCodec(final int level) {
+        this(level, DEFAULT_BUFFER_SIZE, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * Creates a codec.
+     *
+     * @param level      the compression level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param bufferSize the buffer size of the compressed streams.
+     * @param poolSize   the number of idle deflaters and inflaters kept for reuse, 0 to disable reuse.
+     */
+    public DeflateTransferCodec(final int level, final int bufferSize, final int poolSize) {
+        if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+            throw new IllegalArgumentException("level must be between 0 and 9: " + level);
+        }
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be at least 1: " + bufferSize);
+        }
+        if (poolSize < 0) {
+            throw new IllegalArgumentException("poolSize must not be negative: " + poolSize);
+        }
+        this.level = level;
+        this.bufferSize = bufferSize;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Frees the native resources of the idle deflaters and inflaters. The codec can still be used afterwards.
+     */
+    public void clear() {
+        Deflater deflater;
+        while ((deflater = deflaters.pollFirst()) != null) {
+            idleDeflaters.decrementAndGet();
+            deflater.end();
+        }
+        Inflater inflater;
+        while ((inflater = inflaters.pollFirst()) != null) {
+            idleInflaters.decrementAndGet();
+            inflater.end();
+        }
+    }
+
+    @Override
+    public InputStream decode(final InputStream input) {
+        Inflater inflater = inflaters.pollFirst();
+        if (inflater != null) {
+            idleInflaters.decrementAndGet();
+        } else {
+            inflater = new Inflater();
+        }
+        return new PooledInflaterInputStream(input, inflater);
+    }
+
+    @Override
+    public OutputStream encode(final OutputStream output) {
+        Deflater deflater = deflaters.pollFirst();
+        if (deflater != null) {
+            idleDeflaters.decrementAndGet();
+        } else {
+            deflater = new Deflater(level);
+        }
+        return new PooledDeflaterOutputStream(output, deflater);
+    }
+
+    /**
+     * Gets the buffer size of the compressed streams.
+     *
+     * @return the buffer size.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the number of idle deflaters kept for reuse.
+     *
+     * @return the number of idle deflaters.
+     */
+    public int getIdleDeflaterCount() {
+        return idleDeflaters.get();
+    }
+
+    /**
+     * Gets the number of idle inflaters kept for reuse.
+     *
+     * @return the number of idle inflaters.
+     */
+    public int getIdleInflaterCount() {
+        return idleInflaters.get();
+    }
+
+    /**
+     * Gets the compression level.
+     *
+     * @return the level, 0 to 9 or {@link Deflater#DEFAULT_COMPRESSION}.
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Gets {@code Z}.
+     *
+     * @return {@code Z}.
+     */
+    @Override
+    public String getMode() {
+        return "Z";
+    }
+
+    /**
+     * Gets {@code LEVEL n}, unless the level is the default.
+     *
+     * @return the options, or null.
+     */
+    @Override
+    public String getModeOptions() {
+        return level == Deflater.DEFAULT_COMPRESSION ? null : "LEVEL " + level;
+    }
+
+    /**
+     * Gets the maximum number of idle deflaters and inflaters kept for reuse.
+     *
+     * @return the pool size.
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    private void releaseDeflater(final Deflater deflater) {
+        if (idleDeflaters.incrementAndGet() <= poolSize) {
+            deflater.reset();
+            deflaters.offerFirst(deflater);
+        } else {
+            idleDeflaters.decrementAndGet();
+            deflater.end();
+        }
+    }
+
+    private void releaseInflater(final Inflater inflater) {
+        if (idleInflaters.incrementAndGet() <= poolSize) {
+            inflater.reset();
+            inflaters.offerFirst(inflater);
+        } else {
+            idleInflaters.decrementAndGet();
+            inflater.end();
+        }
+    }
+}
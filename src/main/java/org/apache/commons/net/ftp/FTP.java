@@ -28,13 +28,16 @@ import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 
 import org.apache.commons.net.MalformedServerReplyException;
 import org.apache.commons.net.ProtocolCommandSupport;
 import org.apache.commons.net.SocketClient;
 import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.io.ReplyDecoder;
 import org.apache.commons.net.util.NetConstants;
 
 /**
@@ -272,6 +275,10 @@ public class FTP extends SocketClient {
      */
     protected BufferedWriter _controlOutput_;
 
+    // reads the replies as long as _controlInput_ is the reader created with it, null if the control encoding does not suit it
+    private ReplyDecoder replyDecoder;
+    private BufferedReader replyDecoderInput;
+
     /**
      * The default FTP constructor. Sets the default port to {@code DEFAULT_PORT}
      * and initializes internal data structures for saving FTP reply
@@ -330,7 +337,7 @@ public class FTP extends SocketClient {
     protected void _connectAction_(final Reader socketIsReader) throws IOException {
         super._connectAction_(); // sets up _input_ and _output_
         if (socketIsReader == null) {
-            _controlInput_ = new CRLFLineReader(new InputStreamReader(_input_, getControlEncoding()));
+            createControlInput();
         } else {
             _controlInput_ = new CRLFLineReader(socketIsReader);
         }
@@ -593,6 +600,23 @@ public class FTP extends SocketClient {
         return sendCommand(FTPCmd.DELE, pathname);
     }
 
+    /**
+     * Creates {@link #_controlInput_} for {@link SocketClient#_input_} in the control encoding, and the decoder which reads the replies while
+     * {@link #_controlInput_} is not replaced.
+     *
+     * @throws IOException if the control encoding is not supported.
+     */
+    void createControlInput() throws IOException {
+        _controlInput_ = new CRLFLineReader(new InputStreamReader(_input_, getControlEncoding()));
+        replyDecoderInput = _controlInput_;
+        try {
+            replyDecoder = new ReplyDecoder(_input_, Charset.forName(getControlEncoding()));
+        } catch (final IllegalArgumentException e) {
+            // CR and LF are not single bytes in the control encoding, the replies are read through _controlInput_
+            replyDecoder = null;
+        }
+    }
+
     /**
      * Closes the control connection to the FTP server and sets to null some
      * internal data so that the memory may be reclaimed by the garbage collector.
@@ -608,6 +632,8 @@ public class FTP extends SocketClient {
         super.disconnect();
         _controlInput_ = null;
         _controlOutput_ = null;
+        replyDecoder = null;
+        replyDecoderInput = null;
         _newReplyString = false;
         _replyString = null;
     }
@@ -744,17 +770,10 @@ public class FTP extends SocketClient {
         _newReplyString = true;
         _replyLines.clear();
 
-        String line = readControlInputLine();
-        int length = validateReplyLength(line);
-
-        String code = parseReplyCode(line);
-        _replyCode = Integer.parseInt(code);
-        _replyLines.add(line);
-
-        if (length > REPLY_CODE_LEN) {
-            processMultiLineReply(line, code);
-        } else if (isStrictReplyParsing()) {
-            throw new MalformedServerReplyException("Truncated server reply: '" + line + "'");
+        if (replyDecoder != null && _controlInput_ == replyDecoderInput) {
+            decodeReply();
+        } else {
+            readReply();
         }
 
         if (reportReply) {
@@ -768,6 +787,61 @@ public class FTP extends SocketClient {
         return _replyCode;
     }
 
+    /**
+     * Reads a reply through the decoder, which takes the reply code from the bytes, and fills {@link #_replyLines} with its lines.
+     */
+    private void decodeReply() throws IOException {
+        replyDecoder.clear();
+        readDecodedLine();
+        final int length = replyDecoder.getLineLength(0);
+        if (length < REPLY_CODE_LEN) {
+            throw new MalformedServerReplyException("Truncated server reply: " + replyDecoder.getLine(0));
+        }
+        _replyCode = replyDecoder.getReplyCode(0);
+        if (_replyCode == NetConstants.EOS) {
+            throw new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + replyDecoder.getLine(0));
+        }
+        if (length > REPLY_CODE_LEN) {
+            final int separator = replyDecoder.byteAt(0, REPLY_CODE_LEN);
+            if (separator == '-') {
+                final String code = replyDecoder.getLine(0).substring(0, REPLY_CODE_LEN);
+                String line;
+                do {
+                    readDecodedLine();
+                    line = replyDecoder.getLine(replyDecoder.getLineCount() - 1);
+                } while (isStrictMultilineParsing() ? strictCheck(line, code) : lenientCheck(line));
+            } else if (isStrictReplyParsing()) {
+                validateSingleLineReply(replyDecoder.getLine(0), (char) separator);
+            }
+        } else if (isStrictReplyParsing()) {
+            throw new MalformedServerReplyException("Truncated server reply: '" + replyDecoder.getLine(0) + "'");
+        }
+        Collections.addAll(_replyLines, replyDecoder.getLines());
+    }
+
+    private void readDecodedLine() throws IOException {
+        if (!replyDecoder.readLine()) {
+            throw new FTPConnectionClosedException("Connection closed without indication.");
+        }
+    }
+
+    /**
+     * Reads a reply line by line from {@link #_controlInput_}, which a subclass has replaced.
+     */
+    private void readReply() throws IOException {
+        String line = readControlInputLine();
+        int length = validateReplyLength(line);
+
+        _replyCode = parseReplyCode(line);
+        _replyLines.add(line);
+
+        if (length > REPLY_CODE_LEN) {
+            processMultiLineReply(line);
+        } else if (isStrictReplyParsing()) {
+            throw new MalformedServerReplyException("Truncated server reply: '" + line + "'");
+        }
+    }
+
     private String readControlInputLine() throws IOException {
         String line = _controlInput_.readLine();
         if (line == null) {
@@ -784,18 +858,23 @@ public class FTP extends SocketClient {
         return length;
     }
 
-    private String parseReplyCode(String line) throws MalformedServerReplyException {
-        try {
-            return line.substring(0, REPLY_CODE_LEN);
-        } catch (final NumberFormatException e) {
-            throw new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + line);
+    // parses the digits in place rather than through substring and Integer.parseInt, which also accepted a sign
+    private int parseReplyCode(String line) throws MalformedServerReplyException {
+        int code = 0;
+        for (int i = 0; i < REPLY_CODE_LEN; i++) {
+            final int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + line);
+            }
+            code = code * 10 + digit;
         }
+        return code;
     }
 
-    private void processMultiLineReply(String line, String code) throws IOException {
+    private void processMultiLineReply(String line) throws IOException {
         final char separator = line.charAt(REPLY_CODE_LEN);
         if (separator == '-') {
-            collectMultilineReply(code);
+            collectMultilineReply(line.substring(0, REPLY_CODE_LEN));
         } else if (isStrictReplyParsing()) {
             validateSingleLineReply(line, separator);
         }
@@ -1194,6 +1273,17 @@ public class FTP extends SocketClient {
         return MODES.substring(index, index + 1);
     }
 
+    /**
+     * Gets the {@code _TRANSFER_MODE} constant of the argument of a MODE command.
+     *
+     * @param mode the argument, such as {@code Z}.
+     * @return the constant, or -1 if there is none.
+     */
+    static int transferModeOf(final String mode) {
+        final int index = mode.length() == 1 ? MODES.lastIndexOf(Character.toUpperCase(mode.charAt(0))) : -1;
+        return index >= STREAM_TRANSFER_MODE ? index : -1;
+    }
+
     /**
      * A convenience method to send the FTP NLST command to the server, receive the
      * reply, and return the reply code. Remember, it is up to you to manage the
@@ -1509,9 +1599,15 @@ public class FTP extends SocketClient {
     }
 
     private void send(final String message) throws IOException, FTPConnectionClosedException, SocketException {
+        send(message, true);
+    }
+
+    private void send(final String message, final boolean flush) throws IOException, FTPConnectionClosedException, SocketException {
         try {
             _controlOutput_.write(message);
-            _controlOutput_.flush();
+            if (flush) {
+                _controlOutput_.flush();
+            }
         } catch (final SocketException e) {
             if (!isConnected()) {
                 throw new FTPConnectionClosedException("Connection unexpectedly closed.");
@@ -1684,6 +1780,42 @@ public class FTP extends SocketClient {
         return getReply();
     }
 
+    /**
+     * Writes a command without waiting for its reply, so that several commands can be pipelined. The command is buffered until
+     * {@link #flushCommands()} is called; the caller must then read exactly one reply per command with {@link #getReply()}, in order.
+     *
+     * @param command The text representation of the FTP command to send.
+     * @param args    The arguments to the FTP command, may be null.
+     * @throws IOException If an I/O error occurs while writing the command.
+     */
+    void writeCommand(final String command, final String args) throws IOException {
+        if (_controlOutput_ == null) {
+            throw new IOException("Connection is not open");
+        }
+        final String message = buildMessage(command, args);
+        send(message, false);
+        fireCommandSent(command, message);
+    }
+
+    /**
+     * Flushes the commands written by {@link #writeCommand(String, String)}.
+     *
+     * @throws IOException If an I/O error occurs while sending the commands.
+     */
+    void flushCommands() throws IOException {
+        if (_controlOutput_ == null) {
+            throw new IOException("Connection is not open");
+        }
+        try {
+            _controlOutput_.flush();
+        } catch (final SocketException e) {
+            if (!isConnected()) {
+                throw new FTPConnectionClosedException("Connection unexpectedly closed.");
+            }
+            throw e;
+        }
+    }
+
     /**
      * Saves the character encoding to be used by the FTP control connection. Some
      * FTP servers require that commands be issued in a non-ASCII encoding like
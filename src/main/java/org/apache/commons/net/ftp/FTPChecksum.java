@@ -0,0 +1,227 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A checksum of a remote file computed by the server, as returned by {@link FTPClient#getChecksum(String, String)}.
+ * <p>
+ * Algorithm names follow the HASH command (draft-bryan-ftpext-hash): {@code CRC32}, {@code MD5}, {@code SHA-1}, {@code SHA-256} and {@code SHA-512}. They
+ * are also valid names for {@link org.apache.commons.net.io.HashingOutputStream} and {@link org.apache.commons.net.io.HashingInputStream}, which compute the
+ * matching local value while a file is transferred.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class FTPChecksum {
+
+    /** The CRC-32 of ISO 3309, as computed by XCRC. */
+    public static final String CRC32 = "CRC32";
+
+    /** MD5, as computed by XMD5. */
+    public static final String MD5 = "MD5";
+
+    /** SHA-1, as computed by XSHA1. */
+    public static final String SHA_1 = "SHA-1";
+
+    /** SHA-256, as computed by XSHA256. */
+    public static final String SHA_256 = "SHA-256";
+
+    /** SHA-512, as computed by XSHA512. */
+    public static final String SHA_512 = "SHA-512";
+
+    /**
+     * Gets the number of hexadecimal digits of a hash.
+     */
+    static int hexLength(final String algorithm) {
+        switch (algorithm) {
+        case CRC32:
+            return 8;
+        case MD5:
+            return 32;
+        case SHA_1:
+            return 40;
+        case SHA_256:
+            return 64;
+        default:
+            return 128;
+        }
+    }
+
+    private static boolean isHex(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (Character.digit(s.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return !s.isEmpty();
+    }
+
+    /**
+     * Gets the standard name of an algorithm.
+     *
+     * @throws IllegalArgumentException if the algorithm is not one of the names above, with or without the dash.
+     */
+    static String normalize(final String algorithm) {
+        final String name = algorithm.toUpperCase(Locale.ENGLISH).replace("-", "");
+        switch (name) {
+        case "CRC32":
+            return CRC32;
+        case "MD5":
+            return MD5;
+        case "SHA1":
+            return SHA_1;
+        case "SHA256":
+            return SHA_256;
+        case "SHA512":
+            return SHA_512;
+        default:
+            throw new IllegalArgumentException("Unsupported checksum algorithm: " + algorithm);
+        }
+    }
+
+    /**
+     * Parses the text of a 213 reply to HASH: {@code <algorithm> <start>-<end> <hash> <pathname>}.
+     *
+     * @return the checksum, or null if the reply is malformed.
+     */
+    static FTPChecksum parseHashReply(final String reply) {
+        final String[] fields = reply.trim().split(" +", 4);
+        if (fields.length < 3) {
+            return null;
+        }
+        final String algorithm;
+        try {
+            algorithm = normalize(fields[0]);
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+        final int dash = fields[1].indexOf('-');
+        if (dash < 0 || !isHex(fields[2])) {
+            return null;
+        }
+        try {
+            final long start = Long.parseLong(fields[1].substring(0, dash));
+            final String endText = fields[1].substring(dash + 1);
+            final long end = endText.isEmpty() ? -1 : Long.parseLong(endText);
+            return new FTPChecksum(algorithm, fields[2], start, end);
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds the hash in the text of a reply to XCRC, XMD5 or XSHA*. Servers disagree on the layout, some add the pathname or the algorithm, so the first word
+     * with the length of the hash is taken.
+     *
+     * @return the checksum, or null if the reply holds no such word.
+     */
+    static FTPChecksum parseXReply(final String algorithm, final String reply) {
+        final int length = hexLength(algorithm);
+        for (final String word : reply.trim().split(" +")) {
+            if (word.length() == length && isHex(word)) {
+                return new FTPChecksum(algorithm, word, 0, -1);
+            }
+        }
+        return null;
+    }
+
+    private final String algorithm;
+    private final String value;
+    private final long start;
+    private final long end;
+
+    FTPChecksum(final String algorithm, final String value, final long start, final long end) {
+        this.algorithm = algorithm;
+        this.value = value.toLowerCase(Locale.ENGLISH);
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the algorithm.
+     *
+     * @return one of the algorithm constants of this class.
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Gets the offset after the last byte covered, as reported by HASH.
+     *
+     * @return the end offset, or -1 if the server did not report it.
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Gets the offset of the first byte covered.
+     *
+     * @return the start offset, 0 for a whole file.
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Gets the checksum.
+     *
+     * @return the checksum as lower case hexadecimal digits.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Tests whether a locally computed hash equals this checksum, ignoring case. CRC values are compared numerically, so leading zeros do not matter.
+     *
+     * @param hash the hash as hexadecimal digits, may be null.
+     * @return whether the hashes are equal.
+     */
+    public boolean matches(final String hash) {
+        if (hash == null) {
+            return false;
+        }
+        if (CRC32.equals(algorithm) && value.length() <= 8 && hash.length() <= 8 && isHex(hash)) {
+            return Long.parseLong(value, 16) == Long.parseLong(hash, 16);
+        }
+        return value.equalsIgnoreCase(hash);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (!(obj instanceof FTPChecksum)) {
+            return false;
+        }
+        final FTPChecksum other = (FTPChecksum) obj;
+        return algorithm.equals(other.algorithm) && value.equals(other.value) && start == other.start && end == other.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(algorithm, value, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return algorithm + " " + value;
+    }
+}
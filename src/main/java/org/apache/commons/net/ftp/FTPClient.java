@@ -26,6 +26,7 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
@@ -34,29 +35,45 @@ import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.regex.Matcher;
+import java.util.stream.Stream;
 
 import org.apache.commons.net.MalformedServerReplyException;
+import org.apache.commons.net.ftp.parser.CompositeFileEntryParser;
 import org.apache.commons.net.ftp.parser.DefaultFTPFileEntryParserFactory;
 import org.apache.commons.net.ftp.parser.FTPFileEntryParserFactory;
 import org.apache.commons.net.ftp.parser.MLSxEntryParser;
-import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.io.BandwidthLimiter;
 import org.apache.commons.net.io.CopyStreamAdapter;
 import org.apache.commons.net.io.CopyStreamEvent;
+import org.apache.commons.net.io.CopyStreamException;
 import org.apache.commons.net.io.CopyStreamListener;
 import org.apache.commons.net.io.FromNetASCIIInputStream;
 import org.apache.commons.net.io.SocketOutputStream;
+import org.apache.commons.net.io.ThrottledInputStream;
+import org.apache.commons.net.io.ThrottledOutputStream;
 import org.apache.commons.net.io.ToNetASCIIOutputStream;
 import org.apache.commons.net.io.Util;
 import org.apache.commons.net.util.NetConstants;
@@ -632,6 +649,8 @@ public class FTPClient extends FTP implements Configurable {
     @SuppressWarnings("unused") // field is written, but currently not read
     private int fileStructure;
     private int fileTransferMode;
+    /** Encodes the data connections; null for stream mode. */
+    private FTPTransferCodec transferCodec;
 
     private boolean remoteVerificationEnabled;
 
@@ -641,6 +660,17 @@ public class FTPClient extends FTP implements Configurable {
 
     private int bufferSize; // for buffered data streams
 
+    /** Sizes the copy and data socket buffers from the measured throughput; null to use the fixed sizes. */
+    private AdaptiveBufferSizing adaptiveBufferSizing;
+
+    /** Limits the rate of file transfers; null for no limit. */
+    private BandwidthLimiter bandwidthLimiter;
+
+    private int bandwidthWeight = 1;
+
+    /** Whether the reply to an EPSV or PASV command sent ahead for the next data connection has been parsed already. */
+    private boolean passiveEndpointPrefetched;
+
     private int sendDataSocketBufferSize;
 
     private int receiveDataSocketBufferSize;
@@ -689,6 +719,18 @@ public class FTPClient extends FTP implements Configurable {
     /** Map of FEAT responses. If null, has not been initialized. */
     private HashMap<String, Set<String>> featuresMap;
 
+    /** Shared FEAT and SYST replies; null if not used. */
+    private FTPServerCapabilityCache capabilityCache;
+
+    /** The capability cache of the current connection, taken from {@link #capabilityCache} at connect; null if not used. */
+    private FTPServerCapabilityCache connectionCapabilityCache;
+
+    /** The greeting of the current connection, recorded only if {@link #connectionCapabilityCache} is set. */
+    private String greeting;
+
+    /** The algorithm HASH currently uses on this connection; null until known. */
+    private String hashAlgorithm;
+
     private boolean ipAddressFromPasvResponse = Boolean.getBoolean(FTP_IP_ADDRESS_FROM_PASV_RESPONSE);
 
     /**
@@ -736,6 +778,7 @@ public class FTPClient extends FTP implements Configurable {
     protected void _connectAction_(final Reader socketIsReader) throws IOException {
         super._connectAction_(socketIsReader); // sets up _input_ and _output_
         initDefaults();
+        seedCapabilities();
         // must be after super._connectAction_(), because otherwise we get an
         // Exception claiming we're not connected
         if (autoDetectEncoding) {
@@ -744,7 +787,7 @@ public class FTPClient extends FTP implements Configurable {
             // UTF-8 appears to be the default
             if (hasFeature("UTF8") || hasFeature(StandardCharsets.UTF_8.name())) {
                 setControlEncoding(StandardCharsets.UTF_8.name());
-                _controlInput_ = new CRLFLineReader(new InputStreamReader(_input_, getControlEncoding()));
+                createControlInput();
                 _controlOutput_ = new BufferedWriter(new OutputStreamWriter(_output_, getControlEncoding()));
             }
             // restore the original reply (server greeting)
@@ -852,8 +895,85 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private boolean sendPortCommand(boolean isInet6Address, int localPort) throws IOException {
-        return isInet6Address ? FTPReply.isPositiveCompletion(eprt(getReportHostAddress(), localPort))
+        final long start = System.nanoTime();
+        final boolean ok = isInet6Address ? FTPReply.isPositiveCompletion(eprt(getReportHostAddress(), localPort))
                 : FTPReply.isPositiveCompletion(port(getReportHostAddress(), localPort));
+        recordRoundTrip(start);
+        return ok;
+    }
+
+    private void recordRoundTrip(final long start) {
+        if (adaptiveBufferSizing != null) {
+            adaptiveBufferSizing.recordRoundTrip(System.nanoTime() - start);
+        }
+    }
+
+    private void recordTransfer(final long bytes, final long start) {
+        if (adaptiveBufferSizing != null) {
+            adaptiveBufferSizing.recordTransfer(bytes, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Gets the input stream of a data connection, throttled when a bandwidth limiter is set.
+     */
+    private InputStream getDataInputStream(final Socket socket) throws IOException {
+        final InputStream input = socket.getInputStream();
+        return bandwidthLimiter != null ? new ThrottledInputStream(input, bandwidthLimiter.open(bandwidthWeight)) : input;
+    }
+
+    /**
+     * Gets the output stream of a data connection, throttled when a bandwidth limiter is set.
+     */
+    private OutputStream getDataOutputStream(final Socket socket) throws IOException {
+        final OutputStream output = socket.getOutputStream();
+        return bandwidthLimiter != null ? new ThrottledOutputStream(output, bandwidthLimiter.open(bandwidthWeight)) : output;
+    }
+
+    /**
+     * Opens the stream from which retrieveFile reads the data of a file.
+     */
+    private InputStream openDataInput(final Socket socket) throws IOException {
+        if (fileType == ASCII_FILE_TYPE) {
+            return new FromNetASCIIInputStream(getBufferedInputStream(getDataInputStream(socket)));
+        }
+        if (adaptiveBufferSizing != null) {
+            // the adaptive copy buffer does the buffering
+            return getDataInputStream(socket);
+        }
+        return getBufferedInputStream(getDataInputStream(socket));
+    }
+
+    /**
+     * Opens the stream to which storeFile writes the data of a file.
+     */
+    private OutputStream openDataOutput(final Socket socket) throws IOException {
+        if (fileType == ASCII_FILE_TYPE) {
+            return new ToNetASCIIOutputStream(getBufferedOutputStream(getDataOutputStream(socket)));
+        }
+        if (adaptiveBufferSizing != null) {
+            // the adaptive copy buffer does the buffering
+            return getDataOutputStream(socket);
+        }
+        return getBufferedOutputStream(getDataOutputStream(socket));
+    }
+
+    /**
+     * Copies the data of a transfer, with the adaptive buffer when one is set.
+     */
+    private long copyData(final InputStream source, final OutputStream dest, final CopyStreamListener listener)
+            throws IOException {
+        if (adaptiveBufferSizing != null) {
+            return adaptiveBufferSizing.copy(source, dest, listener);
+        }
+        return Util.copyStream(source, dest, getBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, listener, false);
+    }
+
+    /**
+     * Gets the chunk size of FileChannel transfers.
+     */
+    private int getChunkSize() {
+        return adaptiveBufferSizing != null ? adaptiveBufferSizing.getBufferSize() : getBufferSize();
     }
 
     private boolean prepareForDataTransfer(final String command, final String arg) throws IOException {
@@ -881,11 +1001,16 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private void setSocketBufferSize(Socket socket) throws SocketException {
+        final int adaptiveSize = adaptiveBufferSizing != null ? adaptiveBufferSizing.getSocketBufferSize() : 0;
         if (receiveDataSocketBufferSize > 0) {
             socket.setReceiveBufferSize(receiveDataSocketBufferSize);
+        } else if (adaptiveSize > 0) {
+            socket.setReceiveBufferSize(adaptiveSize);
         }
         if (sendDataSocketBufferSize > 0) {
             socket.setSendBufferSize(sendDataSocketBufferSize);
+        } else if (adaptiveSize > 0) {
+            socket.setSendBufferSize(adaptiveSize);
         }
     }
 
@@ -908,17 +1033,78 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private boolean enterPassiveMode(boolean isInet6Address) throws IOException {
+        if (takePrefetchedPassiveEndpoint()) {
+            return true;
+        }
         boolean attemptEPSV = isUseEPSVwithIPv4() || isInet6Address;
-        if (attemptEPSV && epsv() == FTPReply.ENTERING_EPSV_MODE) {
-            _parseExtendedPassiveModeReply(_replyLines.get(0));
-        } else if (isInet6Address || pasv() != FTPReply.ENTERING_PASSIVE_MODE) {
+        if (attemptEPSV) {
+            final long start = System.nanoTime();
+            if (epsv() == FTPReply.ENTERING_EPSV_MODE) {
+                recordRoundTrip(start);
+                _parseExtendedPassiveModeReply(_replyLines.get(0));
+                return true;
+            }
+        }
+        if (isInet6Address) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        if (pasv() != FTPReply.ENTERING_PASSIVE_MODE) {
             return false;
-        } else {
-            _parsePassiveModeReply(_replyLines.get(0));
         }
+        recordRoundTrip(start);
+        _parsePassiveModeReply(_replyLines.get(0));
         return true;
     }
 
+    /**
+     * Tests whether the endpoint of the next passive data connection may be requested while a transfer is still being completed, see
+     * {@link #executeTransfers(FTPTransferQueue)}.
+     */
+    boolean isPassivePrefetchSupported() {
+        return dataConnectionMode == PASSIVE_LOCAL_DATA_CONNECTION_MODE && !DurationUtils.isPositive(controlKeepAliveTimeout);
+    }
+
+    /**
+     * Consumes the endpoint parsed from the reply to an EPSV or PASV command sent ahead, if any. The passive host and port then already describe the
+     * next data connection.
+     */
+    boolean takePrefetchedPassiveEndpoint() {
+        final boolean prefetched = passiveEndpointPrefetched;
+        passiveEndpointPrefetched = false;
+        return prefetched;
+    }
+
+    /**
+     * Whether a prefetch sends EPSV rather than PASV.
+     */
+    private boolean isPrefetchEPSV() {
+        return isUseEPSVwithIPv4() || getRemoteAddress() instanceof Inet6Address;
+    }
+
+    /**
+     * Writes the EPSV or PASV command for the next data connection; its reply is read by {@link #readPassivePrefetch()} after the pending reply.
+     */
+    private void writePassivePrefetch() throws IOException {
+        writeCommand(isPrefetchEPSV() ? FTPCmd.EPSV.getCommand() : FTPCmd.PASV.getCommand(), null);
+        flushCommands();
+    }
+
+    /**
+     * Reads the reply to the command written by {@link #writePassivePrefetch()}. If it was refused the next data connection sends its own command.
+     */
+    private void readPassivePrefetch() throws IOException {
+        final boolean epsv = isPrefetchEPSV();
+        final int replyCode = getReply();
+        if (epsv && replyCode == FTPReply.ENTERING_EPSV_MODE) {
+            _parseExtendedPassiveModeReply(_replyLines.get(0));
+            passiveEndpointPrefetched = true;
+        } else if (!epsv && replyCode == FTPReply.ENTERING_PASSIVE_MODE) {
+            _parsePassiveModeReply(_replyLines.get(0));
+            passiveEndpointPrefetched = true;
+        }
+    }
+
     private void setSocketBindAddress(Socket socket) throws SocketException, IOException {
         if (passiveLocalHost != null) {
             socket.bind(new InetSocketAddress(passiveLocalHost, 0));
@@ -1020,21 +1206,71 @@ public class FTPClient extends FTP implements Configurable {
         }
         InputStream input = null;
         CSL csl = null;
+        try {
+            try {
+                input = openDataInput(socket);
+
+                if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
+                    csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
+                }
+
+                // Treat everything else as binary for now
+                copyData(input, local, mergeListeners(csl));
+            } finally {
+                Util.closeQuietly(input);
+            }
+            // Get the transfer response
+            return completePendingCommand();
+        } finally {
+            Util.closeQuietly(socket);
+            if (csl != null) {
+                cslDebug = csl.cleanUp(); // fetch any outstanding keepalive replies
+            }
+        }
+    }
+
+    /**
+     * Retrieves a file into a FileChannel. In binary stream mode the data is moved
+     * with {@link FileChannel#transferFrom(ReadableByteChannel, long, long)},
+     * reading straight from the data socket's channel when it has one and no
+     * read timeout is set on it.
+     *
+     * @param command the command to get
+     * @param remote  the remote file name
+     * @param local   The local FileChannel to which to write the file, starting
+     *                at its current position.
+     * @return true if successful
+     * @throws IOException on error
+     * @since 3.12.0
+     */
+    protected boolean retrieveFile(final String command, final String remote, final FileChannel local)
+            throws IOException {
+        final Socket socket = _openDataConnection_(command, remote);
+        if (socket == null) {
+            return false;
+        }
+        ReadableByteChannel input = null;
+        CSL csl = null;
         try {
             try {
                 if (fileType == ASCII_FILE_TYPE) {
-                    input = new FromNetASCIIInputStream(getBufferedInputStream(socket.getInputStream()));
+                    input = Channels.newChannel(
+                            new FromNetASCIIInputStream(getBufferedInputStream(getDataInputStream(socket))));
+                } else if (transferCodec == null && bandwidthLimiter == null && socket.getChannel() != null && socket.getSoTimeout() == 0) {
+                    // reads from a SocketChannel ignore SO_TIMEOUT, so a data timeout needs the stream
+                    input = socket.getChannel();
                 } else {
-                    input = getBufferedInputStream(socket.getInputStream());
+                    input = Channels.newChannel(getDataInputStream(socket));
                 }
 
                 if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
                     csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
                 }
 
-                // Treat everything else as binary for now
-                Util.copyStream(input, local, getBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl),
-                        false);
+                final long start = System.nanoTime();
+                final long bytes = Util.transferFrom(input, local, getChunkSize(),
+                        CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl));
+                recordTransfer(bytes, start);
             } finally {
                 Util.closeQuietly(input);
             }
@@ -1069,9 +1305,9 @@ public class FTPClient extends FTP implements Configurable {
             // programmer if possible. Programmers can decide on their
             // own if they want to wrap the SocketInputStream we return
             // for file types other than ASCII.
-            input = new FromNetASCIIInputStream(getBufferedInputStream(socket.getInputStream()));
+            input = new FromNetASCIIInputStream(getBufferedInputStream(getDataInputStream(socket)));
         } else {
-            input = socket.getInputStream();
+            input = getDataInputStream(socket);
         }
         return new org.apache.commons.net.io.SocketInputStream(socket, input);
     }
@@ -1091,20 +1327,64 @@ public class FTPClient extends FTP implements Configurable {
         if (socket == null) {
             return false;
         }
-        final OutputStream output;
+        final OutputStream output = openDataOutput(socket);
+        CSL csl = null;
+        if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
+            csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
+        }
+        // Treat everything else as binary for now
+        try {
+            copyData(local, output, mergeListeners(csl));
+            output.close(); // ensure the file is fully written
+            socket.close(); // done writing the file
+            // Get the transfer response
+            return completePendingCommand();
+        } catch (final IOException e) {
+            Util.closeQuietly(output); // ignore close errors here
+            Util.closeQuietly(socket); // ignore close errors here
+            throw e;
+        } finally {
+            if (csl != null) {
+                cslDebug = csl.cleanUp(); // fetch any outstanding keepalive replies
+            }
+        }
+    }
+
+    /**
+     * Stores the contents of a FileChannel, from its current position to its end.
+     * In binary stream mode the data is moved with
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, writing
+     * straight to the data socket's channel when it has one.
+     *
+     * @param command the command to send
+     * @param remote  the remote file name
+     * @param local   The local FileChannel from which to read the data to be
+     *                written/appended to the remote file.
+     * @return true if successful
+     * @throws IOException on error
+     * @since 3.12.0
+     */
+    protected boolean storeFile(final String command, final String remote, final FileChannel local)
+            throws IOException {
+        final Socket socket = _openDataConnection_(command, remote);
+        if (socket == null) {
+            return false;
+        }
+        final WritableByteChannel output;
         if (fileType == ASCII_FILE_TYPE) {
-            output = new ToNetASCIIOutputStream(getBufferedOutputStream(socket.getOutputStream()));
+            output = Channels.newChannel(new ToNetASCIIOutputStream(getBufferedOutputStream(getDataOutputStream(socket))));
+        } else if (transferCodec == null && bandwidthLimiter == null && socket.getChannel() != null) {
+            output = socket.getChannel();
         } else {
-            output = getBufferedOutputStream(socket.getOutputStream());
+            output = Channels.newChannel(getDataOutputStream(socket));
         }
         CSL csl = null;
         if (DurationUtils.isPositive(controlKeepAliveTimeout)) {
             csl = new CSL(this, controlKeepAliveTimeout, controlKeepAliveReplyTimeout);
         }
-        // Treat everything else as binary for now
         try {
-            Util.copyStream(local, output, getBufferSize(), CopyStreamEvent.UNKNOWN_STREAM_SIZE, mergeListeners(csl),
-                    false);
+            final long start = System.nanoTime();
+            recordTransfer(Util.transferTo(local, output, getChunkSize(), mergeListeners(csl)), start);
             output.close(); // ensure the file is fully written
             socket.close(); // done writing the file
             // Get the transfer response
@@ -1141,9 +1421,9 @@ public class FTPClient extends FTP implements Configurable {
             // programmer if possible. Programmers can decide on their
             // own if they want to wrap the SocketOutputStream we return
             // for file types other than ASCII.
-            output = new ToNetASCIIOutputStream(getBufferedOutputStream(socket.getOutputStream()));
+            output = new ToNetASCIIOutputStream(getBufferedOutputStream(getDataOutputStream(socket)));
         } else {
-            output = socket.getOutputStream();
+            output = getDataOutputStream(socket);
         }
         return new SocketOutputStream(socket, output);
     }
@@ -1457,6 +1737,12 @@ public class FTPClient extends FTP implements Configurable {
             } else {
                 initializeParserWithSystemType();
             }
+            if (connectionCapabilityCache != null && entryParser instanceof CompositeFileEntryParser) {
+                final String listingParser = connectionCapabilityCache.getListingParser(getRemoteAddress(), getRemotePort(), greeting);
+                if (listingParser != null) {
+                    ((CompositeFileEntryParser) entryParser).selectParser(listingParser);
+                }
+            }
         }
     }
 
@@ -1796,6 +2082,36 @@ public class FTPClient extends FTP implements Configurable {
         return new BufferedOutputStream(outputStream);
     }
 
+    /**
+     * Gets the adaptive sizing of the data transfer buffers.
+     *
+     * @return the adaptive buffer sizing, or null if the fixed sizes are used.
+     * @since 3.12.0
+     */
+    public AdaptiveBufferSizing getAdaptiveBufferSizing() {
+        return adaptiveBufferSizing;
+    }
+
+    /**
+     * Gets the limiter of the file transfer rate.
+     *
+     * @return the bandwidth limiter, or null if the rate is not limited.
+     * @since 3.12.0
+     */
+    public BandwidthLimiter getBandwidthLimiter() {
+        return bandwidthLimiter;
+    }
+
+    /**
+     * Gets the weight of the file transfers of this client in the bandwidth limiter.
+     *
+     * @return the weight.
+     * @since 3.12.0
+     */
+    public int getBandwidthWeight() {
+        return bandwidthWeight;
+    }
+
     /**
      * Retrieve the current internal buffer size for buffered data streams.
      *
@@ -1805,6 +2121,112 @@ public class FTPClient extends FTP implements Configurable {
         return bufferSize;
     }
 
+    /**
+     * Gets the cache of FEAT and SYST replies used by this client.
+     *
+     * @return the cache, or null if not used.
+     * @since 3.12.0
+     */
+    public FTPServerCapabilityCache getCapabilityCache() {
+        return capabilityCache;
+    }
+
+    /**
+     * Asks the server for the checksum of a file, so that a transfer can be verified without reading the file again.
+     * <p>
+     * If the server announces HASH (draft-bryan-ftpext-hash) with the algorithm, the algorithm is selected with OPTS HASH when needed and HASH is sent.
+     * Otherwise, if the server announces the matching XCRC, XMD5, XSHA1, XSHA256 or XSHA512 command, that command is sent.
+     * </p>
+     *
+     * @param pathname  the remote file.
+     * @param algorithm one of the algorithm names of {@link FTPChecksum}.
+     * @return the checksum, or {@code null} if the server does not support the algorithm or the command failed; check {@link #getReplyCode()} or
+     *         {@link #getReplyString()} if so.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalArgumentException if the algorithm is not one of the names of {@link FTPChecksum}.
+     * @since 3.12.0
+     */
+    public FTPChecksum getChecksum(final String pathname, final String algorithm) throws IOException {
+        final String name = FTPChecksum.normalize(algorithm);
+        if (getHashAlgorithms().contains(name)) {
+            if (!name.equals(hashAlgorithm)) {
+                if (!FTPReply.isPositiveCompletion(sendCommand(FTPCmd.OPTS, "HASH " + name))) {
+                    return null;
+                }
+                hashAlgorithm = name;
+            }
+            if (sendCommand(FTPCmd.HASH, pathname) != FTPReply.FILE_STATUS) {
+                return null;
+            }
+            return FTPChecksum.parseHashReply(getReplyString().substring(4));
+        }
+        final FTPCmd command = getChecksumCommand(name);
+        if (hasFeature(command) && FTPReply.isPositiveCompletion(sendCommand(command, pathname))) {
+            return FTPChecksum.parseXReply(name, getReplyString().substring(4));
+        }
+        return null;
+    }
+
+    /**
+     * Gets the checksum algorithms the server announces in its FEAT reply, through HASH or the XCRC, XMD5 and XSHA commands.
+     *
+     * @return the algorithm names of {@link FTPChecksum} which {@link #getChecksum(String, String)} can use, empty if none.
+     * @throws IOException if an I/O error occurs.
+     * @since 3.12.0
+     */
+    public Set<String> getChecksumAlgorithms() throws IOException {
+        final Set<String> algorithms = new HashSet<>(getHashAlgorithms());
+        for (final String name : new String[] { FTPChecksum.CRC32, FTPChecksum.MD5, FTPChecksum.SHA_1, FTPChecksum.SHA_256, FTPChecksum.SHA_512 }) {
+            if (hasFeature(getChecksumCommand(name))) {
+                algorithms.add(name);
+            }
+        }
+        return algorithms;
+    }
+
+    private static FTPCmd getChecksumCommand(final String algorithm) {
+        switch (algorithm) {
+        case FTPChecksum.CRC32:
+            return FTPCmd.XCRC;
+        case FTPChecksum.MD5:
+            return FTPCmd.XMD5;
+        case FTPChecksum.SHA_1:
+            return FTPCmd.XSHA1;
+        case FTPChecksum.SHA_256:
+            return FTPCmd.XSHA256;
+        default:
+            return FTPCmd.XSHA512;
+        }
+    }
+
+    /*
+     * The algorithms of the HASH feature, "SHA-1;SHA-256*;MD5" where the star marks the current one.
+     */
+    private Set<String> getHashAlgorithms() throws IOException {
+        final Set<String> algorithms = new HashSet<>();
+        final String value = featureValue(FTPCmd.HASH.name());
+        if (value == null) {
+            return algorithms;
+        }
+        for (String name : value.split(";")) {
+            name = name.trim();
+            final boolean current = name.endsWith("*");
+            if (current) {
+                name = name.substring(0, name.length() - 1);
+            }
+            try {
+                name = FTPChecksum.normalize(name);
+            } catch (final IllegalArgumentException e) {
+                continue;
+            }
+            algorithms.add(name);
+            if (current && hashAlgorithm == null) {
+                hashAlgorithm = name;
+            }
+        }
+        return algorithms;
+    }
+
     /**
      * Gets how long to wait for control keep-alive message replies.
      *
@@ -1901,6 +2323,29 @@ public class FTPClient extends FTP implements Configurable {
         return dataConnectionMode;
     }
 
+    /**
+     * Returns the current transfer mode (one of the {@code _TRANSFER_MODE}
+     * constants), as last set by {@link #setFileTransferMode(int)} or reset by
+     * connecting.
+     *
+     * @return The current transfer mode.
+     * @since 3.12.0
+     */
+    public int getFileTransferMode() {
+        return fileTransferMode;
+    }
+
+    /**
+     * Returns the current file type (one of the {@code _FILE_TYPE} constants), as
+     * last set by {@link #setFileType(int)} or reset by connecting.
+     *
+     * @return The current file type.
+     * @since 3.12.0
+     */
+    public int getFileType() {
+        return fileType;
+    }
+
     /**
      * Gets the timeout to use when reading from the data connection. This timeout
      * will be set immediately after opening the data connection, provided that the
@@ -2196,6 +2641,9 @@ public class FTPClient extends FTP implements Configurable {
             if (FTPReply.isPositiveCompletion(syst())) {
                 // Assume that response is not empty here (cannot be null)
                 systemName = _replyLines.get(_replyLines.size() - 1).substring(4);
+                if (connectionCapabilityCache != null) {
+                    connectionCapabilityCache.putSystemType(getRemoteAddress(), getRemotePort(), greeting, systemName);
+                }
             } else {
                 // Check if the user has provided a default for when the SYST command fails
                 final String systDefault = System.getProperty(FTP_SYSTEM_TYPE_DEFAULT);
@@ -2208,6 +2656,16 @@ public class FTPClient extends FTP implements Configurable {
         return systemName;
     }
 
+    /**
+     * Gets the codec which encodes the data connections.
+     *
+     * @return the codec, or null in stream and other unencoded modes.
+     * @since 3.12.0
+     */
+    public FTPTransferCodec getTransferCodec() {
+        return transferCodec;
+    }
+
     /**
      * Queries the server for a supported feature. Caches the parsed response to
      * avoid resending the command repeatedly.
@@ -2284,11 +2742,48 @@ public class FTPClient extends FTP implements Configurable {
         fileStructure = FILE_STRUCTURE;
         formatOrByteSize = NON_PRINT_TEXT_FORMAT;
         fileTransferMode = STREAM_TRANSFER_MODE;
+        transferCodec = null;
         restartOffset = 0;
         systemName = null;
         entryParser = null;
         entryParserKey = "";
         featuresMap = null;
+        connectionCapabilityCache = null;
+        greeting = null;
+        hashAlgorithm = null;
+    }
+
+    /*
+     * Record in the capability cache which parser of a composite matched the last listing, so that later connections skip the sampling.
+     */
+    private void rememberListingParser(final FTPFileEntryParser parser) {
+        if (connectionCapabilityCache == null || !(parser instanceof CompositeFileEntryParser)) {
+            return;
+        }
+        final FTPFileEntryParser selected = ((CompositeFileEntryParser) parser).getSelectedParser();
+        if (selected != null) {
+            final String listingParser = selected.getClass().getName();
+            if (!listingParser.equals(connectionCapabilityCache.getListingParser(getRemoteAddress(), getRemotePort(), greeting))) {
+                connectionCapabilityCache.putListingParser(getRemoteAddress(), getRemotePort(), greeting, listingParser);
+            }
+        }
+    }
+
+    /*
+     * Take the FEAT and SYST replies from the capability cache, if the server is known and sends the same greeting.
+     */
+    private void seedCapabilities() {
+        // later changes of the setting take effect on the next connect
+        connectionCapabilityCache = capabilityCache;
+        if (connectionCapabilityCache == null) {
+            return;
+        }
+        greeting = getReplyString();
+        final Map<String, Set<String>> features = connectionCapabilityCache.getFeatures(getRemoteAddress(), getRemotePort(), greeting);
+        if (features != null) {
+            featuresMap = new HashMap<>(features);
+        }
+        systemName = connectionCapabilityCache.getSystemType(getRemoteAddress(), getRemotePort(), greeting);
     }
 
     /*
@@ -2305,6 +2800,7 @@ public class FTPClient extends FTP implements Configurable {
             // init the map here, so we don't keep trying if we know the command will fail
             featuresMap = new HashMap<>();
             if (!success) {
+                // not cached, the failure may be transient
                 return false;
             }
             for (final String line : _replyLines) {
@@ -2323,6 +2819,9 @@ public class FTPClient extends FTP implements Configurable {
                     entries.add(value);
                 }
             }
+            if (connectionCapabilityCache != null) {
+                connectionCapabilityCache.putFeatures(getRemoteAddress(), getRemotePort(), greeting, featuresMap);
+            }
         }
         return true;
     }
@@ -2457,6 +2956,7 @@ public class FTPClient extends FTP implements Configurable {
             Util.closeQuietly(socket);
         }
         completePendingCommand();
+        rememberListingParser(parser);
         return engine;
     }
 
@@ -3409,6 +3909,102 @@ public class FTPClient extends FTP implements Configurable {
         return initiateListParsing((String) null, pathname).getFiles(filter);
     }
 
+    /**
+     * Lists the given directory like {@link #listFiles(String, FTPFileFilter)},
+     * but returns the entries in a {@link CompactFTPFileList}, which needs much
+     * less memory than an array of {@link FTPFile}s for very large directories.
+     * The entries are parsed and added while the listing is read, as with
+     * {@link #streamFiles(String)}, so the raw listing is never held as a whole;
+     * {@link FTPFileEntryParser#preParse(java.util.List)} therefore only sees
+     * the first entries.
+     *
+     * @param pathname        the initial path, may be null
+     * @param filter          the filter, non-null
+     * @param keepRawListings whether to keep the original listing lines
+     * @return the entries accepted by the filter, never null
+     * @throws IOException on error
+     * @since 3.12.0
+     */
+    public CompactFTPFileList listFilesCompact(final String pathname, final FTPFileFilter filter, final boolean keepRawListings) throws IOException {
+        createParser(null); // create and cache parser
+        final FTPFileEntryParser parser = entryParser;
+        final CompactFTPFileList files = readCompactList(FTPCmd.LIST, getListArguments(pathname), parser, filter, keepRawListings);
+        rememberListingParser(parser);
+        return files;
+    }
+
+    /**
+     * Reads a listing into a compact list while its data connection is open,
+     * then completes the pending command.
+     */
+    private CompactFTPFileList readCompactList(final FTPCmd command, final String arguments, final FTPFileEntryParser parser, final FTPFileFilter filter,
+            final boolean keepRawListings) throws IOException {
+        final CompactFTPFileList files = new CompactFTPFileList(keepRawListings);
+        final Socket socket = _openDataConnection_(command, arguments);
+        if (socket == null) {
+            return files;
+        }
+        try (Stream<FTPFile> stream = new FTPListParseEngine(parser, configuration).streamServerList(socket.getInputStream(), getControlEncoding())) {
+            stream.filter(filter::accept).forEach(files::add);
+        } catch (final UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Util.closeQuietly(socket);
+        }
+        completePendingCommand();
+        return files.trimToSize();
+    }
+
+    /**
+     * Lists the given directory like {@link #listFiles(String)}, but parses the
+     * entries while the LIST data connection is still open instead of buffering
+     * the whole listing first. Memory use therefore stays flat however large the
+     * directory is.
+     * <p>
+     * The returned stream <b>must</b> be closed, for example with
+     * try-with-resources. Closing it closes the data connection and completes the
+     * pending command; closing it early aborts the transfer. No other command may
+     * be sent on this client until the stream is closed. I/O errors are thrown as
+     * {@link java.io.UncheckedIOException} while the stream is consumed.
+     * </p>
+     * <p>
+     * Only the first entries of the listing are given to
+     * {@link FTPFileEntryParser#preParse(java.util.List)}, see
+     * {@link FTPListParseEngine#streamServerList(InputStream, String)}.
+     * </p>
+     *
+     * @param pathname the directory to list, may be null for the current
+     *                 directory
+     * @return a stream of the parsed entries, empty if the data connection could
+     *         not be opened
+     * @throws IOException If an I/O error occurs while sending the command or
+     *                     opening the data connection.
+     * @since 3.12.0
+     */
+    public Stream<FTPFile> streamFiles(final String pathname) throws IOException {
+        createParser(null); // create and cache parser
+        final Socket socket = _openDataConnection_(FTPCmd.LIST, getListArguments(pathname));
+        if (socket == null) {
+            return Stream.empty();
+        }
+        final FTPFileEntryParser parser = entryParser;
+        final FTPListParseEngine engine = new FTPListParseEngine(parser, configuration);
+        try {
+            return engine.streamServerList(socket.getInputStream(), getControlEncoding()).onClose(() -> {
+                Util.closeQuietly(socket);
+                try {
+                    completePendingCommand();
+                    rememberListingParser(parser);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (final IOException e) {
+            Util.closeQuietly(socket);
+            throw e;
+        }
+    }
+
     /**
      * Fetches the system help information from the server and returns the full
      * string.
@@ -3642,6 +4238,205 @@ public class FTPClient extends FTP implements Configurable {
         return FTPReply.isPositiveCompletion(mkd(pathname));
     }
 
+    /**
+     * Sends the commands of a batch pipelined: up to
+     * {@link FTPCommandBatch#getWindow()} commands are written before their
+     * replies are read, and each reply that arrives lets another command be sent.
+     * The server still executes the commands one after the other, in order, so
+     * for example a failed RNFR makes the following RNTO fail as usual.
+     * <p>
+     * Command listeners see every command and reply, as with
+     * {@link #sendCommand(String, String)}. After this method returns,
+     * {@link #getReplyCode()} and {@link #getReplyString()} describe the reply to
+     * the last command.
+     * </p>
+     * <p>
+     * If an I/O error occurs, replies to commands already sent may still be
+     * pending, so the control connection is out of step and should be
+     * disconnected.
+     * </p>
+     *
+     * @param batch the commands to send.
+     * @return the result of each command, in the order of the batch.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the
+     *                                      connection, for example with reply
+     *                                      code 421.
+     * @throws IOException                  If an I/O error occurs while sending
+     *                                      the commands or receiving the replies.
+     * @since 3.12.0
+     */
+    public List<FTPCommandBatch.Result> executeBatch(final FTPCommandBatch batch) throws IOException {
+        final int count = batch.size();
+        final int window = batch.getWindow();
+        final List<FTPCommandBatch.Result> results = new ArrayList<>(count);
+        int sent = 0;
+        while (results.size() < count) {
+            if (sent < count && sent - results.size() < window) {
+                do {
+                    writeCommand(batch.getCommand(sent), batch.getArgument(sent));
+                    sent++;
+                } while (sent < count && sent - results.size() < window);
+                flushCommands();
+            }
+            final int replyCode = getReply();
+            results.add(batch.toResult(results.size(), replyCode, getReplyStrings()));
+        }
+        return results;
+    }
+
+    /**
+     * Runs the transfers of a queue one after the other, in the current file
+     * type. In local passive mode the EPSV or PASV command for the next transfer
+     * is sent as soon as the data of a transfer has been moved, before its
+     * completion reply is read, so that both replies arrive in one round trip.
+     * This is not done while control keep-alive is enabled, since the keep-alive
+     * replies would interleave with the prefetched one.
+     * <p>
+     * A transfer which fails with a transient negative reply or an error on its
+     * data connection is retried up to {@link FTPTransferQueue#getMaxRetries()}
+     * times; other failures are recorded in its result and the queue goes on with
+     * the next transfer. The {@link #setRestartOffset(long) restart offset} must
+     * not be set.
+     * </p>
+     * <p>
+     * If an I/O error occurs on the control connection, replies may still be
+     * pending, so the control connection is out of step and should be
+     * disconnected.
+     * </p>
+     *
+     * @param queue the transfers to run.
+     * @return the result of each transfer, in the order of the queue.
+     * @throws FTPConnectionClosedException If the FTP server prematurely closes the
+     *                                      connection, for example with reply
+     *                                      code 421.
+     * @throws IOException                  If an I/O error occurs on the control
+     *                                      connection.
+     * @since 3.12.0
+     */
+    public List<FTPTransferQueue.Result> executeTransfers(final FTPTransferQueue queue) throws IOException {
+        final int count = queue.size();
+        final List<FTPTransferQueue.Result> results = new ArrayList<>(count);
+        final FTPTransferQueue.AggregateListener aggregate = queue.getCopyStreamListener() == null ? null
+                : new FTPTransferQueue.AggregateListener(queue.getCopyStreamListener());
+        try {
+            for (int i = 0; i < count; i++) {
+                final FTPTransferQueue.Transfer transfer = queue.get(i);
+                final boolean prefetch = i + 1 < count && isPassivePrefetchSupported();
+                FTPTransferQueue.Result result;
+                int attempt = 1;
+                while (true) {
+                    result = transfer.retrieve ? retrieveQueued(transfer, attempt, aggregate, prefetch)
+                            : storeQueued(transfer, attempt, aggregate, prefetch);
+                    if (aggregate != null) {
+                        aggregate.complete();
+                    }
+                    if (result.isSuccess() || !result.isRetryable() || attempt > queue.getMaxRetries()) {
+                        break;
+                    }
+                    attempt++;
+                }
+                results.add(result);
+            }
+        } finally {
+            // a prefetched endpoint not used by the queue is stale for later commands
+            passiveEndpointPrefetched = false;
+        }
+        return results;
+    }
+
+    /**
+     * Ends a transfer of a queue once its data connection is closed: sends the prefetch, if wanted and the data was
+     * moved, reads the completion reply, then the reply to the prefetch.
+     */
+    private FTPTransferQueue.Result completeQueued(final FTPTransferQueue.Transfer transfer, final int attempt,
+            final long byteCount, final IOException exception, final boolean localFailure, final boolean prefetch)
+            throws IOException {
+        final boolean prefetched = prefetch && exception == null;
+        if (prefetched) {
+            writePassivePrefetch();
+        }
+        final int replyCode = getReply();
+        final String replyString = getReplyString();
+        if (prefetched) {
+            readPassivePrefetch();
+        }
+        final boolean retryable = exception != null ? !localFailure && !FTPReply.isNegativePermanent(replyCode)
+                : FTPReply.isNegativeTransient(replyCode);
+        return new FTPTransferQueue.Result(transfer, attempt, replyCode, replyString, byteCount, exception, retryable);
+    }
+
+    private CopyStreamListener mergeQueueListener(final CopyStreamListener aggregate) {
+        final CopyStreamListener listener = mergeListeners(null);
+        if (aggregate == null || listener == null) {
+            return listener == null ? aggregate : listener;
+        }
+        final CopyStreamAdapter merged = new CopyStreamAdapter();
+        merged.addCopyStreamListener(listener);
+        merged.addCopyStreamListener(aggregate);
+        return merged;
+    }
+
+    private FTPTransferQueue.Result retrieveQueued(final FTPTransferQueue.Transfer transfer, final int attempt,
+            final CopyStreamListener aggregate, final boolean prefetch) throws IOException {
+        final Socket socket = _openDataConnection_(FTPCmd.RETR, transfer.remote);
+        if (socket == null) {
+            return new FTPTransferQueue.Result(transfer, attempt, getReplyCode(), getReplyString(), 0, null,
+                    FTPReply.isNegativeTransient(getReplyCode()));
+        }
+        final FTPTransferQueue.LocalOutputStream local;
+        try {
+            local = new FTPTransferQueue.LocalOutputStream(Files.newOutputStream(transfer.local));
+        } catch (final IOException e) {
+            Util.closeQuietly(socket);
+            return completeQueued(transfer, attempt, 0, e, true, false);
+        }
+        long byteCount = 0;
+        IOException exception = null;
+        try (InputStream input = openDataInput(socket); OutputStream output = local) {
+            byteCount = copyData(input, output, mergeQueueListener(aggregate));
+        } catch (final CopyStreamException e) {
+            byteCount = e.getTotalBytesTransferred();
+            exception = e;
+        } catch (final IOException e) {
+            exception = e;
+        } finally {
+            Util.closeQuietly(socket);
+        }
+        return completeQueued(transfer, attempt, byteCount, exception, local.failed, prefetch);
+    }
+
+    private FTPTransferQueue.Result storeQueued(final FTPTransferQueue.Transfer transfer, final int attempt,
+            final CopyStreamListener aggregate, final boolean prefetch) throws IOException {
+        final FTPTransferQueue.LocalInputStream local;
+        try {
+            local = new FTPTransferQueue.LocalInputStream(Files.newInputStream(transfer.local));
+        } catch (final IOException e) {
+            return new FTPTransferQueue.Result(transfer, attempt, 0, null, 0, e, false);
+        }
+        try {
+            final Socket socket = _openDataConnection_(FTPCmd.STOR, transfer.remote);
+            if (socket == null) {
+                return new FTPTransferQueue.Result(transfer, attempt, getReplyCode(), getReplyString(), 0, null,
+                        FTPReply.isNegativeTransient(getReplyCode()));
+            }
+            long byteCount = 0;
+            IOException exception = null;
+            try (OutputStream output = openDataOutput(socket)) {
+                byteCount = copyData(local, output, mergeQueueListener(aggregate));
+            } catch (final CopyStreamException e) {
+                byteCount = e.getTotalBytesTransferred();
+                exception = e;
+            } catch (final IOException e) {
+                exception = e;
+            } finally {
+                Util.closeQuietly(socket);
+            }
+            return completeQueued(transfer, attempt, byteCount, exception, local.failed, prefetch);
+        } finally {
+            Util.closeQuietly(local);
+        }
+    }
+
     /**
      * Issue the FTP MDTM command (not supported by all servers) to retrieve the
      * last modification time of a file. The modification string should be in the
@@ -3770,6 +4565,22 @@ public class FTPClient extends FTP implements Configurable {
         return initiateMListParsing(pathname).getFiles(filter);
     }
 
+    /**
+     * Generate a directory listing using the MLSD command, returning the entries
+     * in a {@link CompactFTPFileList}. The entries are parsed and added while the
+     * listing is read, so the raw listing is never held as a whole.
+     *
+     * @param pathname        the directory name, may be {@code null}
+     * @param filter          the filter to apply to the responses
+     * @param keepRawListings whether to keep the original listing lines
+     * @return the entries accepted by the filter, never null
+     * @throws IOException on error
+     * @since 3.12.0
+     */
+    public CompactFTPFileList mlistDirCompact(final String pathname, final FTPFileFilter filter, final boolean keepRawListings) throws IOException {
+        return readCompactList(FTPCmd.MLSD, pathname, MLSxEntryParser.getInstance(), filter, keepRawListings);
+    }
+
     /**
      * Gets file details using the MLST command
      *
@@ -4112,6 +4923,81 @@ public class FTPClient extends FTP implements Configurable {
         return retrieveFile(FTPCmd.RETR.getCommand(), remote, local);
     }
 
+    /**
+     * Retrieves a named file from the server and writes it to the given
+     * FileChannel, starting at the channel's current position. The channel is
+     * not closed.
+     * <p>
+     * In binary {@link #STREAM_TRANSFER_MODE} the bytes go through
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} without
+     * the intermediate buffered stream used by
+     * {@link #retrieveFile(String, OutputStream)}. When the data socket is backed
+     * by a {@link java.nio.channels.SocketChannel}, for example because the
+     * configured {@link javax.net.SocketFactory} returns
+     * {@code SocketChannel.open().socket()}, the JDK can copy the data without
+     * going through the Java heap. As reads from a channel ignore the socket
+     * timeout, the socket's stream is read instead when a
+     * {@link #setDataTimeout(Duration) data timeout} is set. ASCII transfers
+     * are still translated from NETASCII.
+     * </p>
+     *
+     * @param remote The name of the remote file.
+     * @param local  The local FileChannel to which to write the file.
+     * @return True if successfully completed, false if not.
+     * @throws FTPConnectionClosedException                  If the FTP server
+     *                                                       prematurely closes the
+     *                                                       connection.
+     * @throws org.apache.commons.net.io.CopyStreamException If an I/O error occurs
+     *                                                       while actually
+     *                                                       transferring the file.
+     * @throws IOException                                   If an I/O error occurs
+     *                                                       while either sending a
+     *                                                       command to the server
+     *                                                       or receiving a reply
+     *                                                       from the server.
+     * @since 3.12.0
+     */
+    public boolean retrieveFile(final String remote, final FileChannel local) throws IOException {
+        return retrieveFile(FTPCmd.RETR.getCommand(), remote, local);
+    }
+
+    /**
+     * Retrieves a named file from the server and writes it to a local file,
+     * which is created or replaced as needed. See
+     * {@link #retrieveFile(String, FileChannel)} for how the data is moved.
+     * <p>
+     * The data is written to a temporary file in the same directory, which
+     * replaces the local file only once the transfer has succeeded, so a
+     * refused or failed transfer leaves an existing local file as it was.
+     * </p>
+     *
+     * @param remote The name of the remote file.
+     * @param local  The local file to write.
+     * @return True if successfully completed, false if not.
+     * @throws IOException If an I/O error occurs while transferring the file,
+     *                     sending a command to the server or receiving a reply
+     *                     from the server.
+     * @since 3.12.0
+     */
+    public boolean retrieveFile(final String remote, final Path local) throws IOException {
+        final Path temp = Files.createTempFile(local.toAbsolutePath().getParent(), ".", ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                if (!retrieveFile(remote, channel)) {
+                    return false;
+                }
+            }
+            try {
+                Files.move(temp, local, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, local, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
     /**
      * Returns an InputStream from which a named file from the server can be read.
      * If the current file type is ASCII, the returned InputStream will convert line
@@ -4227,6 +5113,48 @@ public class FTPClient extends FTP implements Configurable {
         this.autoDetectEncoding = autoDetectEncoding;
     }
 
+    /**
+     * Sets the adaptive sizing of the data transfer buffers. When set, {@link #retrieveFile(String, OutputStream)} and
+     * {@link #storeFile(String, InputStream)} copy with a buffer sized from the measured throughput instead of
+     * {@link #getBufferSize()}, and data connections whose socket buffer sizes are not set with
+     * {@link #setReceieveDataSocketBufferSize(int)} or {@link #setSendDataSocketBufferSize(int)} get sizes derived
+     * from the bandwidth-delay product. The sizes learned are kept across transfers, so use one instance per client.
+     *
+     * @param adaptiveBufferSizing the adaptive buffer sizing, or null to use the fixed sizes.
+     * @since 3.12.0
+     */
+    public void setAdaptiveBufferSizing(final AdaptiveBufferSizing adaptiveBufferSizing) {
+        this.adaptiveBufferSizing = adaptiveBufferSizing;
+    }
+
+    /**
+     * Sets the limiter of the file transfer rate. When set, the data connections of the file retrieve and store methods, including
+     * {@link #retrieveFileStream(String)} and {@link #storeFileStream(String)}, each open a share of the limiter with the
+     * {@link #setBandwidthWeight(int) weight} of this client, and the FileChannel methods copy through the throttled streams. Directory listings are
+     * not throttled. The same limiter can be set on several clients to share one budget between them, or each client can have its own limiter below a
+     * shared parent.
+     *
+     * @param bandwidthLimiter the bandwidth limiter, or null to not limit the rate.
+     * @since 3.12.0
+     */
+    public void setBandwidthLimiter(final BandwidthLimiter bandwidthLimiter) {
+        this.bandwidthLimiter = bandwidthLimiter;
+    }
+
+    /**
+     * Sets the weight of the file transfers of this client in the bandwidth limiter; a transfer with twice the weight of another gets twice its rate
+     * while both run. The default is 1.
+     *
+     * @param bandwidthWeight the weight, at least 1.
+     * @since 3.12.0
+     */
+    public void setBandwidthWeight(final int bandwidthWeight) {
+        if (bandwidthWeight < 1) {
+            throw new IllegalArgumentException("bandwidthWeight must be at least 1: " + bandwidthWeight);
+        }
+        this.bandwidthWeight = bandwidthWeight;
+    }
+
     /**
      * Sets the internal buffer size for buffered data streams.
      *
@@ -4237,6 +5165,28 @@ public class FTPClient extends FTP implements Configurable {
         this.bufferSize = bufferSize;
     }
 
+    /**
+     * Sets a cache of FEAT and SYST replies, usually shared by all clients, for
+     * example {@link FTPServerCapabilityCache#getDefault()}. When this client
+     * connects to a server which is in the cache and sends the same greeting,
+     * {@link #hasFeature(String)}, {@link #getSystemType()} and the parser
+     * autodetection of {@link #listFiles()} use the cached replies instead of
+     * sending FEAT and SYST again. Successful replies this client receives are
+     * added to the cache, as is the parser a {@link CompositeFileEntryParser}
+     * selected for a listing, which later connections then select without
+     * sampling.
+     * <p>
+     * Takes effect on the next connect. The default is null, which disables the
+     * cache.
+     * </p>
+     *
+     * @param capabilityCache the cache, or null to disable it.
+     * @since 3.12.0
+     */
+    public void setCapabilityCache(final FTPServerCapabilityCache capabilityCache) {
+        this.capabilityCache = capabilityCache;
+    }
+
     /**
      * Sets the duration to wait for control keep-alive message replies.
      *
@@ -4374,7 +5324,9 @@ public class FTPClient extends FTP implements Configurable {
      * Sets the transfer mode. The default transfer mode
      * {@code FTP.STREAM_TRANSFER_MODE} if this method is never called or if a
      * connect method is
-     * called.
+     * called. {@code FTP.DEFLATE_TRANSFER_MODE} uses
+     * {@link DeflateTransferCodec#getDefault()}; see
+     * {@link #setTransferCodec(FTPTransferCodec)} for other levels.
      *
      * @param fileTransferMode The new transfer mode to use (one of the FTP class
      *                         {@code _TRANSFER_MODE} constants).
@@ -4393,11 +5345,48 @@ public class FTPClient extends FTP implements Configurable {
     public boolean setFileTransferMode(final int fileTransferMode) throws IOException {
         if (FTPReply.isPositiveCompletion(mode(fileTransferMode))) {
             this.fileTransferMode = fileTransferMode;
+            this.transferCodec = fileTransferMode == DEFLATE_TRANSFER_MODE ? DeflateTransferCodec.getDefault() : null;
             return true;
         }
         return false;
     }
 
+    /**
+     * Sets the transfer mode to the mode of a codec, which then encodes the data connections of the following transfers. MODE is sent with
+     * {@link FTPTransferCodec#getMode()}, followed by OPTS MODE with the {@link FTPTransferCodec#getModeOptions() options} of the codec, such as the
+     * compression level of a {@link DeflateTransferCodec}.
+     * <p>
+     * The file transfer mode becomes the {@code _TRANSFER_MODE} constant of the mode of the codec, for example {@code FTP.DEFLATE_TRANSFER_MODE} for
+     * MODE Z. Connecting resets the mode to {@code FTP.STREAM_TRANSFER_MODE}.
+     * </p>
+     * <p>
+     * If the server refuses the options, the mode is in effect nonetheless, with the settings of the server, so the codec is used and false is returned.
+     * </p>
+     *
+     * @param codec the codec, or {@code null} to return to stream mode.
+     * @return true if the server accepted the mode and its options; false if it refused the mode, in which case the previous mode is kept, or if it
+     *         refused the options.
+     * @throws IllegalArgumentException if the mode of the codec is not the letter of a {@code _TRANSFER_MODE} constant.
+     * @throws IOException              If an I/O error occurs while either sending a command to the server or receiving a reply from the server.
+     * @since 3.12.0
+     */
+    public boolean setTransferCodec(final FTPTransferCodec codec) throws IOException {
+        if (codec == null) {
+            return setFileTransferMode(STREAM_TRANSFER_MODE);
+        }
+        final int mode = transferModeOf(codec.getMode());
+        if (mode < 0) {
+            throw new IllegalArgumentException("Unknown transfer mode: " + codec.getMode());
+        }
+        if (!FTPReply.isPositiveCompletion(sendCommand(FTPCmd.MODE, codec.getMode()))) {
+            return false;
+        }
+        fileTransferMode = mode;
+        transferCodec = codec;
+        final String options = codec.getModeOptions();
+        return options == null || FTPReply.isPositiveCompletion(sendCommand(FTPCmd.OPTS, "MODE " + codec.getMode() + " " + options));
+    }
+
     /**
      * Sets the file type to be transferred. This should be one of
      * {@code FTP.ASCII_FILE_TYPE}, {@code FTP.BINARY_FILE_TYPE}, etc. The file type
@@ -4751,6 +5740,56 @@ public class FTPClient extends FTP implements Configurable {
         return storeFile(FTPCmd.STOR, remote, local);
     }
 
+    /**
+     * Stores a file on the server using the given name, taking its contents
+     * from the given FileChannel, from its current position to its end. The
+     * channel is not closed.
+     * <p>
+     * In binary {@link #STREAM_TRANSFER_MODE} the bytes go through
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which can
+     * use the operating system's sendfile when the data socket is backed by a
+     * {@link java.nio.channels.SocketChannel}. ASCII transfers are still
+     * translated to NETASCII.
+     * </p>
+     *
+     * @param remote The name to give the remote file.
+     * @param local  The local FileChannel from which to read the file.
+     * @return True if successfully completed, false if not.
+     * @throws FTPConnectionClosedException                  If the FTP server
+     *                                                       prematurely closes the
+     *                                                       connection.
+     * @throws org.apache.commons.net.io.CopyStreamException If an I/O error occurs
+     *                                                       while actually
+     *                                                       transferring the file.
+     * @throws IOException                                   If an I/O error occurs
+     *                                                       while either sending a
+     *                                                       command to the server
+     *                                                       or receiving a reply
+     *                                                       from the server.
+     * @since 3.12.0
+     */
+    public boolean storeFile(final String remote, final FileChannel local) throws IOException {
+        return storeFile(FTPCmd.STOR.getCommand(), remote, local);
+    }
+
+    /**
+     * Stores a local file on the server using the given name. See
+     * {@link #storeFile(String, FileChannel)} for how the data is moved.
+     *
+     * @param remote The name to give the remote file.
+     * @param local  The local file to send.
+     * @return True if successfully completed, false if not.
+     * @throws IOException If an I/O error occurs while transferring the file,
+     *                     sending a command to the server or receiving a reply
+     *                     from the server.
+     * @since 3.12.0
+     */
+    public boolean storeFile(final String remote, final Path local) throws IOException {
+        try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+            return storeFile(remote, channel);
+        }
+    }
+
     private OutputStream storeFileStream(final FTPCmd command, final String remote) throws IOException {
         return _storeFileStream(command.getCommand(), remote);
     }
@@ -4977,14 +6016,6 @@ public class FTPClient extends FTP implements Configurable {
     }
 
     private Socket wrapOnDeflate(final Socket plainSocket) {
-        switch (fileTransferMode) {
-            case DEFLATE_TRANSFER_MODE:
-                return new DeflateSocket(plainSocket);
-            // Experiment, not in an RFC?
-            // case GZIP_TRANSFER_MODE:
-            // return new GZIPSocket(plainSocket);
-            default:
-                return plainSocket;
-        }
+        return transferCodec != null ? new DeflateSocket(plainSocket, transferCodec) : plainSocket;
     }
-}
\ No newline at end of file
+}
@@ -294,6 +294,10 @@ public class FTPClientConfig {
 
     private boolean saveUnparseableEntries;
 
+    private boolean fastListParsing;
+
+    private boolean javaTimeTimestampParsing;
+
     /**
      * Convenience constructor mainly for use in testing. Constructs a UNIX configuration.
      */
@@ -313,6 +317,8 @@ public class FTPClientConfig {
         this.lenientFutureDates = config.lenientFutureDates;
         this.recentDateFormatStr = config.recentDateFormatStr;
         this.saveUnparseableEntries = config.saveUnparseableEntries;
+        this.fastListParsing = config.fastListParsing;
+        this.javaTimeTimestampParsing = config.javaTimeTimestampParsing;
         this.serverLanguageCode = config.serverLanguageCode;
         this.serverTimeZoneId = config.serverTimeZoneId;
         this.shortMonthNames = config.shortMonthNames;
@@ -336,6 +342,8 @@ public class FTPClientConfig {
         this.lenientFutureDates = config.lenientFutureDates;
         this.recentDateFormatStr = config.recentDateFormatStr;
         this.saveUnparseableEntries = config.saveUnparseableEntries;
+        this.fastListParsing = config.fastListParsing;
+        this.javaTimeTimestampParsing = config.javaTimeTimestampParsing;
         this.serverLanguageCode = config.serverLanguageCode;
         this.serverTimeZoneId = config.serverTimeZoneId;
         this.shortMonthNames = config.shortMonthNames;
@@ -460,6 +468,28 @@ public class FTPClientConfig {
         return shortMonthNames;
     }
 
+    /**
+     * Returns whether parsers should use their regular expression free fast path, where they have one.
+     *
+     * @return true if the fast path is enabled
+     * @see #setFastListParsing(boolean)
+     * @since 3.12.0
+     */
+    public boolean isFastListParsing() {
+        return fastListParsing;
+    }
+
+    /**
+     * Returns whether parsers should parse timestamps with the {@code java.time} based parser.
+     *
+     * @return true if the {@code java.time} based parser is used
+     * @see #setJavaTimeTimestampParsing(boolean)
+     * @since 3.12.0
+     */
+    public boolean isJavaTimeTimestampParsing() {
+        return javaTimeTimestampParsing;
+    }
+
     /**
      * @return true if list parsing should return FTPFile entries even for unparseable response lines
      *         <p>
@@ -499,6 +529,28 @@ public class FTPClientConfig {
         this.defaultDateFormatStr = defaultDateFormatStr;
     }
 
+    /**
+     * Enables the single pass tokenizer of parsers which have one, currently the {@link #SYST_UNIX UNIX} parser. The tokenizer produces the same
+     * {@link FTPFile} entries as the regular expression, and falls back to it for lines it does not recognize. Disabled by default.
+     *
+     * @param fastListParsing true to enable the fast path
+     * @since 3.12.0
+     */
+    public void setFastListParsing(final boolean fastListParsing) {
+        this.fastListParsing = fastListParsing;
+    }
+
+    /**
+     * Makes configurable parsers use {@link org.apache.commons.net.ftp.parser.JavaTimeFTPTimestampParser}, which is thread-safe and caches recently parsed
+     * timestamps, instead of the {@link java.text.SimpleDateFormat} based parser. Date formats it does not support keep using the latter. Disabled by default.
+     *
+     * @param javaTimeTimestampParsing true to use the {@code java.time} based parser
+     * @since 3.12.0
+     */
+    public void setJavaTimeTimestampParsing(final boolean javaTimeTimestampParsing) {
+        this.javaTimeTimestampParsing = javaTimeTimestampParsing;
+    }
+
     /**
      * <p>
      * setter for the lenientFutureDates property. This boolean property (default: true) only has meaning when a {@link #setRecentDateFormatStr(String)
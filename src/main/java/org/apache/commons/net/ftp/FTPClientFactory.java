@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+
+/**
+ * Creates {@link FTPClient} instances that are connected and logged in, ready to transfer data.
+ * <p>
+ * Helpers that drive several control connections at once, such as {@link FTPSegmentedDownloader}, call this whenever they need another session.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+@FunctionalInterface
+public interface FTPClientFactory {
+
+    /**
+     * Creates a new client which is connected to the server and logged in.
+     *
+     * @return a ready to use client, never {@code null}.
+     * @throws IOException if the connection or the login fails.
+     */
+    FTPClient create() throws IOException;
+}
@@ -0,0 +1,845 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of connected and logged-in {@link FTPClient}s, keyed by server and account.
+ * <p>
+ * Opening a session costs a TCP connect, possibly a TLS handshake, and the USER, PASS and TYPE round trips, which is often far more than a small transfer
+ * itself. The pool keeps sessions open between uses so that they can be borrowed again:
+ * </p>
+ *
+ * <pre>
+ * FTPClientPool pool = new FTPClientPool();
+ * FTPClientPool.Key key = new FTPClientPool.Key("ftp.example.com", 21, "user", "secret");
+ * FTPClient ftp = pool.borrowClient(key);
+ * try {
+ *     ftp.storeFile("report.csv", input);
+ * } finally {
+ *     pool.returnClient(ftp);
+ * }
+ * </pre>
+ * <p>
+ * A borrowed client is checked with {@link FTPClient#isAvailable()} and, if it has been idle for longer than the validation interval, with
+ * {@link FTPClient#sendNoOp()}. Sessions which fail the check are disconnected and replaced. When a client is returned, its file type, working directory and
+ * data connection mode are set back to the values it had when it was created, so the next borrower always starts from the same state. Sessions idle for
+ * longer than the maximum idle time are closed by {@link #evict()}, which the pool also runs whenever a client is borrowed.
+ * </p>
+ * <p>
+ * This class is thread-safe. The clients themselves are not, a client must only be used by the thread which borrowed it until it is returned.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public class FTPClientPool implements Closeable {
+
+    /**
+     * Creates the sessions of an {@link FTPClientPool}.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        /**
+         * Creates a new client which is connected to the server of the key and logged in with its account.
+         *
+         * @param key the server and account.
+         * @return a ready to use client, never {@code null}.
+         * @throws IOException if the connection or the login fails.
+         */
+        FTPClient create(Key key) throws IOException;
+    }
+
+    /**
+     * Identifies the sessions which can be shared: same server, same account and same protocol settings.
+     */
+    public static final class Key {
+
+        private final String host;
+        private final int port;
+        private final String user;
+        private final String password;
+        private final String protocol;
+        private final boolean implicit;
+
+        /**
+         * Creates a key for a plain FTP server.
+         *
+         * @param host     the server host name.
+         * @param port     the server port.
+         * @param user     the user name.
+         * @param password the password.
+         */
+        public Key(final String host, final int port, final String user, final String password) {
+            this(host, port, user, password, null, false);
+        }
+
+        /**
+         * Creates a key.
+         *
+         * @param host     the server host name.
+         * @param port     the server port.
+         * @param user     the user name.
+         * @param password the password.
+         * @param protocol the TLS protocol for an FTPS server, see {@link FTPSClient#FTPSClient(String, boolean)}, or null for plain FTP.
+         * @param implicit whether FTPS uses implicit TLS, ignored for plain FTP.
+         */
+        public Key(final String host, final int port, final String user, final String password, final String protocol, final boolean implicit) {
+            this.host = Objects.requireNonNull(host, "host");
+            this.port = port;
+            this.user = Objects.requireNonNull(user, "user");
+            this.password = password;
+            this.protocol = protocol;
+            this.implicit = protocol != null && implicit;
+        }
+
+        /**
+         * Connects and logs in a new client with the settings of this key. This is the default {@link ConnectionFactory}: FTPS sessions share their SSL
+         * context, offer the control session to their data connections and are protected with {@code PBSZ 0} and {@code PROT P}, and all sessions use
+         * local passive mode.
+         *
+         * @return a new client.
+         * @throws IOException if the connection or the login fails.
+         */
+        public FTPClient connect() throws IOException {
+            final FTPClient client = protocol == null ? new FTPClient() : new FTPSClient(protocol, implicit);
+            if (client instanceof FTPSClient) {
+                ((FTPSClient) client).setUseSharedContext(true);
+                ((FTPSClient) client).setDataSessionReuse(true);
+            }
+            try {
+                client.connect(host, port);
+                if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                    throw new IOException("Connection refused by " + this + ": " + client.getReplyString());
+                }
+                if (!client.login(user, password)) {
+                    throw new IOException("Login failed for " + this + ": " + client.getReplyString());
+                }
+                if (client instanceof FTPSClient) {
+                    final FTPSClient ftps = (FTPSClient) client;
+                    ftps.execPBSZ(0);
+                    ftps.execPROT("P");
+                }
+                client.enterLocalPassiveMode();
+                return client;
+            } catch (final IOException e) {
+                disconnect(client);
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return port == other.port && implicit == other.implicit && host.equals(other.host) && user.equals(other.user)
+                    && Objects.equals(password, other.password) && Objects.equals(protocol, other.protocol);
+        }
+
+        /**
+         * Gets the server host name.
+         *
+         * @return the host name.
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Gets the password.
+         *
+         * @return the password.
+         */
+        public String getPassword() {
+            return password;
+        }
+
+        /**
+         * Gets the server port.
+         *
+         * @return the port.
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * Gets the TLS protocol.
+         *
+         * @return the protocol, or null for plain FTP.
+         */
+        public String getProtocol() {
+            return protocol;
+        }
+
+        /**
+         * Gets the user name.
+         *
+         * @return the user name.
+         */
+        public String getUser() {
+            return user;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(host, Integer.valueOf(port), user, password, protocol, Boolean.valueOf(implicit));
+        }
+
+        /**
+         * Tests whether FTPS uses implicit TLS.
+         *
+         * @return whether FTPS uses implicit TLS.
+         */
+        public boolean isImplicit() {
+            return implicit;
+        }
+
+        /** Does not include the password. */
+        @Override
+        public String toString() {
+            return (protocol == null ? "ftp://" : "ftps://") + user + "@" + host + ":" + port;
+        }
+    }
+
+    /** The state a client had when it was created, restored when it is returned. */
+    private static final class Session {
+
+        private final Key key;
+        private final FTPClient client;
+        private final String workingDirectory;
+        private final int fileType;
+        private final int dataConnectionMode;
+        private long lastUsedNanos;
+
+        Session(final Key key, final FTPClient client, final String workingDirectory) {
+            this.key = key;
+            this.client = client;
+            this.workingDirectory = workingDirectory;
+            this.fileType = client.getFileType();
+            this.dataConnectionMode = client.getDataConnectionMode();
+        }
+    }
+
+    /** The sessions of one key. */
+    private static final class Slot {
+
+        /** Idle sessions, the most recently used last. */
+        private final Deque<Session> idle = new ArrayDeque<>();
+
+        /** Sessions borrowed or being created. */
+        private int active;
+    }
+
+    /** The default maximum number of sessions per key ({@value}). */
+    public static final int DEFAULT_MAX_TOTAL_PER_KEY = 8;
+
+    /** The default maximum number of idle sessions per key ({@value}). */
+    public static final int DEFAULT_MAX_IDLE_PER_KEY = 8;
+
+    /** The default time to wait for a session when the pool is exhausted. */
+    public static final Duration DEFAULT_BORROW_TIMEOUT = Duration.ofSeconds(30);
+
+    /** The default time after which an idle session is closed. */
+    public static final Duration DEFAULT_MAX_IDLE_TIME = Duration.ofMinutes(5);
+
+    private static void disconnect(final FTPClient client) {
+        if (client.isConnected()) {
+            try {
+                client.disconnect();
+            } catch (final IOException e) {
+                // Ignored
+            }
+        }
+    }
+
+    private static void logoutAndDisconnect(final FTPClient client) {
+        if (client.isConnected()) {
+            try {
+                client.logout();
+            } catch (final IOException e) {
+                // Ignored
+            }
+        }
+        disconnect(client);
+    }
+
+    private final ConnectionFactory connectionFactory;
+
+    // guards the state below; a lock rather than a monitor so that waiting borrowers do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition released = lock.newCondition();
+
+    private final Map<Key, Slot> slots = new HashMap<>();
+
+    private final Map<FTPClient, Session> borrowed = new IdentityHashMap<>();
+
+    private boolean closed;
+
+    private int maxTotalPerKey = DEFAULT_MAX_TOTAL_PER_KEY;
+
+    private int maxIdlePerKey = DEFAULT_MAX_IDLE_PER_KEY;
+
+    private int minIdlePerKey;
+
+    private Duration borrowTimeout = DEFAULT_BORROW_TIMEOUT;
+
+    private Duration maxIdleTime = DEFAULT_MAX_IDLE_TIME;
+
+    private Duration validationInterval = Duration.ZERO;
+
+    /**
+     * Creates a pool which opens sessions with {@link Key#connect()}.
+     */
+    public FTPClientPool() {
+        this(Key::connect);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param connectionFactory creates the sessions.
+     */
+    public FTPClientPool(final ConnectionFactory connectionFactory) {
+        if (connectionFactory == null) {
+            throw new IllegalArgumentException("connectionFactory must not be null");
+        }
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Borrows a session, creating one if no idle session is available. If {@link #getMaxTotalPerKey()} sessions of the key are already borrowed, waits up to
+     * the borrow timeout for one to be returned.
+     *
+     * @param key the server and account.
+     * @return a connected and logged-in client, which must be given back with {@link #returnClient(FTPClient)} or {@link #invalidateClient(FTPClient)}.
+     * @throws IOException if a new session cannot be created, or if no session became available in time.
+     */
+    public FTPClient borrowClient(final Key key) throws IOException {
+        Objects.requireNonNull(key, "key");
+        evict();
+        final long deadline = System.nanoTime() + getBorrowTimeout().toNanos();
+        while (true) {
+            Session session;
+            lock.lock();
+            try {
+                session = null;
+                while (true) {
+                    checkOpen();
+                    final Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+                    session = slot.idle.pollLast();
+                    if (session != null || slot.active < maxTotalPerKey) {
+                        slot.active++;
+                        break;
+                    }
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        throw new IOException("Timed out waiting for a connection to " + key);
+                    }
+                    try {
+                        released.await(remaining, TimeUnit.NANOSECONDS);
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for a connection to " + key);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (session == null) {
+                try {
+                    session = create(key);
+                } catch (final IOException | RuntimeException e) {
+                    release(key);
+                    throw e;
+                }
+            } else if (!validate(session)) {
+                logoutAndDisconnect(session.client);
+                release(key);
+                continue;
+            }
+            lock.lock();
+            try {
+                borrowed.put(session.client, session);
+            } finally {
+                lock.unlock();
+            }
+            return session.client;
+        }
+    }
+
+    private void checkOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Pool is closed");
+        }
+    }
+
+    /**
+     * Closes all idle sessions and prevents further borrowing. Borrowed sessions are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        final List<Session> sessions = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            for (final Slot slot : slots.values()) {
+                sessions.addAll(slot.idle);
+                slot.idle.clear();
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        sessions.forEach(session -> logoutAndDisconnect(session.client));
+    }
+
+    private Session create(final Key key) throws IOException {
+        final FTPClient client = connectionFactory.create(key);
+        try {
+            final Session session = new Session(key, client, client.printWorkingDirectory());
+            session.lastUsedNanos = System.nanoTime();
+            return session;
+        } catch (final IOException | RuntimeException e) {
+            logoutAndDisconnect(client);
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the sessions which have been idle for longer than the maximum idle time, keeping at least {@link #getMinIdlePerKey()} idle sessions per key.
+     */
+    public void evict() {
+        final List<Session> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            final long now = System.nanoTime();
+            final long maxIdleNanos = maxIdleTime.toNanos();
+            for (final Iterator<Slot> slotIterator = slots.values().iterator(); slotIterator.hasNext();) {
+                final Slot slot = slotIterator.next();
+                // the least recently used sessions are first
+                while (slot.idle.size() > minIdlePerKey && now - slot.idle.peekFirst().lastUsedNanos > maxIdleNanos) {
+                    expired.add(slot.idle.pollFirst());
+                }
+                if (slot.idle.isEmpty() && slot.active == 0) {
+                    slotIterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(session -> logoutAndDisconnect(session.client));
+    }
+
+    /**
+     * Gets the number of borrowed sessions of a key.
+     *
+     * @param key the server and account.
+     * @return the number of borrowed sessions.
+     */
+    public int getActiveCount(final Key key) {
+        lock.lock();
+        try {
+            final Slot slot = slots.get(key);
+            return slot == null ? 0 : slot.active;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the time to wait for a session when the pool is exhausted.
+     *
+     * @return the borrow timeout.
+     */
+    public Duration getBorrowTimeout() {
+        lock.lock();
+        try {
+            return borrowTimeout;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of idle sessions of a key.
+     *
+     * @param key the server and account.
+     * @return the number of idle sessions.
+     */
+    public int getIdleCount(final Key key) {
+        lock.lock();
+        try {
+            final Slot slot = slots.get(key);
+            return slot == null ? 0 : slot.idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the maximum number of idle sessions per key.
+     *
+     * @return the maximum number of idle sessions per key.
+     */
+    public int getMaxIdlePerKey() {
+        lock.lock();
+        try {
+            return maxIdlePerKey;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the time after which an idle session is closed.
+     *
+     * @return the maximum idle time.
+     */
+    public Duration getMaxIdleTime() {
+        lock.lock();
+        try {
+            return maxIdleTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the maximum number of sessions per key, borrowed or idle.
+     *
+     * @return the maximum number of sessions per key.
+     */
+    public int getMaxTotalPerKey() {
+        lock.lock();
+        try {
+            return maxTotalPerKey;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of idle sessions per key which {@link #evict()} keeps open however long they have been idle.
+     *
+     * @return the minimum number of idle sessions per key.
+     */
+    public int getMinIdlePerKey() {
+        lock.lock();
+        try {
+            return minIdlePerKey;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the idle time after which a borrowed session is checked with a NOOP command.
+     *
+     * @return the validation interval.
+     */
+    public Duration getValidationInterval() {
+        lock.lock();
+        try {
+            return validationInterval;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes a borrowed session instead of returning it to the pool, for example after a transfer failed in a way which leaves the session in an unknown
+     * state.
+     *
+     * @param client a client obtained from {@link #borrowClient(Key)}.
+     * @throws IllegalArgumentException if the client is not borrowed from this pool.
+     */
+    public void invalidateClient(final FTPClient client) {
+        final Session session = takeBorrowed(client);
+        logoutAndDisconnect(client);
+        release(session.key);
+    }
+
+    /**
+     * Opens sessions until the key has {@link #getMinIdlePerKey()} idle sessions.
+     *
+     * @param key the server and account.
+     * @throws IOException if a session cannot be created.
+     */
+    public void prepare(final Key key) throws IOException {
+        while (true) {
+            lock.lock();
+            try {
+                checkOpen();
+                final Slot slot = slots.computeIfAbsent(key, k -> new Slot());
+                if (slot.idle.size() >= minIdlePerKey || slot.active + slot.idle.size() >= maxTotalPerKey) {
+                    return;
+                }
+                slot.active++;
+            } finally {
+                lock.unlock();
+            }
+            final Session session;
+            try {
+                session = create(key);
+            } catch (final IOException | RuntimeException e) {
+                release(key);
+                throw e;
+            }
+            giveBack(session);
+        }
+    }
+
+    private void giveBack(final Session session) {
+        boolean keep;
+        lock.lock();
+        try {
+            final Slot slot = slots.computeIfAbsent(session.key, k -> new Slot());
+            slot.active--;
+            keep = !closed && slot.idle.size() < maxIdlePerKey;
+            if (keep) {
+                session.lastUsedNanos = System.nanoTime();
+                slot.idle.addLast(session);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (!keep) {
+            logoutAndDisconnect(session.client);
+        }
+    }
+
+    private void release(final Key key) {
+        lock.lock();
+        try {
+            final Slot slot = slots.get(key);
+            if (slot != null) {
+                slot.active--;
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Restores the state the session had when it was created.
+     */
+    private boolean reset(final Session session) {
+        final FTPClient client = session.client;
+        try {
+            if (!client.isAvailable()) {
+                return false;
+            }
+            if (client.getFileType() != session.fileType && !client.setFileType(session.fileType)) {
+                return false;
+            }
+            if (session.workingDirectory != null && !client.changeWorkingDirectory(session.workingDirectory)) {
+                return false;
+            }
+            if (client.getDataConnectionMode() != session.dataConnectionMode) {
+                if (session.dataConnectionMode == FTPClient.PASSIVE_LOCAL_DATA_CONNECTION_MODE) {
+                    client.enterLocalPassiveMode();
+                } else {
+                    client.enterLocalActiveMode();
+                }
+            }
+            return true;
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a borrowed session to the pool. Its file type, working directory and data connection mode are restored first; if that fails, or if the key
+     * already has {@link #getMaxIdlePerKey()} idle sessions, the session is closed instead.
+     *
+     * @param client a client obtained from {@link #borrowClient(Key)}.
+     * @throws IllegalArgumentException if the client is not borrowed from this pool.
+     */
+    public void returnClient(final FTPClient client) {
+        final Session session = takeBorrowed(client);
+        if (reset(session)) {
+            giveBack(session);
+        } else {
+            logoutAndDisconnect(client);
+            release(session.key);
+        }
+    }
+
+    /**
+     * Sets the time to wait for a session when the pool is exhausted.
+     *
+     * @param borrowTimeout the borrow timeout, zero to fail immediately.
+     */
+    public void setBorrowTimeout(final Duration borrowTimeout) {
+        lock.lock();
+        try {
+            if (borrowTimeout == null || borrowTimeout.isNegative()) {
+                throw new IllegalArgumentException("borrowTimeout must not be negative");
+            }
+            this.borrowTimeout = borrowTimeout;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum number of idle sessions per key. Sessions returned beyond this number are closed.
+     *
+     * @param maxIdlePerKey the maximum number of idle sessions per key.
+     */
+    public void setMaxIdlePerKey(final int maxIdlePerKey) {
+        lock.lock();
+        try {
+            if (maxIdlePerKey < 0) {
+                throw new IllegalArgumentException("maxIdlePerKey must not be negative");
+            }
+            this.maxIdlePerKey = maxIdlePerKey;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the time after which an idle session is closed.
+     *
+     * @param maxIdleTime the maximum idle time.
+     */
+    public void setMaxIdleTime(final Duration maxIdleTime) {
+        lock.lock();
+        try {
+            if (maxIdleTime == null || maxIdleTime.isNegative()) {
+                throw new IllegalArgumentException("maxIdleTime must not be negative");
+            }
+            this.maxIdleTime = maxIdleTime;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the maximum number of sessions per key, borrowed or idle.
+     *
+     * @param maxTotalPerKey the maximum number of sessions per key.
+     */
+    public void setMaxTotalPerKey(final int maxTotalPerKey) {
+        lock.lock();
+        try {
+            if (maxTotalPerKey < 1) {
+                throw new IllegalArgumentException("maxTotalPerKey must be at least 1");
+            }
+            this.maxTotalPerKey = maxTotalPerKey;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the number of idle sessions per key which {@link #evict()} keeps open however long they have been idle. Use {@link #prepare(Key)} to open them in
+     * advance.
+     *
+     * @param minIdlePerKey the minimum number of idle sessions per key.
+     */
+    public void setMinIdlePerKey(final int minIdlePerKey) {
+        lock.lock();
+        try {
+            if (minIdlePerKey < 0) {
+                throw new IllegalArgumentException("minIdlePerKey must not be negative");
+            }
+            this.minIdlePerKey = minIdlePerKey;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the idle time after which a borrowed session is checked with a NOOP command. Sessions are always checked with {@link FTPClient#isAvailable()}.
+     *
+     * @param validationInterval the validation interval, zero to send a NOOP on every borrow.
+     */
+    public void setValidationInterval(final Duration validationInterval) {
+        lock.lock();
+        try {
+            if (validationInterval == null || validationInterval.isNegative()) {
+                throw new IllegalArgumentException("validationInterval must not be negative");
+            }
+            this.validationInterval = validationInterval;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Session takeBorrowed(final FTPClient client) {
+        lock.lock();
+        try {
+            final Session session = borrowed.remove(client);
+            if (session == null) {
+                throw new IllegalArgumentException("Client was not borrowed from this pool");
+            }
+            return session;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean validate(final Session session) {
+        final FTPClient client = session.client;
+        if (!client.isAvailable()) {
+            return false;
+        }
+        final long interval;
+        lock.lock();
+        try {
+            interval = validationInterval.toNanos();
+        } finally {
+            lock.unlock();
+        }
+        if (System.nanoTime() - session.lastUsedNanos < interval) {
+            return true;
+        }
+        try {
+            return client.sendNoOp();
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+}
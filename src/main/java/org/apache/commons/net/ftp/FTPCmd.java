@@ -52,6 +52,9 @@ public enum FTPCmd {
     /** FTP command. */
     FEAT,
 
+    /** @since 3.12.0 */
+    HASH,
+
     /** FTP command. */
     HELP,
 
@@ -82,6 +85,9 @@ public enum FTPCmd {
     /** FTP command. */
     NOOP,
 
+    /** @since 3.12.0 */
+    OPTS,
+
     /** FTP command. */
     PASS,
 
@@ -143,7 +149,22 @@ public enum FTPCmd {
     TYPE,
 
     /** FTP command. */
-    USER;
+    USER,
+
+    /** @since 3.12.0 */
+    XCRC,
+
+    /** @since 3.12.0 */
+    XMD5,
+
+    /** @since 3.12.0 */
+    XSHA1,
+
+    /** @since 3.12.0 */
+    XSHA256,
+
+    /** @since 3.12.0 */
+    XSHA512;
 
     // Aliases
 
@@ -0,0 +1,290 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+
+/**
+ * A list of control connection commands which {@link FTPClient#executeBatch(FTPCommandBatch)} sends pipelined: up to {@link #getWindow()} commands are
+ * written back to back before their replies are read, so a batch of {@code n} commands costs about {@code n / window} round trips instead of {@code n}.
+ *
+ * <pre>
+ * FTPCommandBatch batch = new FTPCommandBatch();
+ * for (String name : names) {
+ *     batch.add(FTPCmd.SIZE, name);
+ * }
+ * for (FTPCommandBatch.Result result : ftp.executeBatch(batch)) {
+ *     System.out.println(result.getArgument() + " " + result.getSize());
+ * }
+ * </pre>
+ * <p>
+ * Only commands which are answered by a single reply on the control connection can be batched. Commands which open a data connection, change the
+ * protection of the connection or end the session are rejected, as are commands which change the transfer parameters the client keeps track of (TYPE, MODE,
+ * STRU and REST); use {@link FTPClient#setFileType(int)}, {@link FTPClient#setFileTransferMode(int)}, {@link FTPClient#setFileStructure(int)} and
+ * {@link FTPClient#setRestartOffset(long)} instead.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class FTPCommandBatch {
+
+    /**
+     * The reply to one command of a batch.
+     */
+    public static final class Result {
+
+        private final String command;
+        private final String argument;
+        private final int replyCode;
+        private final String[] replyLines;
+
+        Result(final String command, final String argument, final int replyCode, final String[] replyLines) {
+            this.command = command;
+            this.argument = argument;
+            this.replyCode = replyCode;
+            this.replyLines = replyLines;
+        }
+
+        /**
+         * Gets the argument of the command.
+         *
+         * @return the argument, may be null.
+         */
+        public String getArgument() {
+            return argument;
+        }
+
+        /**
+         * Gets the command.
+         *
+         * @return the command, in upper case.
+         */
+        public String getCommand() {
+            return command;
+        }
+
+        /**
+         * Gets the modification time from the reply to an MDTM command.
+         *
+         * @return the modification time, or null if this is not a successful MDTM command or if the reply cannot be parsed.
+         */
+        public Instant getModificationTime() {
+            if (!FTPCmd.MDTM.getCommand().equals(command) || !isPositiveCompletion()) {
+                return null;
+            }
+            final Calendar calendar = MLSxEntryParser.parseGMTdateTime(getReplyValue());
+            return calendar == null ? null : calendar.toInstant();
+        }
+
+        /**
+         * Gets the reply code.
+         *
+         * @return the reply code.
+         */
+        public int getReplyCode() {
+            return replyCode;
+        }
+
+        /**
+         * Gets the reply text, like {@link FTP#getReplyString()}.
+         *
+         * @return the reply lines, each terminated by CRLF.
+         */
+        public String getReplyString() {
+            final StringBuilder sb = new StringBuilder(256);
+            for (final String line : replyLines) {
+                sb.append(line).append(FTP.NETASCII_EOL);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Gets the reply lines, like {@link FTP#getReplyStrings()}.
+         *
+         * @return a copy of the reply lines.
+         */
+        public String[] getReplyStrings() {
+            return replyLines.clone();
+        }
+
+        /** The first reply line without the reply code. */
+        private String getReplyValue() {
+            final String line = replyLines[0];
+            return line.length() > 4 ? line.substring(4).trim() : "";
+        }
+
+        /**
+         * Gets the size from the reply to a SIZE command.
+         *
+         * @return the size, or -1 if this is not a successful SIZE command or if the reply cannot be parsed.
+         */
+        public long getSize() {
+            if (!FTPCmd.SIZE.getCommand().equals(command) || !isPositiveCompletion()) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(getReplyValue());
+            } catch (final NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Tests whether the command succeeded.
+         *
+         * @return whether the reply code is a positive completion.
+         */
+        public boolean isPositiveCompletion() {
+            return FTPReply.isPositiveCompletion(replyCode);
+        }
+
+        @Override
+        public String toString() {
+            return command + (argument == null ? "" : " " + argument) + " -> " + replyLines[replyLines.length - 1];
+        }
+    }
+
+    /** The default number of commands in flight ({@value}). */
+    public static final int DEFAULT_WINDOW = 32;
+
+    /**
+     * Commands which cannot be pipelined, including those which change state {@link FTPClient} tracks itself and must be sent through its setters: TYPE, MODE,
+     * STRU and REST, and PBSZ and PROT of {@code FTPSClient}.
+     */
+    private static final Set<String> REJECTED = new HashSet<>(Arrays.asList("ABOR", "ADAT", "APPE", "AUTH", "CCC", "EPRT", "EPSV", "LIST", "MLSD", "MODE",
+            "NLST", "PASS", "PASV", "PBSZ", "PORT", "PROT", "QUIT", "REIN", "REST", "RETR", "STOR", "STOU", "STRU", "TYPE", "USER"));
+
+    private final List<String> commands = new ArrayList<>();
+    private final List<String> arguments = new ArrayList<>();
+    private int window = DEFAULT_WINDOW;
+
+    /**
+     * Adds a command.
+     *
+     * @param command  the command.
+     * @param argument the argument, may be null.
+     * @return this batch.
+     * @throws IllegalArgumentException if the command cannot be pipelined.
+     */
+    public FTPCommandBatch add(final FTPCmd command, final String argument) {
+        return add(command.getCommand(), argument);
+    }
+
+    /**
+     * Adds a command.
+     *
+     * @param command  the command.
+     * @param argument the argument, may be null.
+     * @return this batch.
+     * @throws IllegalArgumentException if the command cannot be pipelined.
+     */
+    public FTPCommandBatch add(final String command, final String argument) {
+        final String name = command.toUpperCase(Locale.ENGLISH);
+        if (REJECTED.contains(name)) {
+            throw new IllegalArgumentException("Command cannot be pipelined: " + name);
+        }
+        if (argument != null && (argument.indexOf('\r') >= 0 || argument.indexOf('\n') >= 0)) {
+            throw new IllegalArgumentException("Argument must not contain line breaks: " + argument);
+        }
+        commands.add(name);
+        arguments.add(argument);
+        return this;
+    }
+
+    /**
+     * Gets the argument of a command.
+     *
+     * @param index the index of the command.
+     * @return the argument, may be null.
+     */
+    String getArgument(final int index) {
+        return arguments.get(index);
+    }
+
+    /**
+     * Gets a command.
+     *
+     * @param index the index of the command.
+     * @return the command.
+     */
+    String getCommand(final int index) {
+        return commands.get(index);
+    }
+
+    /**
+     * Gets the maximum number of commands sent before their replies are read.
+     *
+     * @return the window.
+     */
+    public int getWindow() {
+        return window;
+    }
+
+    /**
+     * Sets the maximum number of commands sent before their replies are read. Servers read commands one at a time, so the window only needs to cover the
+     * bandwidth-delay product of the control connection; very large windows risk filling the socket buffers of a server which does not read ahead.
+     *
+     * @param window the window, 1 disables pipelining.
+     * @return this batch.
+     */
+    public FTPCommandBatch setWindow(final int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be at least 1");
+        }
+        this.window = window;
+        return this;
+    }
+
+    /**
+     * Gets the number of commands.
+     *
+     * @return the number of commands.
+     */
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * Creates the result of a command from the reply which was just read.
+     */
+    Result toResult(final int index, final int replyCode, final String[] replyLines) {
+        return new Result(commands.get(index), arguments.get(index), replyCode, replyLines);
+    }
+
+    /**
+     * Gets the commands, for diagnostics.
+     *
+     * @return the commands with their arguments.
+     */
+    @Override
+    public String toString() {
+        final List<String> list = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            list.add(arguments.get(i) == null ? commands.get(i) : commands.get(i) + " " + arguments.get(i));
+        }
+        return list.toString();
+    }
+}
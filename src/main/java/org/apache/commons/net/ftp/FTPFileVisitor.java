@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+
+/**
+ * Receives the entries of a remote tree walked by {@link FTPTreeWalker}, in the manner of {@link java.nio.file.FileVisitor}.
+ * <p>
+ * The walker lists several directories at once, so the methods are called from several threads and in no particular order between directories;
+ * implementations must be thread-safe. Entries of one directory are reported by a single thread, in listing order.
+ * </p>
+ * <p>
+ * {@link FileVisitResult#SKIP_SIBLINGS} stops reporting the remaining entries of the current listing and {@link FileVisitResult#TERMINATE} stops the whole
+ * walk; directories already being listed by other threads finish their listing but are not reported.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public interface FTPFileVisitor {
+
+    /**
+     * Called for a directory before it is listed. {@link FileVisitResult#SKIP_SUBTREE} reports the directory without listing it.
+     *
+     * @param path the path of the directory, the start path followed by the names of the entries leading to it.
+     * @param directory the directory entry.
+     * @return how to continue.
+     * @throws IOException to stop the walk with this exception.
+     */
+    default FileVisitResult preVisitDirectory(final String path, final FTPFile directory) throws IOException {
+        return FileVisitResult.CONTINUE;
+    }
+
+    /**
+     * Called for an entry which is not walked into: a file, a symbolic link which is not followed, or a directory at the maximum depth.
+     *
+     * @param path the path of the entry.
+     * @param file the entry.
+     * @return how to continue.
+     * @throws IOException to stop the walk with this exception.
+     */
+    FileVisitResult visitFile(String path, FTPFile file) throws IOException;
+
+    /**
+     * Called when a directory cannot be listed. The default implementation rethrows the exception, which stops the walk.
+     *
+     * @param path the path of the directory.
+     * @param exception why the listing failed.
+     * @return how to continue.
+     * @throws IOException to stop the walk with this exception.
+     */
+    default FileVisitResult visitFileFailed(final String path, final IOException exception) throws IOException {
+        throw exception;
+    }
+}
@@ -179,6 +179,14 @@ public class FTPHTTPClient extends FTPClient {
         super._connectAction_(socketIsReader);
     }
 
+    /**
+     * The passive endpoint is reached through the tunnel, which {@link #_openDataConnection_(String, String)} sets up around its own EPSV or PASV command.
+     */
+    @Override
+    boolean isPassivePrefetchSupported() {
+        return false;
+    }
+
     private BufferedReader tunnelHandshake(final String host, final int port, final InputStream input, final OutputStream output)
             throws IOException, UnsupportedEncodingException {
         final String connectString = "CONNECT " + host + ":" + port + " HTTP/1.1";
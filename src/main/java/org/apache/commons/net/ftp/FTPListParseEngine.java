@@ -21,10 +21,22 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.commons.net.util.Charsets;
 
@@ -61,8 +73,117 @@ import org.apache.commons.net.util.Charsets;
  * </pre>
  * <p>
  * For unpaged access, simply use FTPClient.listFiles(). That method uses this class transparently.
+ * <p>
+ * For very large listings, {@link #streamServerList(InputStream, String)} skips the internal list altogether and parses each entry as it is read from the
+ * server, see {@link FTPClient#streamFiles(String)}.
  */
 public class FTPListParseEngine {
+
+    /**
+     * Parses a range of entries into the matching slots of the result array, splitting the range until it is small enough.
+     */
+    private final class ParseAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] rawEntries;
+        private final FTPFile[] results;
+        private final transient ThreadLocal<FTPFileEntryParser> parsers;
+        private final int from;
+        private final int to;
+
+        ParseAction(final String[] rawEntries, final FTPFile[] results, final ThreadLocal<FTPFileEntryParser> parsers, final int from, final int to) {
+            this.rawEntries = rawEntries;
+            this.results = results;
+            this.parsers = parsers;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                final FTPFileEntryParser threadParser = parsers.get();
+                for (int i = from; i < to; i++) {
+                    results[i] = parse(threadParser, rawEntries[i]);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new ParseAction(rawEntries, results, parsers, from, middle), new ParseAction(rawEntries, results, parsers, middle, to));
+            }
+        }
+    }
+
+    /**
+     * Parses entries as they are read from the server. The first {@code preParseWindow} entries are collected and handed to
+     * {@link FTPFileEntryParser#preParse(List)}, the rest are parsed one at a time.
+     */
+    private final class StreamingIterator implements Iterator<FTPFile> {
+
+        private final BufferedReader reader;
+        private final int preParseWindow;
+        private Iterator<String> window;
+        private FTPFile nextFile;
+
+        StreamingIterator(final BufferedReader reader, final int preParseWindow) {
+            this.reader = reader;
+            this.preParseWindow = preParseWindow;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextFile == null) {
+                    final String entry = nextEntry();
+                    if (entry == null) {
+                        return false;
+                    }
+                    nextFile = parse(entry);
+                }
+                return true;
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public FTPFile next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final FTPFile file = nextFile;
+            nextFile = null;
+            return file;
+        }
+
+        private String nextEntry() throws IOException {
+            if (window == null) {
+                final List<String> head = new ArrayList<>();
+                String line;
+                while (head.size() < preParseWindow && (line = parser.readNextEntry(reader)) != null) {
+                    head.add(line);
+                }
+                window = parser.preParse(head).iterator();
+            }
+            if (window.hasNext()) {
+                return window.next();
+            }
+            return parser.readNextEntry(reader);
+        }
+    }
+
+    /**
+     * The default number of leading entries passed to {@link FTPFileEntryParser#preParse(List)} when streaming.
+     *
+     * @since 3.12.0
+     */
+    public static final int DEFAULT_PRE_PARSE_WINDOW = 1024;
+
+    /**
+     * The number of entries below which a parallel parse task is no longer split.
+     */
+    private static final int PARALLEL_THRESHOLD = 1024;
+
     /**
      * An empty immutable {@code FTPFile} array.
      */
@@ -93,6 +214,26 @@ public class FTPListParseEngine {
         }
     }
 
+    /**
+     * Returns the whole list of files returned by the server in a {@link CompactFTPFileList}, which needs much less memory than an array of
+     * {@link FTPFile}s. Each entry is parsed, filtered and added to the list in turn, so at most one FTPFile exists at any time. Null entries are never added.
+     *
+     * @param filter          FTPFileFilter, must not be {@code null}.
+     * @param keepRawListings whether to keep the original listing lines.
+     * @return the files accepted by the filter.
+     * @since 3.12.0
+     */
+    public CompactFTPFileList getCompactFileList(final FTPFileFilter filter, final boolean keepRawListings) {
+        final CompactFTPFileList files = new CompactFTPFileList(keepRawListings);
+        for (final String entry : entries) {
+            final FTPFile file = parse(entry);
+            if (file != null && filter.accept(file)) {
+                files.add(file);
+            }
+        }
+        return files.trimToSize();
+    }
+
     /**
      * Returns a list of FTPFile objects containing the whole list of files returned by the server as read by this object's parser. The files are filtered
      * before being added to the array.
@@ -106,10 +247,42 @@ public class FTPListParseEngine {
      * @since 3.9.0
      */
     public List<FTPFile> getFileList(final FTPFileFilter filter) {
-        return entries.stream().map(e -> {
-            final FTPFile file = parser.parseFTPEntry(e);
-            return file == null && saveUnparseableEntries ? new FTPFile(e) : file;
-        }).filter(filter::accept).collect(Collectors.toList());
+        return entries.stream().map(this::parse).filter(filter::accept).collect(Collectors.toList());
+    }
+
+    /**
+     * Like {@link #getFileList(FTPFileFilter)}, but parses the entries in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @param filter         FTPFileFilter, must not be {@code null}.
+     * @param parserSupplier creates the parser used by each worker thread, see {@link #getFileList(FTPFileFilter, Supplier, ForkJoinPool)}.
+     * @return a list of FTPFile objects in the same order as the listing returned by the server.
+     * @since 3.12.0
+     */
+    public List<FTPFile> getFileList(final FTPFileFilter filter, final Supplier<? extends FTPFileEntryParser> parserSupplier) {
+        return getFileList(filter, parserSupplier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Like {@link #getFileList(FTPFileFilter)}, but parses the entries in parallel on the given pool. The result is in the same order as the listing
+     * returned by the server.
+     * <p>
+     * Parsers are not thread-safe, so each worker thread gets its own instance from {@code parserSupplier}. The supplied parsers must be configured like the
+     * parser of this engine, for example {@code UnixFTPEntryParser::new}, or {@code () -> factory.createFileEntryParser(config)}. Parsers whose state is
+     * established by {@link FTPFileEntryParser#preParse(List)}, such as the MVS parser, should use {@link #getFileList(FTPFileFilter)} instead.
+     * </p>
+     *
+     * @param filter         FTPFileFilter, must not be {@code null}.
+     * @param parserSupplier creates the parser used by each worker thread, must not be {@code null}.
+     * @param pool           the pool which runs the parse tasks, must not be {@code null}.
+     * @return a list of FTPFile objects in the same order as the listing returned by the server.
+     * @since 3.12.0
+     */
+    public List<FTPFile> getFileList(final FTPFileFilter filter, final Supplier<? extends FTPFileEntryParser> parserSupplier, final ForkJoinPool pool) {
+        // Snapshot into an array so that workers can address entries by index; entries stays a LinkedList for cheap removals in preParse.
+        final String[] rawEntries = entries.toArray(new String[0]);
+        final FTPFile[] results = new FTPFile[rawEntries.length];
+        pool.invoke(new ParseAction(rawEntries, results, ThreadLocal.withInitial(parserSupplier), 0, rawEntries.length));
+        return Arrays.stream(results).filter(filter::accept).collect(Collectors.toList());
     }
 
     /**
@@ -224,6 +397,15 @@ public class FTPListParseEngine {
         return internalIterator.hasPrevious();
     }
 
+    private FTPFile parse(final FTPFileEntryParser entryParser, final String entry) {
+        final FTPFile file = entryParser.parseFTPEntry(entry);
+        return file == null && saveUnparseableEntries ? new FTPFile(entry) : file;
+    }
+
+    private FTPFile parse(final String entry) {
+        return parse(parser, entry);
+    }
+
     /**
      * Internal method for reading (and closing) the input into the {@code entries} list. After this method has completed, {@code entries} will
      * contain a collection of entries (as defined by {@code FTPFileEntryParser.readNextEntry()}), but this may contain various non-entry preliminary lines
@@ -274,6 +456,53 @@ public class FTPListParseEngine {
         resetIterator();
     }
 
+    /**
+     * Returns a lazily populated stream of the files in the list returned by the server. Entries are read and parsed one at a time while the stream is
+     * consumed, so memory use does not grow with the size of the listing. Entries which fail to parse are left out, unless the configuration asks to keep
+     * unparseable entries. Closing the stream closes the input stream.
+     * <p>
+     * {@link FTPFileEntryParser#preParse(List)} only sees the first {@link #DEFAULT_PRE_PARSE_WINDOW} entries. That is enough to skip headers and detect
+     * the listing type, but parsers which filter the whole listing, such as the VMS versioning parser, only do so within that window. Use
+     * {@link #readServerList(InputStream, String)} when an exact result is needed for such parsers.
+     * </p>
+     * <p>
+     * The stream does not update this engine's internal list. I/O errors while reading are thrown as {@link UncheckedIOException}.
+     * </p>
+     *
+     * @param inputStream input stream provided by the server socket.
+     * @param charsetName the encoding to be used for reading the stream
+     * @return a sequential stream of the parsed files, which must be closed.
+     * @since 3.12.0
+     */
+    public Stream<FTPFile> streamServerList(final InputStream inputStream, final String charsetName) {
+        return streamServerList(inputStream, charsetName, DEFAULT_PRE_PARSE_WINDOW);
+    }
+
+    /**
+     * Returns a lazily populated stream of the files in the list returned by the server, passing the given number of leading entries to
+     * {@link FTPFileEntryParser#preParse(List)}. See {@link #streamServerList(InputStream, String)}.
+     *
+     * @param inputStream    input stream provided by the server socket.
+     * @param charsetName    the encoding to be used for reading the stream
+     * @param preParseWindow the number of leading entries to pre-parse, must be positive.
+     * @return a sequential stream of the parsed files, which must be closed.
+     * @since 3.12.0
+     */
+    public Stream<FTPFile> streamServerList(final InputStream inputStream, final String charsetName, final int preParseWindow) {
+        if (preParseWindow < 1) {
+            throw new IllegalArgumentException("preParseWindow must be positive: " + preParseWindow);
+        }
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, Charsets.toCharset(charsetName)));
+        final Iterator<FTPFile> iterator = new StreamingIterator(reader, preParseWindow);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(() -> {
+            try {
+                reader.close();
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     /**
      * resets this object's internal iterator to the beginning of the list.
      */
@@ -0,0 +1,429 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+
+/**
+ * Mirrors a remote directory tree into a local directory, transferring only the files which changed since the previous run.
+ * <p>
+ * The mirror keeps an index file with the size, modification time and, where the server reports it, the MLSx {@code unique} fact of every file it
+ * downloaded. Each run lists the remote tree and compares the listing with the index: files which are new, or whose size, time or unique id differ, are
+ * downloaded; the others are left alone. A run over a tree which barely changed therefore costs the listings and the changed bytes only.
+ * </p>
+ * <p>
+ * If the server announces MLST (RFC 3659), directories are listed with MLSD, whose {@code modify} fact has second precision and whose {@code unique} fact
+ * detects files replaced by another file of the same size and time. LIST timestamps usually have minute or day precision, so a change within that window can
+ * be missed when the size stays the same.
+ * </p>
+ *
+ * <pre>
+ * FTPMirror mirror = new FTPMirror(ftp, "/pub/data", Paths.get("data"));
+ * FTPMirror.Result result = mirror.sync();
+ * System.out.println(result.getFilesTransferred() + " files, " + result.getBytesTransferred() + " bytes");
+ * </pre>
+ * <p>
+ * Downloads are written to a temporary file which replaces the local file once complete, and the index is saved even if a run fails, so an interrupted run
+ * resumes with the files it did not get to. The client must be connected and logged in; its file type is set to binary.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public class FTPMirror {
+
+    /** What the index remembers about a file. */
+    private static final class IndexEntry {
+
+        private final long size;
+        private final long modified;
+        private final String unique;
+
+        IndexEntry(final long size, final long modified, final String unique) {
+            this.size = size;
+            this.modified = modified;
+            this.unique = unique;
+        }
+
+        boolean matches(final IndexEntry other) {
+            if (size != other.size || modified != other.modified) {
+                return false;
+            }
+            return unique == null || other.unique == null || unique.equals(other.unique);
+        }
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    public static final class Result {
+
+        private int directoriesListed;
+        private int filesChecked;
+        private int filesTransferred;
+        private long bytesTransferred;
+        private int filesDeleted;
+
+        Result() {
+            // created by sync()
+        }
+
+        /**
+         * Gets the number of bytes downloaded.
+         *
+         * @return the number of bytes.
+         */
+        public long getBytesTransferred() {
+            return bytesTransferred;
+        }
+
+        /**
+         * Gets the number of directories listed.
+         *
+         * @return the number of directories.
+         */
+        public int getDirectoriesListed() {
+            return directoriesListed;
+        }
+
+        /**
+         * Gets the number of remote files compared with the index.
+         *
+         * @return the number of files.
+         */
+        public int getFilesChecked() {
+            return filesChecked;
+        }
+
+        /**
+         * Gets the number of local files deleted because they no longer exist on the server.
+         *
+         * @return the number of files.
+         */
+        public int getFilesDeleted() {
+            return filesDeleted;
+        }
+
+        /**
+         * Gets the number of files downloaded.
+         *
+         * @return the number of files.
+         */
+        public int getFilesTransferred() {
+            return filesTransferred;
+        }
+
+        @Override
+        public String toString() {
+            return "directories=" + directoriesListed + ", checked=" + filesChecked + ", transferred=" + filesTransferred + ", bytes=" + bytesTransferred
+                    + ", deleted=" + filesDeleted;
+        }
+    }
+
+    /** The default name of the index file in the local directory ({@value}). */
+    public static final String DEFAULT_INDEX_NAME = ".ftpmirror";
+
+    private static final String INDEX_HEADER = "# FTPMirror index 1";
+
+    private static String escape(final String path) {
+        return path.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(final String path) {
+        final StringBuilder sb = new StringBuilder(path.length());
+        for (int i = 0; i < path.length(); i++) {
+            final char c = path.charAt(i);
+            if (c == '\\' && i + 1 < path.length()) {
+                final char next = path.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private final FTPClient client;
+    private final String remoteRoot;
+    private final Path localRoot;
+    private Path indexFile;
+    private FTPFileFilter filter = FTPFileFilters.NON_NULL;
+    private boolean deleteRemoved;
+    private boolean useMlsd = true;
+
+    /**
+     * Creates a mirror.
+     *
+     * @param client     a connected and logged-in client.
+     * @param remoteRoot the remote directory to mirror.
+     * @param localRoot  the local directory to mirror into.
+     */
+    public FTPMirror(final FTPClient client, final String remoteRoot, final Path localRoot) {
+        this.client = Objects.requireNonNull(client, "client");
+        this.remoteRoot = Objects.requireNonNull(remoteRoot, "remoteRoot");
+        this.localRoot = Objects.requireNonNull(localRoot, "localRoot").toAbsolutePath().normalize();
+        this.indexFile = this.localRoot.resolve(DEFAULT_INDEX_NAME);
+    }
+
+    /**
+     * Gets the filter applied to the listings.
+     *
+     * @return the filter.
+     */
+    public FTPFileFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the index file.
+     *
+     * @return the index file.
+     */
+    public Path getIndexFile() {
+        return indexFile;
+    }
+
+    /**
+     * Tests whether local files are deleted when they no longer exist on the server.
+     *
+     * @return whether removed files are deleted.
+     */
+    public boolean isDeleteRemoved() {
+        return deleteRemoved;
+    }
+
+    /**
+     * Tests whether MLSD is used when the server supports it.
+     *
+     * @return whether MLSD is used.
+     */
+    public boolean isUseMlsd() {
+        return useMlsd;
+    }
+
+    private IndexEntry toIndexEntry(final FTPFile file) {
+        final Calendar timestamp = file.getTimestamp();
+        return new IndexEntry(file.getSize(), timestamp == null ? -1 : timestamp.getTimeInMillis(), MLSxEntryParser.getFact(file.getRawListing(), "unique"));
+    }
+
+    private Map<String, IndexEntry> loadIndex() throws IOException {
+        final Map<String, IndexEntry> index = new TreeMap<>();
+        if (!Files.exists(indexFile)) {
+            return index;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            final String header = reader.readLine();
+            if (!INDEX_HEADER.equals(header)) {
+                throw new IOException("Not an FTPMirror index: " + indexFile);
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // size TAB modified TAB unique TAB path; the path is last as it may contain tabs
+                final String[] fields = line.split("\t", 4);
+                if (fields.length != 4) {
+                    throw new IOException("Corrupt index line in " + indexFile + ": " + line);
+                }
+                try {
+                    index.put(unescape(fields[3]),
+                            new IndexEntry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2].isEmpty() ? null : unescape(fields[2])));
+                } catch (final NumberFormatException e) {
+                    throw new IOException("Corrupt index line in " + indexFile + ": " + line, e);
+                }
+            }
+        }
+        return index;
+    }
+
+    private void mirror(final String relative, final boolean mlsd, final Map<String, IndexEntry> index, final Set<String> seen, final Result result)
+            throws IOException {
+        final String remoteDir = relative.isEmpty() ? remoteRoot : remotePath(relative);
+        final FTPFile[] files = mlsd ? client.mlistDir(remoteDir, filter) : client.listFiles(remoteDir, filter);
+        if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+            throw new IOException("Cannot list " + remoteDir + ": " + client.getReplyString().trim());
+        }
+        result.directoriesListed++;
+        for (final FTPFile file : files) {
+            final String name = file.getName();
+            if (name == null || name.isEmpty() || ".".equals(name) || "..".equals(name) || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+                continue;
+            }
+            if (mlsd) {
+                final String type = MLSxEntryParser.getFact(file.getRawListing(), "type");
+                if ("cdir".equalsIgnoreCase(type) || "pdir".equalsIgnoreCase(type)) {
+                    continue;
+                }
+            }
+            final String path = relative.isEmpty() ? name : relative + "/" + name;
+            if (file.isDirectory()) {
+                mirror(path, mlsd, index, seen, result);
+            } else if (file.isFile()) {
+                seen.add(path);
+                result.filesChecked++;
+                final IndexEntry current = toIndexEntry(file);
+                final IndexEntry previous = index.get(path);
+                final Path local = localRoot.resolve(path);
+                if (previous == null || !previous.matches(current) || !Files.exists(local)) {
+                    result.bytesTransferred += retrieve(path, local, file);
+                    result.filesTransferred++;
+                    index.put(path, current);
+                }
+            }
+        }
+    }
+
+    private String remotePath(final String relative) {
+        return remoteRoot.endsWith("/") ? remoteRoot + relative : remoteRoot + "/" + relative;
+    }
+
+    private long retrieve(final String relative, final Path local, final FTPFile file) throws IOException {
+        Files.createDirectories(local.getParent());
+        final Path temp = Files.createTempFile(local.getParent(), ".", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                if (!client.retrieveFile(remotePath(relative), out)) {
+                    throw new IOException("Cannot retrieve " + remotePath(relative) + ": " + client.getReplyString().trim());
+                }
+            }
+            final long size = Files.size(temp);
+            try {
+                Files.move(temp, local, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, local, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (file.getTimestamp() != null) {
+                Files.setLastModifiedTime(local, FileTime.fromMillis(file.getTimestamp().getTimeInMillis()));
+            }
+            return size;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void saveIndex(final Map<String, IndexEntry> index) throws IOException {
+        final Path parent = indexFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        final Path temp = Files.createTempFile(parent, ".", ".part");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(INDEX_HEADER);
+                writer.newLine();
+                for (final Map.Entry<String, IndexEntry> entry : index.entrySet()) {
+                    final IndexEntry value = entry.getValue();
+                    writer.write(value.size + "\t" + value.modified + "\t" + (value.unique == null ? "" : escape(value.unique)) + "\t" + escape(entry.getKey()));
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (final AtomicMoveNotSupportedException e) {
+                Files.move(temp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Sets whether local files are deleted when they no longer exist on the server. Only files which the mirror downloaded are deleted; directories are left
+     * in place.
+     *
+     * @param deleteRemoved whether removed files are deleted.
+     */
+    public void setDeleteRemoved(final boolean deleteRemoved) {
+        this.deleteRemoved = deleteRemoved;
+    }
+
+    /**
+     * Sets the filter applied to the listings. Rejected files are not downloaded and rejected directories are not listed; both count as removed from the
+     * server.
+     *
+     * @param filter the filter.
+     */
+    public void setFilter(final FTPFileFilter filter) {
+        this.filter = Objects.requireNonNull(filter, "filter");
+    }
+
+    /**
+     * Sets the index file, by default {@value #DEFAULT_INDEX_NAME} in the local directory.
+     *
+     * @param indexFile the index file.
+     */
+    public void setIndexFile(final Path indexFile) {
+        this.indexFile = Objects.requireNonNull(indexFile, "indexFile");
+    }
+
+    /**
+     * Sets whether MLSD is used when the server announces MLST. Disable for servers whose MLSD is broken.
+     *
+     * @param useMlsd whether MLSD is used.
+     */
+    public void setUseMlsd(final boolean useMlsd) {
+        this.useMlsd = useMlsd;
+    }
+
+    /**
+     * Brings the local directory up to date with the remote directory.
+     *
+     * @return what the run did.
+     * @throws IOException if a listing or a download fails, or if the index cannot be read or written; the index then records the files downloaded so far.
+     */
+    public Result sync() throws IOException {
+        final Map<String, IndexEntry> index = loadIndex();
+        final Set<String> seen = new HashSet<>();
+        final Result result = new Result();
+        if (!client.setFileType(FTP.BINARY_FILE_TYPE)) {
+            throw new IOException("Cannot set binary file type: " + client.getReplyString().trim());
+        }
+        final boolean mlsd = useMlsd && client.hasFeature(FTPCmd.MLST);
+        try {
+            mirror("", mlsd, index, seen, result);
+        } catch (final IOException | RuntimeException e) {
+            try {
+                saveIndex(index);
+            } catch (final IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        for (final String path : new HashSet<>(index.keySet())) {
+            if (!seen.contains(path)) {
+                index.remove(path);
+                if (deleteRemoved && Files.deleteIfExists(localRoot.resolve(path))) {
+                    result.filesDeleted++;
+                }
+            }
+        }
+        saveIndex(index);
+        return result;
+    }
+}
@@ -24,16 +24,23 @@ import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.net.Inet6Address;
 import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLException;
 import javax.net.ssl.SSLHandshakeException;
+import javax.net.ssl.SSLSession;
 import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
@@ -55,6 +62,30 @@ import org.apache.commons.net.util.TrustManagerUtils;
  */
 public class FTPSClient extends FTPClient {
 
+    /**
+     * A plain data socket which reports the port of the control connection as its peer port. JSSE keys its client session cache by the host a socket
+     * is layered with and by the peer port of the underlying socket, so layering this socket with the host of the control connection finds the
+     * control session.
+     */
+    private static final class ControlPeerSocket extends Socket {
+
+        private final int controlPort;
+
+        ControlPeerSocket(final int controlPort) {
+            this.controlPort = controlPort;
+        }
+
+        ControlPeerSocket(final Proxy proxy, final int controlPort) {
+            super(proxy);
+            this.controlPort = controlPort;
+        }
+
+        @Override
+        public int getPort() {
+            return controlPort;
+        }
+    }
+
     // From http://www.iana.org/assignments/port-numbers
 
     // ftps-data 989/tcp ftp protocol, data, over TLS/SSL
@@ -117,6 +148,12 @@ public class FTPSClient extends FTPClient {
     @Deprecated
     public static String STORE_TYPE;
 
+    /** The largest number of keys kept in {@link #SHARED_CONTEXTS}. */
+    private static final int MAX_SHARED_CONTEXTS = 64;
+
+    /** The contexts shared by clients, by protocol, key manager and trust manager. */
+    private static final ConcurrentMap<List<Object>, SSLContext> SHARED_CONTEXTS = new ConcurrentHashMap<>();
+
     /** The security mode. (True - Implicit Mode / False - Explicit Mode) */
     private final boolean isImplicit;
 
@@ -171,6 +208,21 @@ public class FTPSClient extends FTPClient {
     /** Use Java 1.7+ HTTPS Endpoint Identification Algorithm. */
     private boolean tlsEndpointChecking;
 
+    /** Whether the lazily created context is shared with other clients. */
+    private boolean useSharedContext;
+
+    /** Whether data connections offer to resume the session of the control connection. */
+    private boolean dataSessionReuse;
+
+    /** The number of handshakes completed by this client. */
+    private long handshakeCount;
+
+    /** The number of data connection handshakes which resumed the control session. */
+    private long resumedHandshakeCount;
+
+    /** The time spent in handshakes, in nanoseconds. */
+    private long handshakeNanos;
+
     /**
      * Constructor for FTPSClient, calls {@link #FTPSClient(String, boolean)}.
      *
@@ -324,7 +376,7 @@ public class FTPSClient extends FTPClient {
             if (protocols != null) {
                 sslSocket.setEnabledProtocols(protocols);
             }
-            sslSocket.startHandshake();
+            startHandshake(sslSocket, true);
         }
 
         return socket;
@@ -333,7 +385,7 @@ public class FTPSClient extends FTPClient {
     /**
      * Performs any custom initialization for a newly created SSLSocket (before the
      * SSL handshake happens). Called by {@link #_openDataConnection_(int, String)}
-     * immediately after creating the socket. The default implementation is a no-op
+     * immediately after creating the socket. The default implementation does nothing.
      *
      * @param socket the socket to set up
      * @throws IOException on error
@@ -649,6 +701,26 @@ public class FTPSClient extends FTPClient {
         return false;
     }
 
+    /**
+     * Gets the number of TLS handshakes completed by this client, for the control connection and for the data connections.
+     *
+     * @return the number of handshakes.
+     * @since 3.12.0
+     */
+    public long getHandshakeCount() {
+        return handshakeCount;
+    }
+
+    /**
+     * Gets the total time spent by this client in TLS handshakes.
+     *
+     * @return the handshake time.
+     * @since 3.12.0
+     */
+    public Duration getHandshakeDuration() {
+        return Duration.ofNanos(handshakeNanos);
+    }
+
     /**
      * Gets the currently configured {@link HostnameVerifier}. The verifier is only
      * used on client mode connections.
@@ -706,6 +778,17 @@ public class FTPSClient extends FTPClient {
         return protocols == null ? null : protocols.clone();
     }
 
+    /**
+     * Gets the number of data connection handshakes which resumed the session of the control connection, that is which ended with the same session
+     * id, or for TLS 1.3, which creates a new session id on resumption, with a session of the same creation time.
+     *
+     * @return the number of resumed handshakes.
+     * @since 3.12.0
+     */
+    public long getResumedHandshakeCount() {
+        return resumedHandshakeCount;
+    }
+
     /**
      * Gets the cipher suites. The {@link #getEnabledCipherSuites()} method gets the
      * value from the socket while
@@ -764,7 +847,22 @@ public class FTPSClient extends FTPClient {
      */
     private void initSslContext() throws IOException {
         if (context == null) {
-            context = SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
+            if (useSharedContext) {
+                final List<Object> key = Arrays.asList(protocol, getKeyManager(), getTrustManager());
+                context = SHARED_CONTEXTS.get(key);
+                if (context == null) {
+                    final SSLContext created = SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
+                    // the managers are compared by identity, so stop sharing rather than keep every manager an application ever created
+                    if (SHARED_CONTEXTS.size() < MAX_SHARED_CONTEXTS) {
+                        context = SHARED_CONTEXTS.putIfAbsent(key, created);
+                    }
+                    if (context == null) {
+                        context = created;
+                    }
+                }
+            } else {
+                context = SSLContextUtils.createSSLContext(protocol, getKeyManager(), getTrustManager());
+            }
         }
     }
 
@@ -780,6 +878,17 @@ public class FTPSClient extends FTPClient {
         return isClientMode;
     }
 
+    /**
+     * Tests whether data connections offer to resume the session of the control connection.
+     *
+     * @return true if the control session is offered.
+     * @see #setDataSessionReuse(boolean)
+     * @since 3.12.0
+     */
+    public boolean isDataSessionReuse() {
+        return dataSessionReuse;
+    }
+
     /**
      * Gets whether a new SSL session may be established by this socket. Default
      * true
@@ -826,6 +935,17 @@ public class FTPSClient extends FTPClient {
         return isNeedClientAuth;
     }
 
+    /**
+     * Tests whether the SSL context is shared with other clients.
+     *
+     * @return true if the context is shared.
+     * @see #setUseSharedContext(boolean)
+     * @since 3.12.0
+     */
+    public boolean isUseSharedContext() {
+        return useSharedContext;
+    }
+
     /**
      * Gets the want client auth flag. The {@link #getWantClientAuth()} method gets
      * the value from the socket while
@@ -863,16 +983,19 @@ public class FTPSClient extends FTPClient {
         final boolean isInet6Address = getRemoteAddress() instanceof Inet6Address;
         final int soTimeoutMillis = DurationUtils.toMillisInt(getDataTimeout());
 
+        final boolean reuse = isDataSessionReused();
         Socket socket = null;
         Socket sslSocket = null;
 
         if (isActiveMode()) {
-            socket = openActiveDataConnection(command, arg, isInet6Address, soTimeoutMillis);
+            socket = openActiveDataConnection(command, arg, isInet6Address, soTimeoutMillis, reuse);
         } else {
-            socket = openPassiveDataConnection(command, arg, isInet6Address, soTimeoutMillis);
-            if (socket != null && getProxy() != null) {
-                sslSocket = context.getSocketFactory().createSocket(socket, getPassiveHost(), getPassivePort(), true);
-            }
+            socket = openPassiveDataConnection(command, arg, isInet6Address, soTimeoutMillis, reuse);
+        }
+        if (socket != null && reuse) {
+            sslSocket = context.getSocketFactory().createSocket(socket, _hostname_, getRemotePort(), true);
+        } else if (socket != null && getProxy() != null && !isActiveMode()) {
+            sslSocket = context.getSocketFactory().createSocket(socket, getPassiveHost(), getPassivePort(), true);
         }
 
         if (socket != null && !verifyAndSetSocketOptions(socket, sslSocket, soTimeoutMillis)) {
@@ -881,7 +1004,16 @@ public class FTPSClient extends FTPClient {
                     + socket.getInetAddress().getHostAddress());
         }
 
-        return getProxy() != null ? sslSocket : socket;
+        return sslSocket != null ? sslSocket : socket;
+    }
+
+    /**
+     * Tests whether the data connections offer to resume the control session, which needs a protected data channel.
+     *
+     * @return true if the data sockets are layered with the host and port of the control connection.
+     */
+    private boolean isDataSessionReused() {
+        return dataSessionReuse && _socketFactory_ instanceof FTPSSocketFactory && _socket_ instanceof SSLSocket;
     }
 
     private boolean isLocalDataConnectionMode() {
@@ -894,8 +1026,8 @@ public class FTPSClient extends FTPClient {
     }
 
     private Socket openActiveDataConnection(final String command, final String arg, boolean isInet6Address,
-            int soTimeoutMillis) throws IOException {
-        try (ServerSocket server = _serverSocketFactory_.createServerSocket(getActivePort(), 1, getHostAddress())) {
+            int soTimeoutMillis, boolean plain) throws IOException {
+        try (ServerSocket server = createDataServerSocket(plain)) {
             if (!sendPortOrEprtCommand(isInet6Address, server.getLocalPort())) {
                 return null;
             }
@@ -910,11 +1042,11 @@ public class FTPSClient extends FTPClient {
     }
 
     private Socket openPassiveDataConnection(final String command, final String arg, boolean isInet6Address,
-            int soTimeoutMillis) throws IOException {
+            int soTimeoutMillis, boolean plain) throws IOException {
         if (!initializePassiveMode(isInet6Address)) {
             return null;
         }
-        Socket socket = createDataSocket();
+        Socket socket = createDataSocket(plain);
         setSocketOptions(socket, soTimeoutMillis);
         socket.connect(new InetSocketAddress(getPassiveHost(), getPassivePort()), connectTimeout);
         if (!prepareDataTransfer(command, arg)) {
@@ -955,6 +1087,9 @@ public class FTPSClient extends FTPClient {
     }
 
     private boolean initializePassiveMode(boolean isInet6Address) throws IOException {
+        if (takePrefetchedPassiveEndpoint()) {
+            return true;
+        }
         if ((isUseEPSVwithIPv4() || isInet6Address) && epsv() == FTPReply.ENTERING_EPSV_MODE) {
             _parseExtendedPassiveModeReply(_replyLines.get(0));
         } else if (!isInet6Address && pasv() == FTPReply.ENTERING_PASSIVE_MODE) {
@@ -965,10 +1100,28 @@ public class FTPSClient extends FTPClient {
         return true;
     }
 
-    private Socket createDataSocket() throws IOException {
+    private Socket createDataSocket(boolean plain) throws IOException {
+        if (plain) {
+            return getProxy() != null ? new ControlPeerSocket(getProxy(), getRemotePort()) : new ControlPeerSocket(getRemotePort());
+        }
         return (getProxy() != null) ? new Socket(getProxy()) : _socketFactory_.createSocket();
     }
 
+    private ServerSocket createDataServerSocket(boolean plain) throws IOException {
+        if (!plain) {
+            return _serverSocketFactory_.createServerSocket(getActivePort(), 1, getHostAddress());
+        }
+        final int controlPort = getRemotePort();
+        return new ServerSocket(getActivePort(), 1, getHostAddress()) {
+            @Override
+            public Socket accept() throws IOException {
+                final Socket socket = new ControlPeerSocket(controlPort);
+                implAccept(socket);
+                return socket;
+            }
+        };
+    }
+
     private boolean verifyAndSetSocketOptions(Socket socket, Socket sslSocket, int soTimeoutMillis) throws IOException {
         if (isRemoteVerificationEnabled() && !verifyRemote(socket)) {
             return false;
@@ -1057,6 +1210,23 @@ public class FTPSClient extends FTPClient {
         this.auth = auth;
     }
 
+    /**
+     * Sets whether data connections offer to resume the session of the control connection, which many servers require and which replaces the full
+     * handshake of each data connection with an abbreviated one. Default false.
+     * <p>
+     * JSSE looks up the session to resume by the host and port of the peer, and a data connection has another port than the control connection, so
+     * a protected data connection is opened as a plain socket which reports the port of the control connection, and then layered with the host and
+     * port of the control connection. The data socket therefore returns the control port from {@link Socket#getPort()}.
+     * </p>
+     *
+     * @param dataSessionReuse true to offer the control session.
+     * @see #getResumedHandshakeCount()
+     * @since 3.12.0
+     */
+    public void setDataSessionReuse(final boolean dataSessionReuse) {
+        this.dataSessionReuse = dataSessionReuse;
+    }
+
     /**
      * Controls which particular cipher suites are enabled for use on this
      * connection. Called before server negotiation.
@@ -1152,6 +1322,22 @@ public class FTPSClient extends FTPClient {
         this.isClientMode = isClientMode;
     }
 
+    /**
+     * Sets whether the SSL context created by this client is shared with the other clients which use the same protocol, key manager and trust
+     * manager. A shared context is built once and its session cache lets later connections to a server resume earlier sessions. It has no effect
+     * on a context passed to a constructor, and must be set before the context is created on connection. Default false.
+     * <p>
+     * The managers are compared by identity, so reuse the same instances. Once contexts for a number of distinct managers are shared, clients with new
+     * managers get a context of their own.
+     * </p>
+     *
+     * @param useSharedContext true to share the context.
+     * @since 3.12.0
+     */
+    public void setUseSharedContext(final boolean useSharedContext) {
+        this.useSharedContext = useSharedContext;
+    }
+
     /**
      * Configures the socket to request client authentication, but only if such a
      * request is appropriate to the cipher suite negotiated.
@@ -1191,7 +1377,7 @@ public class FTPSClient extends FTPClient {
         if (suites != null) {
             socket.setEnabledCipherSuites(suites);
         }
-        socket.startHandshake();
+        startHandshake(socket, false);
 
         // TODO the following setup appears to duplicate that in the super class methods
         _socket_ = socket;
@@ -1202,4 +1388,37 @@ public class FTPSClient extends FTPClient {
             throw new SSLHandshakeException("Hostname doesn't match certificate");
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Starts a handshake and records its duration.
+     *
+     * @param socket the socket.
+     * @param data whether the socket is a data connection, which may resume the control session.
+     * @throws IOException if the handshake fails.
+     */
+    private void startHandshake(final SSLSocket socket, final boolean data) throws IOException {
+        final long start = System.nanoTime();
+        socket.startHandshake();
+        handshakeNanos += System.nanoTime() - start;
+        handshakeCount++;
+        if (data && _socket_ instanceof SSLSocket && isResumed(socket.getSession(), ((SSLSocket) _socket_).getSession())) {
+            resumedHandshakeCount++;
+        }
+    }
+
+    /**
+     * Tests whether a data session resumed the control session.
+     *
+     * @param session the data session.
+     * @param control the control session.
+     * @return true if the data session resumed the control session.
+     */
+    private static boolean isResumed(final SSLSession session, final SSLSession control) {
+        final byte[] id = session.getId();
+        if (id.length > 0 && Arrays.equals(id, control.getId())) {
+            return true;
+        }
+        // a TLS 1.3 session resumed from a ticket keeps the creation time of the session which issued the ticket
+        return "TLSv1.3".equals(session.getProtocol()) && session.getCreationTime() == control.getCreationTime();
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.net.io.CopyStreamListener;
+import org.apache.commons.net.io.Util;
+import org.apache.commons.net.util.NetConstants;
+
+/**
+ * Downloads a single remote file over several control and data connection pairs at once.
+ * <p>
+ * The file is split into byte ranges ("segments"). Each connection fetches one segment at a time by issuing a REST command with the segment offset followed
+ * by RETR, reads the bytes of the range and writes them to the local {@link FileChannel} at the same offset. Throughput therefore scales with the number of
+ * connections instead of being capped by the window of a single socket, which matters on high-latency links.
+ * </p>
+ * <p>
+ * The server must support the REST command in stream mode (RFC 3659); the transfers are always done with the binary file type.
+ * </p>
+ *
+ * <pre>
+ * FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(() -&gt; {
+ *     FTPClient ftp = new FTPClient();
+ *     ftp.connect(host);
+ *     ftp.login(user, password);
+ *     ftp.enterLocalPassiveMode();
+ *     return ftp;
+ * });
+ * downloader.setConnections(8);
+ * downloader.download("/pub/big.iso", Paths.get("big.iso"));
+ * </pre>
+ *
+ * @since 3.12.0
+ */
+public class FTPSegmentedDownloader {
+
+    /**
+     * A byte range of the remote file; {@code position} advances as data is written, so a retry resumes where the previous attempt stopped.
+     */
+    private static final class Segment {
+
+        private final long end;
+        private long position;
+
+        Segment(final long start, final long end) {
+            this.position = start;
+            this.end = end;
+        }
+    }
+
+    /** The default number of connections ({@value}). */
+    public static final int DEFAULT_CONNECTIONS = 4;
+
+    /** The default segment size ({@value} bytes). */
+    public static final long DEFAULT_SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    /** The default number of retries per segment ({@value}). */
+    public static final int DEFAULT_RETRIES = 2;
+
+    private static void closeQuietly(final FTPClient client) {
+        if (client != null && client.isConnected()) {
+            try {
+                client.logout();
+            } catch (final IOException e) {
+                // Ignored
+            }
+            try {
+                client.disconnect();
+            } catch (final IOException e) {
+                // Ignored
+            }
+        }
+    }
+
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private final FTPClientFactory clientFactory;
+
+    private int connections = DEFAULT_CONNECTIONS;
+
+    private long segmentSize = DEFAULT_SEGMENT_SIZE;
+
+    private int retries = DEFAULT_RETRIES;
+
+    private int bufferSize;
+
+    private CopyStreamListener copyStreamListener;
+
+    /** Total bytes written during the current download, guarded by {@code this}. */
+    private long totalBytesTransferred;
+
+    /**
+     * Creates a new downloader.
+     *
+     * @param clientFactory creates the connected and logged-in clients, one per connection.
+     */
+    public FTPSegmentedDownloader(final FTPClientFactory clientFactory) {
+        if (clientFactory == null) {
+            throw new IllegalArgumentException("clientFactory must not be null");
+        }
+        this.clientFactory = clientFactory;
+    }
+
+    /**
+     * Creates the segments covering {@code [0, size)}.
+     */
+    private Queue<Segment> createSegments(final long size) {
+        final Queue<Segment> segments = new ConcurrentLinkedQueue<>();
+        for (long start = 0; start < size; start += segmentSize) {
+            segments.add(new Segment(start, Math.min(size, start + segmentSize)));
+        }
+        return segments;
+    }
+
+    /**
+     * Downloads the remote file into the given channel, writing each byte at its offset in the remote file. The channel is not closed.
+     *
+     * @param remote the remote file name.
+     * @param size   the size of the remote file in bytes, or a negative value to query it with the SIZE command.
+     * @param local  the channel to write to.
+     * @return the number of bytes downloaded.
+     * @throws IOException if the size cannot be determined or a segment still fails once its retries are exhausted.
+     */
+    public long download(final String remote, final long size, final FileChannel local) throws IOException {
+        FTPClient first = clientFactory.create();
+        long remoteSize = size;
+        try {
+            first.setFileType(FTP.BINARY_FILE_TYPE);
+            if (remoteSize < 0) {
+                remoteSize = querySize(first, remote);
+            }
+        } catch (final IOException e) {
+            closeQuietly(first);
+            throw e;
+        }
+        final Queue<Segment> segments = createSegments(remoteSize);
+        final int workers = Math.max(1, Math.min(connections, segments.size()));
+        synchronized (this) {
+            totalBytesTransferred = 0;
+        }
+        final AtomicBoolean failed = new AtomicBoolean();
+        final ExecutorService executor = Executors.newFixedThreadPool(workers);
+        final List<Future<?>> futures = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                final FTPClient initial = first;
+                first = null;
+                final long streamSize = remoteSize;
+                futures.add(executor.submit(() -> {
+                    runWorker(initial, remote, streamSize, local, segments, failed);
+                    return null;
+                }));
+            }
+            for (final Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (final ExecutionException e) {
+                    failed.set(true);
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    }
+                    throw new IOException(cause);
+                }
+            }
+        } catch (final InterruptedException e) {
+            failed.set(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for segments");
+        } finally {
+            executor.shutdownNow();
+            closeQuietly(first);
+        }
+        return remoteSize;
+    }
+
+    /**
+     * Downloads the remote file into a local file, which is created if necessary and truncated to the size of the remote file.
+     *
+     * @param remote the remote file name.
+     * @param local  the local file.
+     * @return the number of bytes downloaded.
+     * @throws IOException if the size cannot be determined or a segment still fails once its retries are exhausted.
+     */
+    public long download(final String remote, final Path local) throws IOException {
+        try (FileChannel channel = FileChannel.open(local, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            final long size = download(remote, -1, channel);
+            channel.truncate(size);
+            return size;
+        }
+    }
+
+    /**
+     * Fetches the rest of one segment with one REST/RETR exchange.
+     */
+    private void fetchSegment(final FTPClient client, final String remote, final long streamSize, final FileChannel local, final Segment segment)
+            throws IOException {
+        client.setRestartOffset(segment.position);
+        final InputStream input = client.retrieveFileStream(remote);
+        if (input == null) {
+            throw new IOException("Unable to retrieve " + remote + " at offset " + segment.position + ": " + client.getReplyString());
+        }
+        try {
+            final byte[] buffer = new byte[bufferSize > 0 ? bufferSize : Util.DEFAULT_COPY_BUFFER_SIZE * 64];
+            while (segment.position < segment.end) {
+                final int numBytes = input.read(buffer, 0, (int) Math.min(buffer.length, segment.end - segment.position));
+                if (numBytes == NetConstants.EOS) {
+                    throw new EOFException("Unexpected end of " + remote + " at offset " + segment.position);
+                }
+                writeFully(local, ByteBuffer.wrap(buffer, 0, numBytes), segment.position);
+                segment.position += numBytes;
+                fireBytesTransferred(numBytes, streamSize);
+            }
+        } finally {
+            Util.closeQuietly(input);
+        }
+        // Closing the data connection before the end of the file makes the server report an aborted transfer,
+        // so the final reply only matters for the segment that reaches the end of the file.
+        if (!client.completePendingCommand() && segment.end == streamSize) {
+            throw new IOException("Transfer of " + remote + " failed: " + client.getReplyString());
+        }
+    }
+
+    private synchronized void fireBytesTransferred(final int bytesTransferred, final long streamSize) {
+        totalBytesTransferred += bytesTransferred;
+        if (copyStreamListener != null) {
+            copyStreamListener.bytesTransferred(totalBytesTransferred, bytesTransferred, streamSize);
+        }
+    }
+
+    /**
+     * Gets the buffer size used to read each segment.
+     *
+     * @return the buffer size, a non-positive value means the default.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the maximum number of connections used for one download.
+     *
+     * @return the number of connections.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Gets the listener notified of the aggregated progress of all connections.
+     *
+     * @return the listener, may be {@code null}.
+     */
+    public CopyStreamListener getCopyStreamListener() {
+        return copyStreamListener;
+    }
+
+    /**
+     * Gets the number of times a failed segment is retried, on a new connection, before the download fails.
+     *
+     * @return the number of retries.
+     */
+    public int getRetries() {
+        return retries;
+    }
+
+    /**
+     * Gets the size of the byte ranges fetched by each REST/RETR exchange.
+     *
+     * @return the segment size in bytes.
+     */
+    public long getSegmentSize() {
+        return segmentSize;
+    }
+
+    private long querySize(final FTPClient client, final String remote) throws IOException {
+        final String reply = client.getSize(remote);
+        if (reply == null) {
+            throw new IOException("Unable to determine the size of " + remote + ": " + client.getReplyString());
+        }
+        try {
+            return Long.parseLong(reply.trim());
+        } catch (final NumberFormatException e) {
+            throw new IOException("Invalid SIZE reply for " + remote + ": " + reply, e);
+        }
+    }
+
+    /**
+     * Takes segments from the shared queue until it is empty, replacing the client whenever a segment fails.
+     */
+    private void runWorker(FTPClient client, final String remote, final long streamSize, final FileChannel local, final Queue<Segment> segments,
+            final AtomicBoolean failed) throws IOException {
+        try {
+            Segment segment;
+            while (!failed.get() && (segment = segments.poll()) != null) {
+                int attempt = 0;
+                while (true) {
+                    try {
+                        if (client == null) {
+                            client = clientFactory.create();
+                            client.setFileType(FTP.BINARY_FILE_TYPE);
+                        }
+                        fetchSegment(client, remote, streamSize, local, segment);
+                        break;
+                    } catch (final IOException e) {
+                        closeQuietly(client);
+                        client = null;
+                        if (++attempt > retries || failed.get()) {
+                            failed.set(true);
+                            throw e;
+                        }
+                    }
+                }
+            }
+        } finally {
+            closeQuietly(client);
+        }
+    }
+
+    /**
+     * Sets the buffer size used to read each segment.
+     *
+     * @param bufferSize the buffer size, a non-positive value means the default.
+     */
+    public void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Sets the maximum number of connections used for one download. Fewer are opened when the file has fewer segments.
+     *
+     * @param connections the number of connections, at least 1.
+     */
+    public void setConnections(final int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections must be at least 1: " + connections);
+        }
+        this.connections = connections;
+    }
+
+    /**
+     * Sets the listener notified of the aggregated progress of all connections. Calls are serialized, the total counts the bytes written by every connection.
+     *
+     * @param copyStreamListener the listener, may be {@code null}.
+     */
+    public void setCopyStreamListener(final CopyStreamListener copyStreamListener) {
+        this.copyStreamListener = copyStreamListener;
+    }
+
+    /**
+     * Sets the number of times a failed segment is retried, on a new connection, before the download fails. A retry resumes at the last byte written.
+     *
+     * @param retries the number of retries, zero or more.
+     */
+    public void setRetries(final int retries) {
+        if (retries < 0) {
+            throw new IllegalArgumentException("retries must not be negative: " + retries);
+        }
+        this.retries = retries;
+    }
+
+    /**
+     * Sets the size of the byte ranges fetched by each REST/RETR exchange.
+     *
+     * @param segmentSize the segment size in bytes, at least 1.
+     */
+    public void setSegmentSize(final long segmentSize) {
+        if (segmentSize < 1) {
+            throw new IllegalArgumentException("segmentSize must be at least 1: " + segmentSize);
+        }
+        this.segmentSize = segmentSize;
+    }
+}
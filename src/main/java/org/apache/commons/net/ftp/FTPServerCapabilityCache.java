@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Remembers the FEAT and SYST replies of servers, so that clients which reconnect to the same server do not have to send these commands again, and which
+ * parser of a {@link org.apache.commons.net.ftp.parser.CompositeFileEntryParser} matched their listings, so that it need not be found again.
+ * <p>
+ * Entries are keyed by the remote address and port of the control connection and are only used while the server sends the same greeting as when they were
+ * recorded; a different greeting, for example after a server upgrade, discards the entry. Entries also expire after a time to live.
+ * </p>
+ * <p>
+ * The cache is opt-in: a client uses it only after {@link FTPClient#setCapabilityCache(FTPServerCapabilityCache)}. A single instance, such as
+ * {@link #getDefault()}, is meant to be shared by all clients of a process. This class is thread-safe.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class FTPServerCapabilityCache {
+
+    /** What is known about one server; immutable, updates replace the entry. */
+    private static final class Entry {
+
+        private final String greeting;
+        private final long expiresNanos;
+        private final Map<String, Set<String>> features;
+        private final String systemType;
+        private final String listingParser;
+
+        Entry(final String greeting, final long expiresNanos, final Map<String, Set<String>> features, final String systemType,
+                final String listingParser) {
+            this.greeting = greeting;
+            this.expiresNanos = expiresNanos;
+            this.features = features;
+            this.systemType = systemType;
+            this.listingParser = listingParser;
+        }
+    }
+
+    private static final class Endpoint {
+
+        private final InetAddress address;
+        private final int port;
+
+        Endpoint(final InetAddress address, final int port) {
+            this.address = Objects.requireNonNull(address, "address");
+            this.port = port;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Endpoint)) {
+                return false;
+            }
+            final Endpoint other = (Endpoint) obj;
+            return port == other.port && address.equals(other.address);
+        }
+
+        @Override
+        public int hashCode() {
+            return address.hashCode() * 31 + port;
+        }
+    }
+
+    /** The default time to live of an entry. */
+    public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private static final FTPServerCapabilityCache DEFAULT = new FTPServerCapabilityCache(DEFAULT_TIME_TO_LIVE);
+
+    private static Map<String, Set<String>> copyOf(final Map<String, Set<String>> features) {
+        final Map<String, Set<String>> copy = new HashMap<>();
+        features.forEach((key, values) -> copy.put(key, Collections.unmodifiableSet(new HashSet<>(values))));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Gets the process-wide instance, with entries living {@link #DEFAULT_TIME_TO_LIVE}.
+     *
+     * @return the shared instance.
+     */
+    public static FTPServerCapabilityCache getDefault() {
+        return DEFAULT;
+    }
+
+    private final ConcurrentHashMap<Endpoint, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long timeToLiveNanos;
+
+    /**
+     * Creates a cache.
+     *
+     * @param timeToLive how long entries are used after they were recorded.
+     */
+    public FTPServerCapabilityCache(final Duration timeToLive) {
+        if (timeToLive == null || timeToLive.isNegative()) {
+            throw new IllegalArgumentException("timeToLive must not be negative");
+        }
+        this.timeToLiveNanos = timeToLive.toNanos();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the valid entry for a server, discarding it if it has expired or if the greeting does not match.
+     */
+    private Entry get(final InetAddress address, final int port, final String greeting) {
+        final Endpoint endpoint = new Endpoint(address, port);
+        final Entry entry = entries.get(endpoint);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresNanos >= 0 || !entry.greeting.equals(greeting)) {
+            entries.remove(endpoint, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Gets the recorded FEAT reply of a server.
+     *
+     * @param address  the remote address of the control connection.
+     * @param port     the remote port of the control connection.
+     * @param greeting the greeting the server sent on this connection.
+     * @return an unmodifiable map of the features to their values, or null if nothing is known.
+     */
+    public Map<String, Set<String>> getFeatures(final InetAddress address, final int port, final String greeting) {
+        final Entry entry = get(address, port, greeting);
+        return entry == null ? null : entry.features;
+    }
+
+    /**
+     * Gets the recorded class name of the parser which matched the listings of a server.
+     *
+     * @param address  the remote address of the control connection.
+     * @param port     the remote port of the control connection.
+     * @param greeting the greeting the server sent on this connection.
+     * @return the class name, or null if nothing is known.
+     */
+    public String getListingParser(final InetAddress address, final int port, final String greeting) {
+        final Entry entry = get(address, port, greeting);
+        return entry == null ? null : entry.listingParser;
+    }
+
+    /**
+     * Gets the recorded SYST reply of a server.
+     *
+     * @param address  the remote address of the control connection.
+     * @param port     the remote port of the control connection.
+     * @param greeting the greeting the server sent on this connection.
+     * @return the system type, or null if nothing is known.
+     */
+    public String getSystemType(final InetAddress address, final int port, final String greeting) {
+        final Entry entry = get(address, port, greeting);
+        return entry == null ? null : entry.systemType;
+    }
+
+    /**
+     * Removes the entry of a server, for example because a command which the cached features announced failed.
+     *
+     * @param address the remote address of the control connection.
+     * @param port    the remote port of the control connection.
+     */
+    public void invalidate(final InetAddress address, final int port) {
+        entries.remove(new Endpoint(address, port));
+    }
+
+    /**
+     * Records the FEAT reply of a server.
+     *
+     * @param address  the remote address of the control connection.
+     * @param port     the remote port of the control connection.
+     * @param greeting the greeting the server sent on this connection.
+     * @param features the features and their values.
+     */
+    public void putFeatures(final InetAddress address, final int port, final String greeting, final Map<String, Set<String>> features) {
+        final Map<String, Set<String>> copy = copyOf(features);
+        update(address, port, greeting, entry -> new Entry(greeting, entry.expiresNanos, copy, entry.systemType, entry.listingParser));
+    }
+
+    /**
+     * Records the class name of the parser which matched the listings of a server.
+     *
+     * @param address       the remote address of the control connection.
+     * @param port          the remote port of the control connection.
+     * @param greeting      the greeting the server sent on this connection.
+     * @param listingParser the class name of the parser.
+     */
+    public void putListingParser(final InetAddress address, final int port, final String greeting, final String listingParser) {
+        Objects.requireNonNull(listingParser, "listingParser");
+        update(address, port, greeting, entry -> new Entry(greeting, entry.expiresNanos, entry.features, entry.systemType, listingParser));
+    }
+
+    /**
+     * Records the SYST reply of a server.
+     *
+     * @param address    the remote address of the control connection.
+     * @param port       the remote port of the control connection.
+     * @param greeting   the greeting the server sent on this connection.
+     * @param systemType the system type.
+     */
+    public void putSystemType(final InetAddress address, final int port, final String greeting, final String systemType) {
+        Objects.requireNonNull(systemType, "systemType");
+        update(address, port, greeting, entry -> new Entry(greeting, entry.expiresNanos, entry.features, systemType, entry.listingParser));
+    }
+
+    /**
+     * Gets the number of servers in this cache, including expired entries which have not been discarded yet.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void update(final InetAddress address, final int port, final String greeting, final UnaryOperator<Entry> updater) {
+        Objects.requireNonNull(greeting, "greeting");
+        entries.compute(new Endpoint(address, port), (endpoint, entry) -> {
+            final long now = System.nanoTime();
+            if (entry == null || now - entry.expiresNanos >= 0 || !entry.greeting.equals(greeting)) {
+                entry = new Entry(greeting, now + timeToLiveNanos, null, null, null);
+            }
+            return updater.apply(entry);
+        });
+    }
+}
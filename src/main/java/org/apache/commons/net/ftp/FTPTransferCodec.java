@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encodes the data connection of a transfer mode which compresses or otherwise transforms the bytes on the wire, such as MODE Z.
+ * <p>
+ * {@link FTPClient#setTransferCodec(FTPTransferCodec)} sends MODE with {@link #getMode()}, then OPTS MODE with {@link #getModeOptions()} if there are any,
+ * and wraps the streams of every following data connection with {@link #decode(InputStream)} and {@link #encode(OutputStream)}. A codec is shared by all
+ * transfers of a client, and possibly of several clients, so implementations must be thread-safe.
+ * </p>
+ * <p>
+ * The client closes every stream it obtained when the data connection is closed, also when a transfer fails, and possibly after the underlying socket is
+ * already closed. Streams must therefore release their resources in {@code close()} even if closing the wrapped stream fails, and must tolerate being
+ * closed more than once.
+ * </p>
+ *
+ * @see DeflateTransferCodec
+ * @since 3.12.0
+ */
+public interface FTPTransferCodec {
+
+    /**
+     * Wraps the input stream of a data connection.
+     *
+     * @param input the raw stream of the data connection.
+     * @return a stream of the decoded bytes.
+     * @throws IOException if the stream cannot be created.
+     */
+    InputStream decode(InputStream input) throws IOException;
+
+    /**
+     * Wraps the output stream of a data connection. Closing the returned stream must write any trailer of the encoding and close {@code output}.
+     *
+     * @param output the raw stream of the data connection.
+     * @return a stream which encodes the bytes written to it.
+     * @throws IOException if the stream cannot be created.
+     */
+    OutputStream encode(OutputStream output) throws IOException;
+
+    /**
+     * Gets the argument of the MODE command, such as {@code Z}: the letter of one of the {@code _TRANSFER_MODE} constants of {@link FTP}.
+     *
+     * @return the transfer mode.
+     */
+    String getMode();
+
+    /**
+     * Gets the parameters sent with {@code OPTS MODE <mode>}, such as {@code LEVEL 9}.
+     *
+     * @return the parameters, or null to send no OPTS command.
+     */
+    default String getModeOptions() {
+        return null;
+    }
+}
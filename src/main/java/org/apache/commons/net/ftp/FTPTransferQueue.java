@@ -0,0 +1,426 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.net.io.CopyStreamEvent;
+import org.apache.commons.net.io.CopyStreamListener;
+
+/**
+ * A list of file transfers which {@link FTPClient#executeTransfers(FTPTransferQueue)} runs one after the other on one connection, overlapping the control
+ * commands of a transfer with the end of the previous one: in passive mode the {@code EPSV} or {@code PASV} command for the next transfer is sent as soon
+ * as the data of the previous one has been moved, before its {@code 226} reply is read, so both replies arrive in one round trip. This matters most for
+ * many small files, where the round trips rather than the data dominate.
+ *
+ * <pre>
+ * FTPTransferQueue queue = new FTPTransferQueue();
+ * for (String name : names) {
+ *     queue.addRetrieve(name, dir.resolve(name));
+ * }
+ * for (FTPTransferQueue.Result result : ftp.executeTransfers(queue)) {
+ *     if (!result.isSuccess()) {
+ *         System.err.println(result);
+ *     }
+ * }
+ * </pre>
+ * <p>
+ * A transfer which fails with a transient negative reply, or whose data connection fails, is retried up to {@link #getMaxRetries()} times; the local file is
+ * then written or read again from the start. A transfer which fails with a permanent negative reply, or whose local file cannot be opened, read or written,
+ * is not retried.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class FTPTransferQueue {
+
+    /**
+     * The outcome of one transfer of a queue.
+     */
+    public static final class Result {
+
+        private final Transfer transfer;
+        private final int attempts;
+        private final int replyCode;
+        private final String replyString;
+        private final long byteCount;
+        private final IOException exception;
+        private final boolean retryable;
+
+        Result(final Transfer transfer, final int attempts, final int replyCode, final String replyString, final long byteCount,
+                final IOException exception, final boolean retryable) {
+            this.transfer = transfer;
+            this.attempts = attempts;
+            this.replyCode = replyCode;
+            this.replyString = replyString;
+            this.byteCount = byteCount;
+            this.exception = exception;
+            this.retryable = retryable;
+        }
+
+        /**
+         * Gets the number of attempts made.
+         *
+         * @return the number of attempts, at least 1.
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Gets the number of bytes moved by the last attempt.
+         *
+         * @return the number of bytes.
+         */
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        /**
+         * Gets the exception which made the last attempt fail.
+         *
+         * @return the exception, or null if the last attempt failed with a negative reply or succeeded.
+         */
+        public IOException getException() {
+            return exception;
+        }
+
+        /**
+         * Gets the local file.
+         *
+         * @return the local file.
+         */
+        public Path getLocal() {
+            return transfer.local;
+        }
+
+        /**
+         * Gets the remote file.
+         *
+         * @return the remote file name.
+         */
+        public String getRemote() {
+            return transfer.remote;
+        }
+
+        /**
+         * Gets the code of the last reply of the last attempt.
+         *
+         * @return the reply code, or 0 if the local file could not be opened.
+         */
+        public int getReplyCode() {
+            return replyCode;
+        }
+
+        /**
+         * Gets the text of the last reply of the last attempt.
+         *
+         * @return the reply text, or null if the local file could not be opened.
+         */
+        public String getReplyString() {
+            return replyString;
+        }
+
+        /**
+         * Tests whether the file was retrieved rather than stored.
+         *
+         * @return true for a retrieve, false for a store.
+         */
+        public boolean isRetrieve() {
+            return transfer.retrieve;
+        }
+
+        /**
+         * Tests whether another attempt could succeed.
+         */
+        boolean isRetryable() {
+            return retryable;
+        }
+
+        /**
+         * Tests whether the transfer succeeded.
+         *
+         * @return whether the data was moved and the server confirmed the transfer.
+         */
+        public boolean isSuccess() {
+            return exception == null && FTPReply.isPositiveCompletion(replyCode);
+        }
+
+        @Override
+        public String toString() {
+            return transfer + " -> " + (exception != null ? exception.toString() : replyString == null ? "" : replyString.trim()) + " after " + attempts
+                    + (attempts == 1 ? " attempt" : " attempts");
+        }
+    }
+
+    /**
+     * Reports the bytes of all transfers of a queue to one listener, as if they were one stream.
+     */
+    static final class AggregateListener implements CopyStreamListener {
+
+        private final CopyStreamListener listener;
+        private long completed;
+        private long current;
+
+        AggregateListener(final CopyStreamListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void bytesTransferred(final CopyStreamEvent event) {
+            bytesTransferred(event.getTotalBytesTransferred(), event.getBytesTransferred(), event.getStreamSize());
+        }
+
+        @Override
+        public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+            current = totalBytesTransferred;
+            listener.bytesTransferred(completed + totalBytesTransferred, bytesTransferred, CopyStreamEvent.UNKNOWN_STREAM_SIZE);
+        }
+
+        /**
+         * Adds the bytes reported by an attempt, failed or not, to the offset of the next one, so that the total never goes backwards.
+         */
+        void complete() {
+            completed += current;
+            current = 0;
+        }
+    }
+
+    /**
+     * Reads a local file, recording whether it failed, to tell its errors from those of the data connection.
+     */
+    static final class LocalInputStream extends FilterInputStream {
+
+        boolean failed;
+
+        LocalInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Writes a local file, recording whether it failed, to tell its errors from those of the data connection.
+     */
+    static final class LocalOutputStream extends FilterOutputStream {
+
+        boolean failed;
+
+        LocalOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                super.flush();
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            try {
+                out.write(b, off, len);
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            try {
+                out.write(b);
+            } catch (final IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * One transfer of a queue.
+     */
+    static final class Transfer {
+
+        final boolean retrieve;
+        final String remote;
+        final Path local;
+
+        Transfer(final boolean retrieve, final String remote, final Path local) {
+            this.retrieve = retrieve;
+            this.remote = Objects.requireNonNull(remote, "remote");
+            this.local = Objects.requireNonNull(local, "local");
+        }
+
+        @Override
+        public String toString() {
+            return retrieve ? "RETR " + remote + " to " + local : "STOR " + local + " to " + remote;
+        }
+    }
+
+    /** The default maximum number of retries of a transfer ({@value}). */
+    public static final int DEFAULT_MAX_RETRIES = 2;
+
+    private final List<Transfer> transfers = new ArrayList<>();
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private CopyStreamListener copyStreamListener;
+
+    /**
+     * Adds the retrieval of a remote file into a local file, which is created or replaced.
+     *
+     * @param remote the remote file name.
+     * @param local  the local file.
+     * @return this queue.
+     */
+    public FTPTransferQueue addRetrieve(final String remote, final Path local) {
+        transfers.add(new Transfer(true, remote, local));
+        return this;
+    }
+
+    /**
+     * Adds the storage of a local file as a remote file.
+     *
+     * @param local  the local file.
+     * @param remote the remote file name.
+     * @return this queue.
+     */
+    public FTPTransferQueue addStore(final Path local, final String remote) {
+        transfers.add(new Transfer(false, remote, local));
+        return this;
+    }
+
+    /**
+     * Gets a transfer.
+     */
+    Transfer get(final int index) {
+        return transfers.get(index);
+    }
+
+    /**
+     * Gets the listener notified of the bytes moved by all transfers.
+     *
+     * @return the listener, may be null.
+     */
+    public CopyStreamListener getCopyStreamListener() {
+        return copyStreamListener;
+    }
+
+    /**
+     * Gets the maximum number of retries of a transfer.
+     *
+     * @return the maximum number of retries.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets the listener notified of the bytes moved by all transfers. Its total counts the bytes of all transfers so far, and the stream size is unknown;
+     * a retried transfer counts its bytes again. The listener of the client, if any, is notified per transfer as usual.
+     *
+     * @param copyStreamListener the listener, may be null.
+     * @return this queue.
+     */
+    public FTPTransferQueue setCopyStreamListener(final CopyStreamListener copyStreamListener) {
+        this.copyStreamListener = copyStreamListener;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of retries of a transfer.
+     *
+     * @param maxRetries the maximum number of retries, 0 to not retry.
+     * @return this queue.
+     */
+    public FTPTransferQueue setMaxRetries(final int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("maxRetries must not be negative");
+        }
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * Gets the number of transfers.
+     *
+     * @return the number of transfers.
+     */
+    public int size() {
+        return transfers.size();
+    }
+
+    /**
+     * Gets the transfers, for diagnostics.
+     *
+     * @return the transfers.
+     */
+    @Override
+    public String toString() {
+        return transfers.toString();
+    }
+}
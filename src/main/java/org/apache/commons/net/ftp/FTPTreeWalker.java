@@ -0,0 +1,410 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.FileVisitResult;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Walks a remote directory tree, listing several directories at once over sessions borrowed from an {@link FTPClientPool}.
+ * <p>
+ * A recursive listing over a single connection costs one LIST round trip, with its data connection, per directory. The walker instead hands every
+ * directory it discovers to a pool of threads, each of which lists over its own session, so on a high-latency link the time taken drops roughly with the
+ * number of connections. Entries are passed to an {@link FTPFileVisitor} as soon as their listing has been parsed, nothing is accumulated by the walker.
+ * </p>
+ *
+ * <pre>
+ * FTPTreeWalker walker = new FTPTreeWalker(pool, key);
+ * walker.setConnections(8);
+ * walker.walk("/pub", (path, file) -&gt; {
+ *     System.out.println(path + " " + file.getSize());
+ *     return FileVisitResult.CONTINUE;
+ * });
+ * </pre>
+ * <p>
+ * The filter is applied to every listing: rejected entries are neither reported nor walked into. Symbolic links are reported as files unless
+ * {@link #setFollowLinks(boolean) followed}; followed links are resolved with CWD and PWD, and a directory whose resolved path was already walked is reported
+ * as a file instead of being walked again, so link cycles end.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public class FTPTreeWalker {
+
+    /** The state of one call to {@link FTPTreeWalker#walk(String, FTPFileVisitor)}. */
+    private final class Walk {
+
+        private final FTPFileVisitor visitor;
+        private final ExecutorService executor;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final AtomicBoolean terminated = new AtomicBoolean();
+        private final AtomicReference<Exception> failure = new AtomicReference<>();
+        /** The resolved paths of the directories walked so far, only used when following links. */
+        private final Set<String> visited = ConcurrentHashMap.newKeySet();
+
+        Walk(final FTPFileVisitor visitor, final ExecutorService executor) {
+            this.visitor = visitor;
+            this.executor = executor;
+        }
+
+        private void abort(final Exception e) {
+            failure.compareAndSet(null, e);
+            terminated.set(true);
+        }
+
+        /** Reports a directory, and lists it unless it is at the maximum depth or the visitor skips it. */
+        private FileVisitResult directory(final String path, final FTPFile entry, final String resolved, final int depth) throws IOException {
+            if (depth >= maxDepth) {
+                return visitor.visitFile(path, entry);
+            }
+            final FileVisitResult result = visitor.preVisitDirectory(path, entry);
+            if (result == FileVisitResult.CONTINUE) {
+                submit(() -> list(path, resolved, depth + 1));
+            }
+            return result == FileVisitResult.SKIP_SUBTREE ? FileVisitResult.CONTINUE : result;
+        }
+
+        private void failed(final String path, final IOException e) {
+            try {
+                if (visitor.visitFileFailed(path, e) == FileVisitResult.TERMINATE) {
+                    terminated.set(true);
+                }
+            } catch (final IOException | RuntimeException ex) {
+                abort(ex);
+            }
+        }
+
+        /**
+         * Lists a directory and reports its entries.
+         *
+         * @param path     the path as reported to the visitor.
+         * @param resolved the absolute path of the directory when following links, null if it still has to be resolved or links are not followed.
+         * @param depth    the depth of the entries of the directory.
+         */
+        private void list(final String path, final String resolved, final int depth) {
+            if (terminated.get()) {
+                return;
+            }
+            final FTPClient client;
+            try {
+                client = pool.borrowClient(key);
+            } catch (final IOException e) {
+                failed(path, e);
+                return;
+            }
+            String directory = resolved;
+            final FTPFile[] entries;
+            final String error;
+            try {
+                if (followLinks && directory == null) {
+                    directory = resolve(client, path);
+                    if (directory == null) {
+                        throw new IOException("Cannot change to " + path + ": " + client.getReplyString().trim());
+                    }
+                    visited.add(directory);
+                }
+                final String pathname = directory != null ? directory : path;
+                entries = useMlsd ? client.mlistDir(pathname, filter) : client.listFiles(pathname, filter);
+                error = FTPReply.isPositiveCompletion(client.getReplyCode()) ? null : "Cannot list " + path + ": " + client.getReplyString().trim();
+            } catch (final IOException e) {
+                pool.invalidateClient(client);
+                failed(path, e);
+                return;
+            }
+            pool.returnClient(client);
+            if (error != null) {
+                failed(path, new IOException(error));
+                return;
+            }
+            try {
+                for (final FTPFile entry : entries) {
+                    if (terminated.get()) {
+                        return;
+                    }
+                    final String name = entry.getName();
+                    if (name == null || name.isEmpty() || ".".equals(name) || "..".equals(name)) {
+                        continue;
+                    }
+                    final String child = join(path, name);
+                    final FileVisitResult result;
+                    if (followLinks && entry.isSymbolicLink()) {
+                        submit(() -> resolveLink(child, entry, depth));
+                        result = FileVisitResult.CONTINUE;
+                    } else if (entry.isDirectory()) {
+                        final String childResolved = directory == null ? null : join(directory, name);
+                        if (childResolved != null && !visited.add(childResolved)) {
+                            // already walked through a link
+                            result = visitor.visitFile(child, entry);
+                        } else {
+                            result = directory(child, entry, childResolved, depth);
+                        }
+                    } else {
+                        result = visitor.visitFile(child, entry);
+                    }
+                    if (result == FileVisitResult.TERMINATE) {
+                        terminated.set(true);
+                        return;
+                    }
+                    if (result == FileVisitResult.SKIP_SIBLINGS) {
+                        return;
+                    }
+                }
+            } catch (final IOException | RuntimeException e) {
+                abort(e);
+            }
+        }
+
+        /** Walks into a link if it resolves to a directory which has not been walked yet, otherwise reports it as a file. */
+        private void resolveLink(final String path, final FTPFile entry, final int depth) {
+            if (terminated.get()) {
+                return;
+            }
+            final FTPClient client;
+            try {
+                client = pool.borrowClient(key);
+            } catch (final IOException e) {
+                failed(path, e);
+                return;
+            }
+            final String resolved;
+            try {
+                resolved = resolve(client, path);
+            } catch (final IOException e) {
+                pool.invalidateClient(client);
+                failed(path, e);
+                return;
+            }
+            // the pool restores the working directory
+            pool.returnClient(client);
+            try {
+                final FileVisitResult result;
+                if (resolved == null || !visited.add(resolved)) {
+                    result = visitor.visitFile(path, entry);
+                } else {
+                    result = directory(path, entry, resolved, depth);
+                }
+                if (result == FileVisitResult.TERMINATE) {
+                    terminated.set(true);
+                }
+            } catch (final IOException | RuntimeException e) {
+                abort(e);
+            }
+        }
+
+        void run(final String start) throws IOException {
+            submit(() -> list(start, null, 1));
+            try {
+                done.await();
+            } catch (final InterruptedException e) {
+                terminated.set(true);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while walking " + start);
+            }
+            final Exception e = failure.get();
+            if (e instanceof IOException) {
+                throw (IOException) e;
+            }
+            if (e != null) {
+                throw (RuntimeException) e;
+            }
+        }
+
+        private void submit(final Runnable task) {
+            pending.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        taskDone();
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                taskDone();
+            }
+        }
+
+        private void taskDone() {
+            if (pending.decrementAndGet() == 0) {
+                done.countDown();
+            }
+        }
+    }
+
+    /** The default number of directories listed at once ({@value}). */
+    public static final int DEFAULT_CONNECTIONS = 4;
+
+    private static String join(final String parent, final String name) {
+        return parent.endsWith("/") ? parent + name : parent + "/" + name;
+    }
+
+    /**
+     * Gets the absolute path of a directory.
+     *
+     * @return the path, or null if the client cannot change to it.
+     */
+    private static String resolve(final FTPClient client, final String path) throws IOException {
+        return client.changeWorkingDirectory(path) ? client.printWorkingDirectory() : null;
+    }
+
+    private final FTPClientPool pool;
+    private final FTPClientPool.Key key;
+    private int connections = DEFAULT_CONNECTIONS;
+    private int maxDepth = Integer.MAX_VALUE;
+    private FTPFileFilter filter = FTPFileFilters.NON_NULL;
+    private boolean followLinks;
+    private boolean useMlsd;
+
+    /**
+     * Creates a walker. The pool limits the number of sessions opened to the server, see {@link FTPClientPool#setMaxTotalPerKey(int)}.
+     *
+     * @param pool the pool to borrow sessions from.
+     * @param key  the server and account to walk.
+     */
+    public FTPTreeWalker(final FTPClientPool pool, final FTPClientPool.Key key) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.key = Objects.requireNonNull(key, "key");
+    }
+
+    /**
+     * Gets the number of directories listed at once.
+     *
+     * @return the number of connections.
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    /**
+     * Gets the filter applied to the listings.
+     *
+     * @return the filter.
+     */
+    public FTPFileFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * Gets the maximum depth of the reported entries.
+     *
+     * @return the maximum depth.
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Tests whether symbolic links to directories are walked into.
+     *
+     * @return whether links are followed.
+     */
+    public boolean isFollowLinks() {
+        return followLinks;
+    }
+
+    /**
+     * Tests whether directories are listed with MLSD instead of LIST.
+     *
+     * @return whether MLSD is used.
+     */
+    public boolean isUseMlsd() {
+        return useMlsd;
+    }
+
+    /**
+     * Sets the number of directories listed at once, each over its own session.
+     *
+     * @param connections the number of connections.
+     */
+    public void setConnections(final int connections) {
+        if (connections < 1) {
+            throw new IllegalArgumentException("connections must be at least 1: " + connections);
+        }
+        this.connections = connections;
+    }
+
+    /**
+     * Sets the filter applied to the listings. Rejected entries are neither reported nor walked into, so a filter can prune whole subtrees.
+     *
+     * @param filter the filter.
+     */
+    public void setFilter(final FTPFileFilter filter) {
+        this.filter = Objects.requireNonNull(filter, "filter");
+    }
+
+    /**
+     * Sets whether symbolic links are walked into. Each followed link costs a CWD and a PWD to resolve it.
+     *
+     * @param followLinks whether links are followed.
+     */
+    public void setFollowLinks(final boolean followLinks) {
+        this.followLinks = followLinks;
+    }
+
+    /**
+     * Sets the maximum depth of the reported entries: 1 reports the entries of the start directory only. Directories at the maximum depth are reported with
+     * {@link FTPFileVisitor#visitFile(String, FTPFile)}.
+     *
+     * @param maxDepth the maximum depth.
+     */
+    public void setMaxDepth(final int maxDepth) {
+        if (maxDepth < 1) {
+            throw new IllegalArgumentException("maxDepth must be at least 1: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Sets whether directories are listed with MLSD (RFC 3659) instead of LIST, which gives exact sizes and timestamps if the server supports it.
+     *
+     * @param useMlsd whether MLSD is used.
+     */
+    public void setUseMlsd(final boolean useMlsd) {
+        this.useMlsd = useMlsd;
+    }
+
+    /**
+     * Walks the tree below a directory. Returns when every directory has been listed and reported, or when the walk was terminated.
+     *
+     * @param start   the directory to start from; it is listed but not reported itself.
+     * @param visitor receives the entries, from several threads.
+     * @throws IOException if the visitor throws an exception, for example from the default
+     *                     {@link FTPFileVisitor#visitFileFailed(String, IOException)}.
+     */
+    public void walk(final String start, final FTPFileVisitor visitor) throws IOException {
+        Objects.requireNonNull(start, "start");
+        Objects.requireNonNull(visitor, "visitor");
+        final ExecutorService executor = Executors.newFixedThreadPool(connections);
+        try {
+            new Walk(visitor, executor).run(start);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
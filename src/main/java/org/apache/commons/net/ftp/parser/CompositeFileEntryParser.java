@@ -17,27 +17,64 @@
 
 package org.apache.commons.net.ftp.parser;
 
+import java.util.List;
+
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPFileEntryParser;
 import org.apache.commons.net.ftp.FTPFileEntryParserImpl;
 
 /**
- * This implementation allows to pack some FileEntryParsers together and handle the case where the returned dir style isn't clearly defined. The matching parser
- * will be cached. If the cached parser won't match due to the server changed the dir style, a new matching parser will be searched.
+ * This implementation allows to pack some FileEntryParsers together and handle the case where the returned dir style isn't clearly defined.
+ * <p>
+ * The parser is chosen by sampling: {@link #preParse(List)} lets each parser try the first {@link #getSampleSize()} lines of a listing and selects the one
+ * which parses the most of them, the earlier parser winning a tie. The selected parser is then used alone, so each entry costs one parse. A selection made
+ * earlier, or set with {@link #selectParser(String)}, is kept without trying the other parsers if it parses the whole sample, and otherwise unless another
+ * parser parses more of it. Entries parsed without {@link #preParse(List)} select the first parser which parses one of them.
+ * </p>
  */
 public class CompositeFileEntryParser extends FTPFileEntryParserImpl {
+
+    /**
+     * The default number of leading lines of a listing used to select a parser ({@value}).
+     *
+     * @since 3.12.0
+     */
+    public static final int DEFAULT_SAMPLE_SIZE = 20;
+
     private final FTPFileEntryParser[] ftpFileEntryParsers;
-    private FTPFileEntryParser cachedFtpFileEntryParser;
+    private volatile FTPFileEntryParser cachedFtpFileEntryParser;
+    private int sampleSize = DEFAULT_SAMPLE_SIZE;
 
     public CompositeFileEntryParser(final FTPFileEntryParser[] ftpFileEntryParsers) {
         this.cachedFtpFileEntryParser = null;
         this.ftpFileEntryParsers = ftpFileEntryParsers;
     }
 
+    /**
+     * Gets the number of leading lines of a listing used to select a parser.
+     *
+     * @return the sample size.
+     * @since 3.12.0
+     */
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    /**
+     * Gets the selected parser.
+     *
+     * @return the parser used for the entries, or null if none has been selected yet.
+     * @since 3.12.0
+     */
+    public FTPFileEntryParser getSelectedParser() {
+        return cachedFtpFileEntryParser;
+    }
+
     @Override
     public FTPFile parseFTPEntry(final String listEntry) {
-        if (cachedFtpFileEntryParser != null) {
-            return cachedFtpFileEntryParser.parseFTPEntry(listEntry);
+        final FTPFileEntryParser selected = cachedFtpFileEntryParser;
+        if (selected != null) {
+            return selected.parseFTPEntry(listEntry);
         }
         for (final FTPFileEntryParser ftpFileEntryParser : ftpFileEntryParsers) {
             final FTPFile matched = ftpFileEntryParser.parseFTPEntry(listEntry);
@@ -48,4 +85,79 @@ public class CompositeFileEntryParser extends FTPFileEntryParserImpl {
         }
         return null;
     }
+
+    /**
+     * Selects the parser for the entries of the listing by sampling its first lines, unless the selected parser parses all of them.
+     *
+     * @param original the lines of the listing, unchanged.
+     * @return the lines.
+     * @since 3.12.0
+     */
+    @Override
+    public List<String> preParse(final List<String> original) {
+        final List<String> sample = original.subList(0, Math.min(sampleSize, original.size()));
+        final FTPFileEntryParser selected = cachedFtpFileEntryParser;
+        FTPFileEntryParser best = selected;
+        int bestScore = selected == null ? 0 : score(selected, sample);
+        for (final FTPFileEntryParser ftpFileEntryParser : ftpFileEntryParsers) {
+            if (bestScore == sample.size()) {
+                break;
+            }
+            if (ftpFileEntryParser != selected) {
+                final int score = score(ftpFileEntryParser, sample);
+                if (score > bestScore) {
+                    best = ftpFileEntryParser;
+                    bestScore = score;
+                }
+            }
+        }
+        // a sample no parser understands, such as an empty directory, keeps the selection
+        if (best != null) {
+            cachedFtpFileEntryParser = best;
+        }
+        return original;
+    }
+
+    /**
+     * Counts the lines of a sample a parser parses.
+     */
+    private static int score(final FTPFileEntryParser parser, final List<String> sample) {
+        int score = 0;
+        for (final String line : sample) {
+            if (parser.parseFTPEntry(line) != null) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Selects a parser by class name, for example the one a previous connection to the same server selected.
+     *
+     * @param className the class name of one of the parsers.
+     * @return whether a parser of that class was found and selected.
+     * @since 3.12.0
+     */
+    public boolean selectParser(final String className) {
+        for (final FTPFileEntryParser ftpFileEntryParser : ftpFileEntryParsers) {
+            if (ftpFileEntryParser.getClass().getName().equals(className)) {
+                cachedFtpFileEntryParser = ftpFileEntryParser;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sets the number of leading lines of a listing used to select a parser.
+     *
+     * @param sampleSize the sample size, at least 1.
+     * @since 3.12.0
+     */
+    public void setSampleSize(final int sampleSize) {
+        if (sampleSize < 1) {
+            throw new IllegalArgumentException("sampleSize must be at least 1: " + sampleSize);
+        }
+        this.sampleSize = sampleSize;
+    }
 }
@@ -35,7 +35,7 @@ import org.apache.commons.net.ftp.FTPClientConfig;
  */
 public abstract class ConfigurableFTPFileEntryParserImpl extends RegexFTPFileEntryParserImpl implements Configurable {
 
-    private final FTPTimestampParser timestampParser;
+    private FTPTimestampParser timestampParser;
 
     /**
      * constructor for this abstract class.
@@ -64,24 +64,40 @@ public abstract class ConfigurableFTPFileEntryParserImpl extends RegexFTPFileEnt
      * implementation, ' passing it the supplied {@link FTPClientConfig FTPClientConfig} if that is non-null or a default configuration defined by each concrete
      * subclass.
      *
+     * <p>
+     * If {@link FTPClientConfig#isJavaTimeTimestampParsing()} is set, the timestamp parser is replaced by a {@link JavaTimeFTPTimestampParser}, unless its date
+     * formats use pattern letters that parser does not support.
+     * </p>
+     *
      * @param config the configuration to be used to configure this parser. If it is null, a default configuration defined by each concrete subclass is used
      *               instead.
      */
     @Override
     public void configure(final FTPClientConfig config) {
-        if (timestampParser instanceof Configurable) {
-            final FTPClientConfig defaultCfg = getDefaultConfiguration();
-            if (config != null) {
-                if (null == config.getDefaultDateFormatStr()) {
-                    config.setDefaultDateFormatStr(defaultCfg.getDefaultDateFormatStr());
-                }
-                if (null == config.getRecentDateFormatStr()) {
-                    config.setRecentDateFormatStr(defaultCfg.getRecentDateFormatStr());
+        final FTPClientConfig defaultCfg = getDefaultConfiguration();
+        if (config != null) {
+            if (null == config.getDefaultDateFormatStr()) {
+                config.setDefaultDateFormatStr(defaultCfg.getDefaultDateFormatStr());
+            }
+            if (null == config.getRecentDateFormatStr()) {
+                config.setRecentDateFormatStr(defaultCfg.getRecentDateFormatStr());
+            }
+            if (config.isJavaTimeTimestampParsing()) {
+                try {
+                    final JavaTimeFTPTimestampParser javaTimeParser = new JavaTimeFTPTimestampParser();
+                    javaTimeParser.configure(config);
+                    timestampParser = javaTimeParser;
+                    return;
+                } catch (final IllegalArgumentException e) {
+                    // unsupported pattern, keep using SimpleDateFormat
                 }
-                ((Configurable) timestampParser).configure(config);
-            } else {
-                ((Configurable) timestampParser).configure(defaultCfg);
             }
+            if (!(timestampParser instanceof FTPTimestampParserImpl)) {
+                timestampParser = new FTPTimestampParserImpl();
+            }
+        }
+        if (timestampParser instanceof Configurable) {
+            ((Configurable) timestampParser).configure(config != null ? config : defaultCfg);
         }
     }
 
@@ -17,6 +17,11 @@
 
 package org.apache.commons.net.ftp.parser;
 
+import java.lang.reflect.Constructor;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 import org.apache.commons.net.ftp.Configurable;
@@ -28,6 +33,10 @@ import org.apache.commons.net.ftp.FTPFileEntryParser;
  * interface. This is the implementation that will be used by
  * org.apache.commons.net.ftp.FTPClient.listFiles() if no other implementation
  * has been specified.
+ * <p>
+ * Creating a parser is cheap after the first time: what a key stands for is resolved once for all factories, and the parsers share their compiled
+ * expressions and date format templates, so clients created for every connection do not pay for them again.
+ * </p>
  *
  * @see org.apache.commons.net.ftp.FTPClient#listFiles
  * @see org.apache.commons.net.ftp.FTPClient#setParserFactory
@@ -42,6 +51,12 @@ public class DefaultFTPFileEntryParserFactory implements FTPFileEntryParserFacto
     // Create the pattern, as it will be reused many times
     private static final Pattern JAVA_QUALIFIED_NAME_PATTERN = Pattern.compile(JAVA_QUALIFIED_NAME);
 
+    /** The largest number of keys kept in {@link #CREATORS}. */
+    private static final int MAX_CREATORS = 256;
+
+    /** How to create the parser for a key, shared by all factories so that class names are looked up and aliases matched once. */
+    private static final ConcurrentMap<String, Function<FTPClientConfig, FTPFileEntryParser>> CREATORS = new ConcurrentHashMap<>();
+
     /**
      * <p>
      * Implementation extracts a key from the supplied {@link FTPClientConfig
@@ -120,11 +135,18 @@ public class DefaultFTPFileEntryParserFactory implements FTPFileEntryParserFacto
     }
 
     private FTPFileEntryParser createFileEntryParser(final String key, final FTPClientConfig config) {
-        FTPFileEntryParser parser = createParserFromClassName(key);
-
-        if (parser == null) {
-            parser = createParserFromAlias(key, config);
+        Function<FTPClientConfig, FTPFileEntryParser> creator = CREATORS.get(key);
+        if (creator == null) {
+            creator = resolveClassName(key);
+            if (creator == null) {
+                creator = resolveAlias(key);
+            }
+            // keys come from servers, so stop sharing rather than grow without limit
+            if (CREATORS.size() < MAX_CREATORS) {
+                CREATORS.putIfAbsent(key, creator);
+            }
         }
+        final FTPFileEntryParser parser = creator.apply(config);
 
         if (parser instanceof Configurable) {
             ((Configurable) parser).configure(config);
@@ -132,47 +154,53 @@ public class DefaultFTPFileEntryParserFactory implements FTPFileEntryParserFacto
         return parser;
     }
 
-    private FTPFileEntryParser createParserFromClassName(final String key) {
+    private static Function<FTPClientConfig, FTPFileEntryParser> resolveClassName(final String key) {
         if (JAVA_QUALIFIED_NAME_PATTERN.matcher(key).matches()) {
+            final Constructor<?> constructor;
             try {
-                Class<?> parserClass = Class.forName(key);
-                return (FTPFileEntryParser) parserClass.getDeclaredConstructor().newInstance();
-            } catch (ClassCastException e) {
-                throw new ParserInitializationException(
-                        e.getMessage() + " does not implement the interface " +
-                                "org.apache.commons.net.ftp.FTPFileEntryParser.",
-                        e);
+                constructor = Class.forName(key).getDeclaredConstructor();
             } catch (Exception e) {
                 throw new ParserInitializationException("Error initializing parser", e);
             }
+            return config -> {
+                try {
+                    return (FTPFileEntryParser) constructor.newInstance();
+                } catch (ClassCastException e) {
+                    throw new ParserInitializationException(
+                            e.getMessage() + " does not implement the interface " +
+                                    "org.apache.commons.net.ftp.FTPFileEntryParser.",
+                            e);
+                } catch (Exception e) {
+                    throw new ParserInitializationException("Error initializing parser", e);
+                }
+            };
         }
         return null;
     }
 
-    private FTPFileEntryParser createParserFromAlias(final String key, final FTPClientConfig config) {
-        String ukey = key.toUpperCase(java.util.Locale.ENGLISH);
+    private static Function<FTPClientConfig, FTPFileEntryParser> resolveAlias(final String key) {
+        final String ukey = key.toUpperCase(Locale.ENGLISH);
 
-        // Creazione del parser basato sull'alias
         if (ukey.contains(FTPClientConfig.SYST_UNIX_TRIM_LEADING)) {
-            return new UnixFTPEntryParser(config, true);
+            return config -> new UnixFTPEntryParser(config, true);
         } else if (ukey.contains(FTPClientConfig.SYST_UNIX)) {
-            return new UnixFTPEntryParser(config, false);
+            return config -> new UnixFTPEntryParser(config, false);
         } else if (ukey.contains(FTPClientConfig.SYST_VMS)) {
-            return new VMSVersioningFTPEntryParser(config);
+            return VMSVersioningFTPEntryParser::new;
         } else if (ukey.contains(FTPClientConfig.SYST_NT)) {
-            return createNTFTPEntryParser(config);
+            return DefaultFTPFileEntryParserFactory::createNTFTPEntryParser;
         } else if (ukey.contains(FTPClientConfig.SYST_OS2)) {
-            return new OS2FTPEntryParser(config);
+            return OS2FTPEntryParser::new;
         } else if (ukey.contains(FTPClientConfig.SYST_OS400) || ukey.contains(FTPClientConfig.SYST_AS400)) {
-            return createOS400FTPEntryParser(config);
+            return DefaultFTPFileEntryParserFactory::createOS400FTPEntryParser;
         } else if (ukey.contains(FTPClientConfig.SYST_MVS)) {
-            return new MVSFTPEntryParser(); // Does not currently support config parameter
+            return config -> new MVSFTPEntryParser(); // Does not currently support config parameter
         } else if (ukey.contains(FTPClientConfig.SYST_NETWARE)) {
-            return new NetwareFTPEntryParser(config);
+            return NetwareFTPEntryParser::new;
         } else if (ukey.contains(FTPClientConfig.SYST_MACOS_PETER)) {
-            return new MacOsPeterFTPEntryParser(config);
+            return MacOsPeterFTPEntryParser::new;
         } else if (ukey.contains(FTPClientConfig.SYST_L8)) {
-            return new UnixFTPEntryParser(config); // Last check for L8
+            return UnixFTPEntryParser::new; // Last check for L8
         }
 
         throw new ParserInitializationException("Unknown parser type: " + key);
@@ -200,7 +228,7 @@ public class DefaultFTPFileEntryParserFactory implements FTPFileEntryParserFacto
      * @param config the config to use, may be {@code null}
      * @return the parser
      */
-    private FTPFileEntryParser createNTFTPEntryParser(final FTPClientConfig config) {
+    private static FTPFileEntryParser createNTFTPEntryParser(final FTPClientConfig config) {
         if (config != null && FTPClientConfig.SYST_NT.equals(config.getServerSystemKey())) {
             return new NTFTPEntryParser(config);
         }
@@ -228,7 +256,7 @@ public class DefaultFTPFileEntryParserFactory implements FTPFileEntryParserFacto
      * @param config the config to use, may be {@code null}
      * @return the parser
      */
-    private FTPFileEntryParser createOS400FTPEntryParser(final FTPClientConfig config) {
+    private static FTPFileEntryParser createOS400FTPEntryParser(final FTPClientConfig config) {
         if (config != null && FTPClientConfig.SYST_OS400.equals(config.getServerSystemKey())) {
             return new OS400FTPEntryParser(config);
         }
@@ -17,13 +17,17 @@
 
 package org.apache.commons.net.ftp.parser;
 
-import java.text.DateFormatSymbols;
 import java.text.ParseException;
 import java.text.ParsePosition;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.net.ftp.Configurable;
 import org.apache.commons.net.ftp.FTPClientConfig;
@@ -46,6 +50,45 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
     private static final int[] CALENDAR_UNITS = { Calendar.MILLISECOND, Calendar.SECOND, Calendar.MINUTE, Calendar.HOUR_OF_DAY, Calendar.DAY_OF_MONTH,
             Calendar.MONTH, Calendar.YEAR };
 
+    /** The largest number of templates kept in {@link #DATE_FORMATS}. */
+    private static final int MAX_DATE_FORMATS = 256;
+
+    /**
+     * The date formats shared by all parsers, by pattern, month names and default locale. They are never used directly, only cloned, which is much cheaper
+     * than compiling the pattern and looking up the month names for every parser.
+     */
+    private static final ConcurrentMap<List<Object>, SimpleDateFormat> DATE_FORMATS = new ConcurrentHashMap<>();
+
+    /*
+     * Creates a non-lenient date format from a shared template. The month names are the short month names if not null, else those of the language code if
+     * not null, else those of the default locale.
+     */
+    private static SimpleDateFormat createDateFormat(final String format, final String shortMonths, final String languageCode) {
+        // the default locale also sets up the calendar and the number format
+        final List<Object> key = Arrays.asList(format, shortMonths, languageCode, Locale.getDefault());
+        SimpleDateFormat template = DATE_FORMATS.get(key);
+        if (template == null) {
+            if (shortMonths != null) {
+                template = new SimpleDateFormat(format, FTPClientConfig.getDateFormatSymbols(shortMonths));
+            } else if (languageCode != null) {
+                template = new SimpleDateFormat(format, FTPClientConfig.lookupDateFormatSymbols(languageCode));
+            } else {
+                template = new SimpleDateFormat(format);
+            }
+            template.setLenient(false);
+            if (DATE_FORMATS.size() < MAX_DATE_FORMATS) {
+                DATE_FORMATS.putIfAbsent(key, template);
+            }
+        }
+        final SimpleDateFormat dateFormat = (SimpleDateFormat) template.clone();
+        // the template keeps the default time zone and the two-digit year century of when it was built, a fresh format has the current ones
+        dateFormat.setTimeZone(TimeZone.getDefault());
+        final Calendar centuryStart = Calendar.getInstance();
+        centuryStart.add(Calendar.YEAR, -80);
+        dateFormat.set2DigitYearStart(centuryStart.getTime());
+        return dateFormat;
+    }
+
     /*
      * Return the index to the array representing the least significant unit found in the date format. Default is 0 (to avoid dropping precision)
      */
@@ -53,8 +96,14 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
         if (dateFormat == null) {
             return 0;
         }
+        return getEntry(dateFormat.toPattern());
+    }
+
+    /*
+     * Same as getEntry(SimpleDateFormat), for a pattern string. Package private for use by JavaTimeFTPTimestampParser.
+     */
+    static int getEntry(final String pattern) {
         final String FORMAT_CHARS = "SsmHdM";
-        final String pattern = dateFormat.toPattern();
         for (final char ch : FORMAT_CHARS.toCharArray()) {
             if (pattern.indexOf(ch) != -1) { // found the character
                 switch (ch) {
@@ -95,7 +144,7 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
      * Sets the Calendar precision (used by FTPFile#toFormattedDate) by clearing the immediately preceding unit (if any). Unfortunately the clear(int) method
      * results in setting all other units.
      */
-    private static void setPrecision(final int index, final Calendar working) {
+    static void setPrecision(final int index, final Calendar working) {
         if (index <= 0) { // e.g. MILLISECONDS
             return;
         }
@@ -122,14 +171,17 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
     /* The index in CALENDAR_UNITS of the smallest time unit in recentDateFormat */
     private int recentDateSmallestUnitIndex;
 
+    /* recentDateFormat with a trailing year, built on first use, see parseTimestamp(String, Calendar) */
+    private SimpleDateFormat recentDateWithYearFormat;
+
     private boolean lenientFutureDates;
 
     /**
      * The only constructor for this class.
      */
     public FTPTimestampParserImpl() {
-        setDefaultDateFormat(DEFAULT_SDF, null);
-        setRecentDateFormat(DEFAULT_RECENT_SDF, null);
+        setDefaultDateFormat(DEFAULT_SDF, null, null);
+        setRecentDateFormat(DEFAULT_RECENT_SDF, null, null);
     }
 
     /**
@@ -152,26 +204,20 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
      */
     @Override
     public void configure(final FTPClientConfig config) {
-        DateFormatSymbols dfs;
-
-        final String languageCode = config.getServerLanguageCode();
         final String shortmonths = config.getShortMonthNames();
-        if (shortmonths != null) {
-            dfs = FTPClientConfig.getDateFormatSymbols(shortmonths);
-        } else if (languageCode != null) {
-            dfs = FTPClientConfig.lookupDateFormatSymbols(languageCode);
-        } else {
-            dfs = FTPClientConfig.lookupDateFormatSymbols("en");
+        String languageCode = config.getServerLanguageCode();
+        if (shortmonths == null && languageCode == null) {
+            languageCode = "en";
         }
 
         final String recentFormatString = config.getRecentDateFormatStr();
-        setRecentDateFormat(recentFormatString, dfs);
+        setRecentDateFormat(recentFormatString, shortmonths, languageCode);
 
         final String defaultFormatString = config.getDefaultDateFormatStr();
         if (defaultFormatString == null) {
             throw new IllegalArgumentException("defaultFormatString cannot be null");
         }
-        setDefaultDateFormat(defaultFormatString, dfs);
+        setDefaultDateFormat(defaultFormatString, shortmonths, languageCode);
 
         setServerTimeZone(config.getServerTimeZoneId());
 
@@ -284,9 +330,7 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
             // e.g. if today is Jan 1 2001 and the short date is Feb 29
             final String year = Integer.toString(now.get(Calendar.YEAR));
             final String timeStampStrPlusYear = timestampStr + " " + year;
-            final SimpleDateFormat hackFormatter = new SimpleDateFormat(recentDateFormat.toPattern() + " yyyy", recentDateFormat.getDateFormatSymbols());
-            hackFormatter.setLenient(false);
-            hackFormatter.setTimeZone(recentDateFormat.getTimeZone());
+            final SimpleDateFormat hackFormatter = getRecentDateWithYearFormat();
             final ParsePosition pp = new ParsePosition(0);
             parsed = hackFormatter.parse(timeStampStrPlusYear, pp);
             // Check if we parsed the full string, if so it must have been a short date originally
@@ -322,17 +366,19 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
      * @param format The defaultDateFormat to be set.
      * @param dfs    the symbols to use (may be null)
      */
-    private void setDefaultDateFormat(final String format, final DateFormatSymbols dfs) {
-        if (format != null) {
-            if (dfs != null) {
-                defaultDateFormat = new SimpleDateFormat(format, dfs);
-            } else {
-                defaultDateFormat = new SimpleDateFormat(format);
-            }
-            defaultDateFormat.setLenient(false);
-        } else {
-            defaultDateFormat = null;
+    private SimpleDateFormat getRecentDateWithYearFormat() {
+        // Building a SimpleDateFormat is costly, so keep it as long as the recent format and its time zone are unchanged
+        if (recentDateWithYearFormat == null || recentDateWithYearFormat.getTimeZone() != recentDateFormat.getTimeZone()) {
+            final SimpleDateFormat hackFormatter = new SimpleDateFormat(recentDateFormat.toPattern() + " yyyy", recentDateFormat.getDateFormatSymbols());
+            hackFormatter.setLenient(false);
+            hackFormatter.setTimeZone(recentDateFormat.getTimeZone());
+            recentDateWithYearFormat = hackFormatter;
         }
+        return recentDateWithYearFormat;
+    }
+
+    private void setDefaultDateFormat(final String format, final String shortMonths, final String languageCode) {
+        defaultDateFormat = format != null ? createDateFormat(format, shortMonths, languageCode) : null;
         defaultDateSmallestUnitIndex = getEntry(defaultDateFormat);
     }
 
@@ -344,20 +390,13 @@ public class FTPTimestampParserImpl implements FTPTimestampParser, Configurable
     }
 
     /**
-     * @param format The recentDateFormat to set.
-     * @param dfs    the symbols to use (may be null)
+     * @param format       The recentDateFormat to set.
+     * @param shortMonths  the short month names to use (may be null)
+     * @param languageCode the language of the month names to use if there are no short month names (may be null for the default locale)
      */
-    private void setRecentDateFormat(final String format, final DateFormatSymbols dfs) {
-        if (format != null) {
-            if (dfs != null) {
-                recentDateFormat = new SimpleDateFormat(format, dfs);
-            } else {
-                recentDateFormat = new SimpleDateFormat(format);
-            }
-            recentDateFormat.setLenient(false);
-        } else {
-            recentDateFormat = null;
-        }
+    private void setRecentDateFormat(final String format, final String shortMonths, final String languageCode) {
+        recentDateWithYearFormat = null;
+        recentDateFormat = format != null ? createDateFormat(format, shortMonths, languageCode) : null;
         recentDateSmallestUnitIndex = getEntry(recentDateFormat);
     }
 
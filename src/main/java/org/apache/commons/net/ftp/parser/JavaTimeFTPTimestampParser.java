@@ -0,0 +1,437 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp.parser;
+
+import java.text.DateFormatSymbols;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.SignStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.net.ftp.Configurable;
+import org.apache.commons.net.ftp.FTPClientConfig;
+
+/**
+ * An {@link FTPTimestampParser} backed by immutable {@link DateTimeFormatter}s, which may be shared between threads.
+ * <p>
+ * It is configured like {@link FTPTimestampParserImpl}, from the {@link java.text.SimpleDateFormat}-style patterns, month names and server time zone of an
+ * {@link FTPClientConfig}, and keeps its semantics: recent dates are parsed with the current year appended and moved back one year when they would be in the
+ * future, dates in the future by less than a day are allowed if {@link FTPClientConfig#isLenientFutureDates() lenientFutureDates} is set, and the precision
+ * of the returned Calendar is reduced to the smallest unit of the pattern. Recently parsed strings are kept in a small cache, since listings repeat the same
+ * dates heavily.
+ * </p>
+ * <p>
+ * Only the pattern letters {@code y M d H k h K m s S a} are supported; {@link #configure(FTPClientConfig)} throws an {@link IllegalArgumentException} for
+ * any other letter. {@link ConfigurableFTPFileEntryParserImpl} uses this parser when {@link FTPClientConfig#isJavaTimeTimestampParsing()} is set, and falls
+ * back to {@link FTPTimestampParserImpl} for patterns it does not support.
+ * </p>
+ *
+ * @see java.text.SimpleDateFormat
+ * @since 3.12.0
+ */
+public class JavaTimeFTPTimestampParser implements FTPTimestampParser, Configurable {
+
+    /**
+     * A parsed timestamp, keyed in the cache by the timestamp string.
+     */
+    private static final class Parsed {
+
+        /** The year appended to recent dates when this was parsed. */
+        private final int year;
+        private final boolean recent;
+        private final long millis;
+
+        Parsed(final int year, final boolean recent, final long millis) {
+            this.year = year;
+            this.recent = recent;
+            this.millis = millis;
+        }
+    }
+
+    /**
+     * A compiled pattern.
+     */
+    private static final class Pattern {
+
+        private final DateTimeFormatter formatter;
+        private final boolean textMonth;
+        private final int smallestUnitIndex;
+
+        Pattern(final DateTimeFormatter formatter, final boolean textMonth, final int smallestUnitIndex) {
+            this.formatter = formatter;
+            this.textMonth = textMonth;
+            this.smallestUnitIndex = smallestUnitIndex;
+        }
+    }
+
+    /**
+     * Everything set up by {@link #configure(FTPClientConfig)}, replaced as a whole so that concurrent parsers see a consistent state.
+     */
+    private static final class Settings {
+
+        private final Pattern defaultPattern;
+        private final Pattern recentPattern;
+        private final TimeZone timeZone;
+        private final ZoneId zoneId;
+        private final boolean lenientFutureDates;
+        /** Cleared when full rather than evicted in order, so that lookups take no lock. */
+        private final ConcurrentMap<String, Parsed> cache = new ConcurrentHashMap<>();
+
+        Settings(final Pattern defaultPattern, final Pattern recentPattern, final TimeZone timeZone, final boolean lenientFutureDates) {
+            this.defaultPattern = defaultPattern;
+            this.recentPattern = recentPattern;
+            this.timeZone = timeZone;
+            this.zoneId = timeZone.toZoneId();
+            this.lenientFutureDates = lenientFutureDates;
+        }
+    }
+
+    /** The number of timestamp strings kept in the cache. */
+    private static final int CACHE_SIZE = 256;
+
+    /** The largest number of compiled patterns kept in {@link #PATTERNS}. */
+    private static final int MAX_PATTERNS = 256;
+
+    /** The compiled patterns shared by all parsers, by pattern, month names and base year; they are immutable. */
+    private static final ConcurrentMap<List<Object>, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private static final String SUPPORTED_LETTERS = "yMdHkhKmsSa";
+
+    private static void appendNumber(final DateTimeFormatterBuilder builder, final ChronoField field, final int count, final boolean adjacent,
+            final int baseYear) {
+        if (field == ChronoField.YEAR && count == 2) {
+            // two digit years are placed in the century starting 80 years ago, like SimpleDateFormat does
+            builder.appendValueReduced(field, 2, adjacent ? 2 : 9, baseYear);
+        } else if (adjacent) {
+            // SimpleDateFormat obeys the letter count when the next field is numeric too
+            builder.appendValue(field, count);
+        } else {
+            builder.appendValue(field, 1, 10, SignStyle.NOT_NEGATIVE);
+        }
+    }
+
+    private static void appendText(final DateTimeFormatterBuilder builder, final ChronoField field, final String[] names, final int offset) {
+        final Map<Long, String> map = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            if (names[i] != null && !names[i].isEmpty()) {
+                map.put(Long.valueOf(i + offset), names[i]);
+            }
+        }
+        builder.parseCaseInsensitive().appendText(field, map).parseCaseSensitive();
+    }
+
+    /**
+     * Translates a SimpleDateFormat pattern.
+     */
+    private static Pattern compile(final String pattern, final DateFormatSymbols symbols, final int baseYear) {
+        final DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+        boolean textMonth = false;
+        int i = 0;
+        final int length = pattern.length();
+        while (i < length) {
+            final char c = pattern.charAt(i);
+            if (c == '\'') {
+                final int end = pattern.indexOf('\'', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unterminated quote in pattern: " + pattern);
+                }
+                builder.appendLiteral(end == i + 1 ? "'" : pattern.substring(i + 1, end).replace("''", "'"));
+                i = end + 1;
+            } else if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+                if (SUPPORTED_LETTERS.indexOf(c) < 0) {
+                    throw new IllegalArgumentException("Unsupported pattern letter '" + c + "' in pattern: " + pattern);
+                }
+                int end = i + 1;
+                while (end < length && pattern.charAt(end) == c) {
+                    end++;
+                }
+                final int count = end - i;
+                final boolean adjacent = end < length && isNumeric(pattern, end);
+                switch (c) {
+                case 'y':
+                    appendNumber(builder, ChronoField.YEAR, count, adjacent, baseYear);
+                    break;
+                case 'M':
+                    if (count >= 3) {
+                        // like SimpleDateFormat, accept both the long and the short names
+                        textMonth = true;
+                        builder.optionalStart();
+                        appendText(builder, ChronoField.MONTH_OF_YEAR, symbols.getMonths(), 1);
+                        builder.optionalEnd().optionalStart();
+                        appendText(builder, ChronoField.MONTH_OF_YEAR, symbols.getShortMonths(), 1);
+                        builder.optionalEnd();
+                    } else {
+                        appendNumber(builder, ChronoField.MONTH_OF_YEAR, count, adjacent, baseYear);
+                    }
+                    break;
+                case 'd':
+                    appendNumber(builder, ChronoField.DAY_OF_MONTH, count, adjacent, baseYear);
+                    break;
+                case 'H':
+                    appendNumber(builder, ChronoField.HOUR_OF_DAY, count, adjacent, baseYear);
+                    break;
+                case 'k':
+                    appendNumber(builder, ChronoField.CLOCK_HOUR_OF_DAY, count, adjacent, baseYear);
+                    break;
+                case 'h':
+                    appendNumber(builder, ChronoField.CLOCK_HOUR_OF_AMPM, count, adjacent, baseYear);
+                    break;
+                case 'K':
+                    appendNumber(builder, ChronoField.HOUR_OF_AMPM, count, adjacent, baseYear);
+                    break;
+                case 'm':
+                    appendNumber(builder, ChronoField.MINUTE_OF_HOUR, count, adjacent, baseYear);
+                    break;
+                case 's':
+                    appendNumber(builder, ChronoField.SECOND_OF_MINUTE, count, adjacent, baseYear);
+                    break;
+                case 'S':
+                    appendNumber(builder, ChronoField.MILLI_OF_SECOND, count, adjacent, baseYear);
+                    break;
+                default: // 'a'
+                    appendText(builder, ChronoField.AMPM_OF_DAY, symbols.getAmPmStrings(), 0);
+                    break;
+                }
+                i = end;
+            } else {
+                builder.appendLiteral(c);
+                i++;
+            }
+        }
+        return new Pattern(builder.toFormatter(Locale.US), textMonth, FTPTimestampParserImpl.getEntry(pattern));
+    }
+
+    private static boolean isNumeric(final String pattern, final int index) {
+        final char c = pattern.charAt(index);
+        return "yMdHkhKmsS".indexOf(c) >= 0 && (c != 'M' || index + 2 >= pattern.length() || pattern.charAt(index + 1) != 'M'
+                || pattern.charAt(index + 2) != 'M');
+    }
+
+    private static long get(final TemporalAccessor parsed, final ChronoField field, final long defaultValue) {
+        return parsed.isSupported(field) ? parsed.getLong(field) : defaultValue;
+    }
+
+    /**
+     * Gets a compiled pattern, compiling it once for all parsers.
+     */
+    private static Pattern getPattern(final String pattern, final FTPClientConfig config, final int baseYear) {
+        final List<Object> key = Arrays.asList(pattern, config.getShortMonthNames(), config.getServerLanguageCode(), baseYear);
+        Pattern compiled = PATTERNS.get(key);
+        if (compiled == null) {
+            final DateFormatSymbols symbols;
+            if (config.getShortMonthNames() != null) {
+                symbols = FTPClientConfig.getDateFormatSymbols(config.getShortMonthNames());
+            } else if (config.getServerLanguageCode() != null) {
+                symbols = FTPClientConfig.lookupDateFormatSymbols(config.getServerLanguageCode());
+            } else {
+                symbols = FTPClientConfig.lookupDateFormatSymbols("en");
+            }
+            compiled = compile(pattern, symbols, baseYear);
+            if (PATTERNS.size() < MAX_PATTERNS) {
+                PATTERNS.putIfAbsent(key, compiled);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Like SimpleDateFormat, whitespace before a field is skipped: leading whitespace is dropped and any run of spaces and tabs is reduced to its first
+     * character, which must then match the literal of the pattern.
+     */
+    private static String normalize(final String text) {
+        final int length = text.length();
+        StringBuilder sb = null;
+        for (int i = 0; i < length; i++) {
+            final char c = text.charAt(i);
+            if (isBlank(c) && (i == 0 || isBlank(text.charAt(i - 1)))) {
+                if (sb == null) {
+                    sb = new StringBuilder(length).append(text, 0, i);
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
+    private static boolean isBlank(final char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /**
+     * Resolves the parsed fields in the given zone, returning {@link Long#MIN_VALUE} if they do not form a valid local time in that zone.
+     */
+    private static long resolve(final TemporalAccessor parsed, final Pattern pattern, final ZoneId zoneId) {
+        if (pattern.textMonth && !parsed.isSupported(ChronoField.MONTH_OF_YEAR)) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            final long ampm = get(parsed, ChronoField.AMPM_OF_DAY, 0);
+            long hour;
+            if (parsed.isSupported(ChronoField.HOUR_OF_DAY)) {
+                hour = parsed.getLong(ChronoField.HOUR_OF_DAY);
+            } else if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_DAY)) {
+                // SimpleDateFormat reads 24 as 0, and accepts 0 as well
+                hour = parsed.getLong(ChronoField.CLOCK_HOUR_OF_DAY) % 24;
+            } else if (parsed.isSupported(ChronoField.CLOCK_HOUR_OF_AMPM)) {
+                hour = ChronoField.HOUR_OF_AMPM.checkValidValue(parsed.getLong(ChronoField.CLOCK_HOUR_OF_AMPM) % 12) + ampm * 12;
+            } else if (parsed.isSupported(ChronoField.HOUR_OF_AMPM)) {
+                hour = ChronoField.HOUR_OF_AMPM.checkValidValue(parsed.getLong(ChronoField.HOUR_OF_AMPM)) + ampm * 12;
+            } else {
+                hour = 0;
+            }
+            final LocalDateTime local = LocalDateTime.of(ChronoField.YEAR.checkValidIntValue(get(parsed, ChronoField.YEAR, 1970)),
+                    ChronoField.MONTH_OF_YEAR.checkValidIntValue(get(parsed, ChronoField.MONTH_OF_YEAR, 1)),
+                    ChronoField.DAY_OF_MONTH.checkValidIntValue(get(parsed, ChronoField.DAY_OF_MONTH, 1)), ChronoField.HOUR_OF_DAY.checkValidIntValue(hour),
+                    ChronoField.MINUTE_OF_HOUR.checkValidIntValue(get(parsed, ChronoField.MINUTE_OF_HOUR, 0)),
+                    ChronoField.SECOND_OF_MINUTE.checkValidIntValue(get(parsed, ChronoField.SECOND_OF_MINUTE, 0)),
+                    ChronoField.MILLI_OF_SECOND.checkValidIntValue(get(parsed, ChronoField.MILLI_OF_SECOND, 0)) * 1_000_000);
+            // like a non-lenient Calendar: reject times skipped by a DST change, and use standard time when they repeat
+            final ZonedDateTime zoned = local.atZone(zoneId).withLaterOffsetAtOverlap();
+            if (!zoned.toLocalDateTime().equals(local)) {
+                return Long.MIN_VALUE;
+            }
+            return zoned.toInstant().toEpochMilli();
+        } catch (final DateTimeException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    private volatile Settings settings;
+
+    /**
+     * Creates a parser using {@link FTPTimestampParser#DEFAULT_SDF} and {@link FTPTimestampParser#DEFAULT_RECENT_SDF} in the local time zone.
+     */
+    public JavaTimeFTPTimestampParser() {
+        configure(new FTPClientConfig(FTPClientConfig.SYST_UNIX, DEFAULT_SDF, DEFAULT_RECENT_SDF));
+    }
+
+    /**
+     * Configures this parser from the date formats, month names, server time zone and lenient future dates setting of the given configuration.
+     *
+     * @param config the configuration, must not be null.
+     * @throws IllegalArgumentException if the default date format is null or a format uses a pattern letter which is not supported.
+     */
+    @Override
+    public void configure(final FTPClientConfig config) {
+        if (config.getDefaultDateFormatStr() == null) {
+            throw new IllegalArgumentException("defaultFormatString cannot be null");
+        }
+        final TimeZone timeZone = config.getServerTimeZoneId() != null ? TimeZone.getTimeZone(config.getServerTimeZoneId()) : TimeZone.getDefault();
+        final int baseYear = LocalDateTime.now(timeZone.toZoneId()).getYear() - 80;
+        final Pattern defaultPattern = getPattern(config.getDefaultDateFormatStr(), config, baseYear);
+        final Pattern recentPattern = config.getRecentDateFormatStr() == null ? null : getPattern(config.getRecentDateFormatStr() + " yyyy", config, baseYear);
+        settings = new Settings(defaultPattern, recentPattern, timeZone, config.isLenientFutureDates());
+    }
+
+    /**
+     * Gets the server time zone.
+     *
+     * @return the server time zone.
+     */
+    public TimeZone getServerTimeZone() {
+        return (TimeZone) settings.timeZone.clone();
+    }
+
+    private Parsed parse(final Settings current, final String timestampStr, final int year) {
+        final String text = normalize(timestampStr);
+        if (current.recentPattern != null) {
+            final String textPlusYear = text + " " + year;
+            final ParsePosition pp = new ParsePosition(0);
+            final TemporalAccessor parsed = current.recentPattern.formatter.parseUnresolved(textPlusYear, pp);
+            if (parsed != null && pp.getErrorIndex() < 0 && pp.getIndex() == textPlusYear.length()) {
+                final long millis = resolve(parsed, current.recentPattern, current.zoneId);
+                if (millis != Long.MIN_VALUE) {
+                    return new Parsed(year, true, millis);
+                }
+            }
+        }
+        final ParsePosition pp = new ParsePosition(0);
+        final TemporalAccessor parsed = current.defaultPattern.formatter.parseUnresolved(text, pp);
+        if (parsed != null && pp.getErrorIndex() < 0 && pp.getIndex() == text.length()) {
+            final long millis = resolve(parsed, current.defaultPattern, current.zoneId);
+            if (millis != Long.MIN_VALUE) {
+                return new Parsed(year, false, millis);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Calendar parseTimestamp(final String timestampStr) throws ParseException {
+        return parseTimestamp(timestampStr, Calendar.getInstance());
+    }
+
+    /**
+     * Parses the timestamp relative to the given server time, see {@link FTPTimestampParserImpl#parseTimestamp(String, Calendar)}.
+     *
+     * @param timestampStr the timestamp string to parse.
+     * @param serverTime   the current time on the server, used to place recent dates in the right year.
+     * @return a new Calendar in the server time zone.
+     * @throws ParseException if the timestamp cannot be parsed.
+     */
+    public Calendar parseTimestamp(final String timestampStr, final Calendar serverTime) throws ParseException {
+        final Settings current = settings;
+        long now = serverTime.getTimeInMillis();
+        int year = current.recentPattern == null ? 0 : ZonedDateTime.ofInstant(serverTime.toInstant(), current.zoneId).getYear();
+        if (current.recentPattern != null && current.lenientFutureDates) {
+            // add a day to "now" so that "slop" doesn't cause a date slightly in the future to roll back a full year. (Bug 35181 => NET-83)
+            final ZonedDateTime tomorrow = ZonedDateTime.ofInstant(serverTime.toInstant(), current.zoneId).plusDays(1);
+            now = tomorrow.toInstant().toEpochMilli();
+            year = tomorrow.getYear();
+        }
+        Parsed parsed = current.cache.get(timestampStr);
+        if (parsed == null || parsed.year != year) {
+            parsed = parse(current, timestampStr, year);
+            if (parsed == null) {
+                throw new ParseException("Timestamp '" + timestampStr + "' could not be parsed using a server time of " + serverTime.getTime().toString(), 0);
+            }
+            if (current.cache.size() >= CACHE_SIZE) {
+                current.cache.clear();
+            }
+            current.cache.put(timestampStr, parsed);
+        }
+        final Calendar working = (Calendar) serverTime.clone();
+        working.setTimeZone(current.timeZone);
+        working.setTimeInMillis(parsed.millis);
+        if (parsed.recent) {
+            if (parsed.millis > now) { // must have been last year instead
+                working.add(Calendar.YEAR, -1);
+            }
+            FTPTimestampParserImpl.setPrecision(current.recentPattern.smallestUnitIndex, working);
+        } else {
+            FTPTimestampParserImpl.setPrecision(current.defaultPattern.smallestUnitIndex, working);
+        }
+        return working;
+    }
+}
@@ -84,6 +84,31 @@ public class MLSxEntryParser extends FTPFileEntryParserImpl {
             /* 6 */ { FTPFile.READ_PERMISSION, FTPFile.WRITE_PERMISSION },
             /* 7 */ { FTPFile.READ_PERMISSION, FTPFile.WRITE_PERMISSION, FTPFile.EXECUTE_PERMISSION }, };
 
+    /**
+     * Gets the value of a fact from an MLSD or MLST entry, for facts which {@link FTPFile} does not hold, such as {@code unique}.
+     *
+     * @param entry the entry, for example from {@link FTPFile#getRawListing()}.
+     * @param fact  the name of the fact, not case-sensitive.
+     * @return the value of the fact, or {@code null} if the entry does not have it.
+     * @since 3.12.0
+     */
+    public static String getFact(final String entry, final String fact) {
+        if (entry == null || entry.startsWith(" ")) {
+            return null;
+        }
+        final int space = entry.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        for (final String pair : entry.substring(0, space).split(";")) {
+            final int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equalsIgnoreCase(fact)) {
+                return pair.substring(equals + 1);
+            }
+        }
+        return null;
+    }
+
     public static MLSxEntryParser getInstance() {
         return INSTANCE;
     }
@@ -17,6 +17,10 @@
 
 package org.apache.commons.net.ftp.parser;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -31,6 +35,16 @@ import org.apache.commons.net.ftp.FTPFileEntryParserImpl;
  * This is the base class for all regular expression based FTPFileEntryParser classes
  */
 public abstract class RegexFTPFileEntryParserImpl extends FTPFileEntryParserImpl {
+
+    /** The largest number of compiled expressions kept in {@link #PATTERNS}. */
+    private static final int MAX_PATTERNS = 256;
+
+    /**
+     * The compiled expressions shared by all parsers, by expression and flags. A {@link Pattern} is immutable, so parsers created on every connection need not
+     * compile their expression again.
+     */
+    private static final ConcurrentMap<List<Object>, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
     /**
      * internal pattern the matcher tries to match, representing a file entry
      */
@@ -85,8 +99,16 @@ public abstract class RegexFTPFileEntryParserImpl extends FTPFileEntryParserImpl
      * @throws IllegalArgumentException if the regex cannot be compiled
      */
     private void compileRegex(final String regex, final int flags) {
+        final List<Object> key = Arrays.asList(regex, flags);
         try {
-            pattern = Pattern.compile(regex, flags);
+            pattern = PATTERNS.get(key);
+            if (pattern == null) {
+                pattern = Pattern.compile(regex, flags);
+                // expressions set by callers could be unbounded, so stop sharing rather than grow without limit
+                if (PATTERNS.size() < MAX_PATTERNS) {
+                    PATTERNS.putIfAbsent(key, pattern);
+                }
+            }
         } catch (final PatternSyntaxException pse) {
             throw new IllegalArgumentException("Unparseable regex supplied: " + regex);
         }
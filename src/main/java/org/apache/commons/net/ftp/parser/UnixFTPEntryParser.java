@@ -42,9 +42,9 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
     static final String NUMERIC_DATE_FORMAT = "yyyy-MM-dd HH:mm"; // 2001-11-09 20:06
 
     // Suffixes used in Japanese listings after the numeric values
-    private static final String JA_MONTH = "\u6708";
-    private static final String JA_DAY = "\u65e5";
-    private static final String JA_YEAR = "\u5e74";
+    static final String JA_MONTH = "\u6708";
+    static final String JA_DAY = "\u65e5";
+    static final String JA_YEAR = "\u5e74";
 
     private static final String DEFAULT_DATE_FORMAT_JA = "M'" + JA_MONTH + "' d'" + JA_DAY + "' yyyy'" + JA_YEAR + "'"; // 6月 3
                                                                                                                         //  200
@@ -128,6 +128,12 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
     // this was the case for the original implementation
     final boolean trimLeadingSpaces; // package protected for access from test code
 
+    // non-null if the regex free fast path is enabled by the configuration
+    private UnixFTPEntryTokenizer tokenizer;
+
+    // created on first use, Japanese dates use their own fixed formats
+    private FTPTimestampParserImpl jaTimestampParser;
+
     /**
      * The default constructor for a UnixFTPEntryParser object.
      *
@@ -181,6 +187,20 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
         this.trimLeadingSpaces = trimLeadingSpaces;
     }
 
+    /**
+     * Configures the timestamp parser and, if
+     * {@link FTPClientConfig#isFastListParsing()} is set, enables the single pass
+     * tokenizer which is tried before the regular expression.
+     *
+     * @param config The configuration, may be null.
+     * @since 3.12.0
+     */
+    @Override
+    public void configure(final FTPClientConfig config) {
+        super.configure(config);
+        tokenizer = config != null && config.isFastListParsing() ? new UnixFTPEntryTokenizer() : null;
+    }
+
     /**
      * Defines a default configuration to be used when this class is instantiated
      * without a {@link FTPClientConfig FTPClientConfig} parameter being specified.
@@ -207,30 +227,33 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
         final FTPFile file = new FTPFile();
         file.setRawListing(entry);
 
+        if (tokenizer != null && tokenizer.tokenize(entry)) {
+            initializeFile(file, tokenizer.type, tokenizer.permissions, tokenizer.hardLinkCount, tokenizer.user,
+                    tokenizer.group, tokenizer.size, tokenizer.date, tokenizer.time, tokenizer.name);
+            return file;
+        }
+
         if (!matches(entry)) {
             return null; // Exit early if the entry does not match the regex
         }
 
-        initializeFileFromEntry(file);
+        initializeFile(file, group(1), group(2), group(15), group(16), group(17), group(18), group(19), group(20),
+                group(21));
         return file;
     }
 
-    private void initializeFileFromEntry(FTPFile file) {
-        final String typeStr = group(1);
-        final String hardLinkCount = group(15);
-        final String usr = group(16);
-        final String grp = group(17);
-        final String filesize = group(18);
-        final String datestr = group(19) + " " + group(20);
-        String name = group(21);
+    private void initializeFile(final FTPFile file, final String typeStr, final String permissions,
+            final String hardLinkCount, final String usr, final String grp, final String filesize, final String date,
+            final String time, final String rest) {
+        String name = rest;
 
         if (trimLeadingSpaces) {
             name = name.replaceFirst("^\\s+", "");
         }
 
-        parseTimestamp(file, datestr);
+        parseTimestamp(file, date, date + " " + time);
         setFileType(file, typeStr);
-        setFilePermissions(file);
+        setFilePermissions(file, permissions);
 
         if (!isDeviceType(typeStr.charAt(0))) {
             setHardLinkCount(file, hardLinkCount);
@@ -242,13 +265,15 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
         setFileNameAndLink(file, name, typeStr);
     }
 
-    private void parseTimestamp(FTPFile file, String datestr) {
+    private void parseTimestamp(FTPFile file, String date, String datestr) {
         try {
-            if (group(19).contains(JA_MONTH)) {
-                final FTPTimestampParserImpl jaParser = new FTPTimestampParserImpl();
-                jaParser.configure(new FTPClientConfig(FTPClientConfig.SYST_UNIX, DEFAULT_DATE_FORMAT_JA,
-                        DEFAULT_RECENT_DATE_FORMAT_JA));
-                file.setTimestamp(jaParser.parseTimestamp(datestr));
+            if (date.contains(JA_MONTH)) {
+                if (jaTimestampParser == null) {
+                    jaTimestampParser = new FTPTimestampParserImpl();
+                    jaTimestampParser.configure(new FTPClientConfig(FTPClientConfig.SYST_UNIX, DEFAULT_DATE_FORMAT_JA,
+                            DEFAULT_RECENT_DATE_FORMAT_JA));
+                }
+                file.setTimestamp(jaTimestampParser.parseTimestamp(datestr));
             } else {
                 file.setTimestamp(super.parseTimestamp(datestr));
             }
@@ -281,16 +306,15 @@ public class UnixFTPEntryParser extends ConfigurableFTPFileEntryParserImpl {
         file.setType(type);
     }
 
-    private void setFilePermissions(FTPFile file) {
-        int g = 4;
-        for (int access = 0; access < 3; access++, g += 4) {
+    private void setFilePermissions(FTPFile file, String permissions) {
+        for (int access = 0, p = 0; access < 3; access++, p += 3) {
             // Use != '-' to avoid having to check for suid and sticky bits
-            file.setPermission(access, FTPFile.READ_PERMISSION, !group(g).equals("-"));
-            file.setPermission(access, FTPFile.WRITE_PERMISSION, !group(g + 1).equals("-"));
+            file.setPermission(access, FTPFile.READ_PERMISSION, permissions.charAt(p) != '-');
+            file.setPermission(access, FTPFile.WRITE_PERMISSION, permissions.charAt(p + 1) != '-');
 
-            final String execPerm = group(g + 2);
+            final char execPerm = permissions.charAt(p + 2);
             file.setPermission(access, FTPFile.EXECUTE_PERMISSION,
-                    !execPerm.equals("-") && !Character.isUpperCase(execPerm.charAt(0)));
+                    execPerm != '-' && !Character.isUpperCase(execPerm));
         }
     }
 
@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp.parser;
+
+import java.util.Arrays;
+
+/**
+ * Single pass tokenizer for {@code ls -l} style lines, used by {@link UnixFTPEntryParser} instead of its regular expression.
+ * <p>
+ * The tokenizer splits the line on whitespace once and then tries the owner, group, size, date and time columns in the same order as the backtracking
+ * regular expression does, so a successful tokenization yields exactly the groups the expression would have captured. Lines which contain characters the
+ * tokenizer does not model (line terminators and surrogate pairs) are rejected, and the caller falls back to the regular expression.
+ * </p>
+ * <p>
+ * Instances keep their state between calls and are not thread-safe.
+ * </p>
+ */
+final class UnixFTPEntryTokenizer {
+
+    private static final String TYPES = "bcdelfmpSs-";
+
+    private static final String EXECUTE = "xsStTL-";
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /** Same as the regular expression class {@code \s}. */
+    private static boolean isSpace(final char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private String entry;
+    private int[] tokenStart = new int[16];
+    private int[] tokenEnd = new int[16];
+    private int tokenCount;
+
+    private int sizeToken;
+    private int sizeEnd;
+    private int dateStart;
+    private int dateEnd;
+    private int timeToken;
+
+    /** The file type, group 1 of the regular expression. */
+    String type;
+
+    /** The nine permission characters, group 2 of the regular expression. */
+    String permissions;
+
+    /** The hard link count, group 15 of the regular expression. */
+    String hardLinkCount;
+
+    /** The owner, may be null, group 16 of the regular expression. */
+    String user;
+
+    /** The group, may be null, group 17 of the regular expression. */
+    String group;
+
+    /** The size or device numbers, group 18 of the regular expression. */
+    String size;
+
+    /** The date, group 19 of the regular expression. */
+    String date;
+
+    /** The year or time, group 20 of the regular expression. */
+    String time;
+
+    /** The rest of the line, group 21 of the regular expression. */
+    String name;
+
+    private boolean allDigits(final int token) {
+        return digits(tokenStart[token], tokenEnd[token]) == tokenEnd[token];
+    }
+
+    /**
+     * Returns the end of the run of digits starting at {@code from}, or {@code from} if there is none.
+     */
+    private int digits(final int from, final int to) {
+        int i = from;
+        while (i < to && isDigit(entry.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private boolean isDayOrMonth(final int token, final char suffix) {
+        final int start = tokenStart[token];
+        final int length = tokenEnd[token] - start;
+        if (suffix != 0) {
+            return (length == 2 || length == 3) && entry.charAt(tokenEnd[token] - 1) == suffix && digits(start, tokenEnd[token] - 1) == tokenEnd[token] - 1;
+        }
+        return (length == 1 || length == 2) && allDigits(token);
+    }
+
+    private boolean length(final int token, final int length) {
+        return tokenEnd[token] - tokenStart[token] == length;
+    }
+
+    private boolean matchDate(final int token) {
+        if (token >= tokenCount) {
+            return false;
+        }
+        if (isNumericDate(token) && matchTime(token + 1)) {
+            dateStart = tokenStart[token];
+            dateEnd = tokenEnd[token];
+            return true;
+        }
+        if (token + 1 >= tokenCount) {
+            return false;
+        }
+        if (length(token, 3) && isDayOrMonth(token + 1, (char) 0) // MMM [d]d
+                || isDayOrMonth(token, (char) 0) && length(token + 1, 3) // [d]d MMM
+                || isDayOrMonth(token, UnixFTPEntryParser.JA_MONTH.charAt(0)) && isDayOrMonth(token + 1, UnixFTPEntryParser.JA_DAY.charAt(0))) {
+            if (matchTime(token + 2)) {
+                dateStart = tokenStart[token];
+                dateEnd = tokenEnd[token + 1];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Matches size, date and time starting at the given token.
+     */
+    private boolean matchTail(final int token) {
+        if (token >= tokenCount) {
+            return false;
+        }
+        final int start = tokenStart[token];
+        final int end = tokenEnd[token];
+        int i = digits(start, end);
+        if (i == start) {
+            return false;
+        }
+        int next = token + 1;
+        if (i < end) {
+            // n,m device numbers, possibly split over two tokens
+            if (entry.charAt(i) != ',') {
+                return false;
+            }
+            i++;
+            if (i == end) {
+                if (next >= tokenCount || !allDigits(next)) {
+                    return false;
+                }
+                sizeEnd = tokenEnd[next];
+                next++;
+            } else {
+                if (digits(i, end) != end) {
+                    return false;
+                }
+                sizeEnd = end;
+            }
+        } else {
+            sizeEnd = end;
+        }
+        return matchDate(next);
+    }
+
+    private boolean isNumericDate(final int token) {
+        final int end = tokenEnd[token];
+        int i = tokenStart[token];
+        for (int part = 0; part < 3; part++) {
+            final int digitsEnd = digits(i, end);
+            if (digitsEnd == i) {
+                return false;
+            }
+            i = digitsEnd;
+            if (part < 2) {
+                if (i == end || entry.charAt(i) != '-' && entry.charAt(i) != '/') {
+                    return false;
+                }
+                i++;
+            }
+        }
+        return i == end;
+    }
+
+    private boolean matchTime(final int token) {
+        // the time must be followed by one separator character before the name
+        if (token >= tokenCount || tokenEnd[token] == entry.length()) {
+            return false;
+        }
+        final int start = tokenStart[token];
+        final int end = tokenEnd[token];
+        int i = digits(start, end);
+        if (i == start) {
+            return false;
+        }
+        if (i == end) {
+            timeToken = token;
+            return true;
+        }
+        if (entry.charAt(i) == ':') {
+            final int minutes = digits(i + 1, end);
+            if (minutes > i + 1 && minutes == end) {
+                timeToken = token;
+                return true;
+            }
+            return false;
+        }
+        if (i - start == 4 && i + 1 == end && entry.charAt(i) == UnixFTPEntryParser.JA_YEAR.charAt(0)) {
+            timeToken = token;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of tokens starting at {@code token} which are separated by exactly one whitespace character.
+     */
+    private int run(final int token) {
+        int last = token;
+        while (last + 1 < tokenCount && tokenStart[last + 1] == tokenEnd[last] + 1) {
+            last++;
+        }
+        return last - token + 1;
+    }
+
+    private void split(final int from) {
+        tokenCount = 0;
+        final int length = entry.length();
+        int i = from;
+        while (i < length) {
+            while (i < length && isSpace(entry.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            if (tokenCount == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, tokenCount * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, tokenCount * 2);
+            }
+            tokenStart[tokenCount] = i;
+            while (i < length && !isSpace(entry.charAt(i))) {
+                i++;
+            }
+            tokenEnd[tokenCount++] = i;
+        }
+    }
+
+    private String tokens(final int first, final int count) {
+        return entry.substring(tokenStart[first], tokenEnd[first + count - 1]);
+    }
+
+    /**
+     * Tokenizes a listing line.
+     *
+     * @param line the line to tokenize.
+     * @return true if the line was recognized and the fields are set, false if the caller must use the regular expression.
+     */
+    boolean tokenize(final String line) {
+        final int length = line.length();
+        if (length < 11 || TYPES.indexOf(line.charAt(0)) < 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char c = line.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029' || Character.isSurrogate(c)) {
+                return false;
+            }
+        }
+        for (int i = 1; i < 10; i += 3) {
+            final char r = line.charAt(i);
+            final char w = line.charAt(i + 1);
+            if (r != 'r' && r != '-' || w != 'w' && w != '-' || EXECUTE.indexOf(line.charAt(i + 2)) < 0) {
+                return false;
+            }
+        }
+        entry = line;
+        int i = line.charAt(10) == '+' ? 11 : 10;
+        while (i < length && isSpace(line.charAt(i))) {
+            i++;
+        }
+        final int linksStart = i;
+        i = digits(i, length);
+        if (i == linksStart || i == length || !isSpace(line.charAt(i))) {
+            return false;
+        }
+        final int linksEnd = i;
+        split(i);
+        if (!matchColumns()) {
+            return false;
+        }
+        type = line.substring(0, 1);
+        permissions = line.substring(1, 10);
+        hardLinkCount = line.substring(linksStart, linksEnd);
+        size = line.substring(tokenStart[sizeToken], sizeEnd);
+        date = line.substring(dateStart, dateEnd);
+        time = line.substring(tokenStart[timeToken], tokenEnd[timeToken]);
+        name = line.substring(tokenEnd[timeToken] + 1);
+        return true;
+    }
+
+    /**
+     * Tries the optional owner (shortest first) and group (longest first) columns in the order the regular expression does.
+     */
+    private boolean matchColumns() {
+        final int ownerRun = run(0);
+        for (int owner = 1; owner <= ownerRun && owner < tokenCount; owner++) {
+            if (matchGroup(owner)) {
+                user = tokens(0, owner);
+                return true;
+            }
+        }
+        if (matchGroup(0)) {
+            user = null;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchGroup(final int token) {
+        if (token < tokenCount) {
+            for (int count = run(token); count > 0; count--) {
+                if (matchTail(token + count)) {
+                    group = tokens(token, count);
+                    sizeToken = token + count;
+                    return true;
+                }
+            }
+        }
+        if (matchTail(token)) {
+            group = null;
+            sizeToken = token;
+            return true;
+        }
+        return false;
+    }
+}
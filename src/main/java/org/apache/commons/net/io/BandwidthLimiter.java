@@ -0,0 +1,294 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.Closeable;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the rate at which the transfers sharing it move data, and divides that rate between them by weight.
+ * <p>
+ * Each transfer {@link #open(int) opens} a {@link Share} with a weight and calls {@link Share#acquire(int)} for the bytes it moves. A share gets the rate
+ * times its weight divided by the sum of the weights of the shares that moved data within the last second, so a share alone gets the whole rate, and idle
+ * shares leave their part to the others. Giving latency-sensitive transfers a higher weight than bulk transfers keeps them fast while the bulk transfers use
+ * the spare capacity. Unused time up to the burst duration is credited to a share, so short pauses do not lower its rate.
+ * </p>
+ * <p>
+ * A limiter can have a parent, for example one limiter per client below a global limiter. A share of a child limiter then holds a share of the parent with
+ * the same weight, and waits until both allow the bytes.
+ * </p>
+ * <p>
+ * This class is thread-safe.
+ * </p>
+ *
+ * @see ThrottledInputStream
+ * @see ThrottledOutputStream
+ * @since 3.12.0
+ */
+public final class BandwidthLimiter {
+
+    /**
+     * A part of the rate of a {@link BandwidthLimiter}, used by one transfer. A share must be closed when its transfer ends.
+     */
+    public final class Share implements Closeable {
+
+        private final int weight;
+        private final Share parentShare;
+        // the time at which the bytes acquired so far have been paid for
+        private long nextFreeNanos;
+        private long lastAcquireNanos;
+        private long byteCount;
+        private boolean closed;
+
+        private Share(final int weight, final Share parentShare, final long now) {
+            this.weight = weight;
+            this.parentShare = parentShare;
+            this.nextFreeNanos = now;
+            this.lastAcquireNanos = now;
+        }
+
+        /**
+         * Waits until the limiter allows a number of bytes to be moved.
+         *
+         * @param bytes the number of bytes.
+         * @throws InterruptedIOException if the thread is interrupted while waiting.
+         */
+        public void acquire(final int bytes) throws InterruptedIOException {
+            if (bytes <= 0) {
+                return;
+            }
+            final long waitNanos = reserve(bytes, System.nanoTime());
+            if (waitNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    final InterruptedIOException ioe = new InterruptedIOException("Interrupted while throttling");
+                    ioe.bytesTransferred = bytes;
+                    throw ioe;
+                }
+            }
+        }
+
+        /**
+         * Releases this share, so that its weight no longer counts. Closing a share twice has no effect.
+         */
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                shares.remove(this);
+            } finally {
+                lock.unlock();
+            }
+            if (parentShare != null) {
+                parentShare.close();
+            }
+        }
+
+        /**
+         * Gets the number of bytes acquired.
+         *
+         * @return the number of bytes.
+         */
+        public long getByteCount() {
+            lock.lock();
+            try {
+                return byteCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Gets the limiter of this share.
+         *
+         * @return the limiter.
+         */
+        public BandwidthLimiter getLimiter() {
+            return BandwidthLimiter.this;
+        }
+
+        /**
+         * Gets the weight.
+         *
+         * @return the weight.
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Reserves bytes here and in the parent limiters.
+         *
+         * @return the time to wait until all of them allow the bytes.
+         */
+        private long reserve(final int bytes, final long now) {
+            final long waitNanos;
+            lock.lock();
+            try {
+                waitNanos = reserveLocked(bytes, now);
+            } finally {
+                lock.unlock();
+            }
+            return parentShare == null ? waitNanos : Math.max(waitNanos, parentShare.reserve(bytes, now));
+        }
+
+        private long reserveLocked(final int bytes, final long now) {
+            long activeWeight = weight;
+            for (final Share share : shares) {
+                if (share != this && now - share.lastAcquireNanos < IDLE_NANOS) {
+                    activeWeight += share.weight;
+                }
+            }
+            final double shareBytesPerSecond = (double) bytesPerSecond * weight / activeWeight;
+            // credit at most the burst duration of unused time
+            nextFreeNanos = Math.max(nextFreeNanos, now - burstNanos);
+            nextFreeNanos += (long) (bytes * 1_000_000_000d / shareBytesPerSecond);
+            lastAcquireNanos = now;
+            byteCount += bytes;
+            return nextFreeNanos - now;
+        }
+    }
+
+    /** The default burst duration, 100 milliseconds. */
+    public static final Duration DEFAULT_BURST = Duration.ofMillis(100);
+
+    /** The time without transfer after which a share no longer counts. */
+    private static final long IDLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // guards the shares and their state; a lock rather than a monitor so that throttled virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<Share> shares = new ArrayList<>();
+    private final BandwidthLimiter parent;
+    private final long burstNanos;
+    private volatile long bytesPerSecond;
+
+    /**
+     * Creates a limiter without parent and with the default burst duration.
+     *
+     * @param bytesPerSecond the rate in bytes per second.
+     */
+    public BandwidthLimiter(final long bytesPerSecond) {
+        this(bytesPerSecond, DEFAULT_BURST, null);
+    }
+
+    /**
+     * Creates a limiter.
+     *
+     * @param bytesPerSecond the rate in bytes per second.
+     * @param burst          the longest unused time credited to a share.
+     * @param parent         the limiter that also limits the transfers of this one, may be null.
+     */
+    public BandwidthLimiter(final long bytesPerSecond, final Duration burst, final BandwidthLimiter parent) {
+        checkRate(bytesPerSecond);
+        if (burst.isNegative()) {
+            throw new IllegalArgumentException("burst must not be negative: " + burst);
+        }
+        this.bytesPerSecond = bytesPerSecond;
+        this.burstNanos = burst.toNanos();
+        this.parent = parent;
+    }
+
+    private static void checkRate(final long bytesPerSecond) {
+        if (bytesPerSecond < 1) {
+            throw new IllegalArgumentException("bytesPerSecond must be at least 1: " + bytesPerSecond);
+        }
+    }
+
+    /**
+     * Gets the burst duration.
+     *
+     * @return the longest unused time credited to a share.
+     */
+    public Duration getBurst() {
+        return Duration.ofNanos(burstNanos);
+    }
+
+    /**
+     * Gets the rate.
+     *
+     * @return the rate in bytes per second.
+     */
+    public long getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Gets the number of open shares.
+     *
+     * @return the number of shares.
+     */
+    public int getShareCount() {
+        lock.lock();
+        try {
+            return shares.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the parent limiter.
+     *
+     * @return the parent, or null.
+     */
+    public BandwidthLimiter getParent() {
+        return parent;
+    }
+
+    /**
+     * Opens a share for a transfer. When this limiter has a parent, a share of the parent with the same weight is opened too.
+     *
+     * @param weight the weight, at least 1.
+     * @return the share, to be closed when the transfer ends.
+     */
+    public Share open(final int weight) {
+        if (weight < 1) {
+            throw new IllegalArgumentException("weight must be at least 1: " + weight);
+        }
+        final Share parentShare = parent != null ? parent.open(weight) : null;
+        final Share share = new Share(weight, parentShare, System.nanoTime());
+        lock.lock();
+        try {
+            shares.add(share);
+        } finally {
+            lock.unlock();
+        }
+        return share;
+    }
+
+    /**
+     * Sets the rate. The shares use the new rate for the bytes they acquire from now on.
+     *
+     * @param bytesPerSecond the rate in bytes per second.
+     */
+    public void setBytesPerSecond(final long bytesPerSecond) {
+        checkRate(bytesPerSecond);
+        this.bytesPerSecond = bytesPerSecond;
+    }
+}
@@ -17,18 +17,15 @@
 
 package org.apache.commons.net.io;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 
-import org.apache.commons.net.util.NetConstants;
-
 /**
  * CRLFLineReader implements a readLine() method that requires exactly CRLF to terminate an input line. This is required for IMAP, which allows bare CR and LF.
  *
  * @since 3.0
  */
-public final class CRLFLineReader extends BufferedReader {
+public final class CRLFLineReader extends ReentrantBufferedReader {
     private static final char LF = '\n';
     private static final char CR = '\r';
 
@@ -50,16 +47,27 @@ public final class CRLFLineReader extends BufferedReader {
     @Override
     public String readLine() throws IOException {
         final StringBuilder sb = new StringBuilder();
-        int intch;
         boolean prevWasCR = false;
-        synchronized (lock) { // make thread-safe (hopefully!)
-            while ((intch = read()) != NetConstants.EOS) {
-                if (prevWasCR && intch == LF) {
-                    return sb.substring(0, sb.length() - 1);
+        readLock.lock();
+        try {
+            ensureOpen();
+            // scan the buffer, so that nothing after the line is consumed
+            while (position < limit || fill()) {
+                final int start = position;
+                for (int i = start; i < limit; i++) {
+                    final char ch = charBuffer[i];
+                    if (prevWasCR && ch == LF) {
+                        position = i + 1;
+                        sb.append(charBuffer, start, i - start);
+                        return sb.substring(0, sb.length() - 1);
+                    }
+                    prevWasCR = ch == CR;
                 }
-                prevWasCR = intch == CR;
-                sb.append((char) intch);
+                sb.append(charBuffer, start, limit - start);
+                position = limit;
             }
+        } finally {
+            readLock.unlock();
         }
         final String string = sb.toString();
         if (string.isEmpty()) { // immediate EOF
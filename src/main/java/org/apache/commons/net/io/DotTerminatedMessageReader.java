@@ -17,7 +17,6 @@
 
 package org.apache.commons.net.io;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
 
@@ -38,14 +37,19 @@ import org.apache.commons.net.util.NetConstants;
  * Note: versions since 3.0 extend BufferedReader rather than Reader, and no
  * longer change the CRLF into the local EOL. Also, only DOT CR LF acts as EOF.
  */
-public final class DotTerminatedMessageReader extends BufferedReader {
+public final class DotTerminatedMessageReader extends ReentrantBufferedReader {
     private static final char LF = '\n';
     private static final char CR = '\r';
     private static final int DOT = '.';
+    /** The number of characters read at a time by the array reads. */
+    private static final int CHUNK_SIZE = 8192;
+    /** The number of characters read at a time by {@link #readLine()}, which pushes back what follows the line. */
+    private static final int LINE_CHUNK_SIZE = 256;
 
     private boolean atBeginning;
     private boolean eof;
     private boolean seenCR; // was last character CR?
+    private char[] lineBuffer;
 
     /**
      * Creates a DotTerminatedMessageReader that wraps an existing Reader input
@@ -75,14 +79,18 @@ public final class DotTerminatedMessageReader extends BufferedReader {
      */
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
+        readLock.lock();
+        try {
             if (!eof) {
-                while (read() != -1) {
+                final char[] chunk = new char[CHUNK_SIZE];
+                while (readChunk(chunk, 0, chunk.length, false) != NetConstants.EOS) {
                     // read to EOF
                 }
             }
             eof = true;
             atBeginning = false;
+        } finally {
+            readLock.unlock();
         }
     }
 
@@ -100,7 +108,8 @@ public final class DotTerminatedMessageReader extends BufferedReader {
      */
     @Override
     public int read() throws IOException {
-        synchronized (lock) {
+        readLock.lock();
+        try {
             // Check for end-of-file conditions first
             if (eof) {
                 return NetConstants.EOS; // Don't allow read past EOF
@@ -116,9 +125,7 @@ public final class DotTerminatedMessageReader extends BufferedReader {
             if (atBeginning) {
                 atBeginning = false; // Transition from beginning
                 if (chint == DOT) {
-                    mark(2); // need to check for CR LF or DOT
-                    chint = super.read();
-                    return handleInitialDot(chint); // Delegate to helper method
+                    return handleInitialDot(); // Delegate to helper method
                 }
             }
 
@@ -135,35 +142,38 @@ public final class DotTerminatedMessageReader extends BufferedReader {
             }
 
             return chint; // Return the character read
+        } finally {
+            readLock.unlock();
         }
     }
 
-    // Helper method to handle the cases when the first character is DOT
-    private int handleInitialDot(int chint) throws IOException {
-        switch (chint) {
+    // Helper method to handle the cases when the first character is DOT, looking at what follows without reading it
+    private int handleInitialDot() throws IOException {
+        switch (peek(0)) {
             case NetConstants.EOS:
                 eof = true; // Handle trailing DOT
                 return DOT; // return the trailing DOT
             case DOT:
-                return chint; // Return the first DOT
+                position++;
+                return DOT; // Return the first DOT
             case CR:
-                chint = super.read();
-                if (chint == NetConstants.EOS) {
-                    reset(); // So CR is picked up next time
-                    return DOT; // return the trailing DOT
-                }
-                if (chint == LF) {
-                    atBeginning = true; // Reset for next round
-                    eof = true; // End of input
-                    return NetConstants.EOS; // Indicate end of stream
+                switch (peek(1)) {
+                    case NetConstants.EOS:
+                        return DOT; // return the trailing DOT, the CR is picked up next time
+                    case LF:
+                        position += 2;
+                        atBeginning = true; // Reset for next round
+                        eof = true; // End of input
+                        return NetConstants.EOS; // Indicate end of stream
+                    default:
+                        break;
                 }
                 break;
             default:
                 break;
         }
 
-        reset(); // Reset for unexpected input
-        return DOT; // Return the lone DOT
+        return DOT; // Return the lone DOT, the next character is read next
     }
 
     /**
@@ -195,24 +205,108 @@ public final class DotTerminatedMessageReader extends BufferedReader {
      * @throws IOException If an error occurs in reading the underlying stream.
      */
     @Override
-    public int read(final char[] buffer, int offset, int length) throws IOException {
+    public int read(final char[] buffer, final int offset, final int length) throws IOException {
         if (length < 1) {
             return 0;
         }
-        int ch;
-        synchronized (lock) {
-            if ((ch = read()) == -1) {
-                return NetConstants.EOS;
-            }
-
-            final int off = offset;
+        readLock.lock();
+        try {
+            return readChunk(buffer, offset, length, false);
+        } finally {
+            readLock.unlock();
+        }
+    }
 
-            do {
-                buffer[offset++] = (char) ch;
-            } while (--length > 0 && (ch = read()) != -1);
+    /**
+     * Reads characters of the message into an array. The characters are read from the buffer in blocks and the
+     * doubled dots are removed in place; only the first character of a line which cannot be decided with the
+     * characters at hand goes through {@link #read()}. Characters read past the end of the message, or past the end
+     * of the line, are given back with {@link #unread(int)}.
+     *
+     * @param toLineEnd whether to stop after the CRLF which ends a line.
+     * @return the number of characters stored, or -1 if the end of the message had already been reached.
+     */
+    private int readChunk(final char[] buffer, final int offset, final int length, final boolean toLineEnd)
+            throws IOException {
+        final int end = offset + length;
+        int write = offset;
+        while (write < end && !eof) {
+            if (write > offset && !ready()) {
+                break; // don't block once something has been read
+            }
+            if (atBeginning) {
+                final int ch = read();
+                if (ch == NetConstants.EOS) {
+                    break;
+                }
+                buffer[write++] = (char) ch;
+                continue;
+            }
+            final int rawStart = write;
+            final int room = Math.min(end - write, toLineEnd ? LINE_CHUNK_SIZE : CHUNK_SIZE);
+            final int count = super.read(buffer, rawStart, room);
+            if (count == NetConstants.EOS) {
+                eof = true; // True EOF
+                break;
+            }
+            final int rawEnd = rawStart + count;
+            int read = rawStart;
+            while (read < rawEnd) {
+                final char ch = buffer[read++];
+                buffer[write++] = ch;
+                if (!seenCR || ch != LF) {
+                    seenCR = ch == CR;
+                    continue;
+                }
+                // a line ends here
+                seenCR = false;
+                if (toLineEnd || read == rawEnd || buffer[read] == DOT && !unstuffable(buffer, read, rawEnd)) {
+                    // leave the rest, or the first character of the next line, to read()
+                    atBeginning = true;
+                    pushBack(read - rawStart, count);
+                    if (toLineEnd) {
+                        return write - offset;
+                    }
+                    break;
+                }
+                if (buffer[read] != DOT) {
+                    continue;
+                }
+                if (buffer[read + 1] == DOT) {
+                    // doubled dot
+                    buffer[write++] = (char) DOT;
+                    read += 2;
+                } else if (buffer[read + 1] == CR && buffer[read + 2] == LF) {
+                    // DOT CR LF ends the message
+                    pushBack(read + 3 - rawStart, count);
+                    atBeginning = true;
+                    eof = true;
+                    return write == offset ? NetConstants.EOS : write - offset;
+                } else {
+                    // lone dot
+                    buffer[write++] = (char) DOT;
+                    read++;
+                }
+            }
+        }
+        return write == offset && eof ? NetConstants.EOS : write - offset;
+    }
 
-            return offset - off;
+    /**
+     * Tests whether the characters after a dot at the beginning of a line are at hand to decide what the dot means.
+     */
+    private static boolean unstuffable(final char[] buffer, final int dot, final int end) {
+        if (dot + 1 >= end) {
+            return false;
         }
+        return buffer[dot + 1] != CR || dot + 2 < end;
+    }
+
+    /**
+     * Pushes back the characters of a block read after the first {@code consumed} ones.
+     */
+    private void pushBack(final int consumed, final int count) {
+        unread(count - consumed);
     }
 
     /**
@@ -225,14 +319,20 @@ public final class DotTerminatedMessageReader extends BufferedReader {
     @Override
     public String readLine() throws IOException {
         final StringBuilder sb = new StringBuilder();
-        int intch;
-        synchronized (lock) { // make thread-safe (hopefully!)
-            while ((intch = read()) != NetConstants.EOS) {
-                if (intch == LF && atBeginning) {
-                    return sb.substring(0, sb.length() - 1);
+        readLock.lock();
+        try {
+            if (lineBuffer == null) {
+                lineBuffer = new char[LINE_CHUNK_SIZE];
+            }
+            int count;
+            while ((count = readChunk(lineBuffer, 0, lineBuffer.length, true)) != NetConstants.EOS) {
+                sb.append(lineBuffer, 0, count);
+                if (atBeginning && !eof) {
+                    return sb.substring(0, sb.length() - 2); // drop the CRLF
                 }
-                sb.append((char) intch);
             }
+        } finally {
+            readLock.unlock();
         }
         final String string = sb.toString();
         if (string.isEmpty()) { // immediate EOF
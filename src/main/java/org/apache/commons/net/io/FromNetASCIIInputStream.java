@@ -125,6 +125,10 @@ public final class FromNetASCIIInputStream extends PushbackInputStream {
             return 0;
         }
 
+        if (LINE_SEPARATOR_BYTES.length == 1) {
+            return readBlock(buffer, offset, length);
+        }
+
         int ch;
         final int off;
 
@@ -150,6 +154,47 @@ public final class FromNetASCIIInputStream extends PushbackInputStream {
         return offset - off;
     }
 
+    /**
+     * Reads a block and replaces each &lt;CR&gt;&lt;LF&gt; in it with the one byte line separator, in place. A carriage return at the end of the block is
+     * pushed back until the next byte is known, unless it is the only byte read.
+     */
+    private int readBlock(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int count = super.read(buffer, offset, length);
+        if (count == NetConstants.EOS) {
+            return NetConstants.EOS;
+        }
+        int end = offset + count;
+        if (buffer[end - 1] == '\r') {
+            if (count == 1) {
+                final int ch = super.read();
+                if (ch == '\n') {
+                    buffer[offset] = LINE_SEPARATOR_BYTES[0];
+                } else if (ch != NetConstants.EOS) {
+                    unread(ch);
+                }
+                return 1;
+            }
+            unread('\r');
+            end--;
+        }
+        int read = offset;
+        while (read < end && buffer[read] != '\r') {
+            read++;
+        }
+        int write = read;
+        // from the first carriage return on, compact the block
+        while (read < end) {
+            final byte b = buffer[read++];
+            if (b == '\r' && read < end && buffer[read] == '\n') {
+                buffer[write++] = LINE_SEPARATOR_BYTES[0];
+                read++;
+            } else {
+                buffer[write++] = b;
+            }
+        }
+        return write - offset;
+    }
+
     private int readInt() throws IOException {
         int ch;
 
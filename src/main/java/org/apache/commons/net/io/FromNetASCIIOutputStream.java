@@ -20,6 +20,7 @@ package org.apache.commons.net.io;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class wraps an output stream, replacing all occurrences of &lt;CR&gt;&lt;LF&gt; (carriage return followed by a linefeed), which is the NETASCII standard
@@ -31,7 +32,14 @@ import java.io.OutputStream;
  */
 
 public final class FromNetASCIIOutputStream extends FilterOutputStream {
+    /** The number of bytes converted at a time by the array writes. */
+    private static final int BLOCK_SIZE = 8192;
+
+    // a lock rather than the stream monitor, so that blocking writes do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
     private boolean lastWasCR;
+    // the converted bytes of a block, allocated on the first array write
+    private byte[] converted;
 
     /**
      * Creates a FromNetASCIIOutputStream instance that wraps an existing OutputStream.
@@ -49,16 +57,21 @@ public final class FromNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while closing the stream.
      */
     @Override
-    public synchronized void close() throws IOException {
-        if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
-            super.close();
-            return;
-        }
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
+                super.close();
+                return;
+            }
 
-        if (lastWasCR) {
-            out.write('\r');
+            if (lastWasCR) {
+                out.write('\r');
+            }
+            super.close();
+        } finally {
+            lock.unlock();
         }
-        super.close();
     }
 
     /**
@@ -68,8 +81,13 @@ public final class FromNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final byte buffer[]) throws IOException {
-        write(buffer, 0, buffer.length);
+    public void write(final byte buffer[]) throws IOException {
+        lock.lock();
+        try {
+            write(buffer, 0, buffer.length);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -81,16 +99,24 @@ public final class FromNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final byte buffer[], int offset, int length) throws IOException {
-        if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
-            // FilterOutputStream method is very slow.
-            // super.write(buffer, offset, length);
-            out.write(buffer, offset, length);
-            return;
-        }
+    public void write(final byte buffer[], int offset, int length) throws IOException {
+        lock.lock();
+        try {
+            if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
+                // FilterOutputStream method is very slow.
+                // super.write(buffer, offset, length);
+                out.write(buffer, offset, length);
+                return;
+            }
 
-        while (length-- > 0) {
-            writeInt(buffer[offset++]);
+            while (length > 0) {
+                final int chunk = Math.min(length, BLOCK_SIZE);
+                writeBlock(buffer, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -103,13 +129,63 @@ public final class FromNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final int ch) throws IOException {
-        if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
-            out.write(ch);
-            return;
+    public void write(final int ch) throws IOException {
+        lock.lock();
+        try {
+            if (FromNetASCIIInputStream.NO_CONVERSION_REQUIRED) {
+                out.write(ch);
+                return;
+            }
+
+            writeInt(ch);
+        } finally {
+            lock.unlock();
         }
+    }
 
-        writeInt(ch);
+    /**
+     * Converts a block of bytes like {@link #writeInt(int)} on each of them, copying the runs without carriage return or linefeed as a whole, and writes
+     * the result at once.
+     */
+    private void writeBlock(final byte[] buffer, final int offset, final int length) throws IOException {
+        if (converted == null) {
+            // each byte becomes at most a line separator, plus a carriage return held back by the previous block
+            converted = new byte[BLOCK_SIZE * Math.max(1, FromNetASCIIInputStream.LINE_SEPARATOR_BYTES.length) + 1];
+        }
+        final byte[] separator = FromNetASCIIInputStream.LINE_SEPARATOR_BYTES;
+        final int end = offset + length;
+        int count = 0;
+        int i = offset;
+        while (i < end) {
+            int run = i;
+            while (run < end && buffer[run] != '\r' && buffer[run] != '\n') {
+                run++;
+            }
+            if (run > i) {
+                if (lastWasCR) {
+                    converted[count++] = '\r';
+                    lastWasCR = false;
+                }
+                System.arraycopy(buffer, i, converted, count, run - i);
+                count += run - i;
+                i = run;
+                continue;
+            }
+            if (buffer[i] == '\r') {
+                // Don't write anything. We need to see if next one is linefeed
+                lastWasCR = true;
+            } else if (lastWasCR) {
+                System.arraycopy(separator, 0, converted, count, separator.length);
+                count += separator.length;
+                lastWasCR = false;
+            } else {
+                converted[count++] = '\n';
+            }
+            i++;
+        }
+        if (count > 0) {
+            out.write(converted, 0, count);
+        }
     }
 
     private void writeInt(final int ch) throws IOException {
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.io;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.zip.CRC32;
+
+/**
+ * Computes a digest or a checksum over the bytes passed through a {@link HashingInputStream} or {@link HashingOutputStream}.
+ */
+abstract class Hasher {
+
+    private static final class ChecksumHasher extends Hasher {
+
+        private final CRC32 crc = new CRC32();
+
+        ChecksumHasher() {
+            super("CRC32");
+        }
+
+        @Override
+        byte[] digest() {
+            final long value = crc.getValue();
+            return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value };
+        }
+
+        @Override
+        void update(final byte[] buffer, final int offset, final int length) {
+            crc.update(buffer, offset, length);
+        }
+
+        @Override
+        void update(final int b) {
+            crc.update(b);
+        }
+    }
+
+    private static final class DigestHasher extends Hasher {
+
+        private final MessageDigest digest;
+
+        DigestHasher(final MessageDigest digest) {
+            super(digest.getAlgorithm());
+            this.digest = digest;
+        }
+
+        @Override
+        byte[] digest() {
+            try {
+                // keep the running state, so the hash can be read more than once
+                return ((MessageDigest) digest.clone()).digest();
+            } catch (final CloneNotSupportedException e) {
+                return digest.digest();
+            }
+        }
+
+        @Override
+        void update(final byte[] buffer, final int offset, final int length) {
+            digest.update(buffer, offset, length);
+        }
+
+        @Override
+        void update(final int b) {
+            digest.update((byte) b);
+        }
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * Creates a hasher.
+     *
+     * @param algorithm {@code CRC32} or the name of a {@link MessageDigest} algorithm.
+     * @throws IllegalArgumentException if the algorithm is not available.
+     */
+    static Hasher forAlgorithm(final String algorithm) {
+        if ("CRC32".equals(algorithm.toUpperCase(Locale.ENGLISH))) {
+            return new ChecksumHasher();
+        }
+        try {
+            return new DigestHasher(MessageDigest.getInstance(algorithm));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException("Unsupported hash algorithm: " + algorithm, e);
+        }
+    }
+
+    private final String algorithm;
+
+    Hasher(final String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    abstract byte[] digest();
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    String getHash() {
+        final byte[] bytes = digest();
+        final char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0F];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0F];
+        }
+        return new String(chars);
+    }
+
+    abstract void update(byte[] buffer, int offset, int length);
+
+    abstract void update(int b);
+}
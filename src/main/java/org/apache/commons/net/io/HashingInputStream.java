@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class wraps an input stream and computes a checksum or a message digest of the bytes read, so that an upload can be verified without reading the
+ * local file a second time. Wrap the local stream given to {@code FTPClient.storeFile} and compare {@link #getHash()} with the checksum the server reports
+ * for the stored file. Skipped bytes are not hashed, and mark and reset are not supported.
+ *
+ * @since 3.12.0
+ */
+public final class HashingInputStream extends FilterInputStream {
+
+    private final Hasher hasher;
+    private long byteCount;
+
+    /**
+     * Creates a HashingInputStream instance that wraps an existing InputStream.
+     *
+     * @param input     The InputStream to wrap.
+     * @param algorithm {@code CRC32} or the name of a {@link java.security.MessageDigest} algorithm, such as {@code MD5}, {@code SHA-1} or {@code SHA-256}.
+     * @throws IllegalArgumentException if the algorithm is not available.
+     */
+    public HashingInputStream(final InputStream input, final String algorithm) {
+        super(input);
+        this.hasher = Hasher.forAlgorithm(algorithm);
+    }
+
+    /**
+     * Gets the algorithm.
+     *
+     * @return the algorithm name.
+     */
+    public String getAlgorithm() {
+        return hasher.getAlgorithm();
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     *
+     * @return the number of bytes.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Gets the hash of the bytes read so far.
+     *
+     * @return the hash as lower case hexadecimal digits.
+     */
+    public String getHash() {
+        return hasher.getHash();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(final int readLimit) {
+        // not supported
+    }
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int ch = in.read();
+        if (ch != -1) {
+            hasher.update(ch);
+            byteCount++;
+        }
+        return ch;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int count = in.read(buffer, offset, length);
+        if (count > 0) {
+            hasher.update(buffer, offset, count);
+            byteCount += count;
+        }
+        return count;
+    }
+}
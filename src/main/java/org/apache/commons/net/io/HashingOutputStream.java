@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class wraps an output stream and computes a checksum or a message digest of the bytes written, so that a transfer can be verified without reading
+ * the data a second time. Wrap the local stream given to {@code FTPClient.retrieveFile} and compare {@link #getHash()} with the checksum the server reports:
+ *
+ * <pre>
+ * HashingOutputStream out = new HashingOutputStream(Files.newOutputStream(local), "SHA-256");
+ * ftp.retrieveFile(remote, out);
+ * out.close();
+ * boolean intact = ftp.getChecksum(remote, "SHA-256").matches(out.getHash());
+ * </pre>
+ *
+ * @since 3.12.0
+ */
+public final class HashingOutputStream extends FilterOutputStream {
+
+    private final Hasher hasher;
+    private long byteCount;
+
+    /**
+     * Creates a HashingOutputStream instance that wraps an existing OutputStream.
+     *
+     * @param output    The OutputStream to wrap.
+     * @param algorithm {@code CRC32} or the name of a {@link java.security.MessageDigest} algorithm, such as {@code MD5}, {@code SHA-1} or {@code SHA-256}.
+     * @throws IllegalArgumentException if the algorithm is not available.
+     */
+    public HashingOutputStream(final OutputStream output, final String algorithm) {
+        super(output);
+        this.hasher = Hasher.forAlgorithm(algorithm);
+    }
+
+    /**
+     * Gets the algorithm.
+     *
+     * @return the algorithm name.
+     */
+    public String getAlgorithm() {
+        return hasher.getAlgorithm();
+    }
+
+    /**
+     * Gets the number of bytes written so far.
+     *
+     * @return the number of bytes.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    /**
+     * Gets the hash of the bytes written so far.
+     *
+     * @return the hash as lower case hexadecimal digits.
+     */
+    public String getHash() {
+        return hasher.getHash();
+    }
+
+    /**
+     * Writes a number of bytes from a byte array to the stream starting from a given offset.
+     *
+     * @param buffer The byte array to write.
+     * @param offset The offset into the array at which to start copying data.
+     * @param length The number of bytes to write.
+     * @throws IOException If an error occurs while writing to the underlying stream.
+     */
+    @Override
+    public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+        out.write(buffer, offset, length);
+        hasher.update(buffer, offset, length);
+        byteCount += length;
+    }
+
+    /**
+     * Writes a byte to the stream.
+     *
+     * @param ch The byte to write.
+     * @throws IOException If an error occurs while writing to the underlying stream.
+     */
+    @Override
+    public void write(final int ch) throws IOException {
+        out.write(ch);
+        hasher.update(ch);
+        byteCount++;
+    }
+}
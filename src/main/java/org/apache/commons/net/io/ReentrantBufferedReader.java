@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.net.util.NetConstants;
+
+/**
+ * A {@link BufferedReader} which keeps its own buffer and guards it with a {@link ReentrantLock}.
+ * <p>
+ * The methods of {@link BufferedReader} hold the monitor of its lock object while they read the underlying reader, and the JDK only replaces that monitor
+ * for {@link BufferedReader} itself, not for subclasses; a virtual thread blocked in a socket read under a monitor pins its carrier thread. This class
+ * overrides every method which touches the buffer, so none of them runs under a monitor. Subclasses scan {@link #charBuffer} between {@link #position} and
+ * {@link #limit} directly, which leaves the mark of the caller alone.
+ * </p>
+ */
+abstract class ReentrantBufferedReader extends BufferedReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /** Guards the buffer, in place of the monitor of {@link #lock}. */
+    final ReentrantLock readLock = new ReentrantLock();
+    char[] charBuffer = new char[DEFAULT_BUFFER_SIZE];
+    /** The index of the next character to read. */
+    int position;
+    /** The index after the last character in the buffer. */
+    int limit;
+    private final Reader in;
+    private int markPosition = -1;
+    private int readAheadLimit;
+
+    ReentrantBufferedReader(final Reader reader) {
+        // the buffer of the superclass is not used
+        super(reader, 1);
+        this.in = reader;
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException If an error occurs while closing the underlying reader.
+     */
+    @Override
+    public void close() throws IOException {
+        readLock.lock();
+        try {
+            if (charBuffer != null) {
+                charBuffer = null;
+                in.close();
+            }
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Throws if the reader is closed. The lock must be held.
+     */
+    void ensureOpen() throws IOException {
+        if (charBuffer == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+
+    /**
+     * Reads more characters into the buffer, keeping those from {@link #position} on, and those from a valid mark on. The lock must be held.
+     *
+     * @return false at the end of the underlying reader.
+     */
+    boolean fill() throws IOException {
+        ensureOpen();
+        int keep = position;
+        if (markPosition >= 0) {
+            if (limit - markPosition >= readAheadLimit) {
+                markPosition = -1;
+            } else {
+                keep = markPosition;
+            }
+        }
+        if (keep > 0) {
+            System.arraycopy(charBuffer, keep, charBuffer, 0, limit - keep);
+            limit -= keep;
+            position -= keep;
+            if (markPosition >= 0) {
+                markPosition -= keep;
+            }
+        }
+        if (limit == charBuffer.length) {
+            charBuffer = Arrays.copyOf(charBuffer, charBuffer.length * 2);
+        }
+        int count;
+        do {
+            count = in.read(charBuffer, limit, charBuffer.length - limit);
+        } while (count == 0);
+        if (count == NetConstants.EOS) {
+            return false;
+        }
+        limit += count;
+        return true;
+    }
+
+    @Override
+    public void mark(final int readAheadLimit) throws IOException {
+        if (readAheadLimit < 0) {
+            throw new IllegalArgumentException("Read-ahead limit < 0");
+        }
+        readLock.lock();
+        try {
+            ensureOpen();
+            this.readAheadLimit = readAheadLimit;
+            markPosition = position;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * Gets a character after the next one without reading it. The lock must be held.
+     *
+     * @param ahead the number of characters to look past, 0 for the next one.
+     * @return the character, or -1 if the underlying reader ends before it.
+     */
+    int peek(final int ahead) throws IOException {
+        while (limit - position <= ahead) {
+            if (!fill()) {
+                return NetConstants.EOS;
+            }
+        }
+        return charBuffer[position + ahead];
+    }
+
+    @Override
+    public int read() throws IOException {
+        readLock.lock();
+        try {
+            ensureOpen();
+            if (position >= limit && !fill()) {
+                return NetConstants.EOS;
+            }
+            return charBuffer[position++];
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Reads characters into an array. The characters come from one contiguous range of the buffer, so that {@link #unread(int)} can give them back.
+     */
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+        if (off < 0 || len < 0 || len > cbuf.length - off) {
+            throw new IndexOutOfBoundsException();
+        }
+        readLock.lock();
+        try {
+            ensureOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= limit && !fill()) {
+                return NetConstants.EOS;
+            }
+            final int count = Math.min(len, limit - position);
+            System.arraycopy(charBuffer, position, cbuf, off, count);
+            position += count;
+            return count;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        readLock.lock();
+        try {
+            ensureOpen();
+            return position < limit || in.ready();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void reset() throws IOException {
+        readLock.lock();
+        try {
+            ensureOpen();
+            if (markPosition < 0) {
+                throw new IOException("Stream not marked");
+            }
+            position = markPosition;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        if (n < 0L) {
+            throw new IllegalArgumentException("skip value is negative");
+        }
+        readLock.lock();
+        try {
+            ensureOpen();
+            long remaining = n;
+            while (remaining > 0 && (position < limit || fill())) {
+                final int count = (int) Math.min(remaining, limit - position);
+                position += count;
+                remaining -= count;
+            }
+            return n - remaining;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the last characters of the last {@link #read(char[], int, int)}, which must have returned at least that many. The lock must be held.
+     *
+     * @param count the number of characters.
+     */
+    void unread(final int count) {
+        position -= count;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+import org.apache.commons.net.util.NetConstants;
+
+/**
+ * Collects the lines of a server reply as bytes, for protocols whose replies are CRLF terminated lines starting with a code, like FTP and SMTP.
+ * <p>
+ * The lines of the current reply are kept in one byte buffer, which is reused by the following replies. The reply code and other fixed position characters
+ * are read straight from the bytes; the lines and the whole text are decoded only when asked for, once per reply. As with {@link CRLFLineReader}, only CRLF
+ * ends a line; a bare CR or LF is part of the line.
+ * </p>
+ * <p>
+ * The lines come either from an {@link InputStream}, read ahead in blocks by {@link #readLine()}, or from the buffers passed to
+ * {@link #readLine(ByteBuffer)}. The character set must encode CR and LF as single bytes, as ASCII and its extensions such as ISO-8859-1 and UTF-8 do.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @since 3.12.0
+ */
+public final class ReplyDecoder {
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] CRLF = { CR, LF };
+    private static final int INPUT_BUFFER_SIZE = 1024;
+
+    private final InputStream input;
+    private final Charset charset;
+    // the lines of the current reply, each with its CRLF, and the start of a line not yet ended
+    private byte[] bytes = new byte[256];
+    private int length;
+    private int[] lineEnds = new int[8];
+    private int lineCount;
+    private String[] lines = new String[8];
+    private String text;
+    // read ahead from the input stream, or copied from a buffer without array
+    private byte[] inputBuffer;
+    private int inputPos;
+    private int inputLimit;
+
+    /**
+     * Creates a decoder for lines passed to {@link #readLine(ByteBuffer)}.
+     *
+     * @param charset the character set of the lines.
+     * @throws IllegalArgumentException if the character set does not encode CR and LF as single bytes.
+     */
+    public ReplyDecoder(final Charset charset) {
+        this(null, charset);
+    }
+
+    /**
+     * Creates a decoder for the lines of a stream. The decoder reads ahead, so the stream must not be read otherwise.
+     *
+     * @param input   the stream, may be null to only use {@link #readLine(ByteBuffer)}.
+     * @param charset the character set of the lines.
+     * @throws IllegalArgumentException if the character set does not encode CR and LF as single bytes.
+     */
+    public ReplyDecoder(final InputStream input, final Charset charset) {
+        if (!Arrays.equals(CRLF, "\r\n".getBytes(charset))) {
+            throw new IllegalArgumentException("Character set does not encode CR and LF as single bytes: " + charset);
+        }
+        this.input = input;
+        this.charset = charset;
+    }
+
+    /**
+     * Appends bytes up to the end of a line, ending the line if its CRLF is found.
+     *
+     * @return the offset after the appended bytes.
+     */
+    private int append(final byte[] source, final int offset, final int end) {
+        int i = offset;
+        boolean ended = false;
+        while (i < end) {
+            if (source[i++] == LF) {
+                // the CR may have come with the previous bytes, but must belong to this line
+                if (i - 1 > offset ? source[i - 2] == CR : length > lineStart(lineCount) && bytes[length - 1] == CR) {
+                    ended = true;
+                    break;
+                }
+            }
+        }
+        final int count = i - offset;
+        ensureCapacity(length + count);
+        System.arraycopy(source, offset, bytes, length, count);
+        length += count;
+        if (ended) {
+            endLine();
+        }
+        return i;
+    }
+
+    /**
+     * Starts a new reply, forgetting the lines of the current one. Bytes read ahead are kept.
+     */
+    public void clear() {
+        // keep a line not yet ended, which belongs to the next reply
+        final int start = lineStart(lineCount);
+        if (start > 0) {
+            System.arraycopy(bytes, start, bytes, 0, length - start);
+            length -= start;
+        }
+        Arrays.fill(lines, 0, lineCount, null);
+        lineCount = 0;
+        text = null;
+    }
+
+    private void endLine() {
+        if (lineCount == lineEnds.length) {
+            lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+            lines = Arrays.copyOf(lines, lineCount * 2);
+        }
+        lineEnds[lineCount++] = length;
+        text = null;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+
+    /**
+     * Gets a byte of a line.
+     *
+     * @param line  the line index, 0-based.
+     * @param index the index in the line.
+     * @return the byte, from 0 to 255, or -1 if the line is shorter.
+     */
+    public int byteAt(final int line, final int index) {
+        return index < getLineLength(line) ? bytes[lineStart(line) + index] & 0xff : NetConstants.EOS;
+    }
+
+    /**
+     * Gets the character set of the lines.
+     *
+     * @return the character set.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * Gets a line, without its CRLF. The line is decoded once per reply.
+     *
+     * @param line the line index, 0-based.
+     * @return the line.
+     */
+    public String getLine(final int line) {
+        checkLine(line);
+        String string = lines[line];
+        if (string == null) {
+            final int start = lineStart(line);
+            string = lines[line] = new String(bytes, start, lineEnds[line] - CRLF.length - start, charset);
+        }
+        return string;
+    }
+
+    /**
+     * Gets the number of ended lines of the current reply.
+     *
+     * @return the number of lines.
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Gets the length of a line, in bytes, without its CRLF.
+     *
+     * @param line the line index, 0-based.
+     * @return the length.
+     */
+    public int getLineLength(final int line) {
+        checkLine(line);
+        return lineEnds[line] - CRLF.length - lineStart(line);
+    }
+
+    /**
+     * Gets the lines of the current reply, without their CRLF.
+     *
+     * @return the lines.
+     */
+    public String[] getLines() {
+        final String[] result = new String[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            result[i] = getLine(i);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the three digit code at the start of a line.
+     *
+     * @param line the line index, 0-based.
+     * @return the code, or -1 if the line does not start with three digits.
+     */
+    public int getReplyCode(final int line) {
+        if (getLineLength(line) < 3) {
+            return NetConstants.EOS;
+        }
+        final int start = lineStart(line);
+        int code = 0;
+        for (int i = start; i < start + 3; i++) {
+            final int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return NetConstants.EOS;
+            }
+            code = code * 10 + digit;
+        }
+        return code;
+    }
+
+    /**
+     * Gets the text of the current reply, each line followed by CRLF, exactly as it was received. The text is decoded once per reply.
+     *
+     * @return the text, empty if no line has ended.
+     */
+    public String getText() {
+        if (text == null) {
+            text = new String(bytes, 0, lineStart(lineCount), charset);
+        }
+        return text;
+    }
+
+    private void checkLine(final int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + ", line count " + lineCount);
+        }
+    }
+
+    private int lineStart(final int line) {
+        return line == 0 ? 0 : lineEnds[line - 1];
+    }
+
+    /**
+     * Reads a line from the stream and adds it to the current reply. At the end of the stream, a line without CRLF is ended as if it had one.
+     *
+     * @return true if a line was added, false at the end of the stream.
+     * @throws IOException if the stream cannot be read.
+     */
+    public boolean readLine() throws IOException {
+        if (input == null) {
+            throw new IllegalStateException("No input stream");
+        }
+        if (inputBuffer == null) {
+            inputBuffer = new byte[INPUT_BUFFER_SIZE];
+        }
+        final int count = lineCount;
+        while (lineCount == count) {
+            if (inputPos == inputLimit) {
+                final int read = input.read(inputBuffer, 0, inputBuffer.length);
+                if (read == NetConstants.EOS) {
+                    if (length == lineStart(lineCount)) {
+                        return false;
+                    }
+                    ensureCapacity(length + CRLF.length);
+                    bytes[length++] = CR;
+                    bytes[length++] = LF;
+                    endLine();
+                    return true;
+                }
+                inputPos = 0;
+                inputLimit = read;
+            }
+            inputPos = append(inputBuffer, inputPos, inputLimit);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the bytes of a buffer up to the end of a line, and adds the line to the current reply once its CRLF has been taken. The remaining bytes of the
+     * buffer are left for the next line.
+     *
+     * @param buffer the buffer, read from its position to its limit.
+     * @return true if a line was added, false if the buffer has no more bytes.
+     * @throws IllegalStateException if this decoder reads a stream.
+     */
+    public boolean readLine(final ByteBuffer buffer) {
+        if (input != null) {
+            throw new IllegalStateException("Lines are read from the input stream");
+        }
+        final int count = lineCount;
+        if (buffer.hasArray()) {
+            final int offset = buffer.arrayOffset();
+            buffer.position(append(buffer.array(), offset + buffer.position(), offset + buffer.limit()) - offset);
+        } else {
+            if (inputBuffer == null) {
+                inputBuffer = new byte[INPUT_BUFFER_SIZE];
+            }
+            while (lineCount == count && buffer.hasRemaining()) {
+                final int position = buffer.position();
+                final int read = Math.min(buffer.remaining(), inputBuffer.length);
+                buffer.get(inputBuffer, 0, read);
+                buffer.position(position + append(inputBuffer, 0, read));
+            }
+        }
+        return lineCount > count;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * This class wraps an input stream and limits the rate at which it is read with a {@link BandwidthLimiter.Share}. The bytes are paid for after they are
+ * read, so a read returns as soon as data is available and the next one waits for the rate. Closing the stream closes the share.
+ *
+ * @since 3.12.0
+ */
+public final class ThrottledInputStream extends FilterInputStream {
+
+    private final BandwidthLimiter.Share share;
+
+    /**
+     * Creates a ThrottledInputStream instance that wraps an existing InputStream.
+     *
+     * @param input The InputStream to wrap.
+     * @param share The share of the limiter that throttles the stream.
+     */
+    public ThrottledInputStream(final InputStream input, final BandwidthLimiter.Share share) {
+        super(input);
+        this.share = share;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            share.close();
+        }
+    }
+
+    /**
+     * Gets the share that throttles the stream.
+     *
+     * @return the share.
+     */
+    public BandwidthLimiter.Share getShare() {
+        return share;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int ch = in.read();
+        if (ch != -1) {
+            share.acquire(1);
+        }
+        return ch;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+        final int count = in.read(buffer, offset, length);
+        if (count > 0) {
+            share.acquire(count);
+        }
+        return count;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        final long count = in.skip(n);
+        if (count > 0) {
+            share.acquire((int) Math.min(Integer.MAX_VALUE, count));
+        }
+        return count;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * This class wraps an output stream and limits the rate at which it is written with a {@link BandwidthLimiter.Share}. A write waits for the rate before
+ * the bytes are passed on. Closing the stream closes the share.
+ *
+ * @since 3.12.0
+ */
+public final class ThrottledOutputStream extends FilterOutputStream {
+
+    private final BandwidthLimiter.Share share;
+
+    /**
+     * Creates a ThrottledOutputStream instance that wraps an existing OutputStream.
+     *
+     * @param output The OutputStream to wrap.
+     * @param share  The share of the limiter that throttles the stream.
+     */
+    public ThrottledOutputStream(final OutputStream output, final BandwidthLimiter.Share share) {
+        super(output);
+        this.share = share;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            share.close();
+        }
+    }
+
+    /**
+     * Gets the share that throttles the stream.
+     *
+     * @return the share.
+     */
+    public BandwidthLimiter.Share getShare() {
+        return share;
+    }
+
+    @Override
+    public void write(final byte[] buffer, final int offset, final int length) throws IOException {
+        share.acquire(length);
+        out.write(buffer, offset, length);
+    }
+
+    @Override
+    public void write(final int ch) throws IOException {
+        share.acquire(1);
+        out.write(ch);
+    }
+}
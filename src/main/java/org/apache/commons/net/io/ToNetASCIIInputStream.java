@@ -34,6 +34,8 @@ public final class ToNetASCIIInputStream extends FilterInputStream {
     private static final int LAST_WAS_CR = 1;
     private static final int LAST_WAS_NL = 2;
     private int status;
+    // the bytes read by the array reads before conversion, allocated on the first array read
+    private byte[] raw;
 
     /**
      * Creates a ToNetASCIIInputStream instance that wraps an existing InputStream.
@@ -122,35 +124,44 @@ public final class ToNetASCIIInputStream extends FilterInputStream {
      * @throws IOException If an error occurs while reading the underlying stream.
      */
     @Override
-    public int read(final byte[] buffer, int offset, int length) throws IOException {
-        int ch;
-        final int off;
-
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
         if (length < 1) {
             return 0;
         }
-
-        ch = available();
-
-        if (length > ch) {
-            length = ch;
-        }
-
-        // If nothing is available, block to read only one character
-        if (length < 1) {
-            length = 1;
+        int write = offset;
+        final int end = offset + length;
+        if (status == LAST_WAS_NL) {
+            status = NOTHING_SPECIAL;
+            buffer[write++] = '\n';
         }
-
-        if ((ch = read()) == NetConstants.EOS) {
-            return NetConstants.EOS;
+        // like the single byte reads, go on filling the array while more input is available without blocking
+        while (write < end && (write == offset || in.available() > 0)) {
+            // each byte read becomes at most two, so read at most half of the room left, but at least one byte
+            final int rawLength = Math.max(1, (end - write) / 2);
+            if (raw == null || raw.length < rawLength) {
+                raw = new byte[Math.max(rawLength, Math.min(length, 8192))];
+            }
+            final int rawCount = in.read(raw, 0, rawLength);
+            if (rawCount == NetConstants.EOS) {
+                break;
+            }
+            for (int i = 0; i < rawCount; i++) {
+                final byte b = raw[i];
+                if (b == '\n' && status != LAST_WAS_CR) {
+                    buffer[write++] = '\r';
+                    if (write == end) {
+                        // only possible for the last byte read
+                        status = LAST_WAS_NL;
+                        break;
+                    }
+                    buffer[write++] = '\n';
+                    status = NOTHING_SPECIAL;
+                } else {
+                    buffer[write++] = b;
+                    status = b == '\r' ? LAST_WAS_CR : NOTHING_SPECIAL;
+                }
+            }
         }
-
-        off = offset;
-
-        do {
-            buffer[offset++] = (byte) ch;
-        } while (--length > 0 && (ch = read()) != NetConstants.EOS);
-
-        return offset - off;
+        return write == offset ? NetConstants.EOS : write - offset;
     }
 }
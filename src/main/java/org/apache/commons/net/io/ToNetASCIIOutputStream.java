@@ -20,6 +20,7 @@ package org.apache.commons.net.io;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class wraps an output stream, replacing all singly occurring &lt;LF&gt; (linefeed) characters with &lt;CR&gt;&lt;LF&gt; (carriage return followed by
@@ -28,7 +29,14 @@ import java.io.OutputStream;
  */
 
 public final class ToNetASCIIOutputStream extends FilterOutputStream {
+    /** The number of bytes converted at a time by the array writes. */
+    private static final int BLOCK_SIZE = 8192;
+
+    // a lock rather than the stream monitor, so that blocking writes do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
     private boolean lastWasCR;
+    // the converted bytes of a block, allocated when a block first needs a carriage return
+    private byte[] converted;
 
     /**
      * Creates a ToNetASCIIOutputStream instance that wraps an existing OutputStream.
@@ -47,12 +55,18 @@ public final class ToNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final byte buffer[]) throws IOException {
-        write(buffer, 0, buffer.length);
+    public void write(final byte buffer[]) throws IOException {
+        lock.lock();
+        try {
+            write(buffer, 0, buffer.length);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
-     * Writes a number of bytes from a byte array to the stream starting from a given offset.
+     * Writes a number of bytes from a byte array to the stream starting from a given offset. The bytes are converted in blocks, so the runs between
+     * linefeeds reach the underlying stream in one write.
      *
      * @param buffer The byte array to write.
      * @param offset The offset into the array at which to start copying data.
@@ -60,9 +74,40 @@ public final class ToNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final byte buffer[], int offset, int length) throws IOException {
-        while (length-- > 0) {
-            write(buffer[offset++]);
+    public void write(final byte buffer[], int offset, int length) throws IOException {
+        lock.lock();
+        try {
+            while (length > 0) {
+                final int chunk = Math.min(length, BLOCK_SIZE);
+                final int end = offset + chunk;
+                int count = 0;
+                int start = offset;
+                for (int i = offset; i < end; i++) {
+                    if (buffer[i] == '\n' && !(i > offset ? buffer[i - 1] == '\r' : lastWasCR)) {
+                        if (converted == null) {
+                            converted = new byte[2 * BLOCK_SIZE];
+                        }
+                        // copy the run before the naked linefeed, then insert the carriage return
+                        System.arraycopy(buffer, start, converted, count, i - start);
+                        count += i - start;
+                        converted[count++] = '\r';
+                        start = i;
+                    }
+                }
+                if (count == 0) {
+                    // nothing to insert
+                    out.write(buffer, offset, chunk);
+                } else {
+                    System.arraycopy(buffer, start, converted, count, end - start);
+                    count += end - start;
+                    out.write(converted, 0, count);
+                }
+                lastWasCR = buffer[end - 1] == '\r';
+                offset += chunk;
+                length -= chunk;
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -74,20 +119,25 @@ public final class ToNetASCIIOutputStream extends FilterOutputStream {
      * @throws IOException If an error occurs while writing to the underlying stream.
      */
     @Override
-    public synchronized void write(final int ch) throws IOException {
-        switch (ch) {
-        case '\r':
-            lastWasCR = true;
-            out.write('\r');
-            return;
-        case '\n':
-            if (!lastWasCR) {
+    public void write(final int ch) throws IOException {
+        lock.lock();
+        try {
+            switch (ch) {
+            case '\r':
+                lastWasCR = true;
                 out.write('\r');
+                return;
+            case '\n':
+                if (!lastWasCR) {
+                    out.write('\r');
+                }
+                //$FALL-THROUGH$
+            default:
+                lastWasCR = false;
+                out.write(ch);
             }
-            //$FALL-THROUGH$
-        default:
-            lastWasCR = false;
-            out.write(ch);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -27,6 +27,9 @@ import java.io.PrintWriter;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 
 import org.apache.commons.net.util.NetConstants;
@@ -51,6 +54,15 @@ public final class Util {
      */
     public static final int DEFAULT_COPY_BUFFER_SIZE = 1024;
 
+    /**
+     * The default number of bytes ({@value}) moved by each step of
+     * {@link #transferFrom transferFrom} and {@link #transferTo transferTo} if a
+     * zero or negative chunk size is supplied.
+     *
+     * @since 3.12.0
+     */
+    public static final int DEFAULT_CHANNEL_CHUNK_SIZE = 1024 * 1024;
+
     /**
      * Closes the object quietly, catching rather than throwing IOException.
      * Intended for use from finally blocks.
@@ -381,6 +393,104 @@ public final class Util {
         return numBytes;
     }
 
+    /**
+     * Copies the contents of a channel into a FileChannel, starting at the
+     * current position of the FileChannel, using
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} so that
+     * the data does not have to pass through a buffer on the Java heap when the
+     * platform can avoid it. The source is read until its end is reached, but
+     * neither channel is closed. The position of the destination is advanced by
+     * the number of bytes transferred.
+     * <p>
+     * The source must be in blocking mode; a transfer of zero bytes is taken as
+     * the end of the source.
+     * </p>
+     *
+     * @param source     The source channel.
+     * @param dest       The destination FileChannel.
+     * @param chunkSize  The maximum number of bytes to transfer before notifying
+     *                   the listener. A zero or negative value means to use
+     *                   {@link #DEFAULT_CHANNEL_CHUNK_SIZE}.
+     * @param streamSize The number of bytes in the source. Should be set to
+     *                   CopyStreamEvent.UNKNOWN_STREAM_SIZE if unknown.
+     * @param listener   The CopyStreamListener to notify after each chunk. If this
+     *                   parameter is null, notification is not attempted.
+     * @return The number of bytes transferred.
+     * @throws CopyStreamException If an error occurs while reading from the source
+     *                             or writing to the destination. The
+     *                             CopyStreamException will contain the
+     *                             number of bytes transferred before the
+     *                             IOException occurred.
+     * @since 3.12.0
+     */
+    public static long transferFrom(final ReadableByteChannel source, final FileChannel dest, final int chunkSize,
+            final long streamSize, final CopyStreamListener listener) throws CopyStreamException {
+        final long chunk = chunkSize > 0 ? chunkSize : DEFAULT_CHANNEL_CHUNK_SIZE;
+        long total = 0;
+        try {
+            final long start = dest.position();
+            long numBytes;
+            while ((numBytes = dest.transferFrom(source, start + total, chunk)) > 0) {
+                total += numBytes;
+                if (listener != null) {
+                    listener.bytesTransferred(total, (int) numBytes, streamSize);
+                }
+            }
+            dest.position(start + total);
+        } catch (final IOException e) {
+            throw new CopyStreamException("IOException caught while copying.", total, e);
+        }
+        return total;
+    }
+
+    /**
+     * Copies the contents of a FileChannel, from its current position to its end,
+     * into a channel using
+     * {@link FileChannel#transferTo(long, long, WritableByteChannel)}, which lets
+     * the operating system send the file directly (for example with
+     * {@code sendfile}) when the destination is a socket channel. Neither channel
+     * is closed. The position of the source is advanced by the number of bytes
+     * transferred.
+     *
+     * @param source    The source FileChannel.
+     * @param dest      The destination channel, which must be in blocking mode.
+     * @param chunkSize The maximum number of bytes to transfer before notifying
+     *                  the listener. A zero or negative value means to use
+     *                  {@link #DEFAULT_CHANNEL_CHUNK_SIZE}.
+     * @param listener  The CopyStreamListener to notify after each chunk. If this
+     *                  parameter is null, notification is not attempted.
+     * @return The number of bytes transferred.
+     * @throws CopyStreamException If an error occurs while reading from the source
+     *                             or writing to the destination. The
+     *                             CopyStreamException will contain the
+     *                             number of bytes transferred before the
+     *                             IOException occurred.
+     * @since 3.12.0
+     */
+    public static long transferTo(final FileChannel source, final WritableByteChannel dest, final int chunkSize,
+            final CopyStreamListener listener) throws CopyStreamException {
+        final long chunk = chunkSize > 0 ? chunkSize : DEFAULT_CHANNEL_CHUNK_SIZE;
+        long total = 0;
+        try {
+            final long start = source.position();
+            final long streamSize = Math.max(0, source.size() - start);
+            while (total < streamSize) {
+                final long numBytes = source.transferTo(start + total, Math.min(chunk, streamSize - total), dest);
+                if (numBytes <= 0) {
+                    throw new IOException("No progress transferring file at position " + (start + total));
+                }
+                total += numBytes;
+                if (listener != null) {
+                    listener.bytesTransferred(total, (int) numBytes, streamSize);
+                }
+            }
+            source.position(start + total);
+        } catch (final IOException e) {
+            throw new CopyStreamException("IOException caught while copying.", total, e);
+        }
+        return total;
+    }
+
     /**
      * Creates a new PrintWriter using the default encoding.
      *
@@ -71,11 +71,13 @@ public class NtpV3Impl implements NtpV3Packet {
 
     private final byte[] buf = new byte[48];
 
-    private volatile DatagramPacket dp;
+    private final DatagramPacket dp;
 
     /** Creates a new instance of NtpV3Impl */
     public NtpV3Impl() {
-        //Creates a new instance of NtpV3Impl
+        // created eagerly so that getDatagramPacket() needs no lock
+        dp = new DatagramPacket(buf, buf.length);
+        dp.setPort(NTP_PORT);
     }
 
     /**
@@ -104,11 +106,7 @@ public class NtpV3Impl implements NtpV3Packet {
      * @return a datagram packet.
      */
     @Override
-    public synchronized DatagramPacket getDatagramPacket() {
-        if (dp == null) {
-            dp = new DatagramPacket(buf, buf.length);
-            dp.setPort(NTP_PORT);
-        }
+    public DatagramPacket getDatagramPacket() {
         return dp;
     }
 
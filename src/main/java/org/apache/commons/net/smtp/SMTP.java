@@ -17,18 +17,16 @@
 
 package org.apache.commons.net.smtp;
 
-import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 
 import org.apache.commons.net.MalformedServerReplyException;
 import org.apache.commons.net.ProtocolCommandSupport;
 import org.apache.commons.net.SocketClient;
-import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.io.ReplyDecoder;
+import org.apache.commons.net.util.Charsets;
 import org.apache.commons.net.util.NetConstants;
 
 /**
@@ -81,13 +79,11 @@ public class SMTP extends SocketClient {
      */
     protected ProtocolCommandSupport _commandSupport_;
 
-    BufferedReader reader;
+    /** Reads the replies; replaced when the connection is. */
+    ReplyDecoder replyDecoder;
     BufferedWriter writer;
 
     private int replyCode;
-    private final ArrayList<String> replyLines;
-    private boolean newReplyString;
-    private String replyString;
 
     /**
      * The default SMTP constructor. Sets the default port to {@code DEFAULT_PORT} and initializes internal data structures for saving SMTP reply
@@ -105,9 +101,6 @@ public class SMTP extends SocketClient {
      */
     public SMTP(final String encoding) {
         setDefaultPort(DEFAULT_PORT);
-        replyLines = new ArrayList<>();
-        newReplyString = false;
-        replyString = null;
         _commandSupport_ = new ProtocolCommandSupport(this);
         this.encoding = encoding;
     }
@@ -116,7 +109,7 @@ public class SMTP extends SocketClient {
     @Override
     protected void _connectAction_() throws IOException {
         super._connectAction_();
-        reader = new CRLFLineReader(new InputStreamReader(_input_, encoding));
+        replyDecoder = new ReplyDecoder(_input_, Charsets.toCharset(encoding));
         writer = new BufferedWriter(new OutputStreamWriter(_output_, encoding));
         getReply();
     }
@@ -143,11 +136,8 @@ public class SMTP extends SocketClient {
     @Override
     public void disconnect() throws IOException {
         super.disconnect();
-        reader = null;
+        replyDecoder = null;
         writer = null;
-        replyString = null;
-        replyLines.clear();
-        newReplyString = false;
     }
 
     /**
@@ -184,48 +174,33 @@ public class SMTP extends SocketClient {
      * @throws IOException                   If an I/O error occurs while receiving the server reply.
      */
     public int getReply() throws IOException {
-        final int length;
+        replyDecoder.clear();
 
-        newReplyString = true;
-        replyLines.clear();
-
-        String line = reader.readLine();
-
-        if (line == null) {
-            throw new SMTPConnectionClosedException("Connection closed without indication.");
-        }
+        readReplyLine();
 
         // In case we run into an anomaly we don't want fatal index exceptions
         // to be thrown.
-        length = line.length();
+        final int length = replyDecoder.getLineLength(0);
         if (length < 3) {
-            throw new MalformedServerReplyException("Truncated server reply: " + line);
+            throw new MalformedServerReplyException("Truncated server reply: " + replyDecoder.getLine(0));
         }
 
-        try {
-            final String code = line.substring(0, 3);
-            replyCode = Integer.parseInt(code);
-        } catch (final NumberFormatException e) {
-            throw new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + line);
+        replyCode = replyDecoder.getReplyCode(0);
+        if (replyCode < 0) {
+            throw new MalformedServerReplyException("Could not parse response code.\nServer Reply: " + replyDecoder.getLine(0));
         }
 
-        replyLines.add(line);
-
         // Get extra lines if message continues.
-        if (length > 3 && line.charAt(3) == '-') {
+        if (length > 3 && replyDecoder.byteAt(0, 3) == '-') {
+            int last;
             do {
-                line = reader.readLine();
+                readReplyLine();
+                last = replyDecoder.getLineCount() - 1;
 
-                if (line == null) {
-                    throw new SMTPConnectionClosedException("Connection closed without indication.");
-                }
-
-                replyLines.add(line);
-
-                // The length() check handles problems that could arise from readLine()
-                // returning too soon after encountering a naked CR or some other
+                // The length check handles problems that could arise from a line
+                // ending too soon after encountering a naked CR or some other
                 // anomaly.
-            } while (!(line.length() >= 4 && line.charAt(3) != '-' && Character.isDigit(line.charAt(0))));
+            } while (!(replyDecoder.getLineLength(last) >= 4 && replyDecoder.byteAt(last, 3) != '-' && Character.isDigit(replyDecoder.byteAt(last, 0))));
             // This is too strong a condition because a non-conforming server
             // could screw things up like ftp.funet.fi does for FTP
             // line.startsWith(code)));
@@ -239,6 +214,12 @@ public class SMTP extends SocketClient {
         return replyCode;
     }
 
+    private void readReplyLine() throws IOException {
+        if (!replyDecoder.readLine()) {
+            throw new SMTPConnectionClosedException("Connection closed without indication.");
+        }
+    }
+
     /**
      * Returns the integer value of the reply code of the last SMTP reply. You will usually only use this method after you connect to the SMTP server to check
      * that the connection was successful since {@code connect} is of type void.
@@ -255,23 +236,7 @@ public class SMTP extends SocketClient {
      * @return The entire text from the last SMTP response as a String.
      */
     public String getReplyString() {
-        final StringBuilder buffer;
-
-        if (!newReplyString) {
-            return replyString;
-        }
-
-        buffer = new StringBuilder();
-
-        for (final String line : replyLines) {
-            buffer.append(line);
-            buffer.append(NETASCII_EOL);
-        }
-
-        newReplyString = false;
-
-        replyString = buffer.toString();
-        return replyString;
+        return replyDecoder == null ? null : replyDecoder.getText();
     }
 
     /**
@@ -281,7 +246,7 @@ public class SMTP extends SocketClient {
      * @return The lines of text from the last SMTP response as an array.
      */
     public String[] getReplyStrings() {
-        return replyLines.toArray(NetConstants.EMPTY_STRING_ARRAY);
+        return replyDecoder == null ? NetConstants.EMPTY_STRING_ARRAY : replyDecoder.getLines();
     }
 
     /**
@@ -19,7 +19,6 @@ package org.apache.commons.net.smtp;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 
 import javax.net.ssl.HostnameVerifier;
@@ -30,7 +29,8 @@ import javax.net.ssl.SSLSocket;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 
-import org.apache.commons.net.io.CRLFLineReader;
+import org.apache.commons.net.io.ReplyDecoder;
+import org.apache.commons.net.util.Charsets;
 import org.apache.commons.net.util.SSLContextUtils;
 import org.apache.commons.net.util.SSLSocketUtils;
 
@@ -303,7 +303,7 @@ public class SMTPSClient extends SMTPClient {
         _socket_ = socket;
         _input_ = socket.getInputStream();
         _output_ = socket.getOutputStream();
-        reader = new CRLFLineReader(new InputStreamReader(_input_, encoding));
+        replyDecoder = new ReplyDecoder(_input_, Charsets.toCharset(encoding));
         writer = new BufferedWriter(new OutputStreamWriter(_output_, encoding));
 
         if (hostnameVerifier != null && !hostnameVerifier.verify(host, socket.getSession())) {
@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.net.SocketClient;
 
@@ -97,9 +100,14 @@ class Telnet extends SocketClient {
     private final TelnetOptionHandler[] optionHandlers;
 
     /**
-     * monitor to wait for AYT
+     * lock to wait for AYT
      */
-    private final Object aytMonitor = new Object();
+    private final ReentrantLock aytLock = new ReentrantLock();
+
+    /**
+     * signalled when the AYT response is received
+     */
+    private final Condition aytResponded = aytLock.newCondition();
 
     /**
      * flag for AYT
@@ -204,7 +212,8 @@ class Telnet extends SocketClient {
      **/
     final boolean _sendAYT(final Duration timeout) throws IOException, IllegalArgumentException, InterruptedException {
         boolean retValue = false;
-        synchronized (aytMonitor) {
+        aytLock.lock();
+        try {
             synchronized (this) {
                 aytFlag = false;
                 _output_.write(COMMAND_AYT);
@@ -216,7 +225,7 @@ class Telnet extends SocketClient {
 
             // Use a while loop to wait for the aytFlag to change
             while (!aytFlag && remainingTime > 0) {
-                aytMonitor.wait(remainingTime);
+                aytResponded.await(remainingTime, TimeUnit.MILLISECONDS);
                 remainingTime = timeout.toMillis() - (System.currentTimeMillis() - startTime);
             }
             if (!aytFlag) {
@@ -224,6 +233,8 @@ class Telnet extends SocketClient {
             } else {
                 retValue = true;
             }
+        } finally {
+            aytLock.unlock();
         }
 
         return retValue;
@@ -343,9 +354,12 @@ class Telnet extends SocketClient {
      */
     final synchronized void processAYTResponse() {
         if (!aytFlag) {
-            synchronized (aytMonitor) {
+            aytLock.lock();
+            try {
                 aytFlag = true;
-                aytMonitor.notifyAll();
+                aytResponded.signalAll();
+            } finally {
+                aytLock.unlock();
             }
         }
     }
@@ -21,6 +21,9 @@ import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 final class TelnetInputStream extends BufferedInputStream implements Runnable {
     /** End of file has been reached */
@@ -34,12 +37,19 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
             STATE_SB = 6, STATE_SE = 7, STATE_CR = 8,
             STATE_IAC_SB = 9;
 
-    private boolean hasReachedEOF; // @GuardedBy("queue")
+    private boolean hasReachedEOF; // @GuardedBy("queueLock")
     private volatile boolean isClosed;
     private boolean readIsWaiting;
     private int receiveState, queueHead, queueTail, bytesAvailable;
     private final int[] queue;
+    // A lock rather than the queue monitor, so that a reader blocked in I/O while holding it
+    // does not pin the carrier of a virtual thread
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition queueChanged = queueLock.newCondition();
     private final TelnetClient client;
+    // The socket is read through a BufferedInputStream of its own: the methods inherited from BufferedInputStream hold the monitor of
+    // this subclass while they block, which pins the carrier of a virtual thread, whereas the JDK guards a plain BufferedInputStream with a lock
+    private final BufferedInputStream source;
     private final Thread thread;
     private IOException ioException;
 
@@ -55,7 +65,9 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
     }
 
     TelnetInputStream(final InputStream input, final TelnetClient client, final boolean readerThread) {
-        super(input);
+        // the buffer of the superclass is not used
+        super(input, 1);
+        this.source = new BufferedInputStream(input);
         this.client = client;
         this.receiveState = STATE_DATA;
         this.isClosed = true;
@@ -80,11 +92,14 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
     @Override
     public int available() throws IOException {
         // Critical section because run() may change bytesAvailable
-        synchronized (queue) {
-            if (threaded) { // Must not call super.available when running threaded: NET-466
+        queueLock.lock();
+        try {
+            if (threaded) { // Must not call source.available when running threaded: NET-466
                 return bytesAvailable;
             }
-            return bytesAvailable + super.available();
+            return bytesAvailable + source.available();
+        } finally {
+            queueLock.unlock();
         }
     }
 
@@ -96,9 +111,11 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         // We can't afford to block on this close by waiting for
         // thread to terminate because few if any JVM's will actually
         // interrupt a system read() from the interrupt() method.
+        source.close();
         super.close();
 
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             hasReachedEOF = true;
             isClosed = true;
 
@@ -106,7 +123,9 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
                 thread.interrupt();
             }
 
-            queue.notifyAll();
+            queueChanged.signalAll();
+        } finally {
+            queueLock.unlock();
         }
 
     }
@@ -125,7 +144,8 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         // Critical section because we're altering bytesAvailable,
         // queueTail, and the contents of _queue.
         final boolean bufferWasEmpty;
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             bufferWasEmpty = bytesAvailable == 0;
             while (bytesAvailable >= queue.length - 1) {
                 // The queue is full. We need to wait before adding any more data to it.
@@ -137,9 +157,9 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
                     // no other thread to drain it. This should not have happened!
                     throw new IllegalStateException("Queue is full! Cannot process another character.");
                 }
-                queue.notify();
+                queueChanged.signal();
                 try {
-                    queue.wait();
+                    queueChanged.await();
                 } catch (final InterruptedException e) {
                     throw e;
                 }
@@ -147,7 +167,7 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
 
             // Need to do this in case we're not full, but block on a read
             if (readIsWaiting && threaded) {
-                queue.notify();
+                queueChanged.signal();
             }
 
             queue[queueTail] = ch;
@@ -156,13 +176,16 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
             if (++queueTail >= queue.length) {
                 queueTail = 0;
             }
+        } finally {
+            queueLock.unlock();
         }
         return bufferWasEmpty;
     }
 
     @Override
     public int read() throws IOException {
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             // Verifica se è presente un'eccezione di I/O
             if (ioException != null) {
                 final IOException e = ioException;
@@ -177,6 +200,8 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
                 default:
                     return handleQueueNotEmpty();
             }
+        } finally {
+            queueLock.unlock();
         }
     }
 
@@ -193,23 +218,26 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
     }
 
     private int handleThreadedQueue() throws IOException {
-        synchronized (queue) {
-            queue.notify(); // Sveglia eventuali thread in attesa
+        queueLock.lock();
+        try {
+            queueChanged.signal(); // Sveglia eventuali thread in attesa
 
-            // Usa un ciclo while per assicurarsi che la condizione sia ancora vera prima di
-            // aspettare
-            while (!readIsWaiting) {
-                try {
-                    queue.wait(); // Aspetta che la condizione sia soddisfatta
-                } catch (InterruptedException e) {
-                    // Ripristina lo stato di interruzione del thread
-                    Thread.currentThread().interrupt();
-                    // Lancia una nuova eccezione per segnalare un'interruzione fatale durante la
-                    // lettura
-                    throw new InterruptedIOException("Fatal thread interruption during read.");
+            // Wait for the reader thread to queue data, reach EOF or fail; it signals
+            // in processChar() while readIsWaiting is set
+            readIsWaiting = true;
+            try {
+                while (bytesAvailable == 0 && !hasReachedEOF && ioException == null) {
+                    queueChanged.await();
                 }
+            } catch (final InterruptedException e) {
+                // Ripristina lo stato di interruzione del thread
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Fatal thread interruption during read.");
+            } finally {
+                readIsWaiting = false; // Ripristina lo stato di attesa
             }
-            readIsWaiting = false; // Ripristina lo stato di attesa
+        } finally {
+            queueLock.unlock();
         }
         return read(); // Esegui la lettura
     }
@@ -242,7 +270,7 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
 
             mayBlock = false; // subsequent reads should not block
 
-        } while (super.available() > 0 && bytesAvailable < queue.length - 1);
+        } while (source.available() > 0 && bytesAvailable < queue.length - 1);
 
         readIsWaiting = false;
         return read();
@@ -252,14 +280,15 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         try {
             return read(mayBlock);
         } catch (InterruptedIOException e) {
-            synchronized (queue) {
+            queueLock.lock();
+            try {
                 ioException = e;
-                queue.notifyAll(); // Notifica tutti i thread in attesa
+                queueChanged.signalAll(); // Notifica tutti i thread in attesa
 
                 // Usa un ciclo while per attendere che la condizione si risolva
                 while (readIsWaiting) {
                     try {
-                        queue.wait(100); // Aspetta per un massimo di 100 ms
+                        queueChanged.await(100, TimeUnit.MILLISECONDS); // Aspetta per un massimo di 100 ms
                     } catch (InterruptedException interrupted) {
                         // Ripristina lo stato di interruzione del thread
                         Thread.currentThread().interrupt();
@@ -267,6 +296,8 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
                         return EOF;
                     }
                 }
+            } finally {
+                queueLock.unlock();
             }
             return EOF;
         }
@@ -282,8 +313,11 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         --bytesAvailable;
 
         if (bytesAvailable == 0 && threaded) {
-            synchronized (queue) {
-                queue.notify();
+            queueLock.lock();
+            try {
+                queueChanged.signal();
+            } finally {
+                queueLock.unlock();
             }
         }
 
@@ -307,11 +341,11 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         boolean continueLoop = true;
 
         while (continueLoop) {
-            if (!mayBlock && super.available() == 0) {
+            if (!mayBlock && source.available() == 0) {
                 return WOULD_BLOCK;
             }
 
-            if ((ch = super.read()) < 0) {
+            if ((ch = source.read()) < 0) {
                 return EOF;
             }
 
@@ -516,10 +550,13 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
         }
 
         // Critical section because run() may change bytesAvailable
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             if (length > bytesAvailable) {
                 length = bytesAvailable;
             }
+        } finally {
+            queueLock.unlock();
         }
 
         if ((ch = read()) == EOF) {
@@ -590,13 +627,14 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
     }
 
     private void handleInterruptedIOException(InterruptedIOException e) {
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             ioException = e;
-            queue.notifyAll();
+            queueChanged.signalAll();
 
             while (ioException != null) { // Condizione di attesa
                 try {
-                    queue.wait(100); // Attendi che la condizione cambi
+                    queueChanged.await(100, TimeUnit.MILLISECONDS); // Attendi che la condizione cambi
                 } catch (final InterruptedException interrupted) {
                     if (isClosed) {
                         throw new RuntimeException("Stream closed during wait", interrupted); // Gestisce il caso di
@@ -606,25 +644,34 @@ final class TelnetInputStream extends BufferedInputStream implements Runnable {
                     Thread.currentThread().interrupt();
                 }
             }
+        } finally {
+            queueLock.unlock();
         }
     }
 
     private void handleRuntimeException() throws IOException {
+        source.close();
         super.close();
     }
 
     private void handleIOException(IOException ioe) {
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             ioException = ioe; // Store IO exception
+        } finally {
+            queueLock.unlock();
         }
         client.notifyInputListener(); // Notify input listener on IO exception
     }
 
     private void cleanupAndNotify() {
-        synchronized (queue) {
+        queueLock.lock();
+        try {
             isClosed = true; // Possibly redundant
             hasReachedEOF = true;
-            queue.notifyAll(); // Notify any waiting threads
+            queueChanged.signalAll(); // Notify any waiting threads
+        } finally {
+            queueLock.unlock();
         }
     }
 
@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.net.ftp.FTPClient;
+import org.apache.commons.net.ftp.FTPClientPool;
+import org.apache.commons.net.ftp.FtpServerFixture;
+import org.apache.commons.net.pop3.POP3Client;
+import org.apache.commons.net.smtp.SMTPClient;
+import org.apache.commons.net.telnet.TelnetClient;
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs many concurrent sessions of the blocking protocol clients against local servers, on virtual threads when the JVM has them (Java 21 and later)
+ * and on platform threads otherwise. On virtual threads, JFR records the threads which block while pinned to their carrier, and the sessions fail if
+ * any did. The number of sessions can be set with the {@code commons.net.stress.sessions} system property.
+ */
+public class SessionStressTest {
+
+    /**
+     * A server which runs a line-based conversation for each connection on its own thread.
+     */
+    private static final class LineServer implements Closeable {
+
+        interface Conversation {
+            void run(BufferedReader reader, Writer writer) throws IOException;
+        }
+
+        private final ServerSocket serverSocket;
+        private final ExecutorService executor;
+
+        LineServer(final ExecutorService executor, final Conversation conversation) throws IOException {
+            this.executor = executor;
+            this.serverSocket = new ServerSocket(0, SESSIONS, InetAddress.getLoopbackAddress());
+            executor.execute(() -> {
+                while (!serverSocket.isClosed()) {
+                    final Socket socket;
+                    try {
+                        socket = serverSocket.accept();
+                    } catch (final IOException e) {
+                        return;
+                    }
+                    executor.execute(() -> {
+                        try (Socket s = socket;
+                                BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                                Writer writer = new OutputStreamWriter(s.getOutputStream(), StandardCharsets.US_ASCII)) {
+                            conversation.run(reader, writer);
+                        } catch (final IOException e) {
+                            // the client went away
+                        }
+                    });
+                }
+            });
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+    }
+
+    private static final int SESSIONS = Integer.getInteger("commons.net.stress.sessions", 1000);
+    private static final int FTP_SESSIONS = Math.min(SESSIONS, 100);
+    private static final int TIMEOUT_MILLIS = 60_000;
+    private static final String FTP_HOME = "ftp_root_stress/";
+    private static final int FTP_FILE_SIZE = 256 * 1024;
+
+    private static final boolean VIRTUAL_THREADS = hasVirtualThreads();
+
+    private static boolean hasVirtualThreads() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static ExecutorService newSessionExecutor() throws ReflectiveOperationException {
+        if (VIRTUAL_THREADS) {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        return Executors.newCachedThreadPool();
+    }
+
+    private static void reply(final Writer writer, final String line) throws IOException {
+        writer.write(line + "\r\n");
+        writer.flush();
+    }
+
+    private ExecutorService executor;
+
+    private static Object invoke(final String className, final String methodName, final Object target, final Object... args)
+            throws ReflectiveOperationException {
+        final Class<?>[] types = new Class<?>[args.length];
+        for (int i = 0; i < args.length; i++) {
+            types[i] = args[i] instanceof Path ? Path.class : args[i].getClass();
+        }
+        return Class.forName(className).getMethod(methodName, types).invoke(target, args);
+    }
+
+    /**
+     * Starts a JFR recording of the virtual threads which block while pinned to their carrier thread.
+     *
+     * @return the recording, or null if the JVM has no virtual threads.
+     */
+    private static Object startPinnedThreadRecording() throws ReflectiveOperationException {
+        if (!VIRTUAL_THREADS) {
+            return null;
+        }
+        final Object recording = Class.forName("jdk.jfr.Recording").getConstructor().newInstance();
+        final Object settings = invoke("jdk.jfr.Recording", "enable", recording, "jdk.VirtualThreadPinned");
+        invoke("jdk.jfr.EventSettings", "withThreshold", settings, Duration.ZERO);
+        invoke("jdk.jfr.EventSettings", "withStackTrace", settings);
+        invoke("jdk.jfr.Recording", "start", recording);
+        return recording;
+    }
+
+    /**
+     * Stops a recording started by {@link #startPinnedThreadRecording()}.
+     *
+     * @return the stack traces of the pinned threads.
+     */
+    private static List<String> stopPinnedThreadRecording(final Object recording) throws ReflectiveOperationException, IOException {
+        final List<String> pinned = new ArrayList<>();
+        if (recording == null) {
+            return pinned;
+        }
+        invoke("jdk.jfr.Recording", "stop", recording);
+        final Path file = Files.createTempFile("pinned", ".jfr");
+        try {
+            invoke("jdk.jfr.Recording", "dump", recording, file);
+            invoke("jdk.jfr.Recording", "close", recording);
+            for (final Object event : (List<?>) invoke("jdk.jfr.consumer.RecordingFile", "readAllEvents", null, file)) {
+                final Object stackTrace = invoke("jdk.jfr.consumer.RecordedEvent", "getStackTrace", event);
+                if (stackTrace == null) {
+                    pinned.add("pinned");
+                    continue;
+                }
+                final StringBuilder trace = new StringBuilder("pinned");
+                for (final Object frame : (List<?>) invoke("jdk.jfr.consumer.RecordedStackTrace", "getFrames", stackTrace)) {
+                    final Object method = invoke("jdk.jfr.consumer.RecordedFrame", "getMethod", frame);
+                    final Object type = invoke("jdk.jfr.consumer.RecordedMethod", "getType", method);
+                    trace.append("\n\tat ").append(invoke("jdk.jfr.consumer.RecordedClass", "getName", type)).append('.')
+                            .append(invoke("jdk.jfr.consumer.RecordedMethod", "getName", method));
+                }
+                pinned.add(trace.toString());
+            }
+        } finally {
+            Files.delete(file);
+        }
+        return pinned;
+    }
+
+    private void runSessions(final int count, final Callable<Boolean> session) throws Exception {
+        final Object recording = startPinnedThreadRecording();
+        final List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(executor.submit(session));
+        }
+        for (final Future<Boolean> result : results) {
+            assertTrue(result.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        }
+        final List<String> pinned = stopPinnedThreadRecording(recording);
+        assertTrue(pinned.isEmpty(), () -> pinned.size() + " pinned threads, first " + pinned.get(0));
+    }
+
+    @BeforeEach
+    protected void setUp() throws ReflectiveOperationException {
+        executor = newSessionExecutor();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        executor.shutdownNow();
+        executor.awaitTermination(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void testFtpSessions() throws Exception {
+        final AtomicInteger keepAlives = new AtomicInteger();
+        final FtpServerFixture server = FtpServerFixture.start(FTP_HOME, serverFactory -> {
+            final ConnectionConfigFactory connectionConfigFactory = new ConnectionConfigFactory();
+            connectionConfigFactory.setMaxLogins(FTP_SESSIONS * 2);
+            serverFactory.setConnectionConfig(connectionConfigFactory.createConnectionConfig());
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("keepAlives", new DefaultFtplet() {
+                @Override
+                public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+                    if ("NOOP".equals(request.getCommand())) {
+                        keepAlives.incrementAndGet();
+                    }
+                    return super.beforeCommand(session, request);
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        final StringBuilder text = new StringBuilder();
+        while (text.length() < FTP_FILE_SIZE) {
+            text.append("line ").append(text.length()).append('\n');
+        }
+        Files.write(Paths.get(FTP_HOME, "file.txt"), text.toString().getBytes(StandardCharsets.US_ASCII));
+        try (FTPClientPool pool = new FTPClientPool()) {
+            pool.setMaxTotalPerKey(FTP_SESSIONS / 2);
+            final FTPClientPool.Key key = new FTPClientPool.Key("localhost", server.getPort(), FtpServerFixture.USER, FtpServerFixture.PASSWORD);
+            runSessions(FTP_SESSIONS, () -> {
+                final FTPClient client = pool.borrowClient(key);
+                final Duration keepAliveTimeout = client.getControlKeepAliveTimeoutDuration();
+                try {
+                    // the keep-alive listener sends NOOPs on the control connection while the data connection is read
+                    client.setControlKeepAliveTimeout(Duration.ofMillis(1));
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    if (!client.retrieveFile("file.txt", output) || !text.toString().equals(output.toString(StandardCharsets.US_ASCII.name()))) {
+                        return false;
+                    }
+                    return client.listNames().length == 1;
+                } finally {
+                    // the next borrower gets the client as the pool handed it out
+                    client.setControlKeepAliveTimeout(keepAliveTimeout);
+                    pool.returnClient(client);
+                }
+            });
+            assertEquals(0, pool.getActiveCount(key));
+            assertTrue(keepAlives.get() > 0);
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testPop3Sessions() throws Exception {
+        try (LineServer server = new LineServer(executor, (reader, writer) -> {
+            reply(writer, "+OK ready");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("STAT")) {
+                    reply(writer, "+OK 1 7");
+                } else if (line.startsWith("RETR")) {
+                    reply(writer, "+OK 7 octets\r\nhello\r\n.");
+                } else if (line.startsWith("QUIT")) {
+                    reply(writer, "+OK bye");
+                    return;
+                } else {
+                    reply(writer, "+OK");
+                }
+            }
+        })) {
+            runSessions(SESSIONS, () -> {
+                final POP3Client client = new POP3Client();
+                client.setDefaultTimeout(TIMEOUT_MILLIS);
+                client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+                try {
+                    if (!client.login("user", "password") || client.status().number != 1) {
+                        return false;
+                    }
+                    try (Reader message = client.retrieveMessage(1)) {
+                        if (!"hello\r\n".equals(IOUtils.toString(message))) {
+                            return false;
+                        }
+                    }
+                    return client.logout();
+                } finally {
+                    client.disconnect();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testSmtpSessions() throws Exception {
+        try (LineServer server = new LineServer(executor, (reader, writer) -> {
+            reply(writer, "220 ready");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("DATA")) {
+                    reply(writer, "354 go ahead");
+                    while (!".".equals(reader.readLine())) {
+                        // the message
+                    }
+                    reply(writer, "250 queued");
+                } else if (line.startsWith("QUIT")) {
+                    reply(writer, "221 bye");
+                    return;
+                } else {
+                    reply(writer, "250 OK");
+                }
+            }
+        })) {
+            runSessions(SESSIONS, () -> {
+                final SMTPClient client = new SMTPClient();
+                client.setDefaultTimeout(TIMEOUT_MILLIS);
+                client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+                try {
+                    return client.login("localhost") && client.sendSimpleMessage("a@example.com", "b@example.com", "Subject: test\r\n\r\nhello\r\n")
+                            && client.logout();
+                } finally {
+                    client.disconnect();
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testTelnetSessions() throws Exception {
+        try (LineServer server = new LineServer(executor, (reader, writer) -> {
+            for (int i = 0; i < 100; i++) {
+                writer.write("line " + i + "\r\n");
+            }
+            writer.flush();
+        })) {
+            final StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < 100; i++) {
+                expected.append("line ").append(i);
+            }
+            for (final boolean readerThread : new boolean[] { false, true }) {
+                runSessions(SESSIONS / 4, () -> {
+                    final TelnetClient client = new TelnetClient();
+                    client.setReaderThread(readerThread);
+                    client.setDefaultTimeout(TIMEOUT_MILLIS);
+                    client.connect(InetAddress.getLoopbackAddress(), server.getPort());
+                    try {
+                        // line terminators are not compared, the client may translate them
+                        final String text = IOUtils.toString(client.getInputStream(), StandardCharsets.US_ASCII);
+                        return expected.toString().equals(text.replace("\r", "").replace("\n", ""));
+                    } finally {
+                        client.disconnect();
+                    }
+                });
+            }
+        }
+    }
+}
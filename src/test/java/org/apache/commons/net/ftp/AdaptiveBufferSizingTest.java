@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.net.io.CopyStreamAdapter;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveBufferSizingTest {
+
+    /** Returns at most 100 bytes per read, like a slow link. */
+    private static final class TrickleInputStream extends FilterInputStream {
+
+        TrickleInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            return super.read(b, off, Math.min(len, 100));
+        }
+    }
+
+    private static final String DEFAULT_HOME = "ftp_root_adaptive/";
+
+    private static byte[] random(final int size) {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testGrowsOnFullReads() throws Exception {
+        final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing();
+        final byte[] data = random(4 * 1024 * 1024);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, sizing.copy(new ByteArrayInputStream(data), out, null));
+        assertArrayEquals(data, out.toByteArray());
+        assertTrue(sizing.getBufferSize() > AdaptiveBufferSizing.DEFAULT_MIN_BUFFER_SIZE, () -> "" + sizing.getBufferSize());
+        assertTrue(sizing.getBufferSize() <= AdaptiveBufferSizing.DEFAULT_MAX_BUFFER_SIZE);
+        assertTrue(sizing.getThroughput() > 0);
+        assertEquals(1, sizing.getTransferCount());
+    }
+
+    @Test
+    public void testInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBufferSizing(0, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBufferSizing(2, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBufferSizing(1, 1, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveBufferSizing(1, 1, 2, 1));
+    }
+
+    @Test
+    public void testShrinksOnShortReads() throws Exception {
+        final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing(1024, 64 * 1024, 0, 0);
+        sizing.copy(new ByteArrayInputStream(random(1024 * 1024)), new ByteArrayOutputStream(), null);
+        assertTrue(sizing.getBufferSize() > 1024);
+        final long[] events = new long[1];
+        final byte[] data = random(200_000);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        sizing.copy(new TrickleInputStream(new ByteArrayInputStream(data)), out, new CopyStreamAdapter() {
+            @Override
+            public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+                events[0] = totalBytesTransferred;
+            }
+        });
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals(data.length, events[0]);
+        assertEquals(1024, sizing.getBufferSize());
+        // no socket bounds, so no socket sizes
+        assertEquals(0, sizing.getSocketBufferSize());
+    }
+
+    @Test
+    public void testSocketBufferSizeBounds() {
+        final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing();
+        assertEquals(0, sizing.getSocketBufferSize());
+        sizing.recordRoundTrip(TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(Duration.ofMillis(1), sizing.getRoundTripTime());
+        // 1 MB/s * 1 ms = 1 KB, raised to the minimum
+        sizing.recordTransfer(1_000_000, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(AdaptiveBufferSizing.DEFAULT_MIN_SOCKET_BUFFER_SIZE, sizing.getSocketBufferSize());
+        // 1 GB/s * 1 ms = 1 MB, doubled
+        sizing.recordTransfer(1_000_000_000, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(2_000_000, sizing.getSocketBufferSize());
+        // 1 GB/s * 100 ms = 100 MB, lowered to the maximum
+        sizing.recordRoundTrip(TimeUnit.MILLISECONDS.toNanos(100));
+        sizing.recordTransfer(1_000_000_000, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(AdaptiveBufferSizing.DEFAULT_MAX_SOCKET_BUFFER_SIZE, sizing.getSocketBufferSize());
+        assertEquals(3, sizing.getTransferCount());
+    }
+
+    @Test
+    public void testSocketBufferSizeDisabled() {
+        final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing(1024, 65536, 0, 8 * 1024 * 1024);
+        sizing.recordRoundTrip(TimeUnit.MILLISECONDS.toNanos(1));
+        sizing.recordTransfer(1_000_000_000, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, sizing.getSocketBufferSize());
+    }
+
+    @Test
+    public void testThroughputOfLargeTransfer() {
+        final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing();
+        // 100 GB in 100 s
+        sizing.recordTransfer(100_000_000_000L, TimeUnit.SECONDS.toNanos(100));
+        assertEquals(1_000_000_000, sizing.getThroughput());
+    }
+
+    @Test
+    public void testTransfers() throws Exception {
+        final FtpServerFixture server = FtpServerFixture.start(DEFAULT_HOME);
+        final FTPClient client = new FTPClient();
+        try {
+            final AdaptiveBufferSizing sizing = new AdaptiveBufferSizing();
+            client.setAdaptiveBufferSizing(sizing);
+            assertSame(sizing, client.getAdaptiveBufferSizing());
+            client.connect("localhost", server.getPort());
+            assertTrue(client.login(USER, PASSWORD));
+            assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+            client.enterLocalPassiveMode();
+            final byte[] data = random(2 * 1024 * 1024);
+            assertTrue(client.storeFile("data.bin", new ByteArrayInputStream(data)));
+            assertArrayEquals(data, Files.readAllBytes(Paths.get(DEFAULT_HOME, "data.bin")));
+            assertTrue(sizing.getRoundTripTime().toNanos() > 0);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(client.retrieveFile("data.bin", out));
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(2, sizing.getTransferCount());
+            final int socketBufferSize = sizing.getSocketBufferSize();
+            assertTrue(socketBufferSize >= AdaptiveBufferSizing.DEFAULT_MIN_SOCKET_BUFFER_SIZE, () -> "" + socketBufferSize);
+            assertTrue(socketBufferSize <= AdaptiveBufferSizing.DEFAULT_MAX_SOCKET_BUFFER_SIZE, () -> "" + socketBufferSize);
+            // a transfer with the socket buffer sizes set
+            out.reset();
+            assertTrue(client.retrieveFile("data.bin", out));
+            assertArrayEquals(data, out.toByteArray());
+            assertTrue(client.logout());
+        } finally {
+            client.disconnect();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ftpserver.ConnectionConfigFactory;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AsyncFTPClientTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_async/";
+    private static final int SESSIONS = 50;
+
+    private final AtomicInteger disconnects = new AtomicInteger();
+    private FtpServerFixture server;
+    private int port;
+    private AsynchronousChannelGroup group;
+    private Path localDir;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        disconnects.set(0);
+        server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final ConnectionConfigFactory connectionConfigFactory = new ConnectionConfigFactory();
+            connectionConfigFactory.setMaxLogins(SESSIONS * 2);
+            serverFactory.setConnectionConfig(connectionConfigFactory.createConnectionConfig());
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("disconnects", new DefaultFtplet() {
+                @Override
+                public FtpletResult onDisconnect(final FtpSession session) {
+                    disconnects.incrementAndGet();
+                    return FtpletResult.DEFAULT;
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        port = server.getPort();
+        Files.write(Paths.get(DEFAULT_HOME, "a.txt"), "alpha".getBytes());
+        Files.write(Paths.get(DEFAULT_HOME, "b.txt"), "beta".getBytes());
+        group = AsynchronousChannelGroup.withFixedThreadPool(2, Executors.defaultThreadFactory());
+        localDir = Files.createTempDirectory("async");
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        group.shutdownNow();
+        group.awaitTermination(10, TimeUnit.SECONDS);
+        server.close();
+        FileUtils.deleteDirectory(localDir.toFile());
+    }
+
+    private AsyncFTPClient connect() throws Exception {
+        final AsyncFTPClient client = new AsyncFTPClient(group);
+        client.connect("localhost", port);
+        assertTrue(client.login(USER, PASSWORD).get());
+        return client;
+    }
+
+    @Test
+    public void testConcurrentSessions() throws Exception {
+        final List<CompletableFuture<String[]>> listings = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            final AsyncFTPClient client = new AsyncFTPClient(group);
+            listings.add(client.connect("localhost", port).thenCompose(reply -> client.login(USER, PASSWORD)).thenCompose(loggedIn -> client.listNames(null))
+                    .whenComplete((names, e) -> client.logout()));
+        }
+        for (final CompletableFuture<String[]> listing : listings) {
+            final String[] names = listing.get(30, TimeUnit.SECONDS);
+            Arrays.sort(names);
+            assertArrayEquals(new String[] { "a.txt", "b.txt" }, names);
+        }
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        final AsyncFTPClient client = connect();
+        try {
+            final ExecutionException e = assertThrows(ExecutionException.class, () -> client.retrieveFile("missing.txt", localDir.resolve("missing")).get());
+            assertInstanceOf(IOException.class, e.getCause());
+            // the session is still usable
+            assertEquals(2, client.listFiles("/").get().length);
+            assertFalse(client.sendCommand("SIZE", "missing.txt").get().isPositiveCompletion());
+            assertThrows(IllegalArgumentException.class, () -> client.setTimeout(Duration.ofSeconds(-1)));
+        } finally {
+            assertTrue(client.logout().get());
+        }
+        assertFalse(client.isConnected());
+        assertThrows(ExecutionException.class, () -> client.listNames(null).get());
+    }
+
+    @Test
+    public void testReconnectClosesPreviousConnection() throws Exception {
+        final AsyncFTPClient client = connect();
+        try {
+            assertTrue(client.connect("localhost", port).get().isPositiveCompletion());
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (disconnects.get() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, disconnects.get());
+            assertTrue(client.login(USER, PASSWORD).get());
+            assertEquals(2, client.listNames(null).get().length);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testStoreAndRetrieve() throws Exception {
+        final byte[] content = new byte[100_000];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) i;
+        }
+        final Path upload = Files.write(localDir.resolve("upload.bin"), content);
+        final Path download = localDir.resolve("download.bin");
+        final AsyncFTPClient client = connect();
+        try {
+            // queued operations run in call order
+            final CompletableFuture<Long> stored = client.storeFile(upload, "stored.bin");
+            final CompletableFuture<Long> retrieved = client.retrieveFile("stored.bin", download);
+            final CompletableFuture<FTPFile[]> files = client.listFiles(null);
+            assertEquals(content.length, stored.get().longValue());
+            assertEquals(content.length, retrieved.get().longValue());
+            assertArrayEquals(content, Files.readAllBytes(download));
+            assertEquals(3, files.get().length);
+            final AsyncFTPClient.Reply size = client.sendCommand("SIZE", "stored.bin").get();
+            assertEquals(FTPReply.FILE_STATUS, size.getReplyCode());
+            assertEquals("213 " + content.length, size.getReplyStrings()[0]);
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.List;
+
+import org.apache.commons.net.ftp.parser.MLSxEntryParser;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.junit.jupiter.api.Test;
+
+public class CompactFTPFileListTest {
+
+    private static final String UNIX_LISTING = "total 42\r\n"
+            + "-rw-r--r--   1 alice    staff         123 Mar  2 15:13 notes.txt\r\n"
+            + "drwxr-x---   5 bob      staff        4096 Jan 12  2001 src\r\n"
+            + "lrwxrwxrwx   1 alice    wheel          11 Dec 24 23:59 latest -> notes.txt\r\n"
+            + "zzzzzzzzzz this line cannot be parsed\r\n"
+            + "-rwsr-xr-t   2 alice    staff  9876543210 Jul  4  1999 big file.bin\r\n";
+
+    private static void assertSameFile(final FTPFile expected, final FTPFile actual) {
+        assertEquals(expected.isValid(), actual.isValid());
+        assertEquals(expected.getRawListing(), actual.getRawListing());
+        if (!expected.isValid()) {
+            return;
+        }
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getSize(), actual.getSize());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getUser(), actual.getUser());
+        assertEquals(expected.getGroup(), actual.getGroup());
+        assertEquals(expected.getLink(), actual.getLink());
+        assertEquals(expected.getHardLinkCount(), actual.getHardLinkCount());
+        for (int access = 0; access < 3; access++) {
+            for (int permission = 0; permission < 3; permission++) {
+                assertEquals(expected.hasPermission(access, permission), actual.hasPermission(access, permission));
+            }
+        }
+        assertEquals(expected.getTimestamp().getTimeInMillis(), actual.getTimestamp().getTimeInMillis());
+        assertEquals(expected.getTimestamp().getTimeZone(), actual.getTimestamp().getTimeZone());
+        for (final int field : new int[] { Calendar.HOUR_OF_DAY, Calendar.MINUTE, Calendar.SECOND, Calendar.MILLISECOND }) {
+            assertEquals(expected.getTimestamp().isSet(field), actual.getTimestamp().isSet(field), expected.getName() + " field " + field);
+        }
+        assertEquals(expected.toFormattedString(), actual.toFormattedString());
+    }
+
+    private static FTPListParseEngine unixEngine() throws IOException {
+        final FTPClientConfig config = new FTPClientConfig();
+        config.setUnparseableEntries(true);
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser(), config);
+        engine.readServerList(new ByteArrayInputStream(UNIX_LISTING.getBytes(StandardCharsets.US_ASCII)), null);
+        return engine;
+    }
+
+    @Test
+    public void testColumnsMatchFTPFiles() throws IOException {
+        final FTPListParseEngine engine = unixEngine();
+        final List<FTPFile> expected = engine.getFileList(FTPFileFilters.NON_NULL);
+        final CompactFTPFileList actual = engine.getCompactFileList(FTPFileFilters.NON_NULL, true);
+        assertEquals(expected.size(), actual.size());
+        int index = 0;
+        for (final CompactFTPFileList.Entry entry : actual) {
+            final FTPFile file = expected.get(index);
+            assertEquals(index++, entry.getIndex());
+            assertSameFile(file, entry.toFTPFile());
+            assertEquals(file.isValid(), entry.isValid());
+            assertEquals(file.getRawListing(), entry.getRawListing());
+            if (file.isValid()) {
+                assertEquals(file.getName(), entry.getName());
+                assertEquals(file.getSize(), entry.getSize());
+                assertEquals(file.isDirectory(), entry.isDirectory());
+                assertEquals(file.isSymbolicLink(), entry.isSymbolicLink());
+                assertEquals(file.getTimestampInstant(), entry.getTimestampInstant());
+                assertEquals(file.hasPermission(FTPFile.WORLD_ACCESS, FTPFile.EXECUTE_PERMISSION),
+                        entry.hasPermission(FTPFile.WORLD_ACCESS, FTPFile.EXECUTE_PERMISSION));
+            }
+        }
+        // the "total" line is kept as an unparseable entry
+        assertFalse(actual.isValid(0));
+        assertEquals(9876543210L, actual.getSize(5));
+        assertEquals("notes.txt", actual.getLink(3));
+        assertFalse(actual.isValid(4));
+        assertNull(actual.getName(4));
+        // user and group names are shared
+        assertSame(actual.getUser(1), actual.getUser(3));
+        assertSame(actual.getGroup(1), actual.getGroup(2));
+    }
+
+    @Test
+    public void testDropRawListings() throws IOException {
+        final CompactFTPFileList list = unixEngine().getCompactFileList(FTPFileFilters.NON_NULL, false);
+        assertEquals(6, list.size());
+        for (int i = 0; i < list.size(); i++) {
+            assertNull(list.getRawListing(i));
+            assertNull(list.toFTPFile(i).getRawListing());
+        }
+        assertEquals("notes.txt", list.get(1).getName());
+    }
+
+    @Test
+    public void testFilterAndGrowth() {
+        final UnixFTPEntryParser parser = new UnixFTPEntryParser();
+        final CompactFTPFileList list = new CompactFTPFileList().trimToSize();
+        assertTrue(list.isEmpty());
+        for (int i = 0; i < 1000; i++) {
+            list.add(parser.parseFTPEntry("-rw-r--r--   1 user" + i % 7 + " group " + i + " Mar  2 15:13 file" + i));
+        }
+        list.add(null);
+        assertEquals(1000, list.size());
+        assertEquals("file999", list.getName(999));
+        assertEquals("user5", list.getUser(999));
+        assertEquals(999, list.getSize(999));
+        assertEquals(1000, list.toArray().length);
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getName(1000));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(-1));
+    }
+
+    @Test
+    public void testMlsdEntries() throws IOException {
+        final FTPListParseEngine engine = new FTPListParseEngine(MLSxEntryParser.getInstance());
+        engine.readServerList(new ByteArrayInputStream(("type=file;size=12;modify=20200102030405.678;perm=r; data.txt\r\n"
+                + "type=dir;modify=20200102030405;perm=el; dir\r\n").getBytes(StandardCharsets.UTF_8)), "UTF-8");
+        final List<FTPFile> expected = engine.getFileList(FTPFileFilters.NON_NULL);
+        final CompactFTPFileList actual = engine.getCompactFileList(FTPFileFilters.DIRECTORIES, true);
+        assertEquals(1, actual.size());
+        assertSameFile(expected.get(1), actual.toFTPFile(0));
+        assertSameFile(expected.get(0), new CompactFTPFileList(true).add(expected.get(0)).toFTPFile(0));
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class DeflateTransferCodecTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_deflate/";
+
+    private static byte[] text(final int lines) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            sb.append("line ").append(i).append(" of a text-heavy feed\n");
+        }
+        return sb.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private final AtomicReference<String> opts = new AtomicReference<>();
+    private FtpServerFixture server;
+    private FTPClient client;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("opts", new DefaultFtplet() {
+                @Override
+                public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+                    if ("OPTS".equals(request.getCommand()) && request.getArgument().startsWith("MODE ")) {
+                        // like a server which supports the compression level only
+                        opts.set(request.getArgument());
+                        session.write(request.getArgument().endsWith(" LEVEL 9") ? new DefaultFtpReply(FTPReply.COMMAND_OK, "Options set.")
+                                : new DefaultFtpReply(FTPReply.SYNTAX_ERROR_IN_ARGUMENTS, "Unsupported options."));
+                        return FtpletResult.SKIP;
+                    }
+                    return super.beforeCommand(session, request);
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        client = new FTPClient();
+        client.connect("localhost", server.getPort());
+        assertTrue(client.login(USER, PASSWORD));
+        assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        client.disconnect();
+        server.close();
+    }
+
+    @Test
+    public void testCustomCodec() throws Exception {
+        final CountingOutputStream[] wire = new CountingOutputStream[1];
+        final DeflateTransferCodec deflate = new DeflateTransferCodec(9);
+        final FTPTransferCodec counting = new FTPTransferCodec() {
+            @Override
+            public InputStream decode(final InputStream input) throws IOException {
+                return deflate.decode(input);
+            }
+
+            @Override
+            public OutputStream encode(final OutputStream output) throws IOException {
+                wire[0] = new CountingOutputStream(output);
+                return deflate.encode(wire[0]);
+            }
+
+            @Override
+            public String getMode() {
+                return "Z";
+            }
+        };
+        assertTrue(client.setTransferCodec(counting));
+        assertNull(opts.get());
+        final byte[] data = text(5_000);
+        assertTrue(client.storeFile("feed.txt", new ByteArrayInputStream(data)));
+        assertArrayEquals(data, Files.readAllBytes(Paths.get(DEFAULT_HOME, "feed.txt")));
+        assertTrue(wire[0].getByteCount() * 10 < data.length, wire[0].getByteCount() + " of " + data.length);
+    }
+
+    @Test
+    public void testDefaultMode() throws Exception {
+        assertTrue(client.setFileTransferMode(FTP.DEFLATE_TRANSFER_MODE));
+        assertSame(DeflateTransferCodec.getDefault(), client.getTransferCodec());
+        assertTrue(client.setFileTransferMode(FTP.STREAM_TRANSFER_MODE));
+        assertNull(client.getTransferCodec());
+        assertThrows(IllegalArgumentException.class, () -> new DeflateTransferCodec(10));
+        assertThrows(IllegalArgumentException.class, () -> new DeflateTransferCodec(1, 0, 1));
+    }
+
+    @Test
+    public void testReuseAcrossTransfers() throws Exception {
+        final DeflateTransferCodec codec = new DeflateTransferCodec(9, 4096, 2);
+        assertTrue(client.setTransferCodec(codec));
+        assertEquals(FTP.DEFLATE_TRANSFER_MODE, client.getFileTransferMode());
+        assertEquals("MODE Z LEVEL 9", opts.get());
+        for (int i = 0; i < 20; i++) {
+            final byte[] data = text(i * 50);
+            assertTrue(client.storeFile("file" + i + ".txt", new ByteArrayInputStream(data)));
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            assertTrue(client.retrieveFile("file" + i + ".txt", out));
+            assertArrayEquals(data, out.toByteArray());
+            assertEquals(1, codec.getIdleDeflaterCount());
+            assertEquals(1, codec.getIdleInflaterCount());
+        }
+        // listings never close the stream, only the socket
+        assertEquals(20, client.listFiles().length);
+        assertEquals(1, codec.getIdleInflaterCount());
+        codec.clear();
+        assertEquals(0, codec.getIdleDeflaterCount());
+        assertEquals(0, codec.getIdleInflaterCount());
+        assertTrue(client.storeFile("after-clear.txt", new ByteArrayInputStream(text(10))));
+        assertTrue(client.setTransferCodec(null));
+        assertNull(client.getTransferCodec());
+        assertEquals(FTP.STREAM_TRANSFER_MODE, client.getFileTransferMode());
+    }
+
+    @Test
+    public void testTransferModeFollowsCodec() throws Exception {
+        final FTPTransferCodec identity = new FTPTransferCodec() {
+            @Override
+            public InputStream decode(final InputStream input) {
+                return input;
+            }
+
+            @Override
+            public OutputStream encode(final OutputStream output) {
+                return output;
+            }
+
+            @Override
+            public String getMode() {
+                return "S";
+            }
+        };
+        assertTrue(client.setTransferCodec(new DeflateTransferCodec(9)));
+        assertEquals(FTP.DEFLATE_TRANSFER_MODE, client.getFileTransferMode());
+        assertTrue(client.setTransferCodec(identity));
+        assertEquals(FTP.STREAM_TRANSFER_MODE, client.getFileTransferMode());
+        assertSame(identity, client.getTransferCodec());
+        // refused options leave the mode in effect with the settings of the server
+        final DeflateTransferCodec fast = new DeflateTransferCodec(1);
+        assertFalse(client.setTransferCodec(fast));
+        assertEquals("MODE Z LEVEL 1", opts.get());
+        assertEquals(FTP.DEFLATE_TRANSFER_MODE, client.getFileTransferMode());
+        assertSame(fast, client.getTransferCodec());
+        final byte[] data = text(100);
+        assertTrue(client.storeFile("fast.txt", new ByteArrayInputStream(data)));
+        assertArrayEquals(data, Files.readAllBytes(Paths.get(DEFAULT_HOME, "fast.txt")));
+        assertThrows(IllegalArgumentException.class, () -> client.setTransferCodec(new FTPTransferCodec() {
+            @Override
+            public InputStream decode(final InputStream input) {
+                return input;
+            }
+
+            @Override
+            public OutputStream encode(final OutputStream output) {
+                return output;
+            }
+
+            @Override
+            public String getMode() {
+                return "X";
+            }
+        }));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.apache.commons.net.io.HashingInputStream;
+import org.apache.commons.net.io.HashingOutputStream;
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPChecksumTest {
+
+    /**
+     * Adds HASH and XCRC to the embedded server, which supports neither.
+     */
+    private final class HashFtplet extends DefaultFtplet {
+
+        private String hashAlgorithm = "SHA-256";
+
+        @Override
+        public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+            final String command = request.getCommand();
+            commands.computeIfAbsent(command, k -> new AtomicInteger()).incrementAndGet();
+            switch (command) {
+            case "FEAT":
+                session.write(new DefaultFtpReply(211, "Extensions supported:\n HASH SHA-1;SHA-256*;MD5\n XCRC\n SIZE\nEnd"));
+                return FtpletResult.SKIP;
+            case "OPTS":
+                if (request.getArgument().startsWith("HASH ")) {
+                    hashAlgorithm = request.getArgument().substring(5);
+                    session.write(new DefaultFtpReply(200, hashAlgorithm));
+                    return FtpletResult.SKIP;
+                }
+                break;
+            case "HASH": {
+                final byte[] data = Files.readAllBytes(Paths.get(DEFAULT_HOME, request.getArgument()));
+                session.write(new DefaultFtpReply(213, hashAlgorithm + " 0-" + data.length + " " + hex(digest(hashAlgorithm, data)) + " "
+                        + request.getArgument()));
+                return FtpletResult.SKIP;
+            }
+            case "XCRC":
+            case "CRC": { // the server strips the X of XMKD-style aliases
+                final CRC32 crc = new CRC32();
+                crc.update(Files.readAllBytes(Paths.get(DEFAULT_HOME, request.getArgument())));
+                session.write(new DefaultFtpReply(250, String.format("%08X", crc.getValue())));
+                return FtpletResult.SKIP;
+            }
+            default:
+                break;
+            }
+            return super.beforeCommand(session, request);
+        }
+    }
+
+    private static final String DEFAULT_HOME = "ftp_root_checksum/";
+
+    private static byte[] digest(final String algorithm, final byte[] data) throws IOException {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(data);
+        } catch (final Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static String hex(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder();
+        for (final byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private final Map<String, AtomicInteger> commands = new ConcurrentHashMap<>();
+    private FtpServerFixture server;
+    private FTPClient client;
+    private byte[] data;
+
+    private int count(final String command) {
+        final AtomicInteger counter = commands.get(command);
+        return counter == null ? 0 : counter.get();
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("hash", new HashFtplet());
+            serverFactory.setFtplets(ftplets);
+        });
+        data = new byte[100_000];
+        new Random(42).nextBytes(data);
+        client = new FTPClient();
+        client.connect("localhost", server.getPort());
+        assertTrue(client.login(USER, PASSWORD));
+        assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        client.disconnect();
+        server.close();
+    }
+
+    @Test
+    public void testAlgorithms() throws Exception {
+        assertEquals(new HashSet<>(Arrays.asList(FTPChecksum.SHA_1, FTPChecksum.SHA_256, FTPChecksum.MD5, FTPChecksum.CRC32)),
+                client.getChecksumAlgorithms());
+        Files.write(Paths.get(DEFAULT_HOME, "file.bin"), data);
+        assertNull(client.getChecksum("file.bin", "sha512"));
+        assertThrows(IllegalArgumentException.class, () -> client.getChecksum("file.bin", "whirlpool"));
+    }
+
+    @Test
+    public void testHashOnRetrieve() throws Exception {
+        Files.write(Paths.get(DEFAULT_HOME, "file.bin"), data);
+        final HashingOutputStream out = new HashingOutputStream(new ByteArrayOutputStream(), "MD5");
+        assertTrue(client.retrieveFile("file.bin", out));
+        assertEquals(data.length, out.getByteCount());
+        final FTPChecksum checksum = client.getChecksum("file.bin", "md5");
+        assertNotNull(checksum);
+        assertEquals(FTPChecksum.MD5, checksum.getAlgorithm());
+        assertEquals(data.length, checksum.getEnd());
+        assertTrue(checksum.matches(out.getHash()), checksum + " " + out.getHash());
+        // the algorithm stays selected
+        assertNotNull(client.getChecksum("file.bin", FTPChecksum.MD5));
+        assertEquals(1, count("OPTS"));
+        assertEquals(2, count("HASH"));
+    }
+
+    @Test
+    public void testHashOnStore() throws Exception {
+        final HashingInputStream in = new HashingInputStream(new ByteArrayInputStream(data), FTPChecksum.SHA_256);
+        assertTrue(client.storeFile("stored.bin", in));
+        final FTPChecksum checksum = client.getChecksum("stored.bin", FTPChecksum.SHA_256);
+        assertTrue(checksum.matches(in.getHash()));
+        assertFalse(checksum.matches(new HashingInputStream(new ByteArrayInputStream(new byte[1]), "SHA-256").getHash()));
+        // SHA-256 is the default, no OPTS needed
+        assertEquals(0, count("OPTS"));
+    }
+
+    @Test
+    public void testParseReplies() {
+        final FTPChecksum hash = FTPChecksum.parseHashReply("SHA-256 0-49 169CD22282DA7F147CB491E559E9DD filename.txt");
+        assertEquals(FTPChecksum.SHA_256, hash.getAlgorithm());
+        assertEquals("169cd22282da7f147cb491e559e9dd", hash.getValue());
+        assertEquals(0, hash.getStart());
+        assertEquals(49, hash.getEnd());
+        assertNull(FTPChecksum.parseHashReply("SHA-256 049 abc file"));
+        assertNull(FTPChecksum.parseHashReply("ROT13 0-49 abc file"));
+        assertEquals("0a1b2c3d", FTPChecksum.parseXReply(FTPChecksum.CRC32, " file.txt 0A1B2C3D").getValue());
+        assertNull(FTPChecksum.parseXReply(FTPChecksum.MD5, "0A1B2C3D"));
+        assertTrue(FTPChecksum.parseXReply(FTPChecksum.CRC32, "00001234").matches("1234"));
+    }
+
+    @Test
+    public void testXcrc() throws Exception {
+        Files.write(Paths.get(DEFAULT_HOME, "file.bin"), data);
+        final HashingOutputStream out = new HashingOutputStream(new ByteArrayOutputStream(), "crc32");
+        assertTrue(client.retrieveFile("file.bin", out));
+        final FTPChecksum checksum = client.getChecksum("file.bin", FTPChecksum.CRC32);
+        assertTrue(checksum.matches(out.getHash()), checksum + " " + out.getHash());
+        assertEquals(1, count("XCRC") + count("CRC"));
+        assertEquals(0, count("HASH"));
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Random;
+
+import javax.net.SocketFactory;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPClientFileChannelTest {
+
+    /**
+     * Creates sockets backed by a {@link SocketChannel} so the channel transfer path is exercised.
+     */
+    private static final class ChannelSocketFactory extends SocketFactory {
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return SocketChannel.open().socket();
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress, final int localPort) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final String DEFAULT_HOME = "ftp_root_channel/";
+
+    private FtpServerFixture server;
+    private int port;
+    private FTPClient client;
+    private Path local;
+    private byte[] content;
+
+    private void connect(final boolean channelSockets) throws IOException {
+        client = new FTPClient();
+        if (channelSockets) {
+            client.setSocketFactory(new ChannelSocketFactory());
+        }
+        client.connect("localhost", port);
+        assertTrue(client.login(USER, PASSWORD));
+        client.enterLocalPassiveMode();
+        assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+    }
+
+    /**
+     * Answers like a server which opens the data connection of a RETR but never sends the data.
+     */
+    private static void serveStalledRetrieve(final ServerSocket control, final ServerSocket data) {
+        try (Socket socket = control.accept();
+                BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+                Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            writer.write("220 ready\r\n");
+            writer.flush();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String command = line.split(" ")[0];
+                if ("USER".equals(command)) {
+                    writer.write("230 logged in\r\n");
+                } else if ("PASV".equals(command)) {
+                    final int port = data.getLocalPort();
+                    writer.write("227 Entering Passive Mode (127,0,0,1," + (port >> 8) + "," + (port & 0xff) + ")\r\n");
+                } else if ("RETR".equals(command)) {
+                    writer.write("150 sending\r\n");
+                    writer.flush();
+                    try (Socket stalled = data.accept()) {
+                        // hold the data connection open until the client gives up
+                        while (stalled.getInputStream().read() != -1) {
+                            // nothing is expected
+                        }
+                    }
+                    writer.write("426 aborted\r\n");
+                } else {
+                    writer.write("200 ok\r\n");
+                }
+                writer.flush();
+            }
+        } catch (final IOException e) {
+            // the client went away
+        }
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        port = server.getPort();
+        content = new byte[300_000];
+        new Random(7).nextBytes(content);
+        local = Files.createTempFile("channel", ".bin");
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        if (client != null && client.isConnected()) {
+            client.disconnect();
+        }
+        Files.deleteIfExists(local);
+        server.close();
+    }
+
+    @Test
+    public void testRetrieveAscii() throws Exception {
+        Files.write(Paths.get(DEFAULT_HOME, "text.txt"), "one\r\ntwo\r\n".getBytes(StandardCharsets.US_ASCII));
+        connect(false);
+        assertTrue(client.setFileType(FTP.ASCII_FILE_TYPE));
+        assertTrue(client.retrieveFile("text.txt", local));
+        assertEquals("one" + System.lineSeparator() + "two" + System.lineSeparator(),
+            new String(Files.readAllBytes(local), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testRetrieveMissingFile() throws Exception {
+        connect(false);
+        assertFalse(client.retrieveFile("missing.bin", local));
+    }
+
+    @Test
+    public void testRetrieveMissingFileKeepsLocalFile() throws Exception {
+        Files.write(local, content);
+        connect(false);
+        assertFalse(client.retrieveFile("missing.bin", local));
+        assertArrayEquals(content, Files.readAllBytes(local));
+    }
+
+    @Test
+    public void testRetrieveTimesOutWithChannelSockets() throws Exception {
+        try (ServerSocket control = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                ServerSocket data = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            final Thread stub = new Thread(() -> serveStalledRetrieve(control, data));
+            stub.setDaemon(true);
+            stub.start();
+            client = new FTPClient();
+            client.setSocketFactory(new ChannelSocketFactory());
+            client.connect(InetAddress.getLoopbackAddress(), control.getLocalPort());
+            assertTrue(client.login(USER, PASSWORD));
+            client.enterLocalPassiveMode();
+            assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+            client.setDataTimeout(Duration.ofMillis(200));
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> assertThrows(IOException.class, () -> client.retrieveFile("stalled.bin", local)));
+        }
+    }
+
+    @Test
+    public void testRetrieveWithChannelSockets() throws Exception {
+        Files.write(Paths.get(DEFAULT_HOME, "big.bin"), content);
+        connect(true);
+        assertTrue(client.retrieveFile("big.bin", local));
+        assertArrayEquals(content, Files.readAllBytes(local));
+    }
+
+    @Test
+    public void testRetrieveWithStreamSockets() throws Exception {
+        Files.write(Paths.get(DEFAULT_HOME, "big.bin"), content);
+        connect(false);
+        assertTrue(client.retrieveFile("big.bin", local));
+        assertArrayEquals(content, Files.readAllBytes(local));
+    }
+
+    @Test
+    public void testStoreFromPosition() throws Exception {
+        Files.write(local, content);
+        connect(true);
+        try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+            channel.position(1000);
+            assertTrue(client.storeFile("tail.bin", channel));
+            assertEquals(content.length, channel.position());
+        }
+        final byte[] expected = new byte[content.length - 1000];
+        System.arraycopy(content, 1000, expected, 0, expected.length);
+        assertArrayEquals(expected, Files.readAllBytes(Paths.get(DEFAULT_HOME, "tail.bin")));
+    }
+
+    @Test
+    public void testStoreWithChannelSockets() throws Exception {
+        Files.write(local, content);
+        connect(true);
+        assertTrue(client.storeFile("up.bin", local));
+        assertArrayEquals(content, Files.readAllBytes(Paths.get(DEFAULT_HOME, "up.bin")));
+    }
+
+    @Test
+    public void testStoreWithStreamSockets() throws Exception {
+        Files.write(local, content);
+        connect(false);
+        assertTrue(client.storeFile("up.bin", local));
+        assertArrayEquals(content, Files.readAllBytes(Paths.get(DEFAULT_HOME, "up.bin")));
+    }
+}
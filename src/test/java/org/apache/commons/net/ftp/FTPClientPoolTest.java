@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPClientPoolTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_pool/";
+
+    private FtpServerFixture server;
+    private FTPClientPool.Key key;
+    private AtomicInteger created;
+    private FTPClientPool pool;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        new File(DEFAULT_HOME, "sub").mkdirs();
+        key = new FTPClientPool.Key("localhost", server.getPort(), USER, PASSWORD);
+        created = new AtomicInteger();
+        pool = new FTPClientPool(k -> {
+            created.incrementAndGet();
+            return k.connect();
+        });
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void testBorrowTimeout() throws Exception {
+        pool.setMaxTotalPerKey(1);
+        pool.setBorrowTimeout(Duration.ofMillis(100));
+        final FTPClient client = pool.borrowClient(key);
+        assertThrows(IOException.class, () -> pool.borrowClient(key));
+        pool.returnClient(client);
+        assertSame(client, pool.borrowClient(key));
+    }
+
+    @Test
+    public void testDeadSessionIsReplaced() throws Exception {
+        final FTPClient client = pool.borrowClient(key);
+        pool.returnClient(client);
+        client.disconnect();
+        final FTPClient replacement = pool.borrowClient(key);
+        assertNotSame(client, replacement);
+        assertTrue(replacement.sendNoOp());
+        assertEquals(2, created.get());
+    }
+
+    @Test
+    public void testEvictIdleSessions() throws Exception {
+        pool.setMaxIdleTime(Duration.ZERO);
+        final FTPClient first = pool.borrowClient(key);
+        final FTPClient second = pool.borrowClient(key);
+        pool.returnClient(first);
+        pool.returnClient(second);
+        assertEquals(2, pool.getIdleCount(key));
+        pool.setMinIdlePerKey(1);
+        Thread.sleep(5);
+        pool.evict();
+        assertEquals(1, pool.getIdleCount(key));
+        pool.setMinIdlePerKey(0);
+        Thread.sleep(5);
+        pool.evict();
+        assertEquals(0, pool.getIdleCount(key));
+        assertFalse(first.isConnected() && second.isConnected());
+    }
+
+    @Test
+    public void testInvalidateAndClose() throws Exception {
+        final FTPClient client = pool.borrowClient(key);
+        assertEquals(1, pool.getActiveCount(key));
+        pool.invalidateClient(client);
+        assertFalse(client.isConnected());
+        assertEquals(0, pool.getActiveCount(key));
+        assertThrows(IllegalArgumentException.class, () -> pool.returnClient(client));
+        pool.returnClient(pool.borrowClient(key));
+        pool.close();
+        assertEquals(0, pool.getIdleCount(key));
+        assertThrows(IOException.class, () -> pool.borrowClient(key));
+    }
+
+    @Test
+    public void testPrepare() throws Exception {
+        pool.setMinIdlePerKey(3);
+        pool.prepare(key);
+        assertEquals(3, pool.getIdleCount(key));
+        assertEquals(3, created.get());
+    }
+
+    @Test
+    public void testReuseRestoresState() throws Exception {
+        final FTPClient client = pool.borrowClient(key);
+        final String home = client.printWorkingDirectory();
+        assertTrue(client.changeWorkingDirectory("sub"));
+        assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+        client.enterLocalActiveMode();
+        pool.returnClient(client);
+        assertEquals(1, pool.getIdleCount(key));
+
+        final FTPClient again = pool.borrowClient(key);
+        assertSame(client, again);
+        assertEquals(1, created.get());
+        assertEquals(home, again.printWorkingDirectory());
+        assertEquals(FTP.ASCII_FILE_TYPE, again.getFileType());
+        assertEquals(FTPClient.PASSIVE_LOCAL_DATA_CONNECTION_MODE, again.getDataConnectionMode());
+        pool.returnClient(again);
+    }
+
+    @Test
+    public void testSeparateKeys() throws Exception {
+        final FTPClientPool.Key other = new FTPClientPool.Key(key.getHost(), key.getPort(), USER, PASSWORD, null, true);
+        assertEquals(key, other);
+        assertEquals("ftp://" + USER + "@localhost:" + key.getPort(), other.toString());
+        final FTPClientPool.Key wrongPassword = new FTPClientPool.Key(key.getHost(), key.getPort(), USER, "wrong");
+        assertFalse(key.equals(wrongPassword));
+        assertThrows(IOException.class, () -> pool.borrowClient(wrongPassword));
+        assertEquals(0, pool.getActiveCount(wrongPassword));
+    }
+}
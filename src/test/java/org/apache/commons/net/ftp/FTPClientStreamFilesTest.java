@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPClientStreamFilesTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_stream/";
+
+    private FtpServerFixture server;
+    private FTPClient client;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        for (int i = 0; i < 200; i++) {
+            Files.write(Paths.get(DEFAULT_HOME, "file" + i), new byte[i]);
+        }
+        client = new FTPClient();
+        client.connect("localhost", server.getPort());
+        client.login(USER, PASSWORD);
+        client.enterLocalPassiveMode();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        client.disconnect();
+        server.close();
+    }
+
+    private static Set<String> namesAndSizes(final CompactFTPFileList files) {
+        final Set<String> result = new TreeSet<>();
+        for (final CompactFTPFileList.Entry entry : files) {
+            result.add(entry.getName() + " " + entry.getSize());
+        }
+        return result;
+    }
+
+    private static Set<String> namesAndSizes(final FTPFile[] files) {
+        final Set<String> result = new TreeSet<>();
+        for (final FTPFile file : files) {
+            result.add(file.getName() + " " + file.getSize());
+        }
+        return result;
+    }
+
+    @Test
+    public void testListFilesCompact() throws IOException {
+        final FTPFileFilter large = file -> file != null && file.getSize() >= 100;
+        final Set<String> expected = namesAndSizes(client.listFiles(null, large));
+        assertEquals(100, expected.size());
+        assertEquals(expected, namesAndSizes(client.listFilesCompact(null, large, false)));
+        assertEquals(namesAndSizes(client.mlistDir(null, large)), namesAndSizes(client.mlistDirCompact(null, large, true)));
+        assertTrue(FTPReply.isPositiveCompletion(client.getReplyCode()));
+        // the control connection is usable again
+        assertTrue(client.sendNoOp());
+    }
+
+    @Test
+    public void testStreamFiles() throws IOException {
+        final Set<String> expected = new TreeSet<>();
+        for (final FTPFile file : client.listFiles()) {
+            expected.add(file.getName());
+        }
+        try (Stream<FTPFile> stream = client.streamFiles(null)) {
+            assertEquals(expected, stream.map(FTPFile::getName).collect(Collectors.toCollection(TreeSet::new)));
+        }
+        assertTrue(FTPReply.isPositiveCompletion(client.getReplyCode()));
+        assertEquals(200, expected.size());
+        // the control connection is usable again
+        assertTrue(client.sendNoOp());
+    }
+
+    @Test
+    public void testStreamFilesClosedEarly() throws IOException {
+        try (Stream<FTPFile> stream = client.streamFiles(null)) {
+            assertTrue(stream.findFirst().isPresent());
+        }
+        assertTrue(client.sendNoOp());
+        assertEquals(200, client.listFiles().length);
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.net.ProtocolCommandEvent;
+import org.apache.commons.net.ProtocolCommandListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPCommandBatchTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_batch/";
+    private static final int FILES = 200;
+
+    private FtpServerFixture server;
+    private FTPClient client;
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        for (int i = 0; i < FILES; i++) {
+            Files.write(Paths.get(DEFAULT_HOME, "file" + i + ".txt"), new byte[i]);
+        }
+        client = new FTPClient();
+        client.connect("localhost", server.getPort());
+        assertTrue(client.login(USER, PASSWORD));
+        assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        client.disconnect();
+        server.close();
+    }
+
+    @Test
+    public void testDeleteAndRename() throws Exception {
+        final FTPCommandBatch batch = new FTPCommandBatch().setWindow(7);
+        for (int i = 0; i < FILES; i += 2) {
+            batch.add(FTPCmd.DELE, "file" + i + ".txt");
+        }
+        batch.add("rnfr", "missing.txt").add(FTPCmd.RNTO, "other.txt");
+        batch.add(FTPCmd.RNFR, "file1.txt").add(FTPCmd.RNTO, "renamed.txt");
+        final List<FTPCommandBatch.Result> results = client.executeBatch(batch);
+        assertEquals(batch.size(), results.size());
+        for (int i = 0; i < FILES / 2; i++) {
+            assertTrue(results.get(i).isPositiveCompletion(), results.get(i).toString());
+        }
+        assertFalse(results.get(FILES / 2).isPositiveCompletion());
+        assertEquals("RNFR", results.get(FILES / 2).getCommand());
+        assertFalse(results.get(FILES / 2 + 1).isPositiveCompletion());
+        assertTrue(results.get(FILES / 2 + 3).isPositiveCompletion());
+        assertEquals(FILES / 2, new File(DEFAULT_HOME).list().length);
+        assertTrue(new File(DEFAULT_HOME, "renamed.txt").exists());
+        // the connection is still in step
+        assertTrue(client.sendNoOp());
+    }
+
+    @Test
+    public void testInvalidCommands() {
+        final FTPCommandBatch batch = new FTPCommandBatch();
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.RETR, "file"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add("pasv", null));
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.DELE, "a\r\nQUIT"));
+        assertThrows(IllegalArgumentException.class, () -> batch.setWindow(0));
+        assertEquals(0, batch.size());
+    }
+
+    @Test
+    public void testRejectsStateChangingCommands() {
+        final FTPCommandBatch batch = new FTPCommandBatch();
+        batch.add(FTPCmd.NOOP, null);
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.TYPE, "A"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.MODE, "Z"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.STRU, "F"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add(FTPCmd.REST, "100"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add("PBSZ", "0"));
+        assertThrows(IllegalArgumentException.class, () -> batch.add("prot", "C"));
+        assertEquals(1, batch.size());
+    }
+
+    @Test
+    public void testSizeAndModificationTime() throws Exception {
+        final AtomicInteger commandsSent = new AtomicInteger();
+        final AtomicInteger repliesReceived = new AtomicInteger();
+        client.addProtocolCommandListener(new ProtocolCommandListener() {
+            @Override
+            public void protocolCommandSent(final ProtocolCommandEvent event) {
+                commandsSent.incrementAndGet();
+            }
+
+            @Override
+            public void protocolReplyReceived(final ProtocolCommandEvent event) {
+                repliesReceived.incrementAndGet();
+            }
+        });
+        final FTPCommandBatch batch = new FTPCommandBatch();
+        for (int i = 0; i < FILES; i++) {
+            batch.add(FTPCmd.SIZE, "file" + i + ".txt");
+            batch.add(FTPCmd.MDTM, "file" + i + ".txt");
+        }
+        batch.add(FTPCmd.SIZE, "missing.txt");
+        final List<FTPCommandBatch.Result> results = client.executeBatch(batch);
+        assertEquals(2 * FILES + 1, results.size());
+        assertEquals(2 * FILES + 1, commandsSent.get());
+        assertEquals(2 * FILES + 1, repliesReceived.get());
+        for (int i = 0; i < FILES; i++) {
+            final FTPCommandBatch.Result size = results.get(2 * i);
+            final FTPCommandBatch.Result mdtm = results.get(2 * i + 1);
+            assertEquals("file" + i + ".txt", size.getArgument());
+            assertEquals(i, size.getSize());
+            assertNull(size.getModificationTime());
+            assertNotNull(mdtm.getModificationTime());
+            assertEquals(client.mdtmInstant("file" + i + ".txt"), mdtm.getModificationTime());
+            assertEquals(-1, mdtm.getSize());
+        }
+        final FTPCommandBatch.Result missing = results.get(2 * FILES);
+        assertFalse(missing.isPositiveCompletion());
+        assertEquals(-1, missing.getSize());
+        assertEquals(missing.getReplyCode(), Integer.parseInt(missing.getReplyStrings()[0].substring(0, 3)));
+        assertTrue(missing.getReplyString().endsWith("\r\n"));
+    }
+}
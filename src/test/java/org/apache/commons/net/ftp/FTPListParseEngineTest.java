@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+import org.apache.commons.net.ftp.parser.VMSVersioningFTPEntryParser;
+import org.junit.jupiter.api.Test;
+
+public class FTPListParseEngineTest {
+
+    private static final String VMS_LISTING = "Directory USER1:[TEMP]\r\n\r\n"
+            + "1-JUN.LIS;1              9/9           2-JUN-1998 07:32:04  [GROUP,OWNER]    (RWED,RWED,RWED,RE)\r\n"
+            + "3-JUN.LIS;1              9/9           3-JUN-1998 07:32:04  [GROUP,OWNER]    (RWED,RWED,RWED,)\r\n"
+            + "3-JUN.LIS;4              9/9           7-JUN-1998 07:32:04  [GROUP,OWNER]    (RWED,RWED,RWED,)\r\n"
+            + "3-JUN.LIS;2              9/9           4-JUN-1998 07:32:04  [GROUP,OWNER]    (RWED,RWED,RWED,)\r\n" + "\r\nTotal 4 files";
+
+    private static InputStream unixListing(final int count) {
+        final StringBuilder sb = new StringBuilder("total 42\r\n");
+        for (int i = 0; i < count; i++) {
+            sb.append("-rw-r--r--   1 user     group        ").append(i).append(" Mar  2 15:13 file").append(i).append("\r\n");
+        }
+        sb.append("zrwxr-xr-x   2 root     root         4096 Mar  2 15:13 broken\r\n");
+        return new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testStreamMatchesBufferedList() throws IOException {
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser());
+        engine.readServerList(unixListing(5000), null);
+        final List<String> expected = engine.getFileList(FTPFileFilters.NON_NULL).stream().map(FTPFile::getName).collect(Collectors.toList());
+        try (Stream<FTPFile> stream = engine.streamServerList(unixListing(5000), null, 16)) {
+            assertEquals(expected, stream.map(FTPFile::getName).collect(Collectors.toList()));
+        }
+        assertEquals(5000, expected.size());
+    }
+
+    @Test
+    public void testParallelFileListMatchesSequential() throws IOException {
+        final FTPClientConfig config = new FTPClientConfig();
+        config.setUnparseableEntries(true);
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser(), config);
+        engine.readServerList(unixListing(20_000), null);
+        final List<FTPFile> expected = engine.getFileList(FTPFileFilters.ALL);
+        final Set<FTPFileEntryParser> parsers = ConcurrentHashMap.newKeySet();
+        final AtomicInteger sharedUses = new AtomicInteger();
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final List<FTPFile> actual = engine.getFileList(FTPFileFilters.ALL, () -> {
+                // a parser belongs to the thread which asked for it
+                final Thread owner = Thread.currentThread();
+                final UnixFTPEntryParser parser = new UnixFTPEntryParser() {
+                    @Override
+                    public FTPFile parseFTPEntry(final String entry) {
+                        if (Thread.currentThread() != owner) {
+                            sharedUses.incrementAndGet();
+                        }
+                        return super.parseFTPEntry(entry);
+                    }
+                };
+                parsers.add(parser);
+                return parser;
+            }, pool);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getRawListing(), actual.get(i).getRawListing());
+                assertEquals(expected.get(i).getSize(), actual.get(i).getSize());
+                assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertFalse(parsers.isEmpty());
+        assertEquals(0, sharedUses.get());
+        assertEquals(20_002, engine.getFileList(FTPFileFilters.NON_NULL, UnixFTPEntryParser::new).size()); // unparseable entries are kept
+    }
+
+    @Test
+    public void testStreamIsLazy() {
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser());
+        final InputStream failing = new InputStream() {
+            private final InputStream head = unixListing(3);
+
+            @Override
+            public int read() throws IOException {
+                final int b = head.read();
+                if (b < 0) {
+                    throw new IOException("connection reset");
+                }
+                return b;
+            }
+        };
+        try (Stream<FTPFile> stream = engine.streamServerList(failing, null, 1)) {
+            assertEquals("file0", stream.findFirst().get().getName());
+        }
+        try (Stream<FTPFile> stream = new FTPListParseEngine(new UnixFTPEntryParser()).streamServerList(failing, null)) {
+            assertThrows(UncheckedIOException.class, stream::count);
+        }
+    }
+
+    @Test
+    public void testStreamKeepsUnparseableEntries() {
+        final FTPClientConfig config = new FTPClientConfig();
+        config.setUnparseableEntries(true);
+        final FTPListParseEngine engine = new FTPListParseEngine(new UnixFTPEntryParser(), config);
+        try (Stream<FTPFile> stream = engine.streamServerList(unixListing(2), null)) {
+            final List<FTPFile> files = stream.collect(Collectors.toList());
+            // the "total" line and the broken entry are kept as raw listings
+            assertEquals(4, files.size());
+            assertTrue(files.get(3).getRawListing().contains("broken"));
+        }
+    }
+
+    @Test
+    public void testStreamPreParsesWindow() {
+        final VMSVersioningFTPEntryParser parser = new VMSVersioningFTPEntryParser();
+        parser.configure(null);
+        final FTPListParseEngine engine = new FTPListParseEngine(parser);
+        try (Stream<FTPFile> stream = engine.streamServerList(new ByteArrayInputStream(VMS_LISTING.getBytes(StandardCharsets.US_ASCII)), null)) {
+            assertEquals(2, stream.count());
+        }
+        assertThrows(IllegalArgumentException.class, () -> engine.streamServerList(new ByteArrayInputStream(new byte[0]), null, 0));
+    }
+}
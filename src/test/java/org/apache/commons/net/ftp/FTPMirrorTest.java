@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPMirrorTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_mirror/";
+    private static final String LOCAL = "ftp_mirror_local/";
+
+    private static void write(final String path, final String content) throws IOException {
+        final Path file = Paths.get(DEFAULT_HOME, path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        // a fixed time, so that rewriting a file within the same second is still a change
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_500_000_000_000L + content.hashCode() * 1000L));
+    }
+
+    private FtpServerFixture server;
+    private FTPClient client;
+
+    private void assertMirrored(final String path) throws IOException {
+        assertArrayEquals(Files.readAllBytes(Paths.get(DEFAULT_HOME, path)), Files.readAllBytes(Paths.get(LOCAL, path)), path);
+    }
+
+    private void runSync(final boolean useMlsd) throws Exception {
+        write("a.txt", "alpha");
+        write("dir/b.txt", "bravo");
+        write("dir/sub/c.txt", "charlie");
+        final FTPMirror mirror = new FTPMirror(client, "/", Paths.get(LOCAL));
+        mirror.setUseMlsd(useMlsd);
+        mirror.setDeleteRemoved(true);
+
+        FTPMirror.Result result = mirror.sync();
+        assertEquals(3, result.getFilesTransferred(), result.toString());
+        assertEquals(3, result.getDirectoriesListed());
+        assertEquals(17, result.getBytesTransferred());
+        assertMirrored("a.txt");
+        assertMirrored("dir/b.txt");
+        assertMirrored("dir/sub/c.txt");
+        assertTrue(Files.exists(mirror.getIndexFile()));
+
+        result = mirror.sync();
+        assertEquals(3, result.getFilesChecked());
+        assertEquals(0, result.getFilesTransferred(), result.toString());
+
+        write("dir/b.txt", "bravissimo");
+        write("dir/new.txt", "new");
+        Files.delete(Paths.get(DEFAULT_HOME, "a.txt"));
+        Files.delete(Paths.get(LOCAL, "dir/sub/c.txt"));
+        result = mirror.sync();
+        assertEquals(3, result.getFilesTransferred(), result.toString());
+        assertEquals(1, result.getFilesDeleted());
+        assertFalse(Files.exists(Paths.get(LOCAL, "a.txt")));
+        assertMirrored("dir/b.txt");
+        assertMirrored("dir/new.txt");
+        assertMirrored("dir/sub/c.txt");
+
+        // a new mirror instance picks up the saved index
+        final FTPMirror again = new FTPMirror(client, "/", Paths.get(LOCAL));
+        again.setUseMlsd(useMlsd);
+        result = again.sync();
+        assertEquals(0, result.getFilesTransferred(), result.toString());
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        FileUtils.deleteDirectory(new File(LOCAL));
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        client = new FTPClient();
+        client.connect("localhost", server.getPort());
+        assertTrue(client.login(USER, PASSWORD));
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        client.disconnect();
+        server.close();
+        FileUtils.deleteDirectory(new File(LOCAL));
+    }
+
+    @Test
+    public void testCorruptIndex() throws Exception {
+        Files.createDirectories(Paths.get(LOCAL));
+        Files.write(Paths.get(LOCAL, FTPMirror.DEFAULT_INDEX_NAME), "garbage\n".getBytes(StandardCharsets.US_ASCII));
+        assertThrows(IOException.class, () -> new FTPMirror(client, "/", Paths.get(LOCAL)).sync());
+    }
+
+    @Test
+    public void testSyncWithList() throws Exception {
+        runSync(false);
+    }
+
+    @Test
+    public void testSyncWithMlsd() throws Exception {
+        assertTrue(client.hasFeature(FTPCmd.MLST));
+        runSync(true);
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.ftp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.net.MalformedServerReplyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the parsing of the replies read from the control connection.
+ */
+public class FTPReplyParsingTest {
+
+    /**
+     * Replaces the control input after connecting, as FTPSClient does after the TLS negotiation.
+     */
+    private static final class ReplacedInputFTP extends FTP {
+        @Override
+        protected void _connectAction_() throws IOException {
+            super._connectAction_();
+            _controlInput_ = new BufferedReader(new InputStreamReader(_input_, getControlEncoding()));
+        }
+    }
+
+    private ServerSocket serverSocket;
+
+    /**
+     * Connects to a server which sends a greeting and then answers each command line with the next reply.
+     */
+    private void connect(final FTP ftp, final String greeting, final String... replies) throws IOException {
+        serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        final Thread server = new Thread(() -> {
+            try (Socket socket = serverSocket.accept()) {
+                final InputStream input = socket.getInputStream();
+                final OutputStream output = socket.getOutputStream();
+                output.write(greeting.getBytes(StandardCharsets.UTF_8));
+                output.flush();
+                for (final String reply : replies) {
+                    int b;
+                    while ((b = input.read()) != '\n') {
+                        if (b == -1) {
+                            return;
+                        }
+                    }
+                    output.write(reply.getBytes(StandardCharsets.UTF_8));
+                    output.flush();
+                }
+                while (input.read() != -1) {
+                    // wait for the client to close
+                }
+            } catch (final IOException e) {
+                // the client is gone
+            }
+        });
+        server.setDaemon(true);
+        server.start();
+        ftp.connect(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+    }
+
+    @AfterEach
+    protected void tearDown() throws IOException {
+        if (serverSocket != null) {
+            serverSocket.close();
+        }
+    }
+
+    @Test
+    public void testBareLineFeedInLine() throws IOException {
+        final FTP ftp = new FTP();
+        connect(ftp, "220 ready\r\n", "200 one\ntwo\r\n");
+        try {
+            assertEquals(200, ftp.noop());
+            assertArrayEquals(new String[] { "200 one\ntwo" }, ftp.getReplyStrings());
+        } finally {
+            ftp.disconnect();
+        }
+    }
+
+    @Test
+    public void testControlEncoding() throws IOException {
+        final FTP ftp = new FTP();
+        ftp.setControlEncoding(StandardCharsets.UTF_8.name());
+        connect(ftp, "220 ready\r\n", "257 \"/ä€\" is current directory\r\n");
+        try {
+            assertEquals(257, ftp.pwd());
+            assertEquals("257 \"/ä€\" is current directory\r\n", ftp.getReplyString());
+        } finally {
+            ftp.disconnect();
+        }
+    }
+
+    @Test
+    public void testMalformedReplyCode() throws IOException {
+        final FTP ftp = new FTP();
+        connect(ftp, "220 ready\r\n", "2x0 oops\r\n");
+        try {
+            assertThrows(MalformedServerReplyException.class, ftp::noop);
+        } finally {
+            ftp.disconnect();
+        }
+    }
+
+    @Test
+    public void testMultilineReplies() throws IOException {
+        final FTP ftp = new FTP();
+        connect(ftp, "220-first\r\n second\r\n220 ready\r\n", "211-Features:\r\n MDTM\r\n SIZE\r\n211 End\r\n", "200 ok\r\n");
+        try {
+            assertEquals(220, ftp.getReplyCode());
+            assertArrayEquals(new String[] { "220-first", " second", "220 ready" }, ftp.getReplyStrings());
+            assertEquals(211, ftp.feat());
+            assertEquals("211-Features:\r\n MDTM\r\n SIZE\r\n211 End\r\n", ftp.getReplyString());
+            assertEquals(4, ftp.getReplyStrings().length);
+            assertEquals(200, ftp.noop());
+            assertArrayEquals(new String[] { "200 ok" }, ftp.getReplyStrings());
+        } finally {
+            ftp.disconnect();
+        }
+    }
+
+    @Test
+    public void testReplacedControlInput() throws IOException {
+        final FTP ftp = new ReplacedInputFTP();
+        connect(ftp, "220 ready\r\n", "211-Features:\r\n MDTM\r\n211 End\r\n");
+        try {
+            assertEquals(211, ftp.feat());
+            assertArrayEquals(new String[] { "211-Features:", " MDTM", "211 End" }, ftp.getReplyStrings());
+        } finally {
+            ftp.disconnect();
+        }
+    }
+
+    @Test
+    public void testTruncatedReply() throws IOException {
+        final FTP ftp = new FTP();
+        connect(ftp, "220 ready\r\n", "20\r\n");
+        try {
+            assertThrows(MalformedServerReplyException.class, ftp::noop);
+        } finally {
+            ftp.disconnect();
+        }
+    }
+}
@@ -67,6 +67,33 @@ public class FTPSClientTest extends AbstractFtpsTest {
         super(endpointCheckingEnabled, null, null);
     }
 
+    @Test(timeout = TEST_TIMEOUT)
+    public void testHandshakeStatistics() throws SocketException, IOException {
+        trace(">>testHandshakeStatistics");
+        final FTPSClient client = new FTPSClient(IMPLICIT);
+        loginClient(client);
+        try {
+            assertEquals(1, client.getHandshakeCount());
+            assertTrue(client.getHandshakeDuration().toNanos() > 0);
+            assertNotNull(client.listFiles("/"));
+            assertEquals(2, client.getHandshakeCount());
+            assertEquals(0, client.getResumedHandshakeCount());
+            client.setDataSessionReuse(true);
+            assertTrue(client.isDataSessionReuse());
+            assertNotNull(client.listFiles("/"));
+            assertNotNull(client.listFiles("/"));
+            assertEquals(4, client.getHandshakeCount());
+            assertEquals(2, client.getResumedHandshakeCount());
+            client.enterLocalActiveMode();
+            assertNotNull(client.listFiles("/"));
+            assertEquals(5, client.getHandshakeCount());
+            assertEquals(3, client.getResumedHandshakeCount());
+        } finally {
+            client.disconnect();
+        }
+        trace("<<testHandshakeStatistics");
+    }
+
     @Test(timeout = TEST_TIMEOUT)
     public void testHasFeature() {
         assertDoesNotThrow(() -> {
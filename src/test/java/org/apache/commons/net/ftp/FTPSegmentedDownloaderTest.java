@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.net.io.CopyStreamAdapter;
+import org.apache.ftpserver.ftplet.DataConnectionFactory;
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPSegmentedDownloaderTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_segmented/";
+    private static final String RESTART_OFFSET = "restartOffset";
+
+    /** The offsets of the REST commands received, in order. */
+    private final List<Long> restarts = Collections.synchronizedList(new ArrayList<>());
+    /** The number of RETR commands whose data connection is still to be dropped after {@link #dropAfter} bytes. */
+    private final AtomicInteger drops = new AtomicInteger();
+    private volatile int dropAfter;
+    private FtpServerFixture server;
+    private int port;
+
+    private FTPClient connect() throws IOException {
+        final FTPClient client = new FTPClient();
+        client.connect("localhost", port);
+        client.login(USER, PASSWORD);
+        client.enterLocalPassiveMode();
+        return client;
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("dropping", new DefaultFtplet() {
+                @Override
+                public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+                    if ("REST".equals(request.getCommand())) {
+                        final long offset = Long.parseLong(request.getArgument());
+                        restarts.add(offset);
+                        session.setAttribute(RESTART_OFFSET, offset);
+                    } else if ("RETR".equals(request.getCommand()) && drops.getAndDecrement() > 0) {
+                        // send part of the data from the restart offset, then drop the data connection
+                        final byte[] content = Files.readAllBytes(Paths.get(DEFAULT_HOME, request.getArgument()));
+                        final Long offset = (Long) session.getAttribute(RESTART_OFFSET);
+                        final int start = offset == null ? 0 : offset.intValue();
+                        session.write(new DefaultFtpReply(FTPReply.FILE_STATUS_OK, "Opening data connection."));
+                        final DataConnectionFactory dataConnection = session.getDataConnection();
+                        try {
+                            dataConnection.openConnection().transferToClient(session,
+                                    new ByteArrayInputStream(content, start, Math.min(dropAfter, content.length - start)));
+                        } catch (final Exception e) {
+                            throw new IOException(e);
+                        } finally {
+                            dataConnection.closeDataConnection();
+                        }
+                        session.write(new DefaultFtpReply(FTPReply.TRANSFER_ABORTED, "Data connection closed."));
+                        return FtpletResult.SKIP;
+                    }
+                    return super.beforeCommand(session, request);
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        port = server.getPort();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testDownloadInSegments() throws Exception {
+        final byte[] content = new byte[100_000];
+        new Random(42).nextBytes(content);
+        Files.write(Paths.get(DEFAULT_HOME, "big.bin"), content);
+        final Path target = Files.createTempFile("segmented", ".bin");
+        try {
+            final AtomicInteger clients = new AtomicInteger();
+            final AtomicLong lastTotal = new AtomicLong();
+            final FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(() -> {
+                clients.incrementAndGet();
+                return connect();
+            });
+            downloader.setConnections(3);
+            downloader.setSegmentSize(7_000);
+            downloader.setCopyStreamListener(new CopyStreamAdapter() {
+                @Override
+                public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+                    assertEquals(content.length, streamSize);
+                    lastTotal.set(totalBytesTransferred);
+                }
+            });
+            assertEquals(content.length, downloader.download("big.bin", target));
+            assertArrayEquals(content, Files.readAllBytes(target));
+            assertEquals(content.length, lastTotal.get());
+            assertEquals(3, clients.get());
+        } finally {
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void testDownloadMissingFile() throws Exception {
+        final Path target = Files.createTempFile("segmented", ".bin");
+        try {
+            final FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(this::connect);
+            assertThrows(IOException.class, () -> downloader.download("missing.bin", target));
+        } finally {
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void testResumeFailedSegment() throws Exception {
+        final byte[] content = new byte[20_000];
+        new Random(7).nextBytes(content);
+        Files.write(Paths.get(DEFAULT_HOME, "flaky.bin"), content);
+        final Path target = Files.createTempFile("segmented", ".bin");
+        try {
+            final AtomicInteger clients = new AtomicInteger();
+            final AtomicLong lastTotal = new AtomicLong();
+            final FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(() -> {
+                clients.incrementAndGet();
+                return connect();
+            });
+            downloader.setConnections(1);
+            downloader.setSegmentSize(7_000);
+            downloader.setCopyStreamListener(new CopyStreamAdapter() {
+                @Override
+                public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+                    lastTotal.set(totalBytesTransferred);
+                }
+            });
+            dropAfter = 3_000;
+            drops.set(1);
+            assertEquals(content.length, downloader.download("flaky.bin", target));
+            assertArrayEquals(content, Files.readAllBytes(target));
+            // the first segment, fetched without REST, failed after 3000 bytes and resumed there on a new connection
+            assertEquals(2, clients.get());
+            assertEquals(Arrays.asList(3_000L, 7_000L, 14_000L), restarts);
+            // the bytes of the failed attempt are not counted twice
+            assertEquals(content.length, lastTotal.get());
+        } finally {
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void testRetriesExhausted() throws Exception {
+        final byte[] content = new byte[10_000];
+        Files.write(Paths.get(DEFAULT_HOME, "broken.bin"), content);
+        final Path target = Files.createTempFile("segmented", ".bin");
+        try {
+            final FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(this::connect);
+            downloader.setConnections(1);
+            downloader.setRetries(1);
+            dropAfter = 1_000;
+            drops.set(Integer.MAX_VALUE);
+            assertThrows(IOException.class, () -> downloader.download("broken.bin", target));
+            // the segment was retried once, resuming after the bytes of the first attempt
+            assertEquals(Collections.singletonList(1_000L), restarts);
+        } finally {
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        final FTPSegmentedDownloader downloader = new FTPSegmentedDownloader(this::connect);
+        assertThrows(IllegalArgumentException.class, () -> downloader.setConnections(0));
+        assertThrows(IllegalArgumentException.class, () -> downloader.setSegmentSize(0));
+        assertThrows(IllegalArgumentException.class, () -> downloader.setRetries(-1));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpReply;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPServerCapabilityCacheTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_capabilities/";
+
+    private final Map<String, AtomicInteger> commands = new ConcurrentHashMap<>();
+    private final AtomicInteger featFailures = new AtomicInteger();
+    private FtpServerFixture server;
+    private int port;
+
+    private int count(final String command) {
+        final AtomicInteger counter = commands.get(command);
+        return counter == null ? 0 : counter.get();
+    }
+
+    private FTPClient connect(final FTPServerCapabilityCache cache) throws Exception {
+        final FTPClient client = new FTPClient();
+        client.setCapabilityCache(cache);
+        client.connect("localhost", port);
+        assertTrue(client.login(USER, PASSWORD));
+        return client;
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("counter", new DefaultFtplet() {
+                @Override
+                public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+                    commands.computeIfAbsent(request.getCommand(), k -> new AtomicInteger()).incrementAndGet();
+                    if ("FEAT".equals(request.getCommand()) && featFailures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                        session.write(new DefaultFtpReply(FtpReply.REPLY_450_REQUESTED_FILE_ACTION_NOT_TAKEN, "Try again"));
+                        return FtpletResult.SKIP;
+                    }
+                    return super.beforeCommand(session, request);
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        port = server.getPort();
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            final FTPClient client = connect(null);
+            client.hasFeature("MDTM");
+            client.getSystemType();
+            client.disconnect();
+        }
+        assertEquals(2, count("FEAT"));
+        assertEquals(2, count("SYST"));
+    }
+
+    @Test
+    public void testDisabledWhileConnected() throws Exception {
+        final FTPClient client = connect(new FTPServerCapabilityCache(Duration.ofMinutes(1)));
+        // takes effect on the next connect
+        client.setCapabilityCache(null);
+        client.hasFeature("MDTM");
+        client.getSystemType();
+        client.listFiles();
+        client.disconnect();
+    }
+
+    @Test
+    public void testExpiryAndGreetingMismatch() throws Exception {
+        final InetAddress address = InetAddress.getLoopbackAddress();
+        final FTPServerCapabilityCache expired = new FTPServerCapabilityCache(Duration.ZERO);
+        expired.putSystemType(address, 21, "220 hello", "UNIX");
+        assertNull(expired.getSystemType(address, 21, "220 hello"));
+
+        final FTPServerCapabilityCache cache = new FTPServerCapabilityCache(Duration.ofMinutes(1));
+        cache.putSystemType(address, 21, "220 hello", "UNIX");
+        cache.putFeatures(address, 21, "220 hello", Collections.singletonMap("MDTM", Collections.singleton("")));
+        assertEquals("UNIX", cache.getSystemType(address, 21, "220 hello"));
+        assertTrue(cache.getFeatures(address, 21, "220 hello").containsKey("MDTM"));
+        assertNull(cache.getSystemType(address, 2121, "220 hello"));
+        cache.putListingParser(address, 21, "220 hello", "org.example.Parser");
+        assertEquals("org.example.Parser", cache.getListingParser(address, 21, "220 hello"));
+        assertEquals("UNIX", cache.getSystemType(address, 21, "220 hello"));
+        // a new greeting means a different server version, the old entry is dropped
+        assertNull(cache.getSystemType(address, 21, "220 hello v2"));
+        assertEquals(0, cache.size());
+        cache.putSystemType(address, 21, "220 hello", "UNIX");
+        cache.invalidate(address, 21);
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new FTPServerCapabilityCache(Duration.ofSeconds(-1)));
+        assertSame(FTPServerCapabilityCache.getDefault(), FTPServerCapabilityCache.getDefault());
+    }
+
+    @Test
+    public void testFailedFeatIsNotCached() throws Exception {
+        final FTPServerCapabilityCache cache = new FTPServerCapabilityCache(Duration.ofMinutes(1));
+        featFailures.set(1);
+        final FTPClient first = connect(cache);
+        assertFalse(first.hasFeature("MDTM"));
+        first.disconnect();
+        final FTPClient second = connect(cache);
+        assertTrue(second.hasFeature("MDTM"));
+        second.disconnect();
+        assertEquals(2, count("FEAT"));
+    }
+
+    @Test
+    public void testRepliesAreReused() throws Exception {
+        final FTPServerCapabilityCache cache = new FTPServerCapabilityCache(Duration.ofMinutes(1));
+        final FTPClient first = connect(cache);
+        final boolean mdtm = first.hasFeature("MDTM");
+        final String systemType = first.getSystemType();
+        assertEquals(0, first.listFiles().length);
+        first.disconnect();
+        assertEquals(1, count("FEAT"));
+        assertEquals(1, count("SYST"));
+        assertEquals(1, cache.size());
+
+        for (int i = 0; i < 3; i++) {
+            final FTPClient client = connect(cache);
+            assertEquals(mdtm, client.hasFeature("MDTM"));
+            assertEquals(systemType, client.getSystemType());
+            client.listFiles();
+            client.disconnect();
+        }
+        assertEquals(1, count("FEAT"));
+        assertEquals(1, count("SYST"));
+    }
+}
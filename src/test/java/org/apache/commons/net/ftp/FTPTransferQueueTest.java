@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.net.ProtocolCommandEvent;
+import org.apache.commons.net.ProtocolCommandListener;
+import org.apache.commons.net.io.CopyStreamAdapter;
+import org.apache.ftpserver.ftplet.DataConnectionFactory;
+import org.apache.ftpserver.ftplet.DefaultFtpReply;
+import org.apache.ftpserver.ftplet.DefaultFtplet;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.FtpRequest;
+import org.apache.ftpserver.ftplet.FtpSession;
+import org.apache.ftpserver.ftplet.Ftplet;
+import org.apache.ftpserver.ftplet.FtpletResult;
+import org.junit.jupiter.api.Test;
+
+public class FTPTransferQueueTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_queue/";
+    private static final String LOCAL_DIR = "target/ftp_queue_local/";
+    private static final int FILES = 5;
+    private static final int SIZE = 10_000;
+    private static final int PARTIAL = 1000;
+
+    private static byte[] random(final int size) {
+        final byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void testInvalidMaxRetries() {
+        assertThrows(IllegalArgumentException.class, () -> new FTPTransferQueue().setMaxRetries(-1));
+    }
+
+    @Test
+    public void testRetries() throws Exception {
+        FileUtils.deleteDirectory(new File(LOCAL_DIR));
+        final Path localDir = Files.createDirectories(Paths.get(LOCAL_DIR));
+        final byte[] data = random(SIZE);
+        final AtomicInteger retrieves = new AtomicInteger();
+        final AtomicInteger stores = new AtomicInteger();
+        final FtpServerFixture server = FtpServerFixture.start(DEFAULT_HOME, serverFactory -> {
+            final Map<String, Ftplet> ftplets = new HashMap<>();
+            ftplets.put("flaky", new DefaultFtplet() {
+                @Override
+                public FtpletResult beforeCommand(final FtpSession session, final FtpRequest request) throws FtpException, IOException {
+                    if ("RETR".equals(request.getCommand()) && retrieves.getAndIncrement() == 0) {
+                        // drop the data connection part way through
+                        session.write(new DefaultFtpReply(FTPReply.FILE_STATUS_OK, "Opening data connection."));
+                        final DataConnectionFactory dataConnection = session.getDataConnection();
+                        try {
+                            dataConnection.openConnection().transferToClient(session, new ByteArrayInputStream(data, 0, PARTIAL));
+                        } catch (final Exception e) {
+                            throw new IOException(e);
+                        } finally {
+                            dataConnection.closeDataConnection();
+                        }
+                        session.write(new DefaultFtpReply(FTPReply.TRANSFER_ABORTED, "Data connection closed."));
+                        return FtpletResult.SKIP;
+                    }
+                    if ("STOR".equals(request.getCommand()) && stores.getAndIncrement() == 0) {
+                        session.write(new DefaultFtpReply(FTPReply.FILE_ACTION_NOT_TAKEN, "Busy."));
+                        return FtpletResult.SKIP;
+                    }
+                    return super.beforeCommand(session, request);
+                }
+            });
+            serverFactory.setFtplets(ftplets);
+        });
+        final FTPClient client = new FTPClient();
+        try {
+            Files.write(Paths.get(DEFAULT_HOME, "file"), data);
+            Files.write(localDir.resolve("up"), data);
+            client.connect("localhost", server.getPort());
+            assertTrue(client.login(USER, PASSWORD));
+            assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+            client.enterLocalPassiveMode();
+
+            final List<Long> totals = new ArrayList<>();
+            final FTPTransferQueue queue = new FTPTransferQueue().addRetrieve("file", localDir.resolve("down")).addStore(localDir.resolve("up"), "copy");
+            queue.setCopyStreamListener(new CopyStreamAdapter() {
+                @Override
+                public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+                    totals.add(totalBytesTransferred);
+                }
+            });
+            final List<FTPTransferQueue.Result> results = client.executeTransfers(queue);
+            assertEquals(2, results.size());
+            for (final FTPTransferQueue.Result result : results) {
+                assertTrue(result.isSuccess(), result::toString);
+                assertEquals(2, result.getAttempts());
+                assertEquals(SIZE, result.getByteCount());
+            }
+            assertArrayEquals(data, Files.readAllBytes(localDir.resolve("down")));
+            assertArrayEquals(data, Files.readAllBytes(Paths.get(DEFAULT_HOME, "copy")));
+            // the bytes of the dropped attempt count too, and the total never goes backwards
+            for (int i = 1; i < totals.size(); i++) {
+                assertTrue(totals.get(i) >= totals.get(i - 1), totals::toString);
+            }
+            assertEquals(PARTIAL + 2L * SIZE, totals.get(totals.size() - 1));
+
+            // the control connection is in step
+            assertTrue(FTPReply.isPositiveCompletion(client.noop()));
+            assertTrue(client.logout());
+        } finally {
+            client.disconnect();
+            server.close();
+            FileUtils.deleteDirectory(new File(LOCAL_DIR));
+        }
+    }
+
+    @Test
+    public void testTransfers() throws Exception {
+        FileUtils.deleteDirectory(new File(LOCAL_DIR));
+        final Path localDir = Files.createDirectories(Paths.get(LOCAL_DIR));
+        final FtpServerFixture server = FtpServerFixture.start(DEFAULT_HOME);
+        final FTPClient client = new FTPClient();
+        // the commands sent and the codes of the replies received, in order
+        final List<String> events = new ArrayList<>();
+        client.addProtocolCommandListener(new ProtocolCommandListener() {
+            @Override
+            public void protocolCommandSent(final ProtocolCommandEvent event) {
+                events.add(event.getCommand());
+            }
+
+            @Override
+            public void protocolReplyReceived(final ProtocolCommandEvent event) {
+                events.add(Integer.toString(event.getReplyCode()));
+            }
+        });
+        try {
+            client.connect("localhost", server.getPort());
+            assertTrue(client.login(USER, PASSWORD));
+            assertTrue(client.setFileType(FTP.BINARY_FILE_TYPE));
+            client.enterLocalPassiveMode();
+
+            long size = 0;
+            final FTPTransferQueue stores = new FTPTransferQueue();
+            for (int i = 0; i < FILES; i++) {
+                final Path local = localDir.resolve("up" + i);
+                Files.write(local, random(1000 * (i + 1)));
+                size += Files.size(local);
+                stores.addStore(local, "file" + i);
+            }
+            final long[] total = new long[1];
+            stores.setCopyStreamListener(new CopyStreamAdapter() {
+                @Override
+                public void bytesTransferred(final long totalBytesTransferred, final int bytesTransferred, final long streamSize) {
+                    total[0] = totalBytesTransferred;
+                }
+            });
+            events.clear();
+            final List<FTPTransferQueue.Result> storeResults = client.executeTransfers(stores);
+            assertEquals(FILES, storeResults.size());
+            for (int i = 0; i < FILES; i++) {
+                final FTPTransferQueue.Result result = storeResults.get(i);
+                assertTrue(result.isSuccess(), result::toString);
+                assertFalse(result.isRetrieve());
+                assertEquals(1, result.getAttempts());
+                assertEquals(1000 * (i + 1), result.getByteCount());
+                assertArrayEquals(Files.readAllBytes(localDir.resolve("up" + i)), Files.readAllBytes(Paths.get(DEFAULT_HOME, "file" + i)));
+            }
+            assertEquals(size, total[0]);
+            // the passive command for the second file is sent before the completion reply of the first one
+            assertEquals(FILES, events.stream().filter("PASV"::equals).count());
+            final int firstStore = events.indexOf("STOR");
+            final int secondPasv = events.subList(firstStore, events.size()).indexOf("PASV") + firstStore;
+            assertTrue(secondPasv > firstStore, events::toString);
+            assertTrue(secondPasv < events.indexOf("226"), events::toString);
+
+            final FTPTransferQueue retrieves = new FTPTransferQueue();
+            for (int i = 0; i < FILES; i++) {
+                retrieves.addRetrieve("file" + i, localDir.resolve("down" + i));
+            }
+            retrieves.addRetrieve("missing", localDir.resolve("missing"));
+            retrieves.addRetrieve("file0", localDir.resolve("down0again"));
+            final List<FTPTransferQueue.Result> retrieveResults = client.executeTransfers(retrieves);
+            assertEquals(FILES + 2, retrieveResults.size());
+            for (int i = 0; i < FILES; i++) {
+                final FTPTransferQueue.Result result = retrieveResults.get(i);
+                assertTrue(result.isSuccess(), result::toString);
+                assertTrue(result.isRetrieve());
+                assertArrayEquals(Files.readAllBytes(localDir.resolve("up" + i)), Files.readAllBytes(localDir.resolve("down" + i)));
+            }
+            final FTPTransferQueue.Result missing = retrieveResults.get(FILES);
+            assertFalse(missing.isSuccess());
+            assertEquals(1, missing.getAttempts());
+            assertTrue(FTPReply.isNegativePermanent(missing.getReplyCode()), missing::toString);
+            // the queue goes on after a failure
+            assertTrue(retrieveResults.get(FILES + 1).isSuccess());
+            assertArrayEquals(Files.readAllBytes(localDir.resolve("up0")), Files.readAllBytes(localDir.resolve("down0again")));
+
+            // the control connection is in step
+            assertTrue(FTPReply.isPositiveCompletion(client.noop()));
+            assertTrue(client.logout());
+        } finally {
+            client.disconnect();
+            server.close();
+            FileUtils.deleteDirectory(new File(LOCAL_DIR));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import static org.apache.commons.net.ftp.FtpServerFixture.PASSWORD;
+import static org.apache.commons.net.ftp.FtpServerFixture.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class FTPTreeWalkerTest {
+
+    private static final String DEFAULT_HOME = "ftp_root_walk/";
+    private static final String[] TREE = { "a/", "a/1.txt", "a/b/", "a/b/2.txt", "a/b/c/", "a/b/c/3.txt", "d/", "d/4.txt", "d/e/", "5.txt", "skip/",
+            "skip/6.txt" };
+
+    private FtpServerFixture server;
+    private FTPClientPool pool;
+    private FTPClientPool.Key key;
+    private FTPTreeWalker walker;
+
+    private Set<String> expected(final String... excluded) {
+        final Set<String> set = new HashSet<>();
+        for (final String entry : TREE) {
+            set.add("/" + (entry.endsWith("/") ? entry.substring(0, entry.length() - 1) : entry));
+        }
+        set.removeAll(Arrays.asList(excluded));
+        return set;
+    }
+
+    @BeforeEach
+    protected void setUp() throws Exception {
+        server = FtpServerFixture.start(DEFAULT_HOME);
+        for (final String entry : TREE) {
+            if (entry.endsWith("/")) {
+                Files.createDirectories(Paths.get(DEFAULT_HOME, entry));
+            } else {
+                Files.write(Paths.get(DEFAULT_HOME, entry), entry.getBytes());
+            }
+        }
+        pool = new FTPClientPool();
+        key = new FTPClientPool.Key("localhost", server.getPort(), USER, PASSWORD);
+        walker = new FTPTreeWalker(pool, key);
+    }
+
+    @AfterEach
+    protected void tearDown() throws Exception {
+        pool.close();
+        server.close();
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        assertThrows(IOException.class, () -> walker.walk("/missing", (path, file) -> FileVisitResult.CONTINUE));
+        final Set<String> failed = ConcurrentHashMap.newKeySet();
+        walker.walk("/missing", new FTPFileVisitor() {
+            @Override
+            public FileVisitResult visitFile(final String path, final FTPFile file) {
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final String path, final IOException exception) {
+                failed.add(path);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        assertEquals(new HashSet<>(Arrays.asList("/missing")), failed);
+        assertThrows(IllegalArgumentException.class, () -> walker.setMaxDepth(0));
+        assertThrows(IllegalArgumentException.class, () -> walker.setConnections(0));
+    }
+
+    @Test
+    public void testFilterAndSkipSubtree() throws Exception {
+        walker.setFilter(file -> file != null && !"skip".equals(file.getName()));
+        final Set<String> seen = ConcurrentHashMap.newKeySet();
+        walker.walk("/", new FTPFileVisitor() {
+            @Override
+            public FileVisitResult preVisitDirectory(final String path, final FTPFile directory) {
+                seen.add(path);
+                return "/a/b".equals(path) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final String path, final FTPFile file) {
+                seen.add(path);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        assertEquals(expected("/skip", "/skip/6.txt", "/a/b/2.txt", "/a/b/c", "/a/b/c/3.txt"), seen);
+    }
+
+    @Test
+    public void testMaxDepth() throws Exception {
+        walker.setMaxDepth(2);
+        final Set<String> directories = ConcurrentHashMap.newKeySet();
+        final Set<String> files = ConcurrentHashMap.newKeySet();
+        walker.walk("/", new FTPFileVisitor() {
+            @Override
+            public FileVisitResult preVisitDirectory(final String path, final FTPFile directory) {
+                directories.add(path);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(final String path, final FTPFile file) {
+                files.add(path);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        assertEquals(new HashSet<>(Arrays.asList("/a", "/d", "/skip")), directories);
+        // directories at the maximum depth are reported as files
+        assertEquals(new HashSet<>(Arrays.asList("/5.txt", "/a/1.txt", "/a/b", "/d/4.txt", "/d/e", "/skip/6.txt")), files);
+    }
+
+    @Test
+    public void testTerminate() throws Exception {
+        walker.setConnections(1);
+        final AtomicInteger visits = new AtomicInteger();
+        walker.walk("/", (path, file) -> visits.incrementAndGet() == 1 ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE);
+        assertEquals(1, visits.get());
+        assertEquals(0, pool.getActiveCount(key));
+    }
+
+    @Test
+    public void testWalkAll() throws Exception {
+        for (final boolean followLinks : new boolean[] { false, true }) {
+            walker.setConnections(3);
+            walker.setFollowLinks(followLinks);
+            final Set<String> seen = ConcurrentHashMap.newKeySet();
+            final List<String> duplicates = new ArrayList<>();
+            walker.walk("/", new FTPFileVisitor() {
+                @Override
+                public FileVisitResult preVisitDirectory(final String path, final FTPFile directory) {
+                    assertTrue(directory.isDirectory());
+                    return visitFile(path, directory);
+                }
+
+                @Override
+                public FileVisitResult visitFile(final String path, final FTPFile file) {
+                    if (!seen.add(path)) {
+                        synchronized (duplicates) {
+                            duplicates.add(path);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            assertEquals(expected(), seen);
+            assertTrue(duplicates.isEmpty(), duplicates.toString());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.ftpserver.FtpServer;
+import org.apache.ftpserver.FtpServerFactory;
+import org.apache.ftpserver.ftplet.Authority;
+import org.apache.ftpserver.ftplet.FtpException;
+import org.apache.ftpserver.ftplet.UserManager;
+import org.apache.ftpserver.listener.Listener;
+import org.apache.ftpserver.listener.ListenerFactory;
+import org.apache.ftpserver.usermanager.PropertiesUserManagerFactory;
+import org.apache.ftpserver.usermanager.impl.BaseUser;
+import org.apache.ftpserver.usermanager.impl.WritePermission;
+
+/**
+ * An embedded FTP server on a free port, with one user who may write to a home directory which is emptied when the server starts and deleted when it stops.
+ */
+public final class FtpServerFixture implements AutoCloseable {
+
+    /** The user name. */
+    public static final String USER = "test";
+
+    /** The password. */
+    public static final String PASSWORD = "test";
+
+    private static UserManager initUserManager(final String home) throws FtpException {
+        final PropertiesUserManagerFactory propertiesUserManagerFactory = new PropertiesUserManagerFactory();
+        final UserManager userManager = propertiesUserManagerFactory.createUserManager();
+        final BaseUser user = new BaseUser();
+        user.setName(USER);
+        user.setPassword(PASSWORD);
+        final List<Authority> authorities = new ArrayList<>();
+        authorities.add(new WritePermission());
+        user.setAuthorities(authorities);
+        new File(home).mkdirs();
+        user.setHomeDirectory(home);
+        userManager.save(user);
+        return userManager;
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param home the home directory of the user.
+     * @return the running server.
+     * @throws FtpException if the server cannot start.
+     * @throws IOException  if the home directory cannot be emptied.
+     */
+    public static FtpServerFixture start(final String home) throws FtpException, IOException {
+        return start(home, serverFactory -> {
+            // defaults
+        });
+    }
+
+    /**
+     * Starts a server.
+     *
+     * @param home       the home directory of the user.
+     * @param customizer sets up the factory further, for example with ftplets or a connection configuration.
+     * @return the running server.
+     * @throws FtpException if the server cannot start.
+     * @throws IOException  if the home directory cannot be emptied.
+     */
+    public static FtpServerFixture start(final String home, final Consumer<FtpServerFactory> customizer) throws FtpException, IOException {
+        FileUtils.deleteDirectory(new File(home));
+        final FtpServerFactory serverFactory = new FtpServerFactory();
+        serverFactory.setUserManager(initUserManager(home));
+        customizer.accept(serverFactory);
+        final ListenerFactory factory = new ListenerFactory();
+        // Automatically assign port.
+        factory.setPort(0);
+        final Listener listener = factory.createListener();
+        serverFactory.addListener("default", listener);
+        final FtpServer server = serverFactory.createServer();
+        server.start();
+        return new FtpServerFixture(server, listener.getPort(), home);
+    }
+
+    private final FtpServer server;
+    private final int port;
+    private final String home;
+
+    private FtpServerFixture(final FtpServer server, final int port, final String home) {
+        this.server = server;
+        this.port = port;
+        this.home = home;
+    }
+
+    /**
+     * Stops the server and deletes the home directory.
+     */
+    @Override
+    public void close() throws IOException {
+        server.stop();
+        FileUtils.deleteDirectory(new File(home));
+    }
+
+    /**
+     * Gets the home directory of the user.
+     *
+     * @return the home directory.
+     */
+    public String getHome() {
+        return home;
+    }
+
+    /**
+     * Gets the port the server listens on.
+     *
+     * @return the port.
+     */
+    public int getPort() {
+        return port;
+    }
+}
@@ -16,6 +16,9 @@
  */
 package org.apache.commons.net.ftp.parser;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.apache.commons.net.ftp.FTPFile;
 import org.apache.commons.net.ftp.FTPFileEntryParser;
 
@@ -89,6 +92,27 @@ public abstract class CompositeFTPParseTestFramework extends AbstractFTPParseTes
         }
     }
 
+    // a parser selected by an entry of another format is replaced once a listing is sampled
+    public void testSampledListing() {
+        final String goodsamples[][] = getGoodListings();
+
+        for (int i = 0; i < goodsamples.length; i++) {
+            final CompositeFileEntryParser parser = (CompositeFileEntryParser) getParser();
+            assertNotNull(parser.parseFTPEntry(goodsamples[(i + 1) % goodsamples.length][0]));
+            final List<String> listing = Arrays.asList(goodsamples[i]);
+            assertSame(listing, parser.preParse(listing));
+            final FTPFileEntryParser selected = parser.getSelectedParser();
+            for (final String test : listing) {
+                assertNotNull("Failed to parse " + test, parser.parseFTPEntry(test));
+            }
+            // the selection survives a listing no parser understands
+            parser.preParse(Arrays.asList("total 0"));
+            assertSame(selected, parser.getSelectedParser());
+            assertTrue(parser.selectParser(UnixFTPEntryParser.class.getName()));
+            assertFalse(parser.selectParser(String.class.getName()));
+        }
+    }
+
     // even though all these listings are good using one parser
     // or the other, this tests that a parser that has succeeded
     // on one format will fail if another format is substituted.
@@ -146,4 +146,21 @@ public class DefaultFTPFileEntryParserFactoryTest extends TestCase {
         // Note: exact matching via config is the only way to generate NTFTPEntryParser and OS400FTPEntryParser
         // using DefaultFTPFileEntryParserFactory
     }
+
+    public void testParsersAreIndependent() {
+        // parsers share their compiled expressions and date format templates, but not their configuration
+        final String entry = "-rw-r--r--   1 user  group     1234 Jan  5  2019 file.txt";
+        final FTPClientConfig utc = new FTPClientConfig(FTPClientConfig.SYST_UNIX);
+        utc.setServerTimeZoneId("UTC");
+        final FTPClientConfig tokyo = new FTPClientConfig(FTPClientConfig.SYST_UNIX);
+        tokyo.setServerTimeZoneId("Asia/Tokyo");
+        final DefaultFTPFileEntryParserFactory factory = new DefaultFTPFileEntryParserFactory();
+        final FTPFileEntryParser utcParser = factory.createFileEntryParser(utc);
+        final FTPFileEntryParser tokyoParser = new DefaultFTPFileEntryParserFactory().createFileEntryParser(tokyo);
+        assertNotSame(utcParser, tokyoParser);
+        final long utcMillis = utcParser.parseFTPEntry(entry).getTimestamp().getTimeInMillis();
+        final long tokyoMillis = tokyoParser.parseFTPEntry(entry).getTimestamp().getTimeInMillis();
+        assertEquals(9 * 60 * 60 * 1000L, utcMillis - tokyoMillis);
+        assertEquals(utcMillis, factory.createFileEntryParser(utc).parseFTPEntry(entry).getTimestamp().getTimeInMillis());
+    }
 }
@@ -274,6 +274,22 @@ java.text.ParseException: Timestamp 'Mar 13 02:33' could not be parsed using a s
         }
     }
 
+    @Test
+    public void testParserFollowsDefaultTimeZone() {
+        final TimeZone timeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+            assertEquals("America/New_York", new FTPTimestampParserImpl().getServerTimeZone().getID());
+            // the date formats are cloned from shared templates, which must not keep the zone of when they were built
+            TimeZone.setDefault(TimeZone.getTimeZone("Asia/Tokyo"));
+            final FTPTimestampParserImpl parser = new FTPTimestampParserImpl();
+            assertEquals("Asia/Tokyo", parser.getServerTimeZone().getID());
+            assertEquals("Asia/Tokyo", parser.getRecentDateFormat().getTimeZone().getID());
+        } finally {
+            TimeZone.setDefault(timeZone);
+        }
+    }
+
     @Test
     public void testParseShortFutureDates1() throws Exception {
         final GregorianCalendar now = new GregorianCalendar(2001, Calendar.MAY, 30, 12, 0);
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.net.ftp.FTPClientConfig;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares {@link JavaTimeFTPTimestampParser} with {@link FTPTimestampParserImpl}.
+ */
+public class JavaTimeFTPTimestampParserTest {
+
+    private static final String[] UNIX_INPUTS = { "Jan 1 00:00", "Dec 31 23:59", "Feb 29 12:00", "Mar  4 2003", "Jun 15 1999", "Jul 4 10:30",
+            "Oct 15 08:00", "Oct 16 08:00", "Nov 1 11:11", "jan 5 01:01", "Feb 28 2001" };
+
+    private static void assertSame(final FTPClientConfig config, final Calendar serverTime, final String... inputs) throws ParseException {
+        final FTPTimestampParserImpl expectedParser = new FTPTimestampParserImpl();
+        expectedParser.configure(config);
+        final JavaTimeFTPTimestampParser actualParser = new JavaTimeFTPTimestampParser();
+        actualParser.configure(config);
+        for (final String input : inputs) {
+            Calendar expected;
+            try {
+                expected = expectedParser.parseTimestamp(input, serverTime);
+            } catch (final ParseException e) {
+                assertThrows(ParseException.class, () -> actualParser.parseTimestamp(input, serverTime), input);
+                continue;
+            }
+            // twice, the second call is served from the cache
+            for (int i = 0; i < 2; i++) {
+                final Calendar actual = actualParser.parseTimestamp(input, serverTime);
+                assertEquals(expected.getTimeInMillis(), actual.getTimeInMillis(), input);
+                assertEquals(expected.getTimeZone().getID(), actual.getTimeZone().getID(), input);
+                for (final int field : new int[] { Calendar.SECOND, Calendar.MINUTE, Calendar.HOUR_OF_DAY }) {
+                    assertEquals(expected.isSet(field), actual.isSet(field), input + " field " + field);
+                }
+            }
+        }
+    }
+
+    private static FTPClientConfig config(final String defaultFormat, final String recentFormat) {
+        return new FTPClientConfig(FTPClientConfig.SYST_UNIX, defaultFormat, recentFormat);
+    }
+
+    private static Calendar serverTime(final int year, final int month, final int day, final int hour) {
+        final GregorianCalendar calendar = new GregorianCalendar(year, month, day, hour, 0);
+        return calendar;
+    }
+
+    @Test
+    public void testConfigFlag() {
+        final FTPClientConfig config = new FTPClientConfig(FTPClientConfig.SYST_UNIX);
+        config.setJavaTimeTimestampParsing(true);
+        final UnixFTPEntryParser parser = new UnixFTPEntryParser(config);
+        final FTPFile file = parser.parseFTPEntry("-rw-r--r--   1 user group 100 Mar  4 2003 file.txt");
+        assertNotNull(file);
+        assertEquals(2003, file.getTimestamp().get(Calendar.YEAR));
+        assertEquals(Calendar.MARCH, file.getTimestamp().get(Calendar.MONTH));
+        assertTrue(new FTPClientConfig(config).isJavaTimeTimestampParsing());
+    }
+
+    @Test
+    public void testConcurrentParsing() throws Exception {
+        final JavaTimeFTPTimestampParser parser = new JavaTimeFTPTimestampParser();
+        final FTPTimestampParserImpl reference = new FTPTimestampParserImpl();
+        final Calendar serverTime = serverTime(2020, Calendar.JUNE, 1, 12);
+        final List<String> inputs = new ArrayList<>();
+        // more strings than the cache holds, so that it overflows while the threads parse
+        for (int day = 1; day <= 28; day++) {
+            for (int hour = 10; hour < 20; hour++) {
+                inputs.add("Mar " + day + " " + hour + ":" + (10 + day));
+            }
+            inputs.add("Apr " + day + " 19" + (70 + day));
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                results.add(executor.submit(() -> {
+                    for (int round = 0; round < 10; round++) {
+                        for (final String input : inputs) {
+                            final long expected;
+                            synchronized (reference) {
+                                expected = reference.parseTimestamp(input, serverTime).getTimeInMillis();
+                            }
+                            if (parser.parseTimestamp(input, serverTime).getTimeInMillis() != expected) {
+                                return Boolean.FALSE;
+                            }
+                        }
+                    }
+                    return Boolean.TRUE;
+                }));
+            }
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testLenientFutureDates() throws ParseException {
+        final FTPClientConfig config = config(FTPTimestampParser.DEFAULT_SDF, FTPTimestampParser.DEFAULT_RECENT_SDF);
+        config.setLenientFutureDates(true);
+        assertSame(config, serverTime(2010, Calendar.OCTOBER, 15, 23), UNIX_INPUTS);
+        assertSame(config, serverTime(2010, Calendar.DECEMBER, 31, 23), UNIX_INPUTS);
+        config.setLenientFutureDates(false);
+        assertSame(config, serverTime(2010, Calendar.OCTOBER, 15, 23), UNIX_INPUTS);
+    }
+
+    @Test
+    public void testLeapDay() throws ParseException {
+        final FTPClientConfig config = config(FTPTimestampParser.DEFAULT_SDF, FTPTimestampParser.DEFAULT_RECENT_SDF);
+        assertSame(config, serverTime(2024, Calendar.MARCH, 1, 10), "Feb 29 12:00", "Feb 29 2024", "Feb 29 2023");
+        assertSame(config, serverTime(2025, Calendar.MARCH, 1, 10), "Feb 29 12:00");
+    }
+
+    @Test
+    public void testNumericFormats() throws ParseException {
+        assertSame(config("yyyy-MM-dd HH:mm", null), serverTime(2020, Calendar.JUNE, 1, 12), "2019-03-04 10:20", "2019-3-4 10:20", "2019-13-04 10:20",
+                "garbage");
+        assertSame(config("MM-dd-yy hh:mma", null), serverTime(2020, Calendar.JUNE, 1, 12), "05-22-97 12:08AM", "05-22-97 01:08PM", "01-01-30 11:59PM");
+        assertSame(config("yyyyMMddHHmmss", null), serverTime(2020, Calendar.JUNE, 1, 12), "20190304102030");
+    }
+
+    @Test
+    public void testServerTimeZone() throws ParseException {
+        final FTPClientConfig config = config(FTPTimestampParser.DEFAULT_SDF, FTPTimestampParser.DEFAULT_RECENT_SDF);
+        config.setServerTimeZoneId("America/Los_Angeles");
+        assertSame(config, serverTime(2010, Calendar.JANUARY, 1, 3), UNIX_INPUTS);
+        config.setServerTimeZoneId("Asia/Tokyo");
+        assertSame(config, serverTime(2010, Calendar.JANUARY, 1, 3), UNIX_INPUTS);
+        final JavaTimeFTPTimestampParser parser = new JavaTimeFTPTimestampParser();
+        parser.configure(config);
+        assertEquals(TimeZone.getTimeZone("Asia/Tokyo"), parser.getServerTimeZone());
+    }
+
+    @Test
+    public void testUnixFormats() throws ParseException {
+        final FTPClientConfig config = config(FTPTimestampParser.DEFAULT_SDF, FTPTimestampParser.DEFAULT_RECENT_SDF);
+        assertSame(config, serverTime(2010, Calendar.JUNE, 15, 12), UNIX_INPUTS);
+        assertSame(config, serverTime(2011, Calendar.JANUARY, 1, 0), UNIX_INPUTS);
+        assertSame(config, serverTime(2010, Calendar.DECEMBER, 31, 23), UNIX_INPUTS);
+        assertSame(config, serverTime(2010, Calendar.JUNE, 15, 12), "Foo 1 00:00", "Jan 32 00:00", "Jan 1 25:00", "");
+    }
+
+    @Test
+    public void testUnsupportedPattern() throws ParseException {
+        final JavaTimeFTPTimestampParser parser = new JavaTimeFTPTimestampParser();
+        assertThrows(IllegalArgumentException.class, () -> parser.configure(config("EEE MMM d yyyy", null)));
+        final FTPClientConfig config = config("EEE MMM d HH:mm:ss yyyy", null);
+        config.setJavaTimeTimestampParsing(true);
+        final UnixFTPEntryParser entryParser = new UnixFTPEntryParser(config);
+        // falls back to SimpleDateFormat
+        assertEquals(2003, entryParser.parseTimestamp("Tue Mar 4 10:20:30 2003").get(Calendar.YEAR));
+    }
+
+    @Test
+    public void testVmsFormat() throws ParseException {
+        assertSame(config("d-MMM-yyyy HH:mm:ss", null), serverTime(2020, Calendar.JUNE, 1, 12), "1-JAN-2005 12:50:39", "29-Feb-2004 00:00:00",
+                "29-Feb-2005 00:00:00");
+        assertSame(config("d-MMM-yyyy HH:mm", null), serverTime(2020, Calendar.JUNE, 1, 12), "17-OCT-2004 11:11");
+    }
+}
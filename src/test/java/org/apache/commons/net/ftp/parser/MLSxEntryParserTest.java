@@ -77,6 +77,15 @@ public class MLSxEntryParserTest extends AbstractFTPParseTest {
 
     }
 
+    public void testGetFact() {
+        final String entry = "Type=file;Size=431;Modify=20130303210732;UNIQUE=801U1A3; HEADER.html";
+        assertEquals("801U1A3", MLSxEntryParser.getFact(entry, "unique"));
+        assertEquals("file", MLSxEntryParser.getFact(entry, "type"));
+        assertNull(MLSxEntryParser.getFact(entry, "perm"));
+        assertNull(MLSxEntryParser.getFact(" unique=1; name", "unique"));
+        assertNull(MLSxEntryParser.getFact(null, "unique"));
+    }
+
     @Override
     public void testParseFieldsOnDirectory() throws Exception {
         //test method
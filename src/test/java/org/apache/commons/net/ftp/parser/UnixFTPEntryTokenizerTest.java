@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.ftp.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.net.ftp.FTPClientConfig;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential tests which check that the tokenizer fast path of {@link UnixFTPEntryParser} yields the same entries as its regular expression.
+ */
+public class UnixFTPEntryTokenizerTest {
+
+    private static final String[] SAMPLES = { "-rw-r--r--   1 ftpuser  ftpusers 12414535 Mar 17 11:07 test 1999 abc.pdf",
+            "-rw-rw-rw-   1 user group 5840 Mar 19 09:34 123 456 abc.csv", "drwx------ 4 maxm Domain Users 512 Oct 2 10:59 .metadata",
+            "drwxr-xr-x   2 john smith     group         4096 Mar  2 15:13   zxbox", "drwx------ 4 maxm Domain Users 512 Oct 2 10:59 abc(test)123.pdf",
+            "drwxr-x---+1464 chrism   chrism     41472 Feb 25 13:17 20090225", "drwxr-xr-x   2 john smith     test group         4096 Mar  2 15:13 zxbox",
+            "-rwxr-xr-x   2 user     my group 500        5000000000 Mar  2 15:13 zxbox", "-rwxr-xr-x 2 user group 4096 3月 2日 15:13 zxbox",
+            "drwxr-xr-x   2 john smith     group         4096 Mar  2 15:13 zxbox     ", "-rw-r--r--   1 root     root       190144 2001-04-27 12:00 numeric",
+            "-rw-r--r--   1 root     root       190144 2001/04/27 12:00 numeric", "-rw-r--r--   1 root     root       190144 27 Apr 12:00 dayfirst",
+            "-rw-r--r--\t1 root\troot\t190144\tApr 27\t12:00\ttabs", "-rw-r--r-- 1 a b 1 Jan 1 2001 Jan 1 2001 Jan 1 2001 name",
+            "-rw-r--r-- 1 a b 1 Jan 1 2001 ", "-rw-r--r-- 1 a b 1 Jan 1 2001", "-rw-r--r-- 1 a b 1, 2 Jan 1 2001 dev", "-rw-r--r-- 1 a b 1,2 Jan 1 2001 dev",
+            "-rw-r--r-- 1 a b 1, Jan 1 2001 dev", "-rw-r--r-- 1 a 1 2 Jan 1 2001 dev", "-rw-r--r-- 1 1 Jan 1 2001 nousers", "-rw-r--r-- 1 a b 1 Jan 1 2001  x",
+            "-rw-r--r-- 1 a b 1 Jan 1 2001 😀", "-rw-r--r-- 1 😀 b 1 Jan 1 2001 x", "-rw-r--r-- 1 a b 1 Jan 1 2001　x" };
+
+    private static final String[] TYPES = { "-", "d", "l", "b", "c", "e", "f", "m", "p", "S", "s", "z" };
+
+    private static final String[] PERMISSIONS = { "rwxr-xr-x", "rw-r--r--", "rwSr-Sr-T", "rwsrwsrwt", "r-xr-xr-L", "rwxrwxrw?" };
+
+    private static final String[] WORDS = { "root", "my group", "a", "500", "12", "1,", "3", "Jan", "Feb", "7", "2001", "2001-04-27", "12:30", "x y",
+            "-> target", "1月", "2日", "2003年", "", "foo.txt", "Domain Users" };
+
+    private static final String[] SEPARATORS = { " ", "  ", "\t", "   " };
+
+    private static final String[] SIZES = { "0", "4096", "5000000000", "1, 2", "1,2", "109,767", "1," };
+
+    private static final String[] DATES = { "Jan 5", "Feb  29", "5 Mar", "2001-04-27", "2001/4/7", "3月 2日", "Jam 36", "12 12" };
+
+    private static final String[] TIMES = { "2001", "12:30", "0:23", "2003年", "30:01", "12:3x" };
+
+    private static void assertSameEntry(final String line, final FTPFile expected, final FTPFile actual) {
+        if (expected == null) {
+            assertNull(actual, line);
+            return;
+        }
+        assertNotNull(actual, line);
+        assertEquals(expected.getRawListing(), actual.getRawListing(), line);
+        assertEquals(expected.getName(), actual.getName(), line);
+        assertEquals(expected.getLink(), actual.getLink(), line);
+        assertEquals(expected.getUser(), actual.getUser(), line);
+        assertEquals(expected.getGroup(), actual.getGroup(), line);
+        assertEquals(expected.getSize(), actual.getSize(), line);
+        assertEquals(expected.getHardLinkCount(), actual.getHardLinkCount(), line);
+        assertEquals(expected.getType(), actual.getType(), line);
+        assertEquals(expected.getTimestamp() == null, actual.getTimestamp() == null, line);
+        if (expected.getTimestamp() != null) {
+            assertEquals(expected.getTimestamp().getTimeInMillis(), actual.getTimestamp().getTimeInMillis(), line);
+        }
+        for (int access = FTPFile.USER_ACCESS; access <= FTPFile.WORLD_ACCESS; access++) {
+            for (int permission = FTPFile.READ_PERMISSION; permission <= FTPFile.EXECUTE_PERMISSION; permission++) {
+                assertEquals(expected.hasPermission(access, permission), actual.hasPermission(access, permission), line);
+            }
+        }
+    }
+
+    private static List<String> corpus() {
+        final UnixFTPEntryParserTest parserTest = new UnixFTPEntryParserTest("corpus");
+        final List<String> lines = new ArrayList<>();
+        lines.addAll(Arrays.asList(parserTest.getGoodListing()));
+        lines.addAll(Arrays.asList(parserTest.getBadListing()));
+        lines.addAll(Arrays.asList(SAMPLES));
+        return lines;
+    }
+
+    private static FTPClientConfig fastConfig() {
+        final FTPClientConfig config = new FTPClientConfig(FTPClientConfig.SYST_UNIX);
+        config.setFastListParsing(true);
+        return config;
+    }
+
+    private static String randomLine(final Random random) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(TYPES[random.nextInt(TYPES.length)]).append(PERMISSIONS[random.nextInt(PERMISSIONS.length)]);
+        if (random.nextInt(5) == 0) {
+            sb.append('+');
+        }
+        sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(random.nextInt(20));
+        if (random.nextBoolean()) {
+            // column layout, with owner and group of zero to two words
+            final int names = random.nextInt(5);
+            for (int i = 0; i < names; i++) {
+                sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(SIZES[random.nextInt(SIZES.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(DATES[random.nextInt(DATES.length)]);
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(TIMES[random.nextInt(TIMES.length)]);
+        }
+        final int words = random.nextInt(10);
+        for (int i = 0; i < words; i++) {
+            sb.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testConfigurationSelectsFastPath() {
+        assertFalse(new FTPClientConfig().isFastListParsing());
+        assertTrue(new FTPClientConfig(fastConfig()).isFastListParsing());
+        final FTPFile file = new UnixFTPEntryParser(fastConfig()).parseFTPEntry("-rw-r--r-- 1 user group 42 Jan  5  2001 name with spaces");
+        assertEquals("name with spaces", file.getName());
+        assertEquals(42, file.getSize());
+    }
+
+    @Test
+    public void testCorpusMatchesRegex() {
+        for (final boolean trim : new boolean[] { false, true }) {
+            final UnixFTPEntryParser regex = new UnixFTPEntryParser(null, trim);
+            final UnixFTPEntryParser fast = new UnixFTPEntryParser(fastConfig(), trim);
+            for (final String line : corpus()) {
+                assertSameEntry(line, regex.parseFTPEntry(line), fast.parseFTPEntry(line));
+            }
+        }
+    }
+
+    @Test
+    public void testRandomLinesMatchRegex() {
+        final UnixFTPEntryParser regex = new UnixFTPEntryParser();
+        final UnixFTPEntryParser fast = new UnixFTPEntryParser(fastConfig());
+        final Random random = new Random(20240601);
+        int parsed = 0;
+        for (int i = 0; i < 50_000; i++) {
+            final String line = randomLine(random);
+            final FTPFile expected = regex.parseFTPEntry(line);
+            assertSameEntry(line, expected, fast.parseFTPEntry(line));
+            if (expected != null) {
+                parsed++;
+            }
+        }
+        assertTrue(parsed > 5000, "too few parseable lines: " + parsed);
+    }
+
+    @Test
+    public void testTokenizerAcceptsCorpus() {
+        final UnixFTPEntryTokenizer tokenizer = new UnixFTPEntryTokenizer();
+        final UnixFTPEntryParser regex = new UnixFTPEntryParser();
+        for (final String line : new UnixFTPEntryParserTest("corpus").getGoodListing()) {
+            assertTrue(tokenizer.tokenize(line), line);
+            assertTrue(regex.matches(line), line);
+            assertEquals(regex.group(16), tokenizer.user, line);
+            assertEquals(regex.group(17), tokenizer.group, line);
+            assertEquals(regex.group(18), tokenizer.size, line);
+            assertEquals(regex.group(19), tokenizer.date, line);
+            assertEquals(regex.group(20), tokenizer.time, line);
+            assertEquals(regex.group(21), tokenizer.name, line);
+        }
+    }
+}
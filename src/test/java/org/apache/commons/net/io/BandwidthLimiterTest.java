@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class BandwidthLimiterTest {
+
+    private static long elapsedMillis(final long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    @Test
+    public void testClose() {
+        final BandwidthLimiter parent = new BandwidthLimiter(1000);
+        final BandwidthLimiter limiter = new BandwidthLimiter(1000, BandwidthLimiter.DEFAULT_BURST, parent);
+        final BandwidthLimiter.Share share = limiter.open(2);
+        assertEquals(1, limiter.getShareCount());
+        assertEquals(1, parent.getShareCount());
+        share.close();
+        share.close();
+        assertEquals(0, limiter.getShareCount());
+        assertEquals(0, parent.getShareCount());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(0));
+        assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(1000, Duration.ofMillis(-1), null));
+        assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(1000).open(0));
+        assertThrows(IllegalArgumentException.class, () -> new BandwidthLimiter(1000).setBytesPerSecond(-1));
+    }
+
+    @Test
+    public void testParentLimits() throws IOException {
+        final BandwidthLimiter parent = new BandwidthLimiter(50_000, Duration.ZERO, null);
+        final BandwidthLimiter limiter = new BandwidthLimiter(1_000_000, Duration.ZERO, parent);
+        final long start = System.nanoTime();
+        try (BandwidthLimiter.Share share = limiter.open(1)) {
+            for (int i = 0; i < 25; i++) {
+                share.acquire(1000);
+            }
+        }
+        assertTrue(elapsedMillis(start) >= 400);
+    }
+
+    @Test
+    public void testRate() throws IOException {
+        final BandwidthLimiter limiter = new BandwidthLimiter(100_000, Duration.ZERO, null);
+        final long start = System.nanoTime();
+        try (BandwidthLimiter.Share share = limiter.open(1)) {
+            for (int i = 0; i < 50; i++) {
+                share.acquire(1000);
+            }
+            assertEquals(50_000, share.getByteCount());
+        }
+        assertTrue(elapsedMillis(start) >= 400);
+    }
+
+    @Test
+    public void testThrottledStreams() throws IOException {
+        final BandwidthLimiter limiter = new BandwidthLimiter(100_000, Duration.ZERO, null);
+        final byte[] data = new byte[30_000];
+        final ByteArrayOutputStream sink = new ByteArrayOutputStream();
+        final long start = System.nanoTime();
+        try (ThrottledInputStream input = new ThrottledInputStream(new ByteArrayInputStream(data), limiter.open(1));
+                ThrottledOutputStream output = new ThrottledOutputStream(sink, limiter.open(1))) {
+            assertEquals(data.length, Util.copyStream(input, output, 1000));
+            assertEquals(data.length, input.getShare().getByteCount());
+            assertEquals(data.length, output.getShare().getByteCount());
+        }
+        // two shares of 30 KB each at 100 KB/s
+        assertTrue(elapsedMillis(start) >= 500);
+        assertArrayEquals(data, sink.toByteArray());
+        assertEquals(0, limiter.getShareCount());
+    }
+
+    @Test
+    public void testWeightedFairShare() throws InterruptedException {
+        final BandwidthLimiter limiter = new BandwidthLimiter(100_000, Duration.ZERO, null);
+        final BandwidthLimiter.Share heavy = limiter.open(3);
+        final BandwidthLimiter.Share light = limiter.open(1);
+        final AtomicBoolean stop = new AtomicBoolean();
+        final Thread[] threads = new Thread[2];
+        final BandwidthLimiter.Share[] shares = { heavy, light };
+        for (int i = 0; i < threads.length; i++) {
+            final BandwidthLimiter.Share share = shares[i];
+            threads[i] = new Thread(() -> {
+                try {
+                    while (!stop.get()) {
+                        share.acquire(1000);
+                    }
+                } catch (final IOException e) {
+                    // stop
+                }
+            });
+            threads[i].start();
+        }
+        Thread.sleep(1000);
+        stop.set(true);
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        heavy.close();
+        light.close();
+        assertTrue(heavy.getByteCount() > 2 * light.getByteCount(), heavy.getByteCount() + " vs " + light.getByteCount());
+        assertTrue(heavy.getByteCount() + light.getByteCount() <= 110_000);
+    }
+}
@@ -17,6 +17,7 @@
 
 package org.apache.commons.net.io;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 
@@ -179,4 +180,94 @@ public class DotTerminatedMessageReaderTest extends TestCase {
         assertEquals("Hello World!" + CRLF + ".text" + CRLF, str.toString());
     }
 
+    public void testBlockBoundaries() throws IOException {
+        // every dot-stuffing case, at every offset relative to the blocks read
+        final StringBuilder body = new StringBuilder();
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            body.append("line ").append(i).append(CRLF).append("..stuffed").append(CRLF).append(".lone").append(CRLF).append(".\rx").append(CRLF);
+            expected.append("line ").append(i).append(CRLF).append(".stuffed").append(CRLF).append(".lone").append(CRLF).append(".\rx").append(CRLF);
+        }
+        final String test = body + DOT + CRLF + "NEXT";
+        for (final int size : new int[] { 1, 2, 3, 7, 64, 8192, 100_000 }) {
+            final BufferedReader underlying = new BufferedReader(new StringReader(test));
+            reader = new DotTerminatedMessageReader(underlying);
+            final char[] buffer = new char[size];
+            final StringBuilder actual = new StringBuilder();
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                actual.append(buffer, 0, read);
+            }
+            assertEquals("buffer " + size, expected.toString(), actual.toString());
+            reader.close();
+        }
+    }
+
+    public void testReadLineBlockBoundaries() throws IOException {
+        final StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            body.append("..").append(i).append(CRLF);
+        }
+        // a line longer than the blocks read by readLine
+        for (int i = 0; i < 300; i++) {
+            body.append("long line ");
+        }
+        body.append(EOM);
+        reader = new DotTerminatedMessageReader(new StringReader(body.toString()));
+        for (int i = 0; i < 500; i++) {
+            assertEquals("." + i, reader.readLine());
+        }
+        assertEquals(3000, reader.readLine().length());
+        assertNull(reader.readLine());
+    }
+
+    public void testCRLFLineReader() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            text.append("bare \r and \n ").append(i).append(CRLF);
+        }
+        text.append("no line end");
+        try (CRLFLineReader lines = new CRLFLineReader(new StringReader(text.toString()))) {
+            for (int i = 0; i < 300; i++) {
+                assertEquals("bare \r and \n " + i, lines.readLine());
+                if (i == 100) {
+                    // readLine does not consume past the line
+                    assertEquals('b', lines.read());
+                    assertEquals("are \r and \n " + ++i, lines.readLine());
+                }
+            }
+            assertEquals("no line end", lines.readLine());
+            assertNull(lines.readLine());
+        }
+    }
+
+    public void testCRLFLineReaderKeepsMark() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("line ").append(i).append(CRLF);
+        }
+        try (CRLFLineReader lines = new CRLFLineReader(new StringReader(text.toString()))) {
+            assertEquals("line 0", lines.readLine());
+            lines.mark(text.length());
+            for (int i = 1; i < 5000; i++) {
+                assertEquals("line " + i, lines.readLine());
+            }
+            assertNull(lines.readLine());
+            lines.reset();
+            assertEquals("line 1", lines.readLine());
+        }
+    }
+
+    public void testKeepsMark() throws IOException {
+        reader = new DotTerminatedMessageReader(new StringReader("one" + CRLF + "..two" + CRLF + ".three" + EOM));
+        reader.mark(100);
+        assertEquals("one", reader.readLine());
+        assertEquals(".two", reader.readLine());
+        reader.reset();
+        assertEquals("one", reader.readLine());
+        assertEquals(".two", reader.readLine());
+        assertEquals(".three", reader.readLine());
+        assertNull(reader.readLine());
+    }
+
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the array reads and writes of the NETASCII streams convert like their single byte reads and writes, across block and buffer boundaries.
+ */
+public class NetASCIIBlockConversionTest {
+
+    private static byte[] readBlocks(final InputStream input, final int bufferSize) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[bufferSize];
+        int count;
+        while ((count = input.read(buffer, 0, bufferSize)) != -1) {
+            result.write(buffer, 0, count);
+        }
+        return result.toByteArray();
+    }
+
+    private static byte[] readBytes(final InputStream input) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        int ch;
+        while ((ch = input.read()) != -1) {
+            result.write(ch);
+        }
+        return result.toByteArray();
+    }
+
+    /** Mostly carriage returns and linefeeds, in runs of all lengths. */
+    private static byte[] sample(final int seed, final int size) {
+        final Random random = new Random(seed);
+        final byte[] data = new byte[size];
+        final byte[] alphabet = { '\r', '\n', 'a', 'b' };
+        for (int i = 0; i < size; i++) {
+            data[i] = alphabet[random.nextInt(alphabet.length)];
+        }
+        return data;
+    }
+
+    private static void testOutput(final Function<OutputStream, OutputStream> factory) throws IOException {
+        for (int seed = 0; seed < 50; seed++) {
+            final byte[] data = sample(seed, seed * 997);
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            try (OutputStream output = factory.apply(expected)) {
+                for (final byte b : data) {
+                    output.write(b);
+                }
+            }
+            for (final int chunk : new int[] { 1, 2, 7, 8192, 20000 }) {
+                final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+                try (OutputStream output = factory.apply(actual)) {
+                    for (int offset = 0; offset < data.length; offset += chunk) {
+                        output.write(data, offset, Math.min(chunk, data.length - offset));
+                    }
+                }
+                assertArrayEquals(expected.toByteArray(), actual.toByteArray(), "seed " + seed + " chunk " + chunk);
+            }
+        }
+    }
+
+    private static void testInput(final Function<InputStream, InputStream> factory) throws IOException {
+        for (int seed = 0; seed < 50; seed++) {
+            final byte[] data = sample(seed, seed * 997);
+            final byte[] expected = readBytes(factory.apply(new ByteArrayInputStream(data)));
+            for (final int bufferSize : new int[] { 1, 2, 3, 64, 8192 }) {
+                assertArrayEquals(expected, readBlocks(factory.apply(new ByteArrayInputStream(data)), bufferSize),
+                        "seed " + seed + " buffer " + bufferSize);
+            }
+        }
+    }
+
+    @Test
+    public void testFromNetASCIIInputStream() throws IOException {
+        testInput(FromNetASCIIInputStream::new);
+    }
+
+    @Test
+    public void testFromNetASCIIOutputStream() throws IOException {
+        testOutput(FromNetASCIIOutputStream::new);
+    }
+
+    @Test
+    public void testToNetASCIIInputStream() throws IOException {
+        testInput(ToNetASCIIInputStream::new);
+    }
+
+    /**
+     * Callers such as the TFTP server take a short read as the end of the stream, so a read fills the array while input is available, as the single byte
+     * reads did.
+     */
+    @Test
+    public void testToNetASCIIInputStreamFillsArray() throws IOException {
+        final byte[] data = new byte[511];
+        Arrays.fill(data, (byte) '0');
+        final byte[] buffer = new byte[512];
+        try (InputStream input = new ToNetASCIIInputStream(new ByteArrayInputStream(data))) {
+            assertEquals(data.length, input.read(buffer));
+        }
+        data[510] = '\n';
+        try (InputStream input = new ToNetASCIIInputStream(new ByteArrayInputStream(data))) {
+            // the linefeed becomes a carriage return and a linefeed, which fill the array
+            assertEquals(buffer.length, input.read(buffer));
+            assertEquals(-1, input.read(buffer));
+        }
+    }
+
+    @Test
+    public void testToNetASCIIOutputStream() throws IOException {
+        testOutput(ToNetASCIIOutputStream::new);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.commons.net.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+public class ReplyDecoderTest {
+
+    /** Returns one byte per read, so that every CRLF is split. */
+    private static final class OneByteInputStream extends ByteArrayInputStream {
+
+        OneByteInputStream(final byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 1));
+        }
+    }
+
+    private static byte[] bytes(final String string) {
+        return string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void readReply(final ReplyDecoder decoder, final int lines) throws IOException {
+        decoder.clear();
+        for (int i = 0; i < lines; i++) {
+            assertTrue(decoder.readLine());
+        }
+    }
+
+    @Test
+    public void testBareCarriageReturnAndLineFeed() throws IOException {
+        final ReplyDecoder decoder = new ReplyDecoder(new ByteArrayInputStream(bytes("200 a\rb\nc\r\r\n")), StandardCharsets.UTF_8);
+        readReply(decoder, 1);
+        assertEquals("200 a\rb\nc\r", decoder.getLine(0));
+        assertFalse(decoder.readLine());
+    }
+
+    @Test
+    public void testBuffers() {
+        final ReplyDecoder decoder = new ReplyDecoder(StandardCharsets.ISO_8859_1);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes("220-Welcome\r"));
+        assertFalse(decoder.readLine(buffer));
+        assertFalse(buffer.hasRemaining());
+        final ByteBuffer direct = ByteBuffer.allocateDirect(64);
+        direct.put(bytes("\n220 Ready\r\n331 Password")).flip();
+        assertTrue(decoder.readLine(direct));
+        assertTrue(decoder.readLine(direct));
+        assertArrayEquals(new String[] { "220-Welcome", "220 Ready" }, decoder.getLines());
+        assertFalse(decoder.readLine(direct));
+        // the line not yet ended belongs to the next reply
+        decoder.clear();
+        assertEquals(0, decoder.getLineCount());
+        assertTrue(decoder.readLine(ByteBuffer.wrap(bytes(" required\r\n"))));
+        assertEquals("331 Password required\r\n", decoder.getText());
+        assertEquals(331, decoder.getReplyCode(0));
+    }
+
+    @Test
+    public void testEndOfStream() throws IOException {
+        final ReplyDecoder decoder = new ReplyDecoder(new ByteArrayInputStream(bytes("221 Bye")), StandardCharsets.UTF_8);
+        readReply(decoder, 1);
+        assertEquals("221 Bye", decoder.getLine(0));
+        assertEquals("221 Bye\r\n", decoder.getText());
+        assertFalse(decoder.readLine());
+        assertEquals(1, decoder.getLineCount());
+        assertThrows(IllegalStateException.class, () -> decoder.readLine(ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    public void testReplies() throws IOException {
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("250-line ").append(i).append("\r\n250 done ").append(i).append(" \u00e9\r\n");
+        }
+        final ReplyDecoder decoder = new ReplyDecoder(new OneByteInputStream(bytes(input.toString())), StandardCharsets.UTF_8);
+        for (int i = 0; i < 100; i++) {
+            readReply(decoder, 2);
+            assertEquals(250, decoder.getReplyCode(0));
+            assertEquals('-', decoder.byteAt(0, 3));
+            assertEquals(' ', decoder.byteAt(1, 3));
+            assertEquals(-1, decoder.byteAt(0, decoder.getLineLength(0)));
+            final String text = decoder.getText();
+            assertEquals("250-line " + i + "\r\n250 done " + i + " \u00e9\r\n", text);
+            assertSame(text, decoder.getText());
+            assertSame(decoder.getLine(1), decoder.getLine(1));
+        }
+        assertFalse(decoder.readLine());
+    }
+
+    @Test
+    public void testReplyCode() throws IOException {
+        final InputStream input = new ByteArrayInputStream(bytes("12\r\n1a3 x\r\n-12 x\r\n999\r\n"));
+        final ReplyDecoder decoder = new ReplyDecoder(input, StandardCharsets.US_ASCII);
+        readReply(decoder, 4);
+        assertEquals(-1, decoder.getReplyCode(0));
+        assertEquals(-1, decoder.getReplyCode(1));
+        assertEquals(-1, decoder.getReplyCode(2));
+        assertEquals(999, decoder.getReplyCode(3));
+        assertThrows(IndexOutOfBoundsException.class, () -> decoder.getLine(4));
+    }
+
+    @Test
+    public void testUnsupportedCharset() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplyDecoder(StandardCharsets.UTF_16));
+    }
+}